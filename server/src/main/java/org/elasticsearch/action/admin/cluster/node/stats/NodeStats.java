@@ -19,6 +19,7 @@
 
 package org.elasticsearch.action.admin.cluster.node.stats;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.support.nodes.BaseNodeResponse;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodeRole;
@@ -29,7 +30,9 @@ import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.discovery.DiscoveryStats;
 import org.elasticsearch.http.HttpStats;
+import org.elasticsearch.index.IndexingPressureStats;
 import org.elasticsearch.indices.NodeIndicesStats;
+import org.elasticsearch.indices.TranslogSyncStats;
 import org.elasticsearch.indices.breaker.AllCircuitBreakerStats;
 import org.elasticsearch.ingest.IngestStats;
 import org.elasticsearch.monitor.fs.FsInfo;
@@ -90,6 +93,12 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
     @Nullable
     private AdaptiveSelectionStats adaptiveSelectionStats;
 
+    @Nullable
+    private IndexingPressureStats indexingPressureStats;
+
+    @Nullable
+    private TranslogSyncStats translogSyncStats;
+
     public NodeStats(StreamInput in) throws IOException {
         super(in);
         timestamp = in.readVLong();
@@ -108,6 +117,13 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
         discoveryStats = in.readOptionalWriteable(DiscoveryStats::new);
         ingestStats = in.readOptionalWriteable(IngestStats::new);
         adaptiveSelectionStats = in.readOptionalWriteable(AdaptiveSelectionStats::new);
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            indexingPressureStats = in.readOptionalWriteable(IndexingPressureStats::new);
+            translogSyncStats = in.readOptionalWriteable(TranslogSyncStats::new);
+        } else {
+            indexingPressureStats = null;
+            translogSyncStats = null;
+        }
     }
 
     public NodeStats(DiscoveryNode node, long timestamp, @Nullable NodeIndicesStats indices,
@@ -117,7 +133,9 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
                      @Nullable ScriptStats scriptStats,
                      @Nullable DiscoveryStats discoveryStats,
                      @Nullable IngestStats ingestStats,
-                     @Nullable AdaptiveSelectionStats adaptiveSelectionStats) {
+                     @Nullable AdaptiveSelectionStats adaptiveSelectionStats,
+                     @Nullable IndexingPressureStats indexingPressureStats,
+                     @Nullable TranslogSyncStats translogSyncStats) {
         super(node);
         this.timestamp = timestamp;
         this.indices = indices;
@@ -133,6 +151,8 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
         this.discoveryStats = discoveryStats;
         this.ingestStats = ingestStats;
         this.adaptiveSelectionStats = adaptiveSelectionStats;
+        this.indexingPressureStats = indexingPressureStats;
+        this.translogSyncStats = translogSyncStats;
     }
 
     public long getTimestamp() {
@@ -227,6 +247,19 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
         return adaptiveSelectionStats;
     }
 
+    @Nullable
+    public IndexingPressureStats getIndexingPressureStats() {
+        return indexingPressureStats;
+    }
+
+    /**
+     * Statistics of the translog syncs that are batched across the shards of each data path.
+     */
+    @Nullable
+    public TranslogSyncStats getTranslogSyncStats() {
+        return translogSyncStats;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         super.writeTo(out);
@@ -249,6 +282,10 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
         out.writeOptionalWriteable(discoveryStats);
         out.writeOptionalWriteable(ingestStats);
         out.writeOptionalWriteable(adaptiveSelectionStats);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeOptionalWriteable(indexingPressureStats);
+            out.writeOptionalWriteable(translogSyncStats);
+        }
     }
 
     @Override
@@ -312,6 +349,12 @@ public class NodeStats extends BaseNodeResponse implements ToXContentFragment {
         if (getAdaptiveSelectionStats() != null) {
             getAdaptiveSelectionStats().toXContent(builder, params);
         }
+        if (getIndexingPressureStats() != null) {
+            getIndexingPressureStats().toXContent(builder, params);
+        }
+        if (getTranslogSyncStats() != null) {
+            getTranslogSyncStats().toXContent(builder, params);
+        }
         return builder;
     }
 }
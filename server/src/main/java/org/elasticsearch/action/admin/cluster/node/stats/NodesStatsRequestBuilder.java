@@ -149,4 +149,20 @@ public class NodesStatsRequestBuilder
         return this;
     }
 
+    /**
+     * Should indexing pressure statistics be returned.
+     */
+    public NodesStatsRequestBuilder setIndexingPressure(boolean indexingPressure) {
+        request.indexingPressure(indexingPressure);
+        return this;
+    }
+
+    /**
+     * Should statistics of the translog syncs that are batched across shards be returned.
+     */
+    public NodesStatsRequestBuilder setTranslogSync(boolean translogSync) {
+        request.translogSync(translogSync);
+        return this;
+    }
+
 }
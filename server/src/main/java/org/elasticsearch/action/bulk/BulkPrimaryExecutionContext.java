@@ -25,8 +25,10 @@ import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.support.replication.ReplicationResponse;
 import org.elasticsearch.action.support.replication.TransportWriteAction;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.PreParsedDocument;
 import org.elasticsearch.index.translog.Translog;
 
 import java.util.Arrays;
@@ -75,7 +77,11 @@ class BulkPrimaryExecutionContext {
     private DocWriteRequest requestToExecute;
     private BulkItemResponse executionResult;
     private int retryCounter;
-
+    // the items in [preParsedFrom, preParsedUpTo) were considered for parsing ahead of their execution
+    private int preParsedFrom = 0;
+    private int preParsedUpTo = 0;
+    // the documents of these items that were parsed ahead of their execution, by item index - preParsedFrom
+    private PreParsedDocument[] preParsedDocuments;
 
     BulkPrimaryExecutionContext(BulkShardRequest request, IndexShard primary) {
         this.request = request;
@@ -189,6 +195,41 @@ class BulkPrimaryExecutionContext {
         return primary;
     }
 
+    /** returns the index of the current item */
+    public int getCurrentIndex() {
+        return currentIndex;
+    }
+
+    /** returns true if the current item wasn't considered for parsing ahead of its execution yet */
+    public boolean requiresPreParsing() {
+        return currentIndex >= preParsedUpTo;
+    }
+
+    /**
+     * sets the documents of the items in {@code [from, upTo)} that were parsed ahead of their execution, by item index - from,
+     * or {@code null} if none were parsed. This replaces and releases the documents of the previous items.
+     */
+    public void setPreParsedDocuments(int from, int upTo, @Nullable PreParsedDocument[] preParsedDocuments) {
+        assert from == currentIndex && from < upTo && upTo <= request.items().length;
+        assert preParsedDocuments == null || preParsedDocuments.length == upTo - from;
+        this.preParsedFrom = from;
+        this.preParsedUpTo = upTo;
+        this.preParsedDocuments = preParsedDocuments;
+    }
+
+    /**
+     * returns the pre-parsed document of the current item, or {@code null} if there is none. A pre-parsed document is only
+     * returned once, retries parse the document again.
+     */
+    public PreParsedDocument takePreParsedDocument() {
+        if (preParsedDocuments == null || currentIndex < preParsedFrom || currentIndex >= preParsedUpTo) {
+            return null;
+        }
+        final PreParsedDocument preParsedDocument = preParsedDocuments[currentIndex - preParsedFrom];
+        preParsedDocuments[currentIndex - preParsedFrom] = null;
+        return preParsedDocument;
+    }
+
     /**
      * sets the request that should actually be executed on the primary. This can be different then the request
      * received from the user (specifically, an update request is translated to an indexing or delete request).
@@ -83,7 +83,9 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
         waitForActiveShards = ActiveShardCount.readFrom(in);
         int size = in.readVInt();
         for (int i = 0; i < size; i++) {
-            requests.add(DocWriteRequest.readDocumentRequest(in));
+            DocWriteRequest<?> request = DocWriteRequest.readDocumentRequest(in);
+            requests.add(request);
+            sizeInBytes += estimatedSizeInBytes(request);
         }
         refreshPolicy = RefreshPolicy.readFrom(in);
         timeout = in.readTimeValue();
@@ -146,7 +148,7 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
 
         requests.add(request);
         // lack of source is validated in validate() method
-        sizeInBytes += (request.source() != null ? request.source().length() : 0) + REQUEST_OVERHEAD;
+        sizeInBytes += estimatedSizeInBytes(request);
         indices.add(request.index());
         return this;
     }
@@ -163,15 +165,7 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
         applyGlobalMandatoryParameters(request);
 
         requests.add(request);
-        if (request.doc() != null) {
-            sizeInBytes += request.doc().source().length();
-        }
-        if (request.upsertRequest() != null) {
-            sizeInBytes += request.upsertRequest().source().length();
-        }
-        if (request.script() != null) {
-            sizeInBytes += request.script().getIdOrCode().length() * 2;
-        }
+        sizeInBytes += estimatedSizeInBytes(request);
         indices.add(request.index());
         return this;
     }
@@ -184,7 +178,7 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
         applyGlobalMandatoryParameters(request);
 
         requests.add(request);
-        sizeInBytes += REQUEST_OVERHEAD;
+        sizeInBytes += estimatedSizeInBytes(request);
         indices.add(request.index());
         return this;
     }
@@ -210,6 +204,31 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
         return sizeInBytes;
     }
 
+    /**
+     * The estimated size in bytes of a single item of a bulk request.
+     */
+    static long estimatedSizeInBytes(DocWriteRequest<?> request) {
+        if (request instanceof IndexRequest) {
+            IndexRequest indexRequest = (IndexRequest) request;
+            return (indexRequest.source() != null ? indexRequest.source().length() : 0) + REQUEST_OVERHEAD;
+        } else if (request instanceof UpdateRequest) {
+            UpdateRequest updateRequest = (UpdateRequest) request;
+            long size = 0;
+            if (updateRequest.doc() != null) {
+                size += updateRequest.doc().source().length();
+            }
+            if (updateRequest.upsertRequest() != null) {
+                size += updateRequest.upsertRequest().source().length();
+            }
+            if (updateRequest.script() != null) {
+                size += updateRequest.script().getIdOrCode().length() * 2;
+            }
+            return size;
+        } else {
+            return REQUEST_OVERHEAD;
+        }
+    }
+
     /**
      * Adds a framed data in binary format
      */
@@ -24,12 +24,13 @@ import org.elasticsearch.action.support.replication.ReplicationRequest;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.transport.RawDataTransportRequest;
 
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
 
-public class BulkShardRequest extends ReplicatedWriteRequest<BulkShardRequest> {
+public class BulkShardRequest extends ReplicatedWriteRequest<BulkShardRequest> implements RawDataTransportRequest {
 
     private BulkItemRequest[] items;
 
@@ -53,6 +54,24 @@ public class BulkShardRequest extends ReplicatedWriteRequest<BulkShardRequest> {
         return items;
     }
 
+    /**
+     * The estimated size in bytes of the items of this request, see {@link BulkRequest#estimatedSizeInBytes()}.
+     */
+    public long estimatedSizeInBytes() {
+        long sizeInBytes = 0;
+        for (BulkItemRequest item : items) {
+            if (item != null) {
+                sizeInBytes += BulkRequest.estimatedSizeInBytes(item.request());
+            }
+        }
+        return sizeInBytes;
+    }
+
+    @Override
+    public long rawDataSizeInBytes() {
+        return estimatedSizeInBytes();
+    }
+
     @Override
     public String[] indices() {
         // A bulk shard request encapsulates items targeted at a specific shard of an index.
@@ -51,11 +51,17 @@ import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.IndexingPressure;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.VersionConflictEngineException;
 import org.elasticsearch.index.get.GetResult;
@@ -64,6 +70,7 @@ import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.SourceToParse;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.PreParsedDocument;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.indices.IndicesService;
@@ -74,7 +81,11 @@ import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.LongSupplier;
 
@@ -86,17 +97,41 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
 
     private static final Logger logger = LogManager.getLogger(TransportShardBulkAction.class);
 
+    // the minimum number of documents to parse per thread when documents are parsed in parallel
+    static final int MIN_DOCUMENTS_PER_PARSER = 8;
+
+    // the maximum size of the sources of the documents that are parsed ahead of their execution at once
+    static final long MAX_PRE_PARSED_BYTES = new ByteSizeValue(8, ByteSizeUnit.MB).getBytes();
+
     private final UpdateHelper updateHelper;
     private final MappingUpdatedAction mappingUpdatedAction;
+    private final IndexingPressure indexingPressure;
 
     @Inject
     public TransportShardBulkAction(Settings settings, TransportService transportService, ClusterService clusterService,
                                     IndicesService indicesService, ThreadPool threadPool, ShardStateAction shardStateAction,
-                                    MappingUpdatedAction mappingUpdatedAction, UpdateHelper updateHelper, ActionFilters actionFilters) {
+                                    MappingUpdatedAction mappingUpdatedAction, UpdateHelper updateHelper, ActionFilters actionFilters,
+                                    IndexingPressure indexingPressure) {
         super(settings, ACTION_NAME, transportService, clusterService, indicesService, threadPool, shardStateAction, actionFilters,
             BulkShardRequest::new, BulkShardRequest::new, ThreadPool.Names.WRITE, false);
         this.updateHelper = updateHelper;
         this.mappingUpdatedAction = mappingUpdatedAction;
+        this.indexingPressure = indexingPressure;
+    }
+
+    @Override
+    protected Releasable checkPrimaryLimits(BulkShardRequest request, boolean localToCoordinatingNode) {
+        if (localToCoordinatingNode) {
+            // the bytes of the request are already accounted for by the coordinating node
+            return indexingPressure.markPrimaryOperationLocalToCoordinatingNodeStarted(request.estimatedSizeInBytes());
+        } else {
+            return indexingPressure.markPrimaryOperationStarted(request.estimatedSizeInBytes(), false);
+        }
+    }
+
+    @Override
+    protected Releasable checkReplicaLimits(BulkShardRequest request) {
+        return indexingPressure.markReplicaOperationStarted(request.estimatedSizeInBytes(), false);
     }
 
     @Override
@@ -153,9 +188,14 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
 
             private final BulkPrimaryExecutionContext context = new BulkPrimaryExecutionContext(request, primary);
 
+            private final boolean parallelParsing = primary.indexSettings().getValue(IndexSettings.INDEX_BULK_PARALLEL_PARSING_SETTING);
+
             @Override
             protected void doRun() throws Exception {
                 while (context.hasMoreOperationsToExecute()) {
+                    if (parallelParsing && context.requiresPreParsing()) {
+                        preParseDocuments(context, executor, threadPool.info(ThreadPool.Names.WRITE).getMax());
+                    }
                     if (executeBulkItemRequest(context, updateHelper, nowInMillisSupplier, mappingUpdater, waitForMappingUpdate,
                         ActionListener.wrap(v -> executor.execute(this), this::onRejection)) == false) {
                         // We are waiting for a mapping update on another thread, that will invoke this action again once its done
@@ -191,6 +231,131 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         }.run();
     }
 
+    /**
+     * Parses the documents of the index requests from the current item on into {@link PreParsedDocument}s, until their sources add
+     * up to {@link #MAX_PRE_PARSED_BYTES}, so that large shard bulks can use more than one core for parsing without holding all
+     * their parsed documents at once. The documents are parsed on the calling thread and on up to {@code maxParallelism - 1} tasks
+     * on the given executor, but only if the executor has idle threads and no queued tasks so that parsing never delays other
+     * write requests. The calling thread takes part in the parsing and only waits for the documents that other threads are still
+     * parsing, so this completes even if the executor doesn't run the tasks. The documents are then indexed one after the other
+     * as usual, and are parsed again if the mapping changed in the meantime.
+     */
+    static void preParseDocuments(BulkPrimaryExecutionContext context, Executor executor, int maxParallelism) {
+        final BulkItemRequest[] items = context.getBulkShardRequest().items();
+        final int from = context.getCurrentIndex();
+        int numDocuments = 0;
+        long bytes = 0;
+        int upTo = from;
+        while (upTo < items.length && bytes < MAX_PRE_PARSED_BYTES) {
+            if (isPreParseable(items[upTo])) {
+                numDocuments++;
+                bytes += ((IndexRequest) items[upTo].request()).source().length();
+            }
+            upTo++;
+        }
+        final int helpers = idleThreads(executor, Math.min(maxParallelism, numDocuments / MIN_DOCUMENTS_PER_PARSER) - 1);
+        if (helpers <= 0) {
+            // parsing on the calling thread alone doesn't save anything, the documents are parsed while executing them
+            context.setPreParsedDocuments(from, upTo, null);
+            return;
+        }
+        final int[] itemIds = new int[numDocuments];
+        for (int i = from, j = 0; i < upTo; i++) {
+            if (isPreParseable(items[i])) {
+                itemIds[j++] = i;
+            }
+        }
+        final DocumentParser documentParser = new DocumentParser(context.getPrimary(), items, from, upTo - from, itemIds);
+        // tasks that only run once the documents are parsed must not keep the documents alive
+        final AtomicReference<DocumentParser> parserRef = new AtomicReference<>(documentParser);
+        final Runnable helper = () -> {
+            final DocumentParser parser = parserRef.get();
+            if (parser != null) {
+                parser.run();
+            }
+        };
+        for (int i = 0; i < helpers; i++) {
+            try {
+                executor.execute(helper);
+            } catch (EsRejectedExecutionException e) {
+                // the calling thread parses the remaining documents
+                break;
+            }
+        }
+        documentParser.run();
+        try {
+            documentParser.parsed.await();
+        } catch (InterruptedException e) {
+            // parse the documents again while executing them
+            Thread.currentThread().interrupt();
+            context.setPreParsedDocuments(from, upTo, null);
+            return;
+        } finally {
+            parserRef.set(null);
+        }
+        context.setPreParsedDocuments(from, upTo, documentParser.preParsedDocuments);
+    }
+
+    private static boolean isPreParseable(BulkItemRequest item) {
+        return item.getPrimaryResponse() == null && item.request() instanceof IndexRequest;
+    }
+
+    /**
+     * Returns how many of the wanted tasks the given executor can run right away, that is without queueing them behind other tasks.
+     */
+    static int idleThreads(Executor executor, int wanted) {
+        if (wanted <= 0) {
+            return 0;
+        }
+        if (executor instanceof ThreadPoolExecutor) {
+            final ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) executor;
+            if (threadPoolExecutor.getQueue().isEmpty() == false) {
+                return 0;
+            }
+            return Math.min(wanted, threadPoolExecutor.getMaximumPoolSize() - threadPoolExecutor.getActiveCount());
+        }
+        return wanted;
+    }
+
+    /**
+     * Parses the documents of a range of items. Threads claim the documents one by one, so that any number of threads can share
+     * the work.
+     */
+    private static final class DocumentParser implements Runnable {
+
+        private final IndexShard primary;
+        private final BulkItemRequest[] items;
+        private final int from;
+        private final int[] itemIds;
+        // the parsed documents by item index - from
+        private final PreParsedDocument[] preParsedDocuments;
+        private final AtomicInteger nextDocument = new AtomicInteger();
+        private final CountDownLatch parsed;
+
+        DocumentParser(IndexShard primary, BulkItemRequest[] items, int from, int numItems, int[] itemIds) {
+            this.primary = primary;
+            this.items = items;
+            this.from = from;
+            this.itemIds = itemIds;
+            this.preParsedDocuments = new PreParsedDocument[numItems];
+            this.parsed = new CountDownLatch(itemIds.length);
+        }
+
+        @Override
+        public void run() {
+            int i;
+            while ((i = nextDocument.getAndIncrement()) < itemIds.length) {
+                try {
+                    final IndexRequest request = (IndexRequest) items[itemIds[i]].request();
+                    preParsedDocuments[itemIds[i] - from] = primary.preParseDocument(new SourceToParse(
+                        request.index(), request.id(), request.source(), request.getContentType(), request.routing()));
+                } finally {
+                    parsed.countDown();
+                }
+            }
+        }
+    }
+
     /**
      * Executes bulk item requests and handles request execution exceptions.
      * @return {@code true} if request completed on this thread and the listener was invoked, {@code false} if the request triggered
@@ -253,9 +418,16 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
                 request.ifSeqNo(), request.ifPrimaryTerm());
         } else {
             final IndexRequest request = context.getRequestToExecute();
-            result = primary.applyIndexOperationOnPrimary(version, request.versionType(), new SourceToParse(
-                    request.index(), request.id(), request.source(), request.getContentType(), request.routing()),
-                    request.ifSeqNo(), request.ifPrimaryTerm(), request.getAutoGeneratedTimestamp(), request.isRetry());
+            final SourceToParse sourceToParse = new SourceToParse(
+                request.index(), request.id(), request.source(), request.getContentType(), request.routing());
+            final PreParsedDocument preParsedDocument = context.takePreParsedDocument();
+            if (preParsedDocument != null) {
+                result = primary.applyIndexOperationOnPrimary(version, request.versionType(), sourceToParse, request.ifSeqNo(),
+                    request.ifPrimaryTerm(), request.getAutoGeneratedTimestamp(), request.isRetry(), preParsedDocument);
+            } else {
+                result = primary.applyIndexOperationOnPrimary(version, request.versionType(), sourceToParse, request.ifSeqNo(),
+                    request.ifPrimaryTerm(), request.getAutoGeneratedTimestamp(), request.isRetry());
+            }
         }
         if (result.getResultType() == Engine.Result.Type.MAPPING_UPDATE_REQUIRED) {
 
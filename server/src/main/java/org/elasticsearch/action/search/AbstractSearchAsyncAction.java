@@ -32,6 +32,7 @@ import org.elasticsearch.action.support.TransportActions;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.index.shard.ShardId;
@@ -46,6 +47,7 @@ import org.elasticsearch.transport.Transport;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -195,10 +197,75 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
                     throw new SearchPhaseExecutionException(getName(), msg, null, ShardSearchFailure.EMPTY_ARRAY);
                 }
             }
-            for (int index = 0; index < shardsIts.size(); index++) {
-                final SearchShardIterator shardRoutings = shardsIts.get(index);
-                assert shardRoutings.skip() == false;
-                performPhaseOnShard(index, shardRoutings, shardRoutings.nextOrNull());
+            final NodePhaseExecutor<Result> nodePhaseExecutor = nodePhaseExecutor();
+            if (nodePhaseExecutor != null) {
+                performPhaseOnNodes(nodePhaseExecutor);
+            } else {
+                for (int index = 0; index < shardsIts.size(); index++) {
+                    final SearchShardIterator shardRoutings = shardsIts.get(index);
+                    assert shardRoutings.skip() == false;
+                    performPhaseOnShard(index, shardRoutings, shardRoutings.nextOrNull());
+                }
+            }
+        }
+    }
+
+    /**
+     * Groups the first copy of each shard by the node that holds it and sends a single request per node. Nodes that hold a single
+     * shard get a regular shard request, and failed shards are retried on their next copy with regular shard requests.
+     */
+    private void performPhaseOnNodes(NodePhaseExecutor<Result> nodePhaseExecutor) {
+        final Map<Tuple<String, String>, List<Integer>> shardIndicesPerNode = new LinkedHashMap<>();
+        final ShardRouting[] firstCopies = new ShardRouting[shardsIts.size()];
+        for (int index = 0; index < shardsIts.size(); index++) {
+            final SearchShardIterator shardRoutings = shardsIts.get(index);
+            assert shardRoutings.skip() == false;
+            final ShardRouting shard = shardRoutings.nextOrNull();
+            if (shard == null) {
+                performPhaseOnShard(index, shardRoutings, null);
+            } else {
+                firstCopies[index] = shard;
+                shardIndicesPerNode.computeIfAbsent(new Tuple<>(shardRoutings.getClusterAlias(), shard.currentNodeId()),
+                    k -> new ArrayList<>()).add(index);
+            }
+        }
+        for (Map.Entry<Tuple<String, String>, List<Integer>> entry : shardIndicesPerNode.entrySet()) {
+            final List<Integer> shardIndices = entry.getValue();
+            if (shardIndices.size() == 1) {
+                final int index = shardIndices.get(0);
+                performPhaseOnShard(index, shardsIts.get(index), firstCopies[index]);
+                continue;
+            }
+            final String clusterAlias = entry.getKey().v1();
+            final String nodeId = entry.getKey().v2();
+            final List<SearchShardIterator> nodeShardIts = new ArrayList<>(shardIndices.size());
+            final List<SearchActionListener<Result>> listeners = new ArrayList<>(shardIndices.size());
+            for (int index : shardIndices) {
+                final SearchShardIterator shardIt = shardsIts.get(index);
+                final ShardRouting shard = firstCopies[index];
+                nodeShardIts.add(shardIt);
+                listeners.add(new SearchActionListener<Result>(shardIt.newSearchShardTarget(nodeId), index) {
+                    @Override
+                    public void innerOnResponse(Result result) {
+                        onShardResult(result, shardIt);
+                    }
+
+                    @Override
+                    public void onFailure(Exception t) {
+                        onShardFailure(index, shard, nodeId, shardIt, t);
+                    }
+                });
+            }
+            try {
+                nodePhaseExecutor.executePhaseOnNode(clusterAlias, nodeId, nodeShardIts, listeners);
+            } catch (final Exception e) {
+                // same as for a single shard, this moves every shard of the node to its next copy
+                for (int i = 0; i < shardIndices.size(); i++) {
+                    final int index = shardIndices.get(i);
+                    final SearchShardIterator shardIt = nodeShardIts.get(i);
+                    final ShardRouting shard = firstCopies[index];
+                    fork(() -> onShardFailure(index, shard, nodeId, shardIt, e));
+                }
             }
         }
     }
@@ -275,6 +342,31 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
      */
     protected abstract void executePhaseOnShard(SearchShardIterator shardIt, ShardRouting shard, SearchActionListener<Result> listener);
 
+    /**
+     * Returns the executor that sends the initial requests of all the shards held by the same node as a single request, or
+     * {@code null} if the requests of this phase are sent to each shard on its own.
+     */
+    @Nullable
+    protected NodePhaseExecutor<Result> nodePhaseExecutor() {
+        return null;
+    }
+
+    /**
+     * Sends the requests of several shards held by the same node at once.
+     */
+    @FunctionalInterface
+    protected interface NodePhaseExecutor<Result extends SearchPhaseResult> {
+        /**
+         * Sends the requests of several shards held by the same node at once.
+         * @param clusterAlias the alias of the cluster of the node
+         * @param nodeId the id of the node that holds the shards
+         * @param shardIts the shard iterators, positioned on the copy held by the node
+         * @param listeners the listeners to notify on the response of each shard, in the same order as the shard iterators
+         */
+        void executePhaseOnNode(@Nullable String clusterAlias, String nodeId, List<SearchShardIterator> shardIts,
+                                List<SearchActionListener<Result>> listeners);
+    }
+
     private void fork(final Runnable runnable) {
         executor.execute(new AbstractRunnable() {
             @Override
@@ -612,6 +704,7 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         // than creating an empty response in the search thread pool.
         // Note that, we have to disable this shortcut for scroll queries.
         shardRequest.canReturnNullResponseIfMatchNoDocs(hasShardResponse.get() && request.scroll() == null);
+        shardRequest.readerId(shardIt.getReaderId());
         return shardRequest;
     }
 
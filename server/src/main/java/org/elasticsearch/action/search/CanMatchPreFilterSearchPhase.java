@@ -31,6 +31,7 @@ import org.elasticsearch.search.sort.MinAndMax;
 import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.transport.Transport;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
@@ -101,22 +102,38 @@ final class CanMatchPreFilterSearchPhase extends AbstractSearchAsyncAction<CanMa
             possibleMatches.set(0);
         }
         SearchSourceBuilder source = getRequest().source();
+        // shards that were already skipped on the coordinating node were not sent a can_match request and
+        // have no slot in the results, the shard index of a result only counts the shards that were sent one
+        final List<SearchShardIterator> candidates = new ArrayList<>(shardsIts.size());
+        final List<SearchShardIterator> preSkipped = new ArrayList<>();
         int i = 0;
         for (SearchShardIterator iter : shardsIts) {
+            if (iter.skip()) {
+                preSkipped.add(iter);
+                continue;
+            }
             if (possibleMatches.get(i++)) {
                 iter.reset();
             } else {
                 iter.resetAndSkip();
             }
+            candidates.add(iter);
         }
-        if (shouldSortShards(results.minAndMaxes) == false) {
+        if (preSkipped.isEmpty() && shouldSortShards(results.minAndMaxes) == false) {
             return shardsIts;
         }
-        FieldSortBuilder fieldSort = FieldSortBuilder.getPrimaryFieldSortOrNull(source);
-        return new GroupShardsIterator<>(sortShards(shardsIts, results.minAndMaxes, fieldSort.order()), false);
+        final List<SearchShardIterator> iterators;
+        if (shouldSortShards(results.minAndMaxes)) {
+            FieldSortBuilder fieldSort = FieldSortBuilder.getPrimaryFieldSortOrNull(source);
+            iterators = sortShards(candidates, results.minAndMaxes, fieldSort.order());
+        } else {
+            iterators = candidates;
+        }
+        iterators.addAll(preSkipped);
+        return new GroupShardsIterator<>(iterators, false);
     }
 
-    private static List<SearchShardIterator> sortShards(GroupShardsIterator<SearchShardIterator> shardsIts,
+    private static List<SearchShardIterator> sortShards(List<SearchShardIterator> shardsIts,
                                                         MinAndMax<?>[] minAndMaxes,
                                                         SortOrder order) {
         return IntStream.range(0, shardsIts.size())
@@ -130,7 +147,7 @@ final class CanMatchPreFilterSearchPhase extends AbstractSearchAsyncAction<CanMa
         return Arrays.stream(minAndMaxes).anyMatch(Objects::nonNull);
     }
 
-    private static Comparator<Integer> shardComparator(GroupShardsIterator<SearchShardIterator> shardsIts,
+    private static Comparator<Integer> shardComparator(List<SearchShardIterator> shardsIts,
                                                        MinAndMax<?>[] minAndMaxes,
                                                        SortOrder order) {
         final Comparator<Integer> comparator = Comparator.comparing(index -> minAndMaxes[index],  MinAndMax.getComparator(order));
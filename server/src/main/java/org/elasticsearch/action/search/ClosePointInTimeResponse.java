@@ -0,0 +1,39 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+
+import java.io.IOException;
+
+/**
+ * The response of a close point in time request. It reports how many reader contexts were freed
+ * in the same way a clear scroll response reports the freed search contexts.
+ */
+public class ClosePointInTimeResponse extends ClearScrollResponse {
+
+    public ClosePointInTimeResponse(boolean succeeded, int numFreed) {
+        super(succeeded, numFreed);
+    }
+
+    public ClosePointInTimeResponse(StreamInput in) throws IOException {
+        super(in);
+    }
+}
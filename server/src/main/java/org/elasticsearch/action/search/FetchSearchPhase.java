@@ -146,7 +146,7 @@ final class FetchSearchPhase extends SearchPhase {
                         ShardFetchSearchRequest fetchSearchRequest = createFetchRequest(queryResult.queryResult().getRequestId(), i, entry,
                             lastEmittedDocPerShard, searchShardTarget.getOriginalIndices());
                         executeFetch(i, searchShardTarget, counter, fetchSearchRequest, queryResult.queryResult(),
-                            connection);
+                            connection, reducedQueryPhase);
                     }
                 }
             }
@@ -162,13 +162,16 @@ final class FetchSearchPhase extends SearchPhase {
     private void executeFetch(final int shardIndex, final SearchShardTarget shardTarget,
                               final CountedCollector<FetchSearchResult> counter,
                               final ShardFetchSearchRequest fetchSearchRequest, final QuerySearchResult querySearchResult,
-                              final Transport.Connection connection) {
+                              final Transport.Connection connection,
+                              final SearchPhaseController.ReducedQueryPhase reducedQueryPhase) {
         context.getSearchTransport().sendExecuteFetch(connection, fetchSearchRequest, context.getTask(),
             new SearchActionListener<FetchSearchResult>(shardTarget, shardIndex) {
                 @Override
                 public void innerOnResponse(FetchSearchResult result) {
                     try {
                         progressListener.notifyFetchResult(shardIndex);
+                        progressListener.notifyPartialHits(() -> searchPhaseController.getPartialHits(reducedQueryPhase,
+                            context.getNumShards(), i -> i == shardIndex ? result : fetchResults.get(i)));
                         counter.onResult(result);
                     } catch (Exception e) {
                         context.onPhaseFailure(FetchSearchPhase.this, "", e);
@@ -0,0 +1,86 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The decoded form of a point in time id: the original index expressions the point in time was opened
+ * with and, for each shard, the node and reader context that hold its pinned searcher.
+ */
+final class SearchContextId {
+    private final String[] indices;
+    private final Map<ShardId, SearchContextIdForNode> shards;
+
+    SearchContextId(String[] indices, Map<ShardId, SearchContextIdForNode> shards) {
+        this.indices = indices;
+        this.shards = Collections.unmodifiableMap(shards);
+    }
+
+    String[] indices() {
+        return indices;
+    }
+
+    Map<ShardId, SearchContextIdForNode> shards() {
+        return shards;
+    }
+
+    static String encode(String[] indices, Map<ShardId, SearchContextIdForNode> shards, Version version) {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            Version.writeVersion(version, out);
+            out.writeStringArray(indices);
+            out.writeMap(shards, (o, k) -> k.writeTo(o), (o, v) -> v.writeTo(o));
+            return Base64.getUrlEncoder().encodeToString(BytesReference.toBytes(out.bytes()));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    static SearchContextId decode(String id) {
+        final byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(id);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid point in time id [" + id + "]", e);
+        }
+        try (StreamInput in = StreamInput.wrap(bytes)) {
+            final Version version = Version.readVersion(in);
+            in.setVersion(version);
+            final String[] indices = in.readStringArray();
+            final Map<ShardId, SearchContextIdForNode> shards = in.readMap(ShardId::new, SearchContextIdForNode::new);
+            if (in.available() > 0) {
+                throw new IllegalArgumentException("Not all bytes were read");
+            }
+            return new SearchContextId(indices, shards);
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("invalid point in time id [" + id + "]", e);
+        }
+    }
+}
@@ -337,23 +337,12 @@ public final class SearchPhaseController {
     private SearchHits getHits(ReducedQueryPhase reducedQueryPhase, boolean ignoreFrom,
                                Collection<? extends SearchPhaseResult> fetchResults, IntFunction<SearchPhaseResult> resultsLookup) {
         SortedTopDocs sortedTopDocs = reducedQueryPhase.sortedTopDocs;
-        int sortScoreIndex = -1;
-        if (sortedTopDocs.isSortedByField) {
-            SortField[] sortFields = sortedTopDocs.sortFields;
-            for (int i = 0; i < sortFields.length; i++) {
-                if (sortFields[i].getType() == SortField.Type.SCORE) {
-                    sortScoreIndex = i;
-                }
-            }
-        }
+        int sortScoreIndex = getSortScoreIndex(sortedTopDocs);
         // clean the fetch counter
         for (SearchPhaseResult entry : fetchResults) {
             entry.fetchResult().initCounter();
         }
-        int from = ignoreFrom ? 0 : reducedQueryPhase.from;
-        int numSearchHits = (int) Math.min(reducedQueryPhase.fetchHits - from, reducedQueryPhase.size);
-        // with collapsing we can have more fetch hits than sorted docs
-        numSearchHits = Math.min(sortedTopDocs.scoreDocs.length, numSearchHits);
+        int numSearchHits = getNumSearchHits(reducedQueryPhase, ignoreFrom);
         // merge hits
         List<SearchHit> hits = new ArrayList<>();
         if (!fetchResults.isEmpty()) {
@@ -371,24 +360,75 @@ public final class SearchPhaseController {
                 final int index = fetchResult.counterGetAndIncrement();
                 assert index < fetchResult.hits().getHits().length : "not enough hits fetched. index [" + index + "] length: "
                     + fetchResult.hits().getHits().length;
-                SearchHit searchHit = fetchResult.hits().getHits()[index];
-                searchHit.shard(fetchResult.getSearchShardTarget());
-                if (sortedTopDocs.isSortedByField) {
-                    FieldDoc fieldDoc = (FieldDoc) shardDoc;
-                    searchHit.sortValues(fieldDoc.fields, reducedQueryPhase.sortValueFormats);
-                    if (sortScoreIndex != -1) {
-                        searchHit.score(((Number) fieldDoc.fields[sortScoreIndex]).floatValue());
-                    }
-                } else {
-                    searchHit.score(shardDoc.score);
-                }
-                hits.add(searchHit);
+                hits.add(toSearchHit(reducedQueryPhase, sortScoreIndex, shardDoc, fetchResult, index));
+            }
+        }
+        return new SearchHits(hits.toArray(new SearchHit[0]), reducedQueryPhase.totalHits,
+            reducedQueryPhase.maxScore, sortedTopDocs.sortFields, sortedTopDocs.collapseField, sortedTopDocs.collapseValues);
+    }
+
+    /**
+     * Returns the hits of the fetch results that are available so far, in the order of the final response. Hits of shards that did not
+     * return their fetch result yet are omitted. Unlike {@link #merge} this method doesn't consume the fetch results so it can be called
+     * while the fetch phase is still running.
+     */
+    SearchHits getPartialHits(ReducedQueryPhase reducedQueryPhase, int numShards, IntFunction<SearchPhaseResult> resultsLookup) {
+        SortedTopDocs sortedTopDocs = reducedQueryPhase.sortedTopDocs;
+        int sortScoreIndex = getSortScoreIndex(sortedTopDocs);
+        int numSearchHits = getNumSearchHits(reducedQueryPhase, false);
+        // the position of the next hit of each shard in its fetch result
+        int[] shardPositions = new int[numShards];
+        List<SearchHit> hits = new ArrayList<>();
+        for (int i = 0; i < numSearchHits; i++) {
+            ScoreDoc shardDoc = sortedTopDocs.scoreDocs[i];
+            final int index = shardPositions[shardDoc.shardIndex]++;
+            SearchPhaseResult fetchResultProvider = resultsLookup.apply(shardDoc.shardIndex);
+            if (fetchResultProvider == null || index >= fetchResultProvider.fetchResult().hits().getHits().length) {
+                continue;
             }
+            // the final merge sets the same shard, score and sort values on the hit so both can safely share it
+            hits.add(toSearchHit(reducedQueryPhase, sortScoreIndex, shardDoc, fetchResultProvider.fetchResult(), index));
         }
         return new SearchHits(hits.toArray(new SearchHit[0]), reducedQueryPhase.totalHits,
             reducedQueryPhase.maxScore, sortedTopDocs.sortFields, sortedTopDocs.collapseField, sortedTopDocs.collapseValues);
     }
 
+    private static int getSortScoreIndex(SortedTopDocs sortedTopDocs) {
+        int sortScoreIndex = -1;
+        if (sortedTopDocs.isSortedByField) {
+            SortField[] sortFields = sortedTopDocs.sortFields;
+            for (int i = 0; i < sortFields.length; i++) {
+                if (sortFields[i].getType() == SortField.Type.SCORE) {
+                    sortScoreIndex = i;
+                }
+            }
+        }
+        return sortScoreIndex;
+    }
+
+    private static int getNumSearchHits(ReducedQueryPhase reducedQueryPhase, boolean ignoreFrom) {
+        int from = ignoreFrom ? 0 : reducedQueryPhase.from;
+        int numSearchHits = (int) Math.min(reducedQueryPhase.fetchHits - from, reducedQueryPhase.size);
+        // with collapsing we can have more fetch hits than sorted docs
+        return Math.min(reducedQueryPhase.sortedTopDocs.scoreDocs.length, numSearchHits);
+    }
+
+    private static SearchHit toSearchHit(ReducedQueryPhase reducedQueryPhase, int sortScoreIndex, ScoreDoc shardDoc,
+                                         FetchSearchResult fetchResult, int index) {
+        SearchHit searchHit = fetchResult.hits().getHits()[index];
+        searchHit.shard(fetchResult.getSearchShardTarget());
+        if (reducedQueryPhase.sortedTopDocs.isSortedByField) {
+            FieldDoc fieldDoc = (FieldDoc) shardDoc;
+            searchHit.sortValues(fieldDoc.fields, reducedQueryPhase.sortValueFormats);
+            if (sortScoreIndex != -1) {
+                searchHit.score(((Number) fieldDoc.fields[sortScoreIndex]).floatValue());
+            }
+        } else {
+            searchHit.score(shardDoc.score);
+        }
+        return searchHit;
+    }
+
     /**
      * Reduces the given query results and consumes all aggregations and profile results.
      * @param queryResults a list of non-null query shard results
@@ -499,7 +539,8 @@ public final class SearchPhaseController {
         ReduceContext reduceContext = reduceContextFunction.apply(performFinalReduce);
         final InternalAggregations aggregations = aggregationsList.isEmpty() ? null :
             InternalAggregations.topLevelReduce(aggregationsList, reduceContext);
-        final SearchProfileShardResults shardResults = profileResults.isEmpty() ? null : new SearchProfileShardResults(profileResults);
+        final SearchProfileShardResults shardResults = profileResults.isEmpty() ? null
+            : new SearchProfileShardResults(profileResults, reduceContext.getMaxEstimatedBytes());
         final SortedTopDocs sortedTopDocs = sortDocs(isScrollRequest, queryResults, bufferedTopDocs, topDocsStats, from, size,
             reducedCompletionSuggestions);
         final TotalHits totalHits = topDocsStats.getTotalHits();
@@ -24,6 +24,7 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.lucene.search.TotalHits;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
+import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.aggregations.InternalAggregations;
@@ -31,6 +32,7 @@ import org.elasticsearch.search.aggregations.InternalAggregations;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -94,6 +96,14 @@ abstract class SearchProgressListener {
      */
     public void onFetchResult(int shardIndex) {}
 
+    /**
+     * Executed after {@link #onFetchResult(int)} with the hits fetched so far, in the order of the final response. Hits of shards
+     * that did not return their fetch result yet are omitted. The hits are only built when the supplier is called.
+     *
+     * @param hits Supplies the hits fetched so far.
+     */
+    public void onPartialHits(Supplier<SearchHits> hits) {}
+
     /**
      * Executed when a shard reports a fetch failure.
      *
@@ -154,6 +164,14 @@ abstract class SearchProgressListener {
         }
     }
 
+    final void notifyPartialHits(Supplier<SearchHits> hits) {
+        try {
+            onPartialHits(hits);
+        } catch (Exception e) {
+            logger.warn(() -> new ParameterizedMessage("Failed to execute progress listener on partial hits"), e);
+        }
+    }
+
     final void notifyFetchFailure(int shardIndex, Exception exc) {
         try {
             onFetchFailure(shardIndex, exc);
@@ -26,17 +26,21 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
+import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.transport.Transport;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
+import java.util.stream.Collectors;
 
 final class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPhaseResult> {
 
     private final SearchPhaseController searchPhaseController;
     private final SearchProgressListener progressListener;
+    private final boolean batchRequestsPerNode;
 
     SearchQueryThenFetchAsyncAction(final Logger logger, final SearchTransportService searchTransportService,
             final BiFunction<String, String, Transport.Connection> nodeIdToConnection, final Map<String, AliasFilter> aliasFilter,
@@ -44,13 +48,14 @@ final class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<Se
             final SearchPhaseController searchPhaseController, final Executor executor,
             final SearchRequest request, final ActionListener<SearchResponse> listener,
             final GroupShardsIterator<SearchShardIterator> shardsIts, final TransportSearchAction.SearchTimeProvider timeProvider,
-            long clusterStateVersion, SearchTask task, SearchResponse.Clusters clusters) {
+            long clusterStateVersion, SearchTask task, SearchResponse.Clusters clusters, boolean batchRequestsPerNode) {
         super("query", logger, searchTransportService, nodeIdToConnection, aliasFilter, concreteIndexBoosts, indexRoutings,
                 executor, request, listener, shardsIts, timeProvider, clusterStateVersion, task,
                 searchPhaseController.newSearchPhaseResults(task.getProgressListener(), request, shardsIts.size()),
                 request.getMaxConcurrentShardRequests(), clusters);
         this.searchPhaseController = searchPhaseController;
         this.progressListener = task.getProgressListener();
+        this.batchRequestsPerNode = batchRequestsPerNode;
         final SearchProgressListener progressListener = task.getProgressListener();
         final SearchSourceBuilder sourceBuilder = request.source();
         progressListener.notifyListShards(progressListener.searchShards(this.shardsIts),
@@ -63,6 +68,18 @@ final class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<Se
             buildShardSearchRequest(shardIt), getTask(), listener);
     }
 
+    @Override
+    protected NodePhaseExecutor<SearchPhaseResult> nodePhaseExecutor() {
+        return batchRequestsPerNode ? this::executeQueryOnNode : null;
+    }
+
+    private void executeQueryOnNode(final String clusterAlias, final String nodeId, final List<SearchShardIterator> shardIts,
+                                    final List<SearchActionListener<SearchPhaseResult>> listeners) {
+        final List<ShardSearchRequest> requests = shardIts.stream().map(this::buildShardSearchRequest).collect(Collectors.toList());
+        getSearchTransport().sendExecuteQuery(getConnection(clusterAlias, nodeId), requests,
+            getRequest().getMaxConcurrentShardRequests(), getTask(), listeners);
+    }
+
     @Override
     protected void onShardGroupFailure(int shardIndex, Exception exc) {
         progressListener.notifyQueryFailure(shardIndex, exc);
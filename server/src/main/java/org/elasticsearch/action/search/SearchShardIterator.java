@@ -26,6 +26,7 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.internal.ShardSearchRequest;
 
 import java.util.List;
 import java.util.Objects;
@@ -40,6 +41,7 @@ public final class SearchShardIterator extends PlainShardIterator {
 
     private final OriginalIndices originalIndices;
     private final String clusterAlias;
+    private final long readerId;
     private boolean skip = false;
 
     /**
@@ -52,9 +54,24 @@ public final class SearchShardIterator extends PlainShardIterator {
      * @param originalIndices the indices that the search request originally related to (before any rewriting happened)
      */
     public SearchShardIterator(@Nullable String clusterAlias, ShardId shardId, List<ShardRouting> shards, OriginalIndices originalIndices) {
+        this(clusterAlias, shardId, shards, originalIndices, ShardSearchRequest.NO_READER_CONTEXT);
+    }
+
+    /**
+     * Creates a {@link PlainShardIterator} instance for a shard of a point in time.
+     *
+     * @param clusterAlias the alias of the cluster where the shard is located
+     * @param shardId shard id of the group
+     * @param shards  shards to iterate
+     * @param originalIndices the indices that the search request originally related to (before any rewriting happened)
+     * @param readerId the id of the reader context that holds the pinned searcher of the shard
+     */
+    public SearchShardIterator(@Nullable String clusterAlias, ShardId shardId, List<ShardRouting> shards, OriginalIndices originalIndices,
+                               long readerId) {
         super(shardId, shards);
         this.originalIndices = originalIndices;
         this.clusterAlias = clusterAlias;
+        this.readerId = readerId;
     }
 
     /**
@@ -72,6 +89,14 @@ public final class SearchShardIterator extends PlainShardIterator {
         return clusterAlias;
     }
 
+    /**
+     * Returns the id of the reader context the shard should be searched with, or
+     * {@link ShardSearchRequest#NO_READER_CONTEXT} if the current reader of the shard should be used.
+     */
+    long getReaderId() {
+        return readerId;
+    }
+
     /**
      * Creates a new shard target from this iterator, pointing at the node identified by the provided identifier.
      * @see SearchShardTarget
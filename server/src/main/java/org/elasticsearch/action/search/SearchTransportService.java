@@ -19,6 +19,9 @@
 
 package org.elasticsearch.action.search;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ActionListenerResponseHandler;
 import org.elasticsearch.action.IndicesRequest;
@@ -30,9 +33,15 @@ import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.dfs.DfsSearchResult;
 import org.elasticsearch.search.fetch.FetchSearchResult;
 import org.elasticsearch.search.fetch.QueryFetchSearchResult;
@@ -44,6 +53,8 @@ import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.search.query.QuerySearchRequest;
 import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.search.query.ScrollQuerySearchResult;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskId;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.RemoteClusterService;
 import org.elasticsearch.transport.Transport;
@@ -55,9 +66,16 @@ import org.elasticsearch.transport.TransportResponse;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * An encapsulation of {@link org.elasticsearch.search.SearchService} operations exposed through
@@ -65,11 +83,16 @@ import java.util.function.BiFunction;
  */
 public class SearchTransportService {
 
+    private static final Logger logger = LogManager.getLogger(SearchTransportService.class);
+
     public static final String FREE_CONTEXT_SCROLL_ACTION_NAME = "indices:data/read/search[free_context/scroll]";
     public static final String FREE_CONTEXT_ACTION_NAME = "indices:data/read/search[free_context]";
+    public static final String OPEN_READER_CONTEXT_ACTION_NAME = "indices:data/read/search[open_reader_context]";
+    public static final String FREE_READER_CONTEXT_ACTION_NAME = "indices:data/read/search[free_context/reader]";
     public static final String CLEAR_SCROLL_CONTEXTS_ACTION_NAME = "indices:data/read/search[clear_scroll_contexts]";
     public static final String DFS_ACTION_NAME = "indices:data/read/search[phase/dfs]";
     public static final String QUERY_ACTION_NAME = "indices:data/read/search[phase/query]";
+    public static final String QUERY_NODE_ACTION_NAME = "indices:data/read/search[phase/query/node]";
     public static final String QUERY_ID_ACTION_NAME = "indices:data/read/search[phase/query/id]";
     public static final String QUERY_SCROLL_ACTION_NAME = "indices:data/read/search[phase/query/scroll]";
     public static final String QUERY_FETCH_SCROLL_ACTION_NAME = "indices:data/read/search[phase/query+fetch/scroll]";
@@ -107,6 +130,18 @@ public class SearchTransportService {
             TransportRequestOptions.EMPTY, new ActionListenerResponseHandler<>(listener, SearchFreeContextResponse::new));
     }
 
+    public void sendOpenReaderContext(Transport.Connection connection, OpenReaderContextRequest request,
+                                      ActionListener<OpenReaderContextResponse> listener) {
+        transportService.sendRequest(connection, OPEN_READER_CONTEXT_ACTION_NAME, request,
+            TransportRequestOptions.EMPTY, new ActionListenerResponseHandler<>(listener, OpenReaderContextResponse::new));
+    }
+
+    public void sendFreeReaderContext(Transport.Connection connection, long readerId, OriginalIndices originalIndices,
+                                      ActionListener<SearchFreeContextResponse> listener) {
+        transportService.sendRequest(connection, FREE_READER_CONTEXT_ACTION_NAME, new SearchFreeContextRequest(originalIndices, readerId),
+            TransportRequestOptions.EMPTY, new ActionListenerResponseHandler<>(listener, SearchFreeContextResponse::new));
+    }
+
     public void sendCanMatch(Transport.Connection connection, final ShardSearchRequest request, SearchTask task, final
                             ActionListener<SearchService.CanMatchResponse> listener) {
         transportService.sendChildRequest(connection, QUERY_CAN_MATCH_NAME, request, task,
@@ -136,6 +171,43 @@ public class SearchTransportService {
                 new ConnectionCountingHandler<>(handler, reader, clientConnections, connection.getNode().getId()));
     }
 
+    /**
+     * Sends the query requests of several shards held by the same node as a single node request. Nodes that do not support node
+     * requests get one request per shard instead.
+     */
+    public void sendExecuteQuery(Transport.Connection connection, final List<ShardSearchRequest> requests, int maxConcurrentShardRequests,
+                                 SearchTask task, final List<SearchActionListener<SearchPhaseResult>> listeners) {
+        assert requests.size() == listeners.size() : requests.size() + " requests vs " + listeners.size() + " listeners";
+        if (connection.getVersion().before(Version.V_8_0_0)) {
+            for (int i = 0; i < requests.size(); i++) {
+                sendExecuteQuery(connection, requests.get(i), task, listeners.get(i));
+            }
+            return;
+        }
+        final ActionListener<NodeQueryResponse> handler = new ActionListener<NodeQueryResponse>() {
+            @Override
+            public void onResponse(NodeQueryResponse response) {
+                for (int i = 0; i < listeners.size(); i++) {
+                    if (response.failures[i] != null) {
+                        listeners.get(i).onFailure(response.failures[i]);
+                    } else {
+                        listeners.get(i).onResponse(response.results[i]);
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                for (ActionListener<SearchPhaseResult> listener : listeners) {
+                    listener.onFailure(e);
+                }
+            }
+        };
+        transportService.sendChildRequest(connection, QUERY_NODE_ACTION_NAME,
+            new NodeQueryRequest(requests, maxConcurrentShardRequests), task,
+            new ConnectionCountingHandler<>(handler, NodeQueryResponse::new, clientConnections, connection.getNode().getId()));
+    }
+
     public void sendExecuteQuery(Transport.Connection connection, final QuerySearchRequest request, SearchTask task,
                                  final SearchActionListener<QuerySearchResult> listener) {
         transportService.sendChildRequest(connection, QUERY_ID_ACTION_NAME, request, task,
@@ -260,6 +332,289 @@ public class SearchTransportService {
 
         }
 
+    static class OpenReaderContextRequest extends TransportRequest implements IndicesRequest {
+        private final ShardId shardId;
+        private final TimeValue keepAlive;
+        private final OriginalIndices originalIndices;
+
+        OpenReaderContextRequest(ShardId shardId, TimeValue keepAlive, OriginalIndices originalIndices) {
+            this.shardId = shardId;
+            this.keepAlive = keepAlive;
+            this.originalIndices = originalIndices;
+        }
+
+        OpenReaderContextRequest(StreamInput in) throws IOException {
+            super(in);
+            shardId = new ShardId(in);
+            keepAlive = in.readTimeValue();
+            originalIndices = OriginalIndices.readOriginalIndices(in);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            shardId.writeTo(out);
+            out.writeTimeValue(keepAlive);
+            OriginalIndices.writeOriginalIndices(originalIndices, out);
+        }
+
+        public ShardId shardId() {
+            return shardId;
+        }
+
+        public TimeValue keepAlive() {
+            return keepAlive;
+        }
+
+        @Override
+        public String[] indices() {
+            return originalIndices.indices();
+        }
+
+        @Override
+        public IndicesOptions indicesOptions() {
+            return originalIndices.indicesOptions();
+        }
+    }
+
+    static class OpenReaderContextResponse extends TransportResponse {
+        private final long readerId;
+
+        OpenReaderContextResponse(long readerId) {
+            this.readerId = readerId;
+        }
+
+        OpenReaderContextResponse(StreamInput in) throws IOException {
+            super(in);
+            readerId = in.readLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeLong(readerId);
+        }
+
+        public long readerId() {
+            return readerId;
+        }
+    }
+
+    /**
+     * The query requests of several shards held by the same node.
+     */
+    static class NodeQueryRequest extends TransportRequest implements IndicesRequest {
+        private final List<ShardSearchRequest> shards;
+        private final int maxConcurrentShardRequests;
+
+        NodeQueryRequest(List<ShardSearchRequest> shards, int maxConcurrentShardRequests) {
+            assert shards.isEmpty() == false : "a node request requires at least one shard";
+            assert shards.stream().allMatch(shard -> shard.numberOfShards() > 1) : "single shard searches also fetch documents";
+            this.shards = shards;
+            this.maxConcurrentShardRequests = maxConcurrentShardRequests;
+        }
+
+        NodeQueryRequest(StreamInput in) throws IOException {
+            super(in);
+            shards = in.readList(ShardSearchRequest::new);
+            maxConcurrentShardRequests = in.readVInt();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeList(shards);
+            out.writeVInt(maxConcurrentShardRequests);
+        }
+
+        List<ShardSearchRequest> shards() {
+            return shards;
+        }
+
+        /**
+         * The maximum number of shards of this request that the node queries concurrently.
+         */
+        int maxConcurrentShardRequests() {
+            return maxConcurrentShardRequests;
+        }
+
+        @Override
+        public String[] indices() {
+            // all the shards of a node request share the original indices of the search request
+            return shards.get(0).indices();
+        }
+
+        @Override
+        public IndicesOptions indicesOptions() {
+            return shards.get(0).indicesOptions();
+        }
+
+        @Override
+        public Task createTask(long id, String type, String action, TaskId parentTaskId, Map<String, String> headers) {
+            return new SearchShardTask(id, type, action, getDescription(), parentTaskId, headers);
+        }
+
+        @Override
+        public String getDescription() {
+            return "shardIds" + shards.stream().map(ShardSearchRequest::shardId).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * The query result or failure of each shard of a {@link NodeQueryRequest}, in the same order as the request.
+     */
+    static class NodeQueryResponse extends TransportResponse {
+        private final SearchPhaseResult[] results;
+        private final Exception[] failures;
+
+        NodeQueryResponse(SearchPhaseResult[] results, Exception[] failures) {
+            assert results.length == failures.length;
+            this.results = results;
+            this.failures = failures;
+        }
+
+        NodeQueryResponse(StreamInput in) throws IOException {
+            super(in);
+            final int size = in.readVInt();
+            results = new SearchPhaseResult[size];
+            failures = new Exception[size];
+            for (int i = 0; i < size; i++) {
+                if (in.readBoolean()) {
+                    results[i] = new QuerySearchResult(in);
+                } else {
+                    failures[i] = in.readException();
+                }
+            }
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVInt(results.length);
+            for (int i = 0; i < results.length; i++) {
+                if (failures[i] == null) {
+                    assert results[i] instanceof QuerySearchResult : "unexpected result " + results[i];
+                    out.writeBoolean(true);
+                    results[i].writeTo(out);
+                } else {
+                    out.writeBoolean(false);
+                    out.writeException(failures[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Executes the query phase on the shards of a {@link NodeQueryRequest}, running at most
+     * {@link NodeQueryRequest#maxConcurrentShardRequests()} of them at once, and responds once all of them completed.
+     */
+    private static void executeQueryPhase(SearchService searchService, Executor executor, NodeQueryRequest request,
+                                          SearchShardTask task, ActionListener<NodeQueryResponse> listener) {
+        final List<ShardSearchRequest> shards = request.shards();
+        final SearchPhaseResult[] results = new SearchPhaseResult[shards.size()];
+        final Exception[] failures = new Exception[shards.size()];
+        final AtomicInteger nextShard = new AtomicInteger();
+        final CountDown countDown = new CountDown(shards.size());
+        final Runnable executeNextShard = new Runnable() {
+            @Override
+            public void run() {
+                final int shardIndex = nextShard.getAndIncrement();
+                if (shardIndex >= shards.size()) {
+                    return;
+                }
+                final Runnable executeNext = this;
+                final Thread thread = Thread.currentThread();
+                final ActionListener<SearchPhaseResult> shardListener = new ActionListener<SearchPhaseResult>() {
+                    @Override
+                    public void onResponse(SearchPhaseResult result) {
+                        results[shardIndex] = result;
+                        onShardDone();
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        failures[shardIndex] = e;
+                        onShardDone();
+                    }
+
+                    private void onShardDone() {
+                        if (countDown.countDown()) {
+                            reduceAggs(results, () -> searchService.createReduceContext(false));
+                            listener.onResponse(new NodeQueryResponse(results, failures));
+                        } else if (thread == Thread.currentThread()) {
+                            // the shard completed without going async, fork so that a long sequence of such shards does not
+                            // recurse deeply (cf. AbstractSearchAsyncAction#executeNext)
+                            executor.execute(new AbstractRunnable() {
+                                @Override
+                                public void onFailure(Exception e) {
+                                    // only happens if the executor is shut down, continue on the current thread
+                                    executeNext.run();
+                                }
+
+                                @Override
+                                protected void doRun() {
+                                    executeNext.run();
+                                }
+
+                                @Override
+                                public boolean isForceExecution() {
+                                    // we can not allow a stuffed queue to reject execution here
+                                    return true;
+                                }
+                            });
+                        } else {
+                            executeNext.run();
+                        }
+                    }
+                };
+                try {
+                    searchService.executeQueryPhase(shards.get(shardIndex), task, shardListener);
+                } catch (Exception e) {
+                    shardListener.onFailure(e);
+                }
+            }
+        };
+        final int concurrency = Math.max(1, Math.min(request.maxConcurrentShardRequests(), shards.size()));
+        for (int i = 0; i < concurrency; i++) {
+            executeNextShard.run();
+        }
+    }
+
+    /**
+     * Merges the aggregations of the successful shard results of a node with a non-final reduce so that the coordinating
+     * node receives a single partial result per node instead of one per shard. The merged aggregations are attached to
+     * the first result carrying aggregations while the other results keep an empty set of aggregations, which preserves
+     * the top-level pipeline aggregators that the final reduce on the coordinating node extracts from the first list.
+     * If the reduce fails the per-shard aggregations are sent unchanged and the coordinating node reduces them instead.
+     */
+    static void reduceAggs(SearchPhaseResult[] results, Supplier<InternalAggregation.ReduceContext> reduceContextSupplier) {
+        final List<QuerySearchResult> withAggs = new ArrayList<>();
+        for (SearchPhaseResult result : results) {
+            if (result instanceof QuerySearchResult) {
+                final QuerySearchResult queryResult = (QuerySearchResult) result;
+                if (queryResult.isNull() == false && queryResult.hasAggs() && queryResult.aggregations() != null) {
+                    withAggs.add(queryResult);
+                }
+            }
+        }
+        if (withAggs.size() < 2) {
+            return;
+        }
+        final List<InternalAggregations> aggregationsList = withAggs.stream()
+            .map(QuerySearchResult::aggregations)
+            .collect(Collectors.toList());
+        final InternalAggregations reduced;
+        try {
+            reduced = InternalAggregations.topLevelReduce(aggregationsList, reduceContextSupplier.get());
+        } catch (Exception e) {
+            logger.debug("failed to reduce the aggregations of the local shards, sending the shard results as is", e);
+            return;
+        }
+        withAggs.get(0).aggregations(reduced);
+        final InternalAggregations empty = new InternalAggregations(Collections.emptyList(), reduced.getTopLevelPipelineAggregators());
+        for (int i = 1; i < withAggs.size(); i++) {
+            withAggs.get(i).aggregations(empty);
+        }
+    }
+
     public static class SearchFreeContextResponse extends TransportResponse {
 
         private boolean freed;
@@ -295,6 +650,18 @@ public class SearchTransportService {
                 channel.sendResponse(new SearchFreeContextResponse(freed));
         });
         TransportActionProxy.registerProxyAction(transportService, FREE_CONTEXT_ACTION_NAME, SearchFreeContextResponse::new);
+        transportService.registerRequestHandler(OPEN_READER_CONTEXT_ACTION_NAME, ThreadPool.Names.SAME, OpenReaderContextRequest::new,
+            (request, channel, task) -> {
+                long readerId = searchService.openReaderContext(request.shardId(), request.keepAlive());
+                channel.sendResponse(new OpenReaderContextResponse(readerId));
+        });
+        TransportActionProxy.registerProxyAction(transportService, OPEN_READER_CONTEXT_ACTION_NAME, OpenReaderContextResponse::new);
+        transportService.registerRequestHandler(FREE_READER_CONTEXT_ACTION_NAME, ThreadPool.Names.SAME, SearchFreeContextRequest::new,
+            (request, channel, task) -> {
+                boolean freed = searchService.freeReaderContext(request.id());
+                channel.sendResponse(new SearchFreeContextResponse(freed));
+        });
+        TransportActionProxy.registerProxyAction(transportService, FREE_READER_CONTEXT_ACTION_NAME, SearchFreeContextResponse::new);
         transportService.registerRequestHandler(CLEAR_SCROLL_CONTEXTS_ACTION_NAME, ThreadPool.Names.SAME,
             TransportRequest.Empty::new,
             (request, channel, task) -> {
@@ -320,6 +687,14 @@ public class SearchTransportService {
         TransportActionProxy.registerProxyActionWithDynamicResponseType(transportService, QUERY_ACTION_NAME,
             (request) -> ((ShardSearchRequest)request).numberOfShards() == 1 ? QueryFetchSearchResult::new : QuerySearchResult::new);
 
+        transportService.registerRequestHandler(QUERY_NODE_ACTION_NAME, ThreadPool.Names.SAME, NodeQueryRequest::new,
+            (request, channel, task) -> {
+                executeQueryPhase(searchService, transportService.getThreadPool().executor(ThreadPool.Names.SEARCH), request,
+                    (SearchShardTask) task,
+                    new ChannelActionListener<>(channel, QUERY_NODE_ACTION_NAME, request));
+            });
+        TransportActionProxy.registerProxyAction(transportService, QUERY_NODE_ACTION_NAME, NodeQueryResponse::new);
+
         transportService.registerRequestHandler(QUERY_ID_ACTION_NAME, ThreadPool.Names.SAME, QuerySearchRequest::new,
             (request, channel, task) -> {
                 searchService.executeQueryPhase(request, (SearchShardTask) task,
@@ -0,0 +1,177 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.IndexTimestampRange;
+import org.elasticsearch.cluster.routing.GroupShardsIterator;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.geo.ShapeRelation;
+import org.elasticsearch.common.time.DateFormatter;
+import org.elasticsearch.common.time.DateMathParser;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.ConstantScoreQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Skips the shards of local indices whose {@link IndexTimestampRange} cannot intersect a range filter on the timestamp field of the
+ * index, without sending any request to them. Unlike the {@link CanMatchPreFilterSearchPhase} this only relies on the cluster state,
+ * so it only resolves range bounds that do not depend on the mapping of the field: bounds with an explicit {@code format} and bounds
+ * that are pure date math relative to {@code now}.
+ */
+final class TimestampRangeShardFilter {
+
+    private TimestampRangeShardFilter() {}
+
+    /**
+     * Marks the shard iterators that cannot match as skipped. At least one shard is always left to be searched in order to produce a
+     * valid search response with all the aggregations etc.
+     *
+     * @return the number of skipped shard iterators
+     */
+    static int skipShards(SearchRequest searchRequest, ClusterState clusterState,
+                          GroupShardsIterator<SearchShardIterator> shardIterators, long nowInMillis) {
+        final SearchSourceBuilder source = searchRequest.source();
+        // DFS needs to fan out to all shards all the time
+        if (searchRequest.searchType() != SearchType.QUERY_THEN_FETCH || SearchService.canRewriteToMatchNone(source) == false) {
+            return 0;
+        }
+        final List<RangeQueryBuilder> rangeQueries = new ArrayList<>();
+        collectRequiredRangeQueries(source.query(), rangeQueries);
+        if (rangeQueries.isEmpty()) {
+            return 0;
+        }
+
+        final Map<Index, Boolean> canMatchByIndex = new HashMap<>();
+        final List<SearchShardIterator> toSkip = new ArrayList<>();
+        boolean hasRemainingShards = false;
+        for (SearchShardIterator iterator : shardIterators) {
+            if (Objects.equals(iterator.getClusterAlias(), searchRequest.getLocalClusterAlias()) == false) {
+                hasRemainingShards = true;
+                continue;
+            }
+            final Index index = iterator.shardId().getIndex();
+            final boolean canMatch = canMatchByIndex.computeIfAbsent(index,
+                i -> canMatch(clusterState.metaData().index(i), rangeQueries, nowInMillis));
+            if (canMatch) {
+                hasRemainingShards = true;
+            } else {
+                toSkip.add(iterator);
+            }
+        }
+        if (hasRemainingShards == false && toSkip.isEmpty() == false) {
+            toSkip.remove(0);
+        }
+        for (SearchShardIterator iterator : toSkip) {
+            iterator.resetAndSkip();
+        }
+        return toSkip.size();
+    }
+
+    /**
+     * Collects the range queries that every matching document must satisfy.
+     */
+    static void collectRequiredRangeQueries(@Nullable QueryBuilder query, List<RangeQueryBuilder> rangeQueries) {
+        if (query instanceof RangeQueryBuilder) {
+            rangeQueries.add((RangeQueryBuilder) query);
+        } else if (query instanceof ConstantScoreQueryBuilder) {
+            collectRequiredRangeQueries(((ConstantScoreQueryBuilder) query).innerQuery(), rangeQueries);
+        } else if (query instanceof BoolQueryBuilder) {
+            final BoolQueryBuilder boolQuery = (BoolQueryBuilder) query;
+            for (QueryBuilder clause : boolQuery.filter()) {
+                collectRequiredRangeQueries(clause, rangeQueries);
+            }
+            for (QueryBuilder clause : boolQuery.must()) {
+                collectRequiredRangeQueries(clause, rangeQueries);
+            }
+        }
+    }
+
+    static boolean canMatch(@Nullable IndexMetaData indexMetaData, List<RangeQueryBuilder> rangeQueries, long nowInMillis) {
+        if (indexMetaData == null) {
+            return true;
+        }
+        final IndexTimestampRange timestampRange = indexMetaData.getTimestampRange();
+        if (timestampRange.containsAllShardRanges() == false) {
+            return true;
+        }
+        final String timestampField = IndexSettings.TIMESTAMP_FIELD_SETTING.get(indexMetaData.getSettings());
+        for (RangeQueryBuilder rangeQuery : rangeQueries) {
+            if (timestampField.equals(rangeQuery.fieldName()) == false
+                || (rangeQuery.relation() != null && rangeQuery.relation() != ShapeRelation.INTERSECTS)) {
+                continue;
+            }
+            final Long from = rangeQuery.from() == null ? Long.valueOf(Long.MIN_VALUE)
+                : resolveBound(rangeQuery, rangeQuery.from(), rangeQuery.includeLower() == false, nowInMillis);
+            final Long to = rangeQuery.to() == null ? Long.valueOf(Long.MAX_VALUE)
+                : resolveBound(rangeQuery, rangeQuery.to(), rangeQuery.includeUpper(), nowInMillis);
+            if (from == null || to == null) {
+                continue;
+            }
+            // same adjustments as DateFieldType#rangeQuery
+            final long fromInclusive = rangeQuery.from() != null && rangeQuery.includeLower() == false ? from + 1 : from;
+            final long toInclusive = rangeQuery.to() != null && rangeQuery.includeUpper() == false ? to - 1 : to;
+            if (timestampRange.mayIntersect(fromInclusive, toInclusive) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Resolves a range bound to milliseconds since the epoch, or returns {@code null} if the bound can only be resolved with the mapping
+     * of the field or is invalid, in which case the shards will deal with it.
+     */
+    @Nullable
+    private static Long resolveBound(RangeQueryBuilder rangeQuery, Object value, boolean roundUp, long nowInMillis) {
+        final String text = value instanceof BytesRef ? ((BytesRef) value).utf8ToString() : value.toString();
+        final DateMathParser parser;
+        if (Strings.hasText(rangeQuery.format())) {
+            parser = DateFormatter.forPattern(rangeQuery.format()).toDateMathParser();
+        } else if (text.startsWith("now")) {
+            parser = DateFieldMapper.DEFAULT_DATE_TIME_FORMATTER.toDateMathParser();
+        } else {
+            return null;
+        }
+        try {
+            final ZoneId zone = rangeQuery.timeZone() == null ? null : ZoneId.of(rangeQuery.timeZone());
+            return DateFieldMapper.Resolution.MILLISECONDS.convert(parser.parse(text, () -> nowInMillis, roundUp, zone));
+        } catch (ElasticsearchParseException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
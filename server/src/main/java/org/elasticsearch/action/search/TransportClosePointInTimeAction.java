@@ -0,0 +1,102 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closes a point in time by freeing its reader contexts on all the nodes that hold them.
+ */
+public class TransportClosePointInTimeAction extends HandledTransportAction<ClosePointInTimeRequest, ClosePointInTimeResponse> {
+
+    private final ClusterService clusterService;
+    private final SearchTransportService searchTransportService;
+
+    @Inject
+    public TransportClosePointInTimeAction(TransportService transportService, ClusterService clusterService, ActionFilters actionFilters,
+                                           SearchTransportService searchTransportService) {
+        super(ClosePointInTimeAction.NAME, transportService, actionFilters, ClosePointInTimeRequest::new);
+        this.clusterService = clusterService;
+        this.searchTransportService = searchTransportService;
+    }
+
+    @Override
+    protected void doExecute(Task task, ClosePointInTimeRequest request, ActionListener<ClosePointInTimeResponse> listener) {
+        final SearchContextId searchContextId = SearchContextId.decode(request.getId());
+        if (searchContextId.shards().isEmpty()) {
+            listener.onResponse(new ClosePointInTimeResponse(true, 0));
+            return;
+        }
+        final OriginalIndices originalIndices = new OriginalIndices(searchContextId.indices(), IndicesOptions.lenientExpandOpen());
+        final DiscoveryNodes nodes = clusterService.state().nodes();
+        final CountDown countDown = new CountDown(searchContextId.shards().size());
+        final AtomicInteger freedContexts = new AtomicInteger();
+        final AtomicBoolean hasFailed = new AtomicBoolean();
+        final Runnable onContextDone = () -> {
+            if (countDown.countDown()) {
+                listener.onResponse(new ClosePointInTimeResponse(hasFailed.get() == false, freedContexts.get()));
+            }
+        };
+        for (SearchContextIdForNode context : searchContextId.shards().values()) {
+            final DiscoveryNode node = nodes.get(context.getNode());
+            if (node == null) {
+                // the node left the cluster, its reader contexts are gone with it
+                onContextDone.run();
+                continue;
+            }
+            try {
+                searchTransportService.sendFreeReaderContext(searchTransportService.getConnection(null, node), context.getReaderId(),
+                    originalIndices, ActionListener.wrap(
+                        response -> {
+                            if (response.isFreed()) {
+                                freedContexts.incrementAndGet();
+                            }
+                            onContextDone.run();
+                        },
+                        e -> {
+                            logger.warn(() -> new ParameterizedMessage("failed to free reader context [{}] on node [{}]",
+                                context.getReaderId(), node), e);
+                            hasFailed.set(true);
+                            onContextDone.run();
+                        }));
+            } catch (Exception e) {
+                logger.warn(() -> new ParameterizedMessage("failed to free reader context [{}] on node [{}]",
+                    context.getReaderId(), node), e);
+                hasFailed.set(true);
+                onContextDone.run();
+            }
+        }
+    }
+}
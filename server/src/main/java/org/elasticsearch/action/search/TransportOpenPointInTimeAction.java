@@ -0,0 +1,173 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.NoShardAvailableActionException;
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.GroupShardsIterator;
+import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Opens a point in time by pinning the searcher of one copy of every shard of the requested indices.
+ * Each shard is tried on its copies in search preference order; if a shard cannot be opened on any copy
+ * the reader contexts that were already opened are freed and the request fails.
+ */
+public class TransportOpenPointInTimeAction extends HandledTransportAction<OpenPointInTimeRequest, OpenPointInTimeResponse> {
+
+    private final ClusterService clusterService;
+    private final IndexNameExpressionResolver indexNameExpressionResolver;
+    private final SearchTransportService searchTransportService;
+
+    @Inject
+    public TransportOpenPointInTimeAction(TransportService transportService, ClusterService clusterService, ActionFilters actionFilters,
+                                          IndexNameExpressionResolver indexNameExpressionResolver,
+                                          SearchTransportService searchTransportService) {
+        super(OpenPointInTimeAction.NAME, transportService, actionFilters, OpenPointInTimeRequest::new);
+        this.clusterService = clusterService;
+        this.indexNameExpressionResolver = indexNameExpressionResolver;
+        this.searchTransportService = searchTransportService;
+    }
+
+    @Override
+    protected void doExecute(Task task, OpenPointInTimeRequest request, ActionListener<OpenPointInTimeResponse> listener) {
+        final ClusterState clusterState = clusterService.state();
+        clusterState.blocks().globalBlockedRaiseException(ClusterBlockLevel.READ);
+        final String[] concreteIndices = indexNameExpressionResolver.concreteIndexNames(clusterState, request);
+        for (String index : concreteIndices) {
+            clusterState.blocks().indexBlockedRaiseException(ClusterBlockLevel.READ, index);
+        }
+        final Map<String, Set<String>> routingMap = indexNameExpressionResolver.resolveSearchRouting(clusterState, request.routing(),
+            request.indices());
+        final GroupShardsIterator<ShardIterator> shardIterators = clusterService.operationRouting().searchShards(clusterState,
+            concreteIndices, routingMap, request.preference());
+        final OriginalIndices originalIndices = new OriginalIndices(request.indices(), request.indicesOptions());
+
+        final AtomicArray<SearchContextIdForNode> results = new AtomicArray<>(shardIterators.size());
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final CountDown countDown = new CountDown(shardIterators.size());
+        final Runnable onShardDone = () -> {
+            if (countDown.countDown()) {
+                if (failure.get() != null) {
+                    for (int i = 0; i < results.length(); i++) {
+                        SearchContextIdForNode result = results.get(i);
+                        if (result != null) {
+                            freeReaderContext(clusterState, result, originalIndices);
+                        }
+                    }
+                    listener.onFailure(failure.get());
+                } else {
+                    final Map<ShardId, SearchContextIdForNode> shards = new HashMap<>();
+                    int i = 0;
+                    for (ShardIterator shardIterator : shardIterators) {
+                        shards.put(shardIterator.shardId(), results.get(i++));
+                    }
+                    listener.onResponse(new OpenPointInTimeResponse(
+                        SearchContextId.encode(request.indices(), shards, clusterState.nodes().getMinNodeVersion())));
+                }
+            }
+        };
+        if (shardIterators.size() == 0) {
+            listener.onResponse(new OpenPointInTimeResponse(
+                SearchContextId.encode(request.indices(), new HashMap<>(), clusterState.nodes().getMinNodeVersion())));
+            return;
+        }
+        int shardIndex = 0;
+        for (ShardIterator shardIterator : shardIterators) {
+            final int index = shardIndex++;
+            openReaderContext(clusterState, shardIterator, request, originalIndices, null, ActionListener.wrap(
+                result -> {
+                    results.set(index, result);
+                    onShardDone.run();
+                },
+                e -> {
+                    if (failure.compareAndSet(null, e) == false) {
+                        failure.get().addSuppressed(e);
+                    }
+                    onShardDone.run();
+                }));
+        }
+    }
+
+    private void openReaderContext(ClusterState clusterState, ShardIterator shardIterator, OpenPointInTimeRequest request,
+                                   OriginalIndices originalIndices, Exception lastFailure,
+                                   ActionListener<SearchContextIdForNode> listener) {
+        final ShardRouting shard = shardIterator.nextOrNull();
+        if (shard == null) {
+            listener.onFailure(lastFailure != null ? lastFailure : new NoShardAvailableActionException(shardIterator.shardId()));
+            return;
+        }
+        final DiscoveryNode node = clusterState.nodes().get(shard.currentNodeId());
+        if (node == null) {
+            openReaderContext(clusterState, shardIterator, request, originalIndices,
+                new NoShardAvailableActionException(shard.shardId()), listener);
+            return;
+        }
+        final SearchTransportService.OpenReaderContextRequest shardRequest =
+            new SearchTransportService.OpenReaderContextRequest(shard.shardId(), request.keepAlive(), originalIndices);
+        try {
+            searchTransportService.sendOpenReaderContext(searchTransportService.getConnection(null, node), shardRequest,
+                ActionListener.wrap(
+                    response -> listener.onResponse(new SearchContextIdForNode(node.getId(), response.readerId())),
+                    e -> {
+                        logger.debug(() -> new ParameterizedMessage("{}: failed to open reader context on node [{}]",
+                            shard.shardId(), node), e);
+                        openReaderContext(clusterState, shardIterator, request, originalIndices, e, listener);
+                    }));
+        } catch (Exception e) {
+            openReaderContext(clusterState, shardIterator, request, originalIndices, e, listener);
+        }
+    }
+
+    private void freeReaderContext(ClusterState clusterState, SearchContextIdForNode context, OriginalIndices originalIndices) {
+        final DiscoveryNode node = clusterState.nodes().get(context.getNode());
+        if (node == null) {
+            return;
+        }
+        try {
+            searchTransportService.sendFreeReaderContext(searchTransportService.getConnection(null, node), context.getReaderId(),
+                originalIndices, ActionListener.wrap(r -> {}, e -> logger.debug(() -> new ParameterizedMessage(
+                    "failed to free reader context [{}] on node [{}]", context.getReaderId(), node), e)));
+        } catch (Exception e) {
+            logger.debug(() -> new ParameterizedMessage("failed to free reader context [{}] on node [{}]",
+                context.getReaderId(), node), e);
+        }
+    }
+}
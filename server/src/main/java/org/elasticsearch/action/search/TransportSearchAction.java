@@ -34,7 +34,9 @@ import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
+import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
 import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.inject.Inject;
@@ -90,6 +92,12 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
     public static final Setting<Long> SHARD_COUNT_LIMIT_SETTING = Setting.longSetting(
             "action.search.shard_count.limit", Long.MAX_VALUE, 1L, Property.Dynamic, Property.NodeScope);
 
+    /**
+     * Whether the query phase sends a single request to each node for all the shards it holds instead of one request per shard.
+     */
+    public static final Setting<Boolean> BATCHED_QUERY_PHASE_SETTING = Setting.boolSetting(
+            "search.query_phase.batch_per_node", true, Property.Dynamic, Property.NodeScope);
+
     private final ThreadPool threadPool;
     private final ClusterService clusterService;
     private final SearchTransportService searchTransportService;
@@ -468,20 +476,34 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         // TODO: I think startTime() should become part of ActionRequest and that should be used both for index name
         // date math expressions and $now in scripts. This way all apis will deal with now in the same way instead
         // of just for the _search api
-        final Index[] indices = resolveLocalIndices(localIndices, searchRequest.indicesOptions(), clusterState, timeProvider);
-        Map<String, AliasFilter> aliasFilter = buildPerIndexAliasFilter(searchRequest, clusterState, indices, remoteAliasMap);
-        Map<String, Set<String>> routingMap = indexNameExpressionResolver.resolveSearchRouting(clusterState, searchRequest.routing(),
-            searchRequest.indices());
-        routingMap = routingMap == null ? Collections.emptyMap() : Collections.unmodifiableMap(routingMap);
-        String[] concreteIndices = new String[indices.length];
-        for (int i = 0; i < indices.length; i++) {
-            concreteIndices[i] = indices[i].getName();
-        }
-        Map<String, Long> nodeSearchCounts = searchTransportService.getPendingSearchRequests();
-        GroupShardsIterator<ShardIterator> localShardsIterator = clusterService.operationRouting().searchShards(clusterState,
+        final Map<String, AliasFilter> aliasFilter;
+        final Map<String, Set<String>> routingMap;
+        final GroupShardsIterator<SearchShardIterator> shardIterators;
+        if (searchRequest.source() != null && searchRequest.source().pointInTimeBuilder() != null) {
+            assert remoteShardIterators.isEmpty() : "point in time searches are local only";
+            final SearchContextId searchContextId = SearchContextId.decode(searchRequest.source().pointInTimeBuilder().getId());
+            aliasFilter = buildPointInTimeAliasFilter(clusterState, searchContextId);
+            routingMap = Collections.emptyMap();
+            shardIterators = pointInTimeShardIterators(clusterState, searchContextId, searchRequest.indicesOptions(),
+                searchRequest.getLocalClusterAlias());
+        } else {
+            final Index[] indices = resolveLocalIndices(localIndices, searchRequest.indicesOptions(), clusterState, timeProvider);
+            aliasFilter = buildPerIndexAliasFilter(searchRequest, clusterState, indices, remoteAliasMap);
+            Map<String, Set<String>> searchRouting = indexNameExpressionResolver.resolveSearchRouting(clusterState,
+                searchRequest.routing(), searchRequest.indices());
+            routingMap = searchRouting == null ? Collections.emptyMap() : Collections.unmodifiableMap(searchRouting);
+            String[] concreteIndices = new String[indices.length];
+            for (int i = 0; i < indices.length; i++) {
+                concreteIndices[i] = indices[i].getName();
+            }
+            Map<String, Long> nodeSearchCounts = searchTransportService.getPendingSearchRequests();
+            GroupShardsIterator<ShardIterator> localShardsIterator = clusterService.operationRouting().searchShards(clusterState,
                 concreteIndices, routingMap, searchRequest.preference(), searchService.getResponseCollectorService(), nodeSearchCounts);
-        GroupShardsIterator<SearchShardIterator> shardIterators = mergeShardsIterators(localShardsIterator, localIndices,
-            searchRequest.getLocalClusterAlias(), remoteShardIterators);
+            shardIterators = mergeShardsIterators(localShardsIterator, localIndices, searchRequest.getLocalClusterAlias(),
+                remoteShardIterators);
+            // skip the shards of write-blocked indices outside of the queried time range without any round trip
+            TimestampRangeShardFilter.skipShards(searchRequest, clusterState, shardIterators, timeProvider.getAbsoluteStartMillis());
+        }
 
         failIfOverShardCountLimit(clusterService, shardIterators.size());
 
@@ -515,6 +537,50 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
             Collections.unmodifiableMap(aliasFilter), concreteIndexBoosts, routingMap, listener, preFilterSearchShards, clusters).start();
     }
 
+    /**
+     * Resolves the alias filters of the indices of a point in time from the index expressions the point in time was opened with.
+     */
+    private Map<String, AliasFilter> buildPointInTimeAliasFilter(ClusterState clusterState, SearchContextId searchContextId) {
+        final Map<String, AliasFilter> aliasFilterMap = new HashMap<>();
+        final Set<String> indicesAndAliases = indexNameExpressionResolver.resolveExpressions(clusterState, searchContextId.indices());
+        for (ShardId shardId : searchContextId.shards().keySet()) {
+            final Index index = shardId.getIndex();
+            if (aliasFilterMap.containsKey(index.getUUID()) == false) {
+                clusterState.blocks().indexBlockedRaiseException(ClusterBlockLevel.READ, index.getName());
+                aliasFilterMap.put(index.getUUID(), searchService.buildAliasFilter(clusterState, index.getName(), indicesAndAliases));
+            }
+        }
+        return aliasFilterMap;
+    }
+
+    /**
+     * Builds one shard iterator per shard of a point in time. Each iterator only targets the copy that holds the pinned
+     * reader context, the shard fails if that copy is no longer allocated on the node.
+     */
+    static GroupShardsIterator<SearchShardIterator> pointInTimeShardIterators(ClusterState clusterState, SearchContextId searchContextId,
+                                                                              IndicesOptions indicesOptions,
+                                                                              @Nullable String localClusterAlias) {
+        final OriginalIndices originalIndices = new OriginalIndices(searchContextId.indices(), indicesOptions);
+        final List<SearchShardIterator> iterators = new ArrayList<>(searchContextId.shards().size());
+        for (Map.Entry<ShardId, SearchContextIdForNode> entry : searchContextId.shards().entrySet()) {
+            final ShardId shardId = entry.getKey();
+            final SearchContextIdForNode context = entry.getValue();
+            List<ShardRouting> targetShards = Collections.emptyList();
+            final IndexShardRoutingTable shardRoutingTable = clusterState.routingTable().hasIndex(shardId.getIndex())
+                ? clusterState.routingTable().index(shardId.getIndex()).shard(shardId.id()) : null;
+            if (shardRoutingTable != null) {
+                for (ShardRouting shardRouting : shardRoutingTable.activeShards()) {
+                    if (context.getNode().equals(shardRouting.currentNodeId())) {
+                        targetShards = Collections.singletonList(shardRouting);
+                        break;
+                    }
+                }
+            }
+            iterators.add(new SearchShardIterator(localClusterAlias, shardId, targetShards, originalIndices, context.getReaderId()));
+        }
+        return new GroupShardsIterator<>(iterators);
+    }
+
     static BiFunction<String, String, Transport.Connection> buildConnectionLookup(String requestClusterAlias,
                                                               Function<String, DiscoveryNode> localNodes,
                                                               BiFunction<String, String, DiscoveryNode> remoteNodes,
@@ -592,7 +658,8 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                 case QUERY_THEN_FETCH:
                     searchAsyncAction = new SearchQueryThenFetchAsyncAction(logger, searchTransportService, connectionLookup,
                         aliasFilter, concreteIndexBoosts, indexRoutings, searchPhaseController, executor, searchRequest, listener,
-                        shardIterators, timeProvider, clusterStateVersion, task, clusters);
+                        shardIterators, timeProvider, clusterStateVersion, task, clusters,
+                        clusterService.getClusterSettings().get(BATCHED_QUERY_PHASE_SETTING));
                     break;
                 default:
                     throw new IllegalStateException("Unknown search type: [" + searchRequest.searchType() + "]");
@@ -69,6 +69,7 @@ import org.elasticsearch.tasks.Task;
 import org.elasticsearch.tasks.TaskId;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.ConnectTransportException;
+import org.elasticsearch.transport.RawDataTransportRequest;
 import org.elasticsearch.transport.TransportChannel;
 import org.elasticsearch.transport.TransportException;
 import org.elasticsearch.transport.TransportRequest;
@@ -251,8 +252,31 @@ public abstract class TransportReplicationAction<
     }
 
     protected void handlePrimaryRequest(final ConcreteShardRequest<Request> request, final TransportChannel channel, final Task task) {
-        new AsyncPrimaryAction(
-            request, new ChannelActionListener<>(channel, transportPrimaryAction, request), (ReplicationTask) task).run();
+        final TaskId parentTask = request.getParentTask();
+        final boolean localToCoordinatingNode = parentTask.isSet() && parentTask.getNodeId().equals(clusterService.localNode().getId());
+        final Releasable releasable = checkPrimaryLimits(request.getRequest(), localToCoordinatingNode);
+        new AsyncPrimaryAction(request,
+            ActionListener.runBefore(new ChannelActionListener<>(channel, transportPrimaryAction, request), releasable::close),
+            (ReplicationTask) task).run();
+    }
+
+    /**
+     * Called before the execution of a request on the primary, the returned {@link Releasable} is released once
+     * the request completed on all copies of the shard. Implementations may reject the request by throwing an
+     * exception.
+     *
+     * @param localToCoordinatingNode whether the request is coordinated by the node that holds the primary
+     */
+    protected Releasable checkPrimaryLimits(final Request request, boolean localToCoordinatingNode) {
+        return () -> {};
+    }
+
+    /**
+     * Called before the execution of a request on a replica, the returned {@link Releasable} is released once
+     * the request completed on the replica. Implementations may reject the request by throwing an exception.
+     */
+    protected Releasable checkReplicaLimits(final ReplicaRequest request) {
+        return () -> {};
     }
 
     class AsyncPrimaryAction extends AbstractRunnable {
@@ -467,8 +491,10 @@ public abstract class TransportReplicationAction<
 
     protected void handleReplicaRequest(final ConcreteReplicaRequest<ReplicaRequest> replicaRequest,
                                         final TransportChannel channel, final Task task) {
-        new AsyncReplicaAction(
-            replicaRequest, new ChannelActionListener<>(channel, transportReplicaAction, replicaRequest), (ReplicationTask) task).run();
+        final Releasable releasable = checkReplicaLimits(replicaRequest.getRequest());
+        new AsyncReplicaAction(replicaRequest,
+            ActionListener.runBefore(new ChannelActionListener<>(channel, transportReplicaAction, replicaRequest), releasable::close),
+            (ReplicationTask) task).run();
     }
 
     public static class RetryOnReplicaException extends ElasticsearchException {
@@ -1033,7 +1059,7 @@ public abstract class TransportReplicationAction<
     }
 
     /** a wrapper class to encapsulate a request when being sent to a specific allocation id **/
-    public static class ConcreteShardRequest<R extends TransportRequest> extends TransportRequest {
+    public static class ConcreteShardRequest<R extends TransportRequest> extends TransportRequest implements RawDataTransportRequest {
 
         /** {@link AllocationId#getId()} of the shard this request is sent to **/
         private final String targetAllocationID;
@@ -1089,6 +1115,11 @@ public abstract class TransportReplicationAction<
             return request;
         }
 
+        @Override
+        public long rawDataSizeInBytes() {
+            return request instanceof RawDataTransportRequest ? ((RawDataTransportRequest) request).rawDataSizeInBytes() : 0;
+        }
+
         public String getTargetAllocationID() {
             return targetAllocationID;
         }
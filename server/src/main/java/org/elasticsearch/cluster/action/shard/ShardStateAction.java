@@ -35,6 +35,8 @@ import org.elasticsearch.cluster.MasterNodeChangePredicate;
 import org.elasticsearch.cluster.NotMasterException;
 import org.elasticsearch.cluster.coordination.FailedToCommitClusterStateException;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.IndexTimestampRange;
+import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.RerouteService;
 import org.elasticsearch.cluster.routing.ShardRouting;
@@ -48,7 +50,9 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardTimestampRange;
 import org.elasticsearch.node.NodeClosedException;
 import org.elasticsearch.tasks.Task;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -65,9 +69,11 @@ import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -78,6 +84,7 @@ public class ShardStateAction {
 
     public static final String SHARD_STARTED_ACTION_NAME = "internal:cluster/shard/started";
     public static final String SHARD_FAILED_ACTION_NAME = "internal:cluster/shard/failure";
+    public static final String SHARD_TIMESTAMP_RANGE_ACTION_NAME = "internal:cluster/shard/timestamp_range";
 
     private final TransportService transportService;
     private final ClusterService clusterService;
@@ -102,6 +109,8 @@ public class ShardStateAction {
             new ShardFailedTransportHandler(clusterService,
                 new ShardFailedClusterStateTaskExecutor(allocationService, rerouteService, logger),
                 logger));
+        transportService.registerRequestHandler(SHARD_TIMESTAMP_RANGE_ACTION_NAME, ThreadPool.Names.SAME, ShardTimestampRangeEntry::new,
+            new ShardTimestampRangeTransportHandler(clusterService, new ShardTimestampRangeClusterStateTaskExecutor(logger), logger));
     }
 
     private void sendShardAction(final String actionName, final ClusterState currentState,
@@ -640,6 +649,130 @@ public class ShardStateAction {
         }
     }
 
+    /**
+     * Send the range of the timestamp field held by a shard of a write-blocked index to the master, which merges it into the index's
+     * {@link IndexTimestampRange}.
+     *
+     * @param shardId         the shard whose range was computed
+     * @param settingsVersion the settings version of the index when the range was computed, the range is ignored if it changed since
+     * @param timestampRange  the range of the shard, which must be known
+     * @param listener        callback upon completion of the request
+     */
+    public void shardTimestampRange(final ShardId shardId, final long settingsVersion, final ShardTimestampRange timestampRange,
+                                    final ActionListener<Void> listener) {
+        assert timestampRange.isKnown() : "cannot send an unknown timestamp range for " + shardId;
+        sendShardAction(SHARD_TIMESTAMP_RANGE_ACTION_NAME, clusterService.state(),
+            new ShardTimestampRangeEntry(shardId, settingsVersion, timestampRange), listener);
+    }
+
+    private static class ShardTimestampRangeTransportHandler implements TransportRequestHandler<ShardTimestampRangeEntry> {
+        private final ClusterService clusterService;
+        private final ShardTimestampRangeClusterStateTaskExecutor executor;
+        private final Logger logger;
+
+        ShardTimestampRangeTransportHandler(ClusterService clusterService, ShardTimestampRangeClusterStateTaskExecutor executor,
+                                            Logger logger) {
+            this.clusterService = clusterService;
+            this.executor = executor;
+            this.logger = logger;
+        }
+
+        @Override
+        public void messageReceived(ShardTimestampRangeEntry request, TransportChannel channel, Task task) throws Exception {
+            logger.debug("{} received shard timestamp range [{}]", request.shardId, request);
+            clusterService.submitStateUpdateTask(
+                "shard-timestamp-range " + request,
+                request,
+                ClusterStateTaskConfig.build(Priority.NORMAL),
+                executor,
+                executor);
+            channel.sendResponse(TransportResponse.Empty.INSTANCE);
+        }
+    }
+
+    public static class ShardTimestampRangeClusterStateTaskExecutor
+            implements ClusterStateTaskExecutor<ShardTimestampRangeEntry>, ClusterStateTaskListener {
+        private final Logger logger;
+
+        public ShardTimestampRangeClusterStateTaskExecutor(Logger logger) {
+            this.logger = logger;
+        }
+
+        @Override
+        public ClusterTasksResult<ShardTimestampRangeEntry> execute(ClusterState currentState,
+                                                                    List<ShardTimestampRangeEntry> tasks) throws Exception {
+            final Map<Index, IndexMetaData.Builder> updatedIndices = new HashMap<>();
+            for (ShardTimestampRangeEntry task : tasks) {
+                final IndexMetaData indexMetaData = currentState.metaData().index(task.shardId.getIndex());
+                if (indexMetaData == null) {
+                    logger.debug("{} ignoring shard timestamp range task [{}] (index does not exist anymore)", task.shardId, task);
+                } else if (indexMetaData.getSettingsVersion() != task.settingsVersion) {
+                    // the write block may have been lifted and reinstated since the range was computed
+                    logger.debug("{} ignoring shard timestamp range task [{}] (settings version {} does not match current version {})",
+                        task.shardId, task, task.settingsVersion, indexMetaData.getSettingsVersion());
+                } else if (indexMetaData.getTimestampRange().hasShard(task.shardId.id()) == false) {
+                    // the version must change for the updated metadata to be persisted by the nodes
+                    final IndexMetaData.Builder builder = updatedIndices.computeIfAbsent(indexMetaData.getIndex(),
+                        index -> IndexMetaData.builder(indexMetaData).version(indexMetaData.getVersion() + 1));
+                    builder.timestampRange(builder.getTimestampRange()
+                        .extendWithShardRange(task.shardId.id(), indexMetaData.getNumberOfShards(), task.timestampRange));
+                }
+            }
+
+            final ClusterState maybeUpdatedState;
+            if (updatedIndices.isEmpty()) {
+                maybeUpdatedState = currentState;
+            } else {
+                final MetaData.Builder metaData = MetaData.builder(currentState.metaData());
+                updatedIndices.values().forEach(builder -> metaData.put(builder.build(), false));
+                maybeUpdatedState = ClusterState.builder(currentState).metaData(metaData).build();
+            }
+            return ClusterTasksResult.<ShardTimestampRangeEntry>builder().successes(tasks).build(maybeUpdatedState);
+        }
+
+        @Override
+        public void onFailure(String source, Exception e) {
+            if (e instanceof FailedToCommitClusterStateException || e instanceof NotMasterException) {
+                logger.debug(() -> new ParameterizedMessage("failure during [{}]", source), e);
+            } else {
+                logger.error(() -> new ParameterizedMessage("unexpected failure during [{}]", source), e);
+            }
+        }
+    }
+
+    public static class ShardTimestampRangeEntry extends TransportRequest {
+        final ShardId shardId;
+        final long settingsVersion;
+        final ShardTimestampRange timestampRange;
+
+        ShardTimestampRangeEntry(StreamInput in) throws IOException {
+            super(in);
+            shardId = new ShardId(in);
+            settingsVersion = in.readVLong();
+            timestampRange = new ShardTimestampRange(in);
+        }
+
+        public ShardTimestampRangeEntry(final ShardId shardId, final long settingsVersion, final ShardTimestampRange timestampRange) {
+            this.shardId = shardId;
+            this.settingsVersion = settingsVersion;
+            this.timestampRange = timestampRange;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            shardId.writeTo(out);
+            out.writeVLong(settingsVersion);
+            timestampRange.writeTo(out);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "ShardTimestampRangeEntry{shardId [%s], settings version [%d], range %s}",
+                shardId, settingsVersion, timestampRange);
+        }
+    }
+
     public static class NoLongerPrimaryShardException extends ElasticsearchException {
 
         public NoLongerPrimaryShardException(ShardId shardId, String msg) {
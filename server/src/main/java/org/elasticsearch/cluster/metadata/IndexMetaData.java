@@ -70,6 +70,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Function;
 
@@ -281,6 +282,7 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
     static final String KEY_MAPPINGS = "mappings";
     static final String KEY_ALIASES = "aliases";
     static final String KEY_ROLLOVER_INFOS = "rollover_info";
+    static final String KEY_TIMESTAMP_RANGE = "timestamp_range";
     public static final String KEY_PRIMARY_TERMS = "primary_terms";
 
     public static final String INDEX_STATE_FILE_PREFIX = "state-";
@@ -327,6 +329,8 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
     private final ActiveShardCount waitForActiveShards;
     private final ImmutableOpenMap<String, RolloverInfo> rolloverInfos;
 
+    private final IndexTimestampRange timestampRange;
+
     private IndexMetaData(
             final Index index,
             final long version,
@@ -351,7 +355,8 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
             final int routingNumShards,
             final int routingPartitionSize,
             final ActiveShardCount waitForActiveShards,
-            final ImmutableOpenMap<String, RolloverInfo> rolloverInfos) {
+            final ImmutableOpenMap<String, RolloverInfo> rolloverInfos,
+            final IndexTimestampRange timestampRange) {
 
         this.index = index;
         this.version = version;
@@ -383,6 +388,7 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
         this.routingPartitionSize = routingPartitionSize;
         this.waitForActiveShards = waitForActiveShards;
         this.rolloverInfos = rolloverInfos;
+        this.timestampRange = timestampRange;
         assert numberOfShards * routingFactor == routingNumShards :  routingNumShards + " must be a multiple of " + numberOfShards;
     }
 
@@ -530,6 +536,14 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
         return rolloverInfos;
     }
 
+    /**
+     * The range of the timestamp field across the shards of this index. Only populated while the index is write-blocked, since any
+     * write may extend the range.
+     */
+    public IndexTimestampRange getTimestampRange() {
+        return timestampRange;
+    }
+
     public Set<String> inSyncAllocationIds(int shardId) {
         assert shardId >= 0 && shardId < numberOfShards;
         return inSyncAllocationIds.get(shardId);
@@ -603,6 +617,9 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
         if (rolloverInfos.equals(that.rolloverInfos) == false) {
             return false;
         }
+        if (timestampRange.equals(that.timestampRange) == false) {
+            return false;
+        }
         return true;
     }
 
@@ -620,6 +637,7 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
         result = 31 * result + Arrays.hashCode(primaryTerms);
         result = 31 * result + inSyncAllocationIds.hashCode();
         result = 31 * result + rolloverInfos.hashCode();
+        result = 31 * result + timestampRange.hashCode();
         return result;
     }
 
@@ -659,6 +677,7 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
         private final Diff<ImmutableOpenMap<String, DiffableStringMap>> customData;
         private final Diff<ImmutableOpenIntMap<Set<String>>> inSyncAllocationIds;
         private final Diff<ImmutableOpenMap<String, RolloverInfo>> rolloverInfos;
+        private final IndexTimestampRange timestampRange;
 
         IndexMetaDataDiff(IndexMetaData before, IndexMetaData after) {
             index = after.index.getName();
@@ -676,6 +695,7 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
             inSyncAllocationIds = DiffableUtils.diff(before.inSyncAllocationIds, after.inSyncAllocationIds,
                 DiffableUtils.getVIntKeySerializer(), DiffableUtils.StringSetValueSerializer.getInstance());
             rolloverInfos = DiffableUtils.diff(before.rolloverInfos, after.rolloverInfos, DiffableUtils.getStringKeySerializer());
+            timestampRange = after.timestampRange;
         }
 
         IndexMetaDataDiff(StreamInput in) throws IOException {
@@ -702,6 +722,11 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
                 DiffableUtils.StringSetValueSerializer.getInstance());
             rolloverInfos = DiffableUtils.readImmutableOpenMapDiff(in, DiffableUtils.getStringKeySerializer(), RolloverInfo::new,
                 RolloverInfo::readDiffFrom);
+            if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+                timestampRange = new IndexTimestampRange(in);
+            } else {
+                timestampRange = IndexTimestampRange.NO_SHARDS;
+            }
         }
 
         @Override
@@ -722,6 +747,9 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
             customData.writeTo(out);
             inSyncAllocationIds.writeTo(out);
             rolloverInfos.writeTo(out);
+            if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                timestampRange.writeTo(out);
+            }
         }
 
         @Override
@@ -740,6 +768,7 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
             builder.customMetaData.putAll(customData.apply(part.customData));
             builder.inSyncAllocationIds.putAll(inSyncAllocationIds.apply(part.inSyncAllocationIds));
             builder.rolloverInfos.putAll(rolloverInfos.apply(part.rolloverInfos));
+            builder.timestampRange(timestampRange);
             return builder.build();
         }
     }
@@ -782,6 +811,9 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
         for (int i = 0; i < rolloverAliasesSize; i++) {
             builder.putRolloverInfo(new RolloverInfo(in));
         }
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            builder.timestampRange(new IndexTimestampRange(in));
+        }
         return builder.build();
     }
 
@@ -820,6 +852,9 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
         for (ObjectCursor<RolloverInfo> cursor : rolloverInfos.values()) {
             cursor.value.writeTo(out);
         }
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            timestampRange.writeTo(out);
+        }
     }
 
     public static Builder builder(String index) {
@@ -846,6 +881,7 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
         private final ImmutableOpenIntMap.Builder<Set<String>> inSyncAllocationIds;
         private final ImmutableOpenMap.Builder<String, RolloverInfo> rolloverInfos;
         private Integer routingNumShards;
+        private IndexTimestampRange timestampRange = IndexTimestampRange.NO_SHARDS;
 
         public Builder(String index) {
             this.index = index;
@@ -871,6 +907,7 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
             this.routingNumShards = indexMetaData.routingNumShards;
             this.inSyncAllocationIds = ImmutableOpenIntMap.builder(indexMetaData.inSyncAllocationIds);
             this.rolloverInfos = ImmutableOpenMap.builder(indexMetaData.rolloverInfos);
+            this.timestampRange = indexMetaData.timestampRange;
         }
 
         public Builder index(String index) {
@@ -1002,6 +1039,15 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
             return this;
         }
 
+        public Builder timestampRange(IndexTimestampRange timestampRange) {
+            this.timestampRange = Objects.requireNonNull(timestampRange);
+            return this;
+        }
+
+        public IndexTimestampRange getTimestampRange() {
+            return timestampRange;
+        }
+
         public long version() {
             return this.version;
         }
@@ -1158,6 +1204,10 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
 
             final String uuid = settings.get(SETTING_INDEX_UUID, INDEX_UUID_NA_VALUE);
 
+            // writes may extend the timestamp range at any time, so it is only retained while the index is write-blocked
+            final boolean writeBlocked = INDEX_BLOCKS_WRITE_SETTING.get(settings) || INDEX_READ_ONLY_SETTING.get(settings)
+                || INDEX_BLOCKS_READ_ONLY_ALLOW_DELETE_SETTING.get(settings);
+
             return new IndexMetaData(
                     new Index(index, uuid),
                     version,
@@ -1182,7 +1232,8 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
                     getRoutingNumShards(),
                     routingPartitionSize,
                     waitForActiveShards,
-                    rolloverInfos.build());
+                    rolloverInfos.build(),
+                    writeBlocked ? timestampRange : IndexTimestampRange.NO_SHARDS);
         }
 
         public static void toXContent(IndexMetaData indexMetaData, XContentBuilder builder, ToXContent.Params params) throws IOException {
@@ -1245,6 +1296,12 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
             }
             builder.endObject();
 
+            if (indexMetaData.timestampRange.equals(IndexTimestampRange.NO_SHARDS) == false) {
+                builder.startObject(KEY_TIMESTAMP_RANGE);
+                indexMetaData.timestampRange.toXContent(builder, params);
+                builder.endObject();
+            }
+
             builder.endObject();
         }
 
@@ -1318,6 +1375,8 @@ public class IndexMetaData implements Diffable<IndexMetaData>, ToXContentFragmen
                                 throw new IllegalArgumentException("Unexpected token: " + token);
                             }
                         }
+                    } else if (KEY_TIMESTAMP_RANGE.equals(currentFieldName)) {
+                        builder.timestampRange(IndexTimestampRange.fromXContent(parser));
                     } else if ("warmers".equals(currentFieldName)) {
                         // TODO: do this in 6.0:
                         // throw new IllegalArgumentException("Warmers are not supported anymore - are you upgrading from 1.x?");
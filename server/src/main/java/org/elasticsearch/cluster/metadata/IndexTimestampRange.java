@@ -0,0 +1,200 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.metadata;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.shard.ShardTimestampRange;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The range of values of the timestamp field across the shards of an index, expressed in milliseconds since the epoch. The range is
+ * built up by merging the ranges reported by each shard in turn, and can only be used to exclude the index from a search once every
+ * shard has reported its range.
+ */
+public final class IndexTimestampRange implements Writeable, ToXContentFragment {
+
+    public static final IndexTimestampRange NO_SHARDS = new IndexTimestampRange(new int[0], Long.MAX_VALUE, Long.MIN_VALUE);
+
+    private static final String SHARDS_FIELD = "shards";
+    private static final String MIN_FIELD = "min";
+    private static final String MAX_FIELD = "max";
+
+    /**
+     * Sorted ids of the shards whose range has been merged, or {@code null} if all shards have been merged.
+     */
+    @Nullable
+    private final int[] shards;
+    private final long min;
+    private final long max;
+
+    private IndexTimestampRange(@Nullable int[] shards, long min, long max) {
+        this.shards = shards;
+        this.min = min;
+        this.max = max;
+    }
+
+    public IndexTimestampRange(StreamInput in) throws IOException {
+        shards = in.readBoolean() ? in.readVIntArray() : null;
+        min = in.readLong();
+        max = in.readLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        if (shards == null) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            out.writeVIntArray(shards);
+        }
+        out.writeLong(min);
+        out.writeLong(max);
+    }
+
+    /**
+     * Returns a range that additionally includes the given shard's range, which must be known.
+     */
+    public IndexTimestampRange extendWithShardRange(int shardId, int numberOfShards, ShardTimestampRange shardRange) {
+        assert shardRange.isKnown() : "cannot extend an index range with an unknown shard range";
+        assert shardId >= 0 && shardId < numberOfShards : shardId + " vs " + numberOfShards;
+        if (hasShard(shardId)) {
+            return this;
+        }
+        final int[] newShards = Arrays.copyOf(shards, shards.length + 1);
+        newShards[shards.length] = shardId;
+        Arrays.sort(newShards);
+        return new IndexTimestampRange(newShards.length == numberOfShards ? null : newShards,
+            Math.min(min, shardRange.getMin()), Math.max(max, shardRange.getMax()));
+    }
+
+    /**
+     * Whether the range of every shard of the index has been merged into this range.
+     */
+    public boolean containsAllShardRanges() {
+        return shards == null;
+    }
+
+    /**
+     * Whether the range of the given shard has been merged into this range.
+     */
+    public boolean hasShard(int shardId) {
+        return shards == null || Arrays.binarySearch(shards, shardId) >= 0;
+    }
+
+    /**
+     * Whether none of the merged shards holds a value for the timestamp field.
+     */
+    public boolean isEmpty() {
+        return min > max;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns {@code false} only if every shard has reported its range and none of them may hold a value between {@code from} and
+     * {@code to} inclusive.
+     */
+    public boolean mayIntersect(long from, long to) {
+        if (containsAllShardRanges() == false) {
+            return true;
+        }
+        return isEmpty() == false && from <= max && to >= min;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        if (shards != null) {
+            builder.array(SHARDS_FIELD, shards);
+        }
+        if (isEmpty() == false) {
+            builder.field(MIN_FIELD, min);
+            builder.field(MAX_FIELD, max);
+        }
+        return builder;
+    }
+
+    /**
+     * Parses the body of an object written by {@link #toXContent}, with the parser positioned on its start.
+     */
+    public static IndexTimestampRange fromXContent(XContentParser parser) throws IOException {
+        int[] shards = null;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        String currentFieldName = null;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (token == XContentParser.Token.START_ARRAY && SHARDS_FIELD.equals(currentFieldName)) {
+                final List<Integer> shardIds = new ArrayList<>();
+                while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                    shardIds.add(parser.intValue());
+                }
+                shards = shardIds.stream().mapToInt(Integer::intValue).sorted().toArray();
+            } else if (token.isValue() && MIN_FIELD.equals(currentFieldName)) {
+                min = parser.longValue();
+            } else if (token.isValue() && MAX_FIELD.equals(currentFieldName)) {
+                max = parser.longValue();
+            } else {
+                throw new IllegalArgumentException("Unexpected token: " + token);
+            }
+        }
+        return new IndexTimestampRange(shards, min, max);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        IndexTimestampRange that = (IndexTimestampRange) o;
+        return min == that.min && max == that.max && Arrays.equals(shards, that.shards);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hash(min, max) + Arrays.hashCode(shards);
+    }
+
+    @Override
+    public String toString() {
+        return "IndexTimestampRange{shards=" + (shards == null ? "all" : Arrays.toString(shards)) + ", min=" + min + ", max=" + max + '}';
+    }
+}
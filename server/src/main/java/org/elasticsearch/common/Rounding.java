@@ -42,6 +42,7 @@ import java.time.temporal.TemporalField;
 import java.time.temporal.TemporalQueries;
 import java.time.zone.ZoneOffsetTransition;
 import java.time.zone.ZoneRules;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -150,6 +151,56 @@ public abstract class Rounding implements Writeable {
 
     public abstract byte id();
 
+    /**
+     * A strategy for rounding milliseconds since epoch that may have been prepared for a range of values,
+     * see {@link Rounding#prepare(long, long)}.
+     */
+    public interface Prepared {
+        /**
+         * Rounds the given value.
+         */
+        long round(long utcMillis);
+
+        /**
+         * Given the rounded value, returns the next rounding value, see {@link Rounding#nextRoundingValue(long)}.
+         */
+        long nextRoundingValue(long utcMillis);
+    }
+
+    /**
+     * The maximum number of rounded values that {@link #prepare(long, long)} precomputes.
+     */
+    static final int MAX_PRECOMPUTED_VALUES = 1 << 12;
+
+    /**
+     * Prepares this rounding for values between {@code minUtcMillis} and {@code maxUtcMillis}, for instance the minimum and
+     * maximum values of a field on a shard. Rounding in a time zone with daylight saving transitions goes through
+     * {@code java.time} for every value, so this looks ahead at the range: if the offset of the time zone does not change
+     * in the range the values are rounded with plain arithmetic, otherwise rounding to a {@link DateTimeUnit} precomputes
+     * the rounded values of the range into a sorted array that is binary searched, unless there are more than
+     * {@link #MAX_PRECOMPUTED_VALUES}. Values outside of the range are still rounded correctly, just not any faster.
+     */
+    public Prepared prepare(long minUtcMillis, long maxUtcMillis) {
+        return prepareForUnknown();
+    }
+
+    /**
+     * Prepares this rounding for values that are not known in advance.
+     */
+    public Prepared prepareForUnknown() {
+        return new Prepared() {
+            @Override
+            public long round(long utcMillis) {
+                return Rounding.this.round(utcMillis);
+            }
+
+            @Override
+            public long nextRoundingValue(long utcMillis) {
+                return Rounding.this.nextRoundingValue(utcMillis);
+            }
+        };
+    }
+
     /**
      * Rounds the given value.
      */
@@ -164,6 +215,111 @@ public abstract class Rounding implements Writeable {
      */
     public abstract long nextRoundingValue(long value);
 
+    /**
+     * Prepares a rounding in a time zone whose offset changes: see {@link #prepare(long, long)}.
+     *
+     * @param fixedOffsetRounding rounds a value given the offset of the time zone in milliseconds, which is only correct
+     *                            if the offset is the same for the value and its rounded value
+     * @param precompute          whether to precompute the rounded values if the offset changes in the range, which
+     *                            requires {@link #nextRoundingValue(long)} to return the next value that {@link #round(long)}
+     *                            can return
+     */
+    Prepared prepareInTimeZone(ZoneId timeZone, long minUtcMillis, long maxUtcMillis, FixedOffsetRounding fixedOffsetRounding,
+                               boolean precompute) {
+        if (minUtcMillis > maxUtcMillis) {
+            return prepareForUnknown();
+        }
+        // rounding is monotonic, so all the values of the range round to instants between these two
+        final long lowest = round(minUtcMillis);
+        final ZoneRules rules = timeZone.getRules();
+        final ZoneOffsetTransition nextTransition = rules.nextTransition(Instant.ofEpochMilli(lowest));
+        if (nextTransition == null || nextTransition.getInstant().toEpochMilli() > maxUtcMillis) {
+            final long offsetMillis = rules.getOffset(Instant.ofEpochMilli(lowest)).getTotalSeconds() * 1000L;
+            return new RangePrepared(this, minUtcMillis, maxUtcMillis) {
+                @Override
+                long roundInRange(long utcMillis) {
+                    return fixedOffsetRounding.round(utcMillis, offsetMillis);
+                }
+            };
+        }
+        final long[] values = precompute ? precomputeRoundedValues(lowest, maxUtcMillis) : null;
+        if (values == null) {
+            return prepareForUnknown();
+        }
+        return new RangePrepared(this, minUtcMillis, maxUtcMillis) {
+            @Override
+            long roundInRange(long utcMillis) {
+                final int index = Arrays.binarySearch(values, utcMillis);
+                // the first value is not greater than any value of the range, so a missing value has a predecessor
+                return index >= 0 ? values[index] : values[-index - 2];
+            }
+        };
+    }
+
+    /**
+     * Returns the rounded values from {@code lowest}, a rounded value, up to {@code maxUtcMillis} in ascending order, or
+     * null if there are more than {@link #MAX_PRECOMPUTED_VALUES}.
+     */
+    private long[] precomputeRoundedValues(long lowest, long maxUtcMillis) {
+        long[] values = new long[16];
+        int count = 0;
+        long value = lowest;
+        while (value <= maxUtcMillis) {
+            if (count == MAX_PRECOMPUTED_VALUES) {
+                return null;
+            }
+            if (count == values.length) {
+                values = Arrays.copyOf(values, Math.min(values.length * 2, MAX_PRECOMPUTED_VALUES));
+            }
+            values[count++] = value;
+            final long next = nextRoundingValue(value);
+            if (next <= value) {
+                // this should not happen but precomputing would not terminate
+                return null;
+            }
+            value = next;
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    /**
+     * Rounds a value with a known time zone offset.
+     */
+    @FunctionalInterface
+    interface FixedOffsetRounding {
+        long round(long utcMillis, long offsetMillis);
+    }
+
+    /**
+     * A {@link Prepared} rounding that uses a faster strategy for the values of a range and the full rounding otherwise.
+     */
+    private abstract static class RangePrepared implements Prepared {
+        private final Rounding rounding;
+        private final long minUtcMillis;
+        private final long maxUtcMillis;
+
+        RangePrepared(Rounding rounding, long minUtcMillis, long maxUtcMillis) {
+            this.rounding = rounding;
+            this.minUtcMillis = minUtcMillis;
+            this.maxUtcMillis = maxUtcMillis;
+        }
+
+        abstract long roundInRange(long utcMillis);
+
+        @Override
+        public long round(long utcMillis) {
+            if (utcMillis < minUtcMillis || utcMillis > maxUtcMillis) {
+                return rounding.round(utcMillis);
+            }
+            return roundInRange(utcMillis);
+        }
+
+        @Override
+        public long nextRoundingValue(long utcMillis) {
+            return rounding.nextRoundingValue(utcMillis);
+        }
+    }
+
     /**
      * How "offset" this rounding is from the traditional "start" of the period.
      * @deprecated We're in the process of abstracting offset *into* Rounding
@@ -313,6 +469,16 @@ public abstract class Rounding implements Writeable {
             }
         }
 
+        @Override
+        public Prepared prepare(long minUtcMillis, long maxUtcMillis) {
+            if (fixedOffsetMillis != TZ_OFFSET_NON_FIXED) {
+                // already plain arithmetic
+                return prepareForUnknown();
+            }
+            return prepareInTimeZone(timeZone, minUtcMillis, maxUtcMillis,
+                (utcMillis, offsetMillis) -> unit.roundFloor(utcMillis + offsetMillis) - offsetMillis, true);
+        }
+
         @Override
         public long round(long utcMillis) {
             // This works as long as the tz offset doesn't change. It is worth getting this case out of the way first,
@@ -500,6 +666,18 @@ public abstract class Rounding implements Writeable {
             return ID;
         }
 
+        @Override
+        public Prepared prepare(long minUtcMillis, long maxUtcMillis) {
+            if (fixedOffsetMillis != TZ_OFFSET_NON_FIXED) {
+                // already plain arithmetic
+                return prepareForUnknown();
+            }
+            return prepareInTimeZone(timeZone, minUtcMillis, maxUtcMillis,
+                (utcMillis, offsetMillis) -> roundKey(utcMillis + offsetMillis, interval) * interval - offsetMillis,
+                // intervals are not aligned on local time across transitions, so the rounded values are not precomputed
+                false);
+        }
+
         @Override
         public long round(final long utcMillis) {
             // This works as long as the tz offset doesn't change. It is worth getting this case out of the way first,
@@ -633,6 +811,30 @@ public abstract class Rounding implements Writeable {
             return ID;
         }
 
+        @Override
+        public Prepared prepare(long minUtcMillis, long maxUtcMillis) {
+            return prepareWithOffset(delegate.prepare(minUtcMillis - offset, maxUtcMillis - offset));
+        }
+
+        @Override
+        public Prepared prepareForUnknown() {
+            return prepareWithOffset(delegate.prepareForUnknown());
+        }
+
+        private Prepared prepareWithOffset(Prepared prepared) {
+            return new Prepared() {
+                @Override
+                public long round(long utcMillis) {
+                    return prepared.round(utcMillis - offset) + offset;
+                }
+
+                @Override
+                public long nextRoundingValue(long utcMillis) {
+                    return prepared.nextRoundingValue(utcMillis - offset) + offset;
+                }
+            };
+        }
+
         @Override
         public long round(long value) {
             return delegate.round(value - offset) + offset;
@@ -29,6 +29,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -63,6 +65,18 @@ import java.util.function.ToLongBiFunction;
  * <p>
  * Evictions only occur after a mutation to the cache (meaning an entry promotion, a cache insertion, or a manual
  * invalidation) or an explicit call to {@link #refresh()}.
+ * <p>
+ * Caches built with {@link CacheBuilder#tinyLfu()} avoid the LRU lock on reads and are resistant to scans:
+ * <ol>
+ * <li>Reads do not promote entries directly but record them in striped, lossy buffers that are drained under the LRU lock
+ * by whichever thread fills a buffer or mutates the cache, and only if the lock is not held by another thread. The LRU
+ * order is therefore approximate and some promotions of a very hot entry may be dropped.</li>
+ * <li>The accesses are also recorded in a {@link FrequencySketch}. When the insertion of a new key makes the cache exceed
+ * its maximum weight, the new entry is only admitted if it was accessed more frequently than the least recently used entry;
+ * otherwise the new entry is evicted instead, so that a burst of keys that are used once does not flush the cache.</li>
+ * </ol>
+ * Weights, removal notifications and statistics behave as for the default cache; rejected entries are notified with
+ * {@link RemovalNotification.RemovalReason#EVICTED} and count as evictions.
  *
  * @param <K> The type of the keys
  * @param <V> The type of the values
@@ -97,6 +111,12 @@ public class Cache<K, V> {
     private RemovalListener<K, V> removalListener = notification -> {
     };
 
+    // the buffers recording reads if the cache uses TinyLFU, otherwise null
+    private ReadBuffer<Entry<K, V>>[] readBuffers;
+
+    // the access frequencies used for admission if the cache uses TinyLFU, otherwise null
+    private FrequencySketch frequencySketch;
+
     // use CacheBuilder to construct
     Cache() {
     }
@@ -144,6 +164,21 @@ public class Cache<K, V> {
         this.removalListener = removalListener;
     }
 
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void enableTinyLfu() {
+        final ReadBuffer<Entry<K, V>>[] buffers = new ReadBuffer[NUMBER_OF_READ_BUFFERS];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new ReadBuffer<>();
+        }
+        this.readBuffers = buffers;
+        this.frequencySketch = new FrequencySketch();
+    }
+
+    // pkg-private for testing
+    boolean isTinyLfu() {
+        return frequencySketch != null;
+    }
+
     /**
      * The relative time used to track time-based evictions.
      *
@@ -335,6 +370,66 @@ public class Cache<K, V> {
         }
     }
 
+    /**
+     * A bounded, lossy buffer of the entries read from the cache.
+     * <p>
+     * Any number of threads offer entries without locking; a record is dropped if the buffer is full or if another thread
+     * won the race for the same slot. The buffer is drained by a single thread at a time, the one holding the LRU lock.
+     *
+     * @param <E> the type of the recorded entries
+     */
+    static final class ReadBuffer<E> {
+        static final int SIZE = 64;
+        private static final int MASK = SIZE - 1;
+        // the number of pending reads that triggers a drain
+        private static final int DRAIN_THRESHOLD = SIZE / 4;
+
+        private final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(SIZE);
+        private final AtomicLong writeCount = new AtomicLong();
+        // only written by the thread draining the buffer
+        private volatile long readCount;
+
+        /**
+         * Records the entry unless the buffer is full or contended.
+         *
+         * @return whether the buffer should be drained
+         */
+        boolean offer(E entry) {
+            final long head = readCount;
+            final long tail = writeCount.get();
+            final long pending = tail - head;
+            if (pending >= SIZE) {
+                return true;
+            }
+            if (writeCount.compareAndSet(tail, tail + 1)) {
+                buffer.lazySet((int) (tail & MASK), entry);
+                return pending + 1 >= DRAIN_THRESHOLD;
+            }
+            return false;
+        }
+
+        /**
+         * Hands the recorded entries to the consumer, stopping at a slot whose write has not been published yet.
+         */
+        void drainTo(Consumer<E> consumer) {
+            long head = readCount;
+            final long tail = writeCount.get();
+            while (head < tail) {
+                final int index = (int) (head & MASK);
+                final E entry = buffer.get(index);
+                if (entry == null) {
+                    break;
+                }
+                buffer.lazySet(index, null);
+                consumer.accept(entry);
+                head++;
+            }
+            readCount = head;
+        }
+    }
+
+    static final int NUMBER_OF_READ_BUFFERS = 16;
+
     public static final int NUMBER_OF_SEGMENTS = 256;
     @SuppressWarnings({"unchecked", "rawtypes"})
     private final CacheSegment<K, V>[] segments = new CacheSegment[NUMBER_OF_SEGMENTS];
@@ -367,11 +462,48 @@ public class Cache<K, V> {
         if (entry == null) {
             return null;
         } else {
-            promote(entry, now);
+            if (readBuffers == null) {
+                promote(entry, now);
+            } else {
+                recordRead(entry, now);
+            }
             return entry.value;
         }
     }
 
+    private void recordRead(Entry<K, V> entry, long now) {
+        final ReadBuffer<Entry<K, V>> readBuffer = readBuffers[(int) Thread.currentThread().getId() & (NUMBER_OF_READ_BUFFERS - 1)];
+        if (readBuffer.offer(entry)) {
+            // skip the drain if another thread holds the lock, it or a later reader will take care of it
+            final ReleasableLock lock = lruLock.tryAcquire();
+            if (lock != null) {
+                try {
+                    drainReadBuffers();
+                    evict(now, null);
+                } finally {
+                    lock.close();
+                }
+            }
+        }
+    }
+
+    private void drainReadBuffers() {
+        assert lruLock.isHeldByCurrentThread();
+
+        if (readBuffers != null) {
+            for (ReadBuffer<Entry<K, V>> readBuffer : readBuffers) {
+                readBuffer.drainTo(this::onRead);
+            }
+        }
+    }
+
+    private void onRead(Entry<K, V> entry) {
+        frequencySketch.increment(entry.key);
+        if (entry.state == State.EXISTING) {
+            relinkAtHead(entry);
+        }
+    }
+
     /**
      * If the specified key is not already associated with a value (or is mapped to null), attempts to compute its
      * value using the given mapping function and enters it into this map unless null. The load method for a given key
@@ -411,7 +543,7 @@ public class Cache<K, V> {
             BiFunction<? super Entry<K, V>, Throwable, ? extends V> handler = (ok, ex) -> {
                 if (ok != null) {
                     try (ReleasableLock ignored = lruLock.acquire()) {
-                        promote(ok, now);
+                        promote(ok, now, true);
                     }
                     return ok.value;
                 } else {
@@ -483,7 +615,7 @@ public class Cache<K, V> {
                     replaced = true;
                 }
             }
-            promote(tuple.v1(), now);
+            promote(tuple.v1(), now, tuple.v2() == null);
         }
         if (replaced) {
             removalListener.onRemoval(new RemovalNotification<>(tuple.v2().key, tuple.v2().value,
@@ -572,7 +704,8 @@ public class Cache<K, V> {
     public void refresh() {
         long now = now();
         try (ReleasableLock ignored = lruLock.acquire()) {
-            evict(now);
+            drainReadBuffers();
+            evict(now, null);
         }
     }
 
@@ -728,8 +861,20 @@ public class Cache<K, V> {
     }
 
     private boolean promote(Entry<K, V> entry, long now) {
+        return promote(entry, now, false);
+    }
+
+    /**
+     * Links the entry at the head of the LRU list and evicts entries as needed.
+     *
+     * @param newKey whether the entry is the first one for its key, in which case it has to win the admission against the
+     *               least recently used entry if the cache uses TinyLFU
+     */
+    private boolean promote(Entry<K, V> entry, long now, boolean newKey) {
         boolean promoted = true;
+        Entry<K, V> candidate = null;
         try (ReleasableLock ignored = lruLock.acquire()) {
+            drainReadBuffers();
             switch (entry.state) {
                 case DELETED:
                     promoted = false;
@@ -739,23 +884,47 @@ public class Cache<K, V> {
                     break;
                 case NEW:
                     linkAtHead(entry);
+                    if (frequencySketch != null) {
+                        frequencySketch.ensureCapacity(count);
+                        frequencySketch.increment(entry.key);
+                        if (newKey) {
+                            candidate = entry;
+                        }
+                    }
                     break;
             }
             if (promoted) {
-                evict(now);
+                evict(now, candidate);
             }
         }
         return promoted;
     }
 
-    private void evict(long now) {
+    /**
+     * Evicts expired entries and least recently used entries while the cache exceeds its maximum weight.
+     *
+     * @param candidate a newly inserted entry that is evicted instead of the least recently used entry if it was accessed
+     *                  less frequently, or null
+     */
+    private void evict(long now, Entry<K, V> candidate) {
         assert lruLock.isHeldByCurrentThread();
 
         while (tail != null && shouldPrune(tail, now)) {
-            evictEntry(tail);
+            final Entry<K, V> victim = tail;
+            if (candidate != null && candidate != victim && candidate.state == State.EXISTING
+                && isExpired(victim, now) == false && admit(candidate, victim) == false) {
+                evictEntry(candidate);
+                candidate = null;
+            } else {
+                evictEntry(victim);
+            }
         }
     }
 
+    private boolean admit(Entry<K, V> candidate, Entry<K, V> victim) {
+        return frequencySketch.frequency(candidate.key) > frequencySketch.frequency(victim.key);
+    }
+
     private void evictEntry(Entry<K, V> entry) {
         assert lruLock.isHeldByCurrentThread();
 
@@ -30,6 +30,7 @@ public class CacheBuilder<K, V> {
     private long expireAfterWriteNanos = -1;
     private ToLongBiFunction<K, V> weigher;
     private RemovalListener<K, V> removalListener;
+    private boolean tinyLfu;
 
     public static <K, V> CacheBuilder<K, V> builder() {
         return new CacheBuilder<>();
@@ -90,6 +91,16 @@ public class CacheBuilder<K, V> {
         return this;
     }
 
+    /**
+     * Makes the cache record reads in lock-free buffers and admit new entries based on their access frequency (TinyLFU)
+     * instead of always evicting the least recently used entry, see {@link Cache}. This protects caches with a maximum
+     * weight from being flushed by keys that are used only once.
+     */
+    public CacheBuilder<K, V> tinyLfu() {
+        this.tinyLfu = true;
+        return this;
+    }
+
     public Cache<K, V> build() {
         Cache<K, V> cache = new Cache<>();
         if (maximumWeight != -1) {
@@ -107,6 +118,9 @@ public class CacheBuilder<K, V> {
         if (removalListener != null) {
             cache.setRemovalListener(removalListener);
         }
+        if (tinyLfu) {
+            cache.enableTinyLfu();
+        }
         return cache;
     }
 }
@@ -0,0 +1,137 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.cache;
+
+import org.elasticsearch.common.hash.MurmurHash3;
+
+/**
+ * A probabilistic estimate of how often keys were accessed, used by {@link Cache} to decide whether a new entry should be
+ * admitted at the expense of the entry that would otherwise be evicted (TinyLFU).
+ * <p>
+ * The sketch is a count-min sketch: every key maps to one counter in each of four rows and its estimated frequency is the
+ * smallest of these counters. The columns of a key are derived from a single 64-bit hash with double hashing. Counters
+ * saturate at {@link #MAXIMUM_FREQUENCY}, which is enough to tell hot keys from cold ones. In order to keep the estimates
+ * fresh, all counters are halved once the number of recorded increments reaches ten times the width of the rows. The rows
+ * grow with the number of entries in the cache.
+ * <p>
+ * This class is not thread-safe; {@link Cache} only accesses it while holding its LRU lock.
+ */
+final class FrequencySketch {
+
+    // the maximum number of counters per row, sized for about a million entries
+    static final int MAXIMUM_CAPACITY = 1 << 20;
+
+    // the value at which counters saturate
+    static final int MAXIMUM_FREQUENCY = 15;
+
+    private static final int ROWS = 4;
+
+    // the counters of each row, one byte each, stored row after row
+    private byte[] counters;
+    private int width;
+    private int sampleSize;
+    private int size;
+
+    FrequencySketch() {
+        ensureCapacity(16);
+    }
+
+    /**
+     * Grows the rows so that they can estimate the frequencies of the given number of entries with a low error rate.
+     * The counters of the smaller rows are copied to every column of the larger rows that the same keys map to, so the
+     * estimates survive the growth.
+     */
+    void ensureCapacity(long numberOfEntries) {
+        final int requested = (int) Math.min(Math.max(numberOfEntries, 1L), MAXIMUM_CAPACITY);
+        // round up to the next power of two so that columns can be masked
+        final int newWidth = requested == 1 ? 1 : Integer.highestOneBit(requested - 1) << 1;
+        if (newWidth <= width) {
+            return;
+        }
+        final byte[] newCounters = new byte[ROWS * newWidth];
+        if (counters != null) {
+            // columns are masked hashes, so the old column of a key is its new column masked with the old width
+            for (int row = 0; row < ROWS; row++) {
+                for (int column = 0; column < newWidth; column++) {
+                    newCounters[row * newWidth + column] = counters[row * width + (column & (width - 1))];
+                }
+            }
+        }
+        counters = newCounters;
+        width = newWidth;
+        sampleSize = 10 * newWidth;
+    }
+
+    // pkg-private for testing
+    int capacity() {
+        return width;
+    }
+
+    /**
+     * Returns the estimated number of times the key was recorded, capped at {@link #MAXIMUM_FREQUENCY}.
+     */
+    int frequency(Object key) {
+        final long hash = hash(key);
+        int frequency = MAXIMUM_FREQUENCY;
+        for (int row = 0; row < ROWS; row++) {
+            frequency = Math.min(frequency, counters[indexOf(hash, row)]);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records an access to the key, ageing all counters if the sample size was reached.
+     */
+    void increment(Object key) {
+        final long hash = hash(key);
+        boolean incremented = false;
+        for (int row = 0; row < ROWS; row++) {
+            final int index = indexOf(hash, row);
+            if (counters[index] < MAXIMUM_FREQUENCY) {
+                counters[index]++;
+                incremented = true;
+            }
+        }
+        if (incremented && ++size == sampleSize) {
+            age();
+        }
+    }
+
+    // halves all counters so that past accesses weigh less than recent ones
+    private void age() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] >>= 1;
+        }
+        size >>>= 1;
+    }
+
+    // the index of the counter of the key in the given row, the columns of the rows are h1 + row * h2
+    private int indexOf(long hash, int row) {
+        final int h1 = (int) hash;
+        // odd so that the four columns of a key are distinct once the rows are at least four wide
+        final int h2 = (int) (hash >>> 32) | 1;
+        return row * width + ((h1 + row * h2) & (width - 1));
+    }
+
+    // mixes the hash code of the key to defend against poor quality hash codes
+    private static long hash(Object key) {
+        return MurmurHash3.murmur64(key.hashCode());
+    }
+}
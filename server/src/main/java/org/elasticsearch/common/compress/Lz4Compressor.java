@@ -0,0 +1,387 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * {@link Compressor} implementation based on the LZ4 block format. It trades compression ratio for speed and is meant for data that
+ * is compressed and decompressed on the fly, such as transport messages.
+ *
+ * The compressed stream starts with a header and is followed by a sequence of blocks of at most {@link #BLOCK_SIZE} uncompressed bytes.
+ * Every block starts with a type byte followed by the uncompressed length as a vInt and, for compressed blocks, the compressed length
+ * as a vInt. An end block terminates the stream.
+ */
+public class Lz4Compressor implements Compressor {
+
+    // An arbitrary header that we use to identify compressed streams, see DeflateCompressor
+    private static final byte[] HEADER = new byte[]{'L', 'Z', '4', '\0'};
+
+    static final int BLOCK_SIZE = 1 << 16;
+
+    private static final byte END_BLOCK = 0;
+    private static final byte COMPRESSED_BLOCK = 1;
+    private static final byte RAW_BLOCK = 2;
+
+    private static final int MIN_MATCH = 4;
+    // the last literals of a block are never part of a match, and a match may not start within MATCH_FIND_LIMIT bytes of the end
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_FIND_LIMIT = 12;
+    private static final int MAX_DISTANCE = 1 << 16;
+    private static final int HASH_LOG = 14;
+    private static final int RUN_MASK = 0x0F;
+
+    @Override
+    public boolean isCompressed(BytesReference bytes) {
+        if (bytes.length() < HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; ++i) {
+            if (bytes.get(i) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public StreamInput streamInput(StreamInput in) throws IOException {
+        final byte[] headerBytes = new byte[HEADER.length];
+        int len = 0;
+        while (len < headerBytes.length) {
+            final int read = in.read(headerBytes, len, headerBytes.length - len);
+            if (read == -1) {
+                break;
+            }
+            len += read;
+        }
+        if (len != HEADER.length || Arrays.equals(headerBytes, HEADER) == false) {
+            throw new IllegalArgumentException("Input stream is not compressed with LZ4!");
+        }
+        return new InputStreamStreamInput(new Lz4InputStream(in));
+    }
+
+    @Override
+    public StreamOutput streamOutput(StreamOutput out) throws IOException {
+        out.writeBytes(HEADER);
+        return new OutputStreamStreamOutput(new Lz4OutputStream(out));
+    }
+
+    private static final class Lz4OutputStream extends OutputStream {
+
+        private final StreamOutput out;
+        private final byte[] buffer = new byte[BLOCK_SIZE];
+        private final byte[] compressed = new byte[maxCompressedLength(BLOCK_SIZE)];
+        private final int[] hashTable = new int[1 << HASH_LOG];
+        private int count;
+        private boolean closed;
+
+        Lz4OutputStream(StreamOutput out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                writeBlock();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    writeBlock();
+                }
+                final int toCopy = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, toCopy);
+                count += toCopy;
+                off += toCopy;
+                len -= toCopy;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writeBlock();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed == false) {
+                closed = true;
+                try {
+                    writeBlock();
+                    out.writeByte(END_BLOCK);
+                } finally {
+                    out.close();
+                }
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            if (count == 0) {
+                return;
+            }
+            final int compressedLength = compress(buffer, count, compressed, hashTable);
+            if (compressedLength < count) {
+                out.writeByte(COMPRESSED_BLOCK);
+                out.writeVInt(count);
+                out.writeVInt(compressedLength);
+                out.writeBytes(compressed, 0, compressedLength);
+            } else {
+                out.writeByte(RAW_BLOCK);
+                out.writeVInt(count);
+                out.writeBytes(buffer, 0, count);
+            }
+            count = 0;
+        }
+    }
+
+    private static final class Lz4InputStream extends InputStream {
+
+        private final StreamInput in;
+        private final byte[] buffer = new byte[BLOCK_SIZE];
+        private byte[] compressed = new byte[0];
+        private int position;
+        private int limit;
+        private boolean eof;
+
+        Lz4InputStream(StreamInput in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (ensureAvailable() == false) {
+                return -1;
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (ensureAvailable() == false) {
+                return -1;
+            }
+            final int toCopy = Math.min(len, limit - position);
+            System.arraycopy(buffer, position, b, off, toCopy);
+            position += toCopy;
+            return toCopy;
+        }
+
+        @Override
+        public int available() {
+            return limit - position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        private boolean ensureAvailable() throws IOException {
+            while (position == limit) {
+                if (eof) {
+                    return false;
+                }
+                readBlock();
+            }
+            return true;
+        }
+
+        private void readBlock() throws IOException {
+            final byte type = in.readByte();
+            position = 0;
+            limit = 0;
+            if (type == END_BLOCK) {
+                eof = true;
+                return;
+            }
+            final int length = in.readVInt();
+            if (length > BLOCK_SIZE) {
+                throw new IOException("LZ4 block of [" + length + "] bytes exceeds the maximum block size [" + BLOCK_SIZE + "]");
+            }
+            if (type == RAW_BLOCK) {
+                in.readBytes(buffer, 0, length);
+            } else if (type == COMPRESSED_BLOCK) {
+                final int compressedLength = in.readVInt();
+                if (compressed.length < compressedLength) {
+                    compressed = new byte[compressedLength];
+                }
+                in.readBytes(compressed, 0, compressedLength);
+                decompress(compressed, compressedLength, buffer, length);
+            } else {
+                throw new IOException("unknown LZ4 block type [" + type + "]");
+            }
+            limit = length;
+        }
+    }
+
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses the first {@code length} bytes of {@code src} into {@code dest}, which must hold at least
+     * {@link #maxCompressedLength(int)} bytes, and returns the number of bytes written.
+     */
+    static int compress(byte[] src, int length, byte[] dest, int[] hashTable) {
+        Arrays.fill(hashTable, -1);
+        int dOff = 0;
+        int anchor = 0;
+        if (length >= MATCH_FIND_LIMIT + 1) {
+            final int matchLimit = length - LAST_LITERALS;
+            final int sLimit = length - MATCH_FIND_LIMIT;
+            int sOff = 0;
+            while (sOff < sLimit) {
+                final int h = hash(readInt(src, sOff));
+                final int ref = hashTable[h];
+                hashTable[h] = sOff;
+                if (ref < 0 || sOff - ref >= MAX_DISTANCE || readInt(src, ref) != readInt(src, sOff)) {
+                    ++sOff;
+                    continue;
+                }
+                int matchLength = MIN_MATCH;
+                while (sOff + matchLength < matchLimit && src[ref + matchLength] == src[sOff + matchLength]) {
+                    ++matchLength;
+                }
+                dOff = writeSequence(src, anchor, sOff - anchor, sOff - ref, matchLength, dest, dOff);
+                sOff += matchLength;
+                anchor = sOff;
+            }
+        }
+        return writeLastLiterals(src, anchor, length - anchor, dest, dOff);
+    }
+
+    private static int writeSequence(byte[] src, int literalsOff, int literalsLength, int matchDistance, int matchLength,
+                                     byte[] dest, int dOff) {
+        final int tokenOff = dOff++;
+        dOff = writeLength(literalsLength, dest, dOff);
+        System.arraycopy(src, literalsOff, dest, dOff, literalsLength);
+        dOff += literalsLength;
+        dest[dOff++] = (byte) matchDistance;
+        dest[dOff++] = (byte) (matchDistance >>> 8);
+        final int matchRun = matchLength - MIN_MATCH;
+        dOff = writeLength(matchRun, dest, dOff);
+        dest[tokenOff] = (byte) ((Math.min(literalsLength, RUN_MASK) << 4) | Math.min(matchRun, RUN_MASK));
+        return dOff;
+    }
+
+    private static int writeLastLiterals(byte[] src, int literalsOff, int literalsLength, byte[] dest, int dOff) {
+        dest[dOff++] = (byte) (Math.min(literalsLength, RUN_MASK) << 4);
+        dOff = writeLength(literalsLength, dest, dOff);
+        System.arraycopy(src, literalsOff, dest, dOff, literalsLength);
+        return dOff + literalsLength;
+    }
+
+    /** writes the part of a literals or match length that does not fit in the token */
+    private static int writeLength(int length, byte[] dest, int dOff) {
+        if (length >= RUN_MASK) {
+            length -= RUN_MASK;
+            while (length >= 0xFF) {
+                dest[dOff++] = (byte) 0xFF;
+                length -= 0xFF;
+            }
+            dest[dOff++] = (byte) length;
+        }
+        return dOff;
+    }
+
+    /**
+     * Decompresses {@code compressedLength} bytes of {@code src} into {@code dest}, which must decompress to exactly
+     * {@code length} bytes.
+     */
+    static void decompress(byte[] src, int compressedLength, byte[] dest, int length) throws IOException {
+        int sOff = 0;
+        int dOff = 0;
+        try {
+            while (true) {
+                final int token = src[sOff++] & 0xFF;
+                int literalsLength = token >>> 4;
+                if (literalsLength == RUN_MASK) {
+                    int len;
+                    while ((len = src[sOff++] & 0xFF) == 0xFF) {
+                        literalsLength += 0xFF;
+                    }
+                    literalsLength += len;
+                }
+                System.arraycopy(src, sOff, dest, dOff, literalsLength);
+                sOff += literalsLength;
+                dOff += literalsLength;
+                if (sOff >= compressedLength) {
+                    break;
+                }
+                final int matchDistance = (src[sOff++] & 0xFF) | ((src[sOff++] & 0xFF) << 8);
+                int matchLength = token & RUN_MASK;
+                if (matchLength == RUN_MASK) {
+                    int len;
+                    while ((len = src[sOff++] & 0xFF) == 0xFF) {
+                        matchLength += 0xFF;
+                    }
+                    matchLength += len;
+                }
+                matchLength += MIN_MATCH;
+                int ref = dOff - matchDistance;
+                if (matchDistance == 0 || ref < 0) {
+                    throw new IOException("malformed LZ4 block: invalid match distance [" + matchDistance + "]");
+                }
+                if (matchDistance >= matchLength) {
+                    System.arraycopy(dest, ref, dest, dOff, matchLength);
+                    dOff += matchLength;
+                } else {
+                    // overlapping copy, has to go byte by byte
+                    final int end = dOff + matchLength;
+                    while (dOff < end) {
+                        dest[dOff++] = dest[ref++];
+                    }
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new EOFException("malformed LZ4 block: " + e.getMessage());
+        }
+        if (dOff != length) {
+            throw new IOException("malformed LZ4 block: expected [" + length + "] bytes but decompressed [" + dOff + "]");
+        }
+    }
+
+    private static int readInt(byte[] b, int off) {
+        return ((b[off] & 0xFF) << 24) | ((b[off + 1] & 0xFF) << 16) | ((b[off + 2] & 0xFF) << 8) | (b[off + 3] & 0xFF);
+    }
+
+    private static int hash(int i) {
+        return (i * -1640531535) >>> (32 - HASH_LOG);
+    }
+}
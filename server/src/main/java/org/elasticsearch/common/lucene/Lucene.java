@@ -87,6 +87,7 @@ import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.SuppressForbidden;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lucene.index.ElasticsearchLeafReader;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.util.iterable.Iterables;
 import org.elasticsearch.index.analysis.AnalyzerScope;
@@ -713,6 +714,18 @@ public class Lucene {
         throw new IllegalStateException("Can not extract segment reader from given index reader [" + reader + "]");
     }
 
+    /**
+     * Returns whether the given reader is a segment reader, or an {@link ElasticsearchLeafReader} that only attaches the shard
+     * id to a segment reader. Unlike other wrappers, such as the readers of document level security, these readers don't hide
+     * any documents, so data that is computed from them can be shared across searches for as long as the segment lives.
+     */
+    public static boolean isSegmentReader(LeafReader reader) {
+        if (reader instanceof ElasticsearchLeafReader) {
+            reader = ((ElasticsearchLeafReader) reader).getDelegate();
+        }
+        return reader instanceof SegmentReader;
+    }
+
     @SuppressForbidden(reason = "Version#parseLeniently() used in a central place")
     private static final class LenientParser {
         public static Version parse(String toParse, Version defaultValue) {
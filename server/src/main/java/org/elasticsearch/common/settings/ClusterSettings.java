@@ -77,10 +77,12 @@ import org.elasticsearch.gateway.PersistedClusterStateService;
 import org.elasticsearch.http.HttpTransportSettings;
 import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.IndexingPressure;
 import org.elasticsearch.indices.IndexingMemoryController;
 import org.elasticsearch.indices.IndicesQueryCache;
 import org.elasticsearch.indices.IndicesRequestCache;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.TranslogSyncCoordinator;
 import org.elasticsearch.indices.analysis.HunspellService;
 import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
@@ -101,6 +103,7 @@ import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.search.SearchModule;
 import org.elasticsearch.search.SearchService;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
+import org.elasticsearch.search.aggregations.bucket.significant.BackgroundFrequencyCache;
 import org.elasticsearch.search.fetch.subphase.highlight.FastVectorHighlighter;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.ProxyConnectionStrategy;
@@ -290,6 +293,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
             SearchService.DEFAULT_SEARCH_TIMEOUT_SETTING,
             SearchService.DEFAULT_ALLOW_PARTIAL_SEARCH_RESULTS,
             TransportSearchAction.SHARD_COUNT_LIMIT_SETTING,
+            TransportSearchAction.BATCHED_QUERY_PHASE_SETTING,
             RemoteClusterService.REMOTE_CLUSTER_SKIP_UNAVAILABLE,
             SniffConnectionStrategy.REMOTE_CONNECTIONS_PER_CLUSTER,
             RemoteClusterService.REMOTE_INITIAL_CONNECTION_TIMEOUT_SETTING,
@@ -319,6 +323,8 @@ public final class ClusterSettings extends AbstractScopedSettings {
             TransportSettings.PUBLISH_PORT,
             TransportSettings.PUBLISH_PORT_PROFILE,
             TransportSettings.TRANSPORT_COMPRESS,
+            TransportSettings.TRANSPORT_COMPRESSION_SCHEME,
+            TransportSettings.TRANSPORT_COMPRESS_RAW_DATA_THRESHOLD,
             TransportSettings.PING_SCHEDULE,
             TransportSettings.CONNECT_TIMEOUT,
             TransportSettings.DEFAULT_FEATURES_SETTING,
@@ -359,6 +365,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
             NetworkService.TCP_RECEIVE_BUFFER_SIZE,
             IndexSettings.QUERY_STRING_ANALYZE_WILDCARD,
             IndexSettings.QUERY_STRING_ALLOW_LEADING_WILDCARD,
+            IndexingPressure.MAX_INDEXING_BYTES,
             ScriptService.SCRIPT_CACHE_SIZE_SETTING,
             ScriptService.SCRIPT_CACHE_EXPIRE_SETTING,
             ScriptService.SCRIPT_MAX_SIZE_IN_BYTES,
@@ -369,6 +376,9 @@ public final class ClusterSettings extends AbstractScopedSettings {
             IndicesFieldDataCache.INDICES_FIELDDATA_CACHE_SIZE_KEY,
             IndicesRequestCache.INDICES_CACHE_QUERY_SIZE,
             IndicesRequestCache.INDICES_CACHE_QUERY_EXPIRE,
+            BackgroundFrequencyCache.INDICES_CACHE_BACKGROUND_FREQUENCY_SIZE_SETTING,
+            TranslogSyncCoordinator.INDICES_TRANSLOG_GROUP_SYNC_SETTING,
+            TranslogSyncCoordinator.INDICES_TRANSLOG_GROUP_SYNC_MAX_CONCURRENT_FSYNCS_SETTING,
             HunspellService.HUNSPELL_LAZY_LOAD,
             HunspellService.HUNSPELL_IGNORE_CASE,
             HunspellService.HUNSPELL_DICTIONARY_OPTIONS,
@@ -393,6 +403,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
             MultiBucketConsumerService.MAX_BUCKET_SETTING,
             SearchService.LOW_LEVEL_CANCELLATION_SETTING,
             SearchService.MAX_OPEN_SCROLL_CONTEXT,
+            SearchService.MAX_OPEN_POINT_IN_TIME_CONTEXT,
             Node.WRITE_PORTS_FILE_SETTING,
             Node.NODE_NAME_SETTING,
             Node.NODE_DATA_SETTING,
@@ -112,6 +112,7 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
             IndexSettings.INDEX_WARMER_ENABLED_SETTING,
             IndexSettings.INDEX_REFRESH_INTERVAL_SETTING,
             IndexSettings.MAX_RESULT_WINDOW_SETTING,
+            IndexSettings.MAX_CONCURRENT_SEARCH_SLICES_SETTING,
             IndexSettings.MAX_INNER_RESULT_WINDOW_SETTING,
             IndexSettings.MAX_TOKEN_COUNT_SETTING,
             IndexSettings.MAX_DOCVALUE_FIELDS_SEARCH_SETTING,
@@ -132,9 +133,12 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
             ShardsLimitAllocationDecider.INDEX_TOTAL_SHARDS_PER_NODE_SETTING,
             IndexSettings.INDEX_GC_DELETES_SETTING,
             IndexSettings.INDEX_SOFT_DELETES_SETTING,
+            IndexSettings.INDEX_VERSION_MAP_PACKED_SETTING,
+            IndexSettings.INDEX_BULK_PARALLEL_PARSING_SETTING,
             IndexSettings.INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING,
             IndexSettings.INDEX_SOFT_DELETES_RETENTION_LEASE_PERIOD_SETTING,
             IndicesRequestCache.INDEX_CACHE_REQUEST_ENABLED_SETTING,
+            IndicesRequestCache.INDEX_CACHE_REQUEST_SEGMENT_AGGREGATIONS_SETTING,
             UnassignedInfo.INDEX_DELAYED_NODE_LEFT_TIMEOUT_SETTING,
             EnableAllocationDecider.INDEX_ROUTING_REBALANCE_ENABLE_SETTING,
             EnableAllocationDecider.INDEX_ROUTING_ALLOCATION_ENABLE_SETTING,
@@ -158,11 +162,13 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
             IndexModule.INDEX_STORE_TYPE_SETTING,
             IndexModule.INDEX_STORE_PRE_LOAD_SETTING,
             IndexModule.INDEX_QUERY_CACHE_ENABLED_SETTING,
+            IndexModule.INDEX_QUERY_CACHE_COST_BASED_ADMISSION_SETTING,
             FsDirectoryFactory.INDEX_LOCK_FACTOR_SETTING,
             EngineConfig.INDEX_CODEC_SETTING,
             IndexMetaData.SETTING_WAIT_FOR_ACTIVE_SHARDS,
             IndexSettings.DEFAULT_PIPELINE,
             IndexSettings.FINAL_PIPELINE,
+            IndexSettings.TIMESTAMP_FIELD_SETTING,
             MetaDataIndexStateService.VERIFIED_BEFORE_CLOSE_SETTING,
 
             // validate that built-in similarities don't get redefined
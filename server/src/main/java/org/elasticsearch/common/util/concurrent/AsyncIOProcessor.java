@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Semaphore;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -39,13 +40,21 @@ import java.util.function.Supplier;
  */
 public abstract class AsyncIOProcessor<Item> {
     private final Logger logger;
-    private final ArrayBlockingQueue<Tuple<Item, Consumer<Exception>>> queue;
+    private final BlockingQueue<Tuple<Item, Consumer<Exception>>> queue;
     private final ThreadContext threadContext;
     private final Semaphore promiseSemaphore = new Semaphore(1);
 
     protected AsyncIOProcessor(Logger logger, int queueSize, ThreadContext threadContext) {
+        this(logger, new ArrayBlockingQueue<>(queueSize), threadContext);
+    }
+
+    /**
+     * Creates a processor that queues pending items in the given queue, which allows callers that bound the number of
+     * pending items themselves to use an unbounded queue.
+     */
+    protected AsyncIOProcessor(Logger logger, BlockingQueue<Tuple<Item, Consumer<Exception>>> queue, ThreadContext threadContext) {
         this.logger = logger;
-        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.queue = queue;
         this.threadContext = threadContext;
     }
 
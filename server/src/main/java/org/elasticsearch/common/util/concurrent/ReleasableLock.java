@@ -57,6 +57,19 @@ public class ReleasableLock implements Releasable {
         return this;
     }
 
+    /**
+     * Acquires the lock only if it is not held by another thread.
+     *
+     * @return this lock if it was acquired, otherwise {@code null}
+     */
+    public ReleasableLock tryAcquire() {
+        if (lock.tryLock()) {
+            assert addCurrentThread();
+            return this;
+        }
+        return null;
+    }
+
     private boolean addCurrentThread() {
         final Integer current = holdingThreads.get();
         holdingThreads.set(current == null ? 1 : current + 1);
@@ -114,6 +114,10 @@ public final class IndexModule {
     public static final Setting<Boolean> INDEX_QUERY_CACHE_ENABLED_SETTING =
             Setting.boolSetting("index.queries.cache.enabled", true, Property.IndexScope);
 
+    // whether to admit queries into the query cache based on their measured cost rather than only on how often they are used
+    public static final Setting<Boolean> INDEX_QUERY_CACHE_COST_BASED_ADMISSION_SETTING =
+            Setting.boolSetting("index.queries.cache.cost_based_admission", false, Property.IndexScope);
+
     // for test purposes only
     public static final Setting<Boolean> INDEX_QUERY_CACHE_EVERYTHING_SETTING =
         Setting.boolSetting("index.queries.cache.everything", false, Property.IndexScope);
@@ -167,6 +167,15 @@ public final class IndexSettings {
      */
     public static final Setting<Integer> MAX_DOCVALUE_FIELDS_SEARCH_SETTING =
         Setting.intSetting("index.max_docvalue_fields_search", 100, 0, Property.Dynamic, Property.IndexScope);
+
+    /**
+     * Index setting describing the maximum number of slices the segments of a shard can be split into in order to
+     * be searched concurrently on the <code>search_worker</code> thread pool. The default of 1 searches all segments
+     * sequentially on the calling <code>search</code> thread. Only queries that do not collect aggregations or
+     * require a full collector chain can be executed concurrently.
+     */
+    public static final Setting<Integer> MAX_CONCURRENT_SEARCH_SLICES_SETTING =
+        Setting.intSetting("index.search.max_concurrent_slices", 1, 1, 128, Property.Dynamic, Property.IndexScope);
     /**
      * Index setting describing the maximum size of the rescore window. Defaults to {@link #MAX_RESULT_WINDOW_SETTING}
      * because they both do the same thing: control the size of the heap of hits.
@@ -232,6 +241,20 @@ public final class IndexSettings {
     public static final Setting<Boolean> INDEX_SOFT_DELETES_SETTING =
         Setting.boolSetting("index.soft_deletes.enabled", true, Property.IndexScope, Property.Final);
 
+    /**
+     * Specifies if the documents of shard bulk requests should be parsed in parallel before they are indexed one after the other.
+     */
+    public static final Setting<Boolean> INDEX_BULK_PARALLEL_PARSING_SETTING =
+        Setting.boolSetting("index.bulk.parallel_parsing", false, Property.Dynamic, Property.IndexScope);
+
+    /**
+     * Specifies if the versions of the documents that were indexed since the last refresh should be held in packed hash tables
+     * rather than in a concurrent hash map. This takes much less memory per document on update-heavy indices, so that more
+     * documents fit in the indexing buffer between refreshes.
+     */
+    public static final Setting<Boolean> INDEX_VERSION_MAP_PACKED_SETTING =
+        Setting.boolSetting("index.version_map.packed", false, Property.IndexScope);
+
     /**
      * Controls how many soft-deleted documents will be kept around before being merged away. Keeping more deleted
      * documents increases the chance of operation-based recoveries and allows querying a longer history of documents.
@@ -303,6 +326,13 @@ public final class IndexSettings {
             Property.Dynamic,
             Property.IndexScope);
 
+    /**
+     * The date field whose range of values is tracked in the index metadata while the index is write-blocked, so that searches with a
+     * range filter on this field can skip the shards of non-matching indices without contacting them.
+     */
+    public static final Setting<String> TIMESTAMP_FIELD_SETTING =
+        Setting.simpleString("index.timestamp_field", "@timestamp", Property.IndexScope, Property.Final);
+
     /**
      * Marks an index to be searched throttled. This means that never more than one shard of such an index will be searched concurrently
      */
@@ -348,6 +378,7 @@ public final class IndexSettings {
     private final IndexScopedSettings scopedSettings;
     private long gcDeletesInMillis = DEFAULT_GC_DELETES.millis();
     private final boolean softDeleteEnabled;
+    private final boolean packedVersionMap;
     private volatile long softDeleteRetentionOperations;
 
     private volatile long retentionLeaseMillis;
@@ -370,6 +401,7 @@ public final class IndexSettings {
     private volatile int maxInnerResultWindow;
     private volatile int maxRescoreWindow;
     private volatile int maxDocvalueFields;
+    private volatile int maxConcurrentSearchSlices;
     private volatile int maxScriptFields;
     private volatile int maxTokenCount;
     private volatile int maxNgramDiff;
@@ -479,6 +511,7 @@ public final class IndexSettings {
         gcDeletesInMillis = scopedSettings.get(INDEX_GC_DELETES_SETTING).getMillis();
         softDeleteEnabled = scopedSettings.get(INDEX_SOFT_DELETES_SETTING);
         assert softDeleteEnabled || version.before(Version.V_8_0_0) : "soft deletes must be enabled in version " + version;
+        packedVersionMap = scopedSettings.get(INDEX_VERSION_MAP_PACKED_SETTING);
         softDeleteRetentionOperations = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING);
         retentionLeaseMillis = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_LEASE_PERIOD_SETTING).millis();
         warmerEnabled = scopedSettings.get(INDEX_WARMER_ENABLED_SETTING);
@@ -486,6 +519,7 @@ public final class IndexSettings {
         maxInnerResultWindow = scopedSettings.get(MAX_INNER_RESULT_WINDOW_SETTING);
         maxRescoreWindow = scopedSettings.get(MAX_RESCORE_WINDOW_SETTING);
         maxDocvalueFields = scopedSettings.get(MAX_DOCVALUE_FIELDS_SEARCH_SETTING);
+        maxConcurrentSearchSlices = scopedSettings.get(MAX_CONCURRENT_SEARCH_SLICES_SETTING);
         maxScriptFields = scopedSettings.get(MAX_SCRIPT_FIELDS_SETTING);
         maxTokenCount = scopedSettings.get(MAX_TOKEN_COUNT_SETTING);
         maxNgramDiff = scopedSettings.get(MAX_NGRAM_DIFF_SETTING);
@@ -525,6 +559,7 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(MAX_INNER_RESULT_WINDOW_SETTING, this::setMaxInnerResultWindow);
         scopedSettings.addSettingsUpdateConsumer(MAX_RESCORE_WINDOW_SETTING, this::setMaxRescoreWindow);
         scopedSettings.addSettingsUpdateConsumer(MAX_DOCVALUE_FIELDS_SEARCH_SETTING, this::setMaxDocvalueFields);
+        scopedSettings.addSettingsUpdateConsumer(MAX_CONCURRENT_SEARCH_SLICES_SETTING, this::setMaxConcurrentSearchSlices);
         scopedSettings.addSettingsUpdateConsumer(MAX_SCRIPT_FIELDS_SETTING, this::setMaxScriptFields);
         scopedSettings.addSettingsUpdateConsumer(MAX_TOKEN_COUNT_SETTING, this::setMaxTokenCount);
         scopedSettings.addSettingsUpdateConsumer(MAX_NGRAM_DIFF_SETTING, this::setMaxNgramDiff);
@@ -799,6 +834,17 @@ public final class IndexSettings {
         this.maxDocvalueFields = maxDocvalueFields;
     }
 
+    /**
+     * Returns the maximum number of slices the segments of a shard are split into when searched concurrently.
+     */
+    public int getMaxConcurrentSearchSlices() {
+        return this.maxConcurrentSearchSlices;
+    }
+
+    private void setMaxConcurrentSearchSlices(int maxConcurrentSearchSlices) {
+        this.maxConcurrentSearchSlices = maxConcurrentSearchSlices;
+    }
+
     /**
      * Returns the maximum number of tokens that can be produced
      */
@@ -945,6 +991,13 @@ public final class IndexSettings {
         return softDeleteEnabled;
     }
 
+    /**
+     * Returns <code>true</code> if the versions of recently indexed documents are held in packed hash tables.
+     */
+    public boolean isPackedVersionMap() {
+        return packedVersionMap;
+    }
+
     private void setSoftDeleteRetentionOperations(long ops) {
         this.softDeleteRetentionOperations = ops;
     }
@@ -0,0 +1,178 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index;
+
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the number of bytes of indexing operations that are in flight on this node, separately for the coordinating,
+ * primary and replica stages of a write. Operations are rejected with an {@link EsRejectedExecutionException} (and thus
+ * a {@code 429 Too Many Requests}) before they are executed if accepting them would exceed the configured memory limit.
+ */
+public class IndexingPressure {
+
+    public static final Setting<ByteSizeValue> MAX_INDEXING_BYTES =
+        Setting.memorySizeSetting("indexing_pressure.memory.limit", "10%", Setting.Property.NodeScope);
+
+    private final AtomicLong currentCombinedCoordinatingAndPrimaryBytes = new AtomicLong(0);
+    private final AtomicLong currentCoordinatingBytes = new AtomicLong(0);
+    private final AtomicLong currentPrimaryBytes = new AtomicLong(0);
+    private final AtomicLong currentReplicaBytes = new AtomicLong(0);
+
+    private final AtomicLong totalCombinedCoordinatingAndPrimaryBytes = new AtomicLong(0);
+    private final AtomicLong totalCoordinatingBytes = new AtomicLong(0);
+    private final AtomicLong totalPrimaryBytes = new AtomicLong(0);
+    private final AtomicLong totalReplicaBytes = new AtomicLong(0);
+
+    private final AtomicLong coordinatingRejections = new AtomicLong(0);
+    private final AtomicLong primaryRejections = new AtomicLong(0);
+    private final AtomicLong replicaRejections = new AtomicLong(0);
+
+    private final long primaryAndCoordinatingLimits;
+    private final long replicaLimits;
+
+    public IndexingPressure(Settings settings) {
+        this.primaryAndCoordinatingLimits = MAX_INDEXING_BYTES.get(settings).getBytes();
+        // replicas get some headroom so that operations that were accepted by the primary are unlikely to be rejected
+        this.replicaLimits = (long) (this.primaryAndCoordinatingLimits * 1.5);
+    }
+
+    /**
+     * Marks the start of the coordination of a write of <code>bytes</code> bytes on this node. The returned
+     * {@link Releasable} must be released once the write completed on all shards.
+     */
+    public Releasable markCoordinatingOperationStarted(long bytes) {
+        if (bytes == 0) {
+            return () -> {};
+        }
+        long combinedBytes = this.currentCombinedCoordinatingAndPrimaryBytes.addAndGet(bytes);
+        if (combinedBytes > primaryAndCoordinatingLimits) {
+            this.currentCombinedCoordinatingAndPrimaryBytes.getAndAdd(-bytes);
+            this.coordinatingRejections.getAndIncrement();
+            throw new EsRejectedExecutionException("rejected execution of coordinating operation [" +
+                "coordinating_and_primary_bytes=" + (combinedBytes - bytes) + ", " +
+                "coordinating_operation_bytes=" + bytes + ", " +
+                "max_coordinating_and_primary_bytes=" + primaryAndCoordinatingLimits + "]", false);
+        }
+        currentCoordinatingBytes.getAndAdd(bytes);
+        totalCombinedCoordinatingAndPrimaryBytes.getAndAdd(bytes);
+        totalCoordinatingBytes.getAndAdd(bytes);
+        return releaseOnce(() -> {
+            this.currentCombinedCoordinatingAndPrimaryBytes.getAndAdd(-bytes);
+            this.currentCoordinatingBytes.getAndAdd(-bytes);
+        });
+    }
+
+    /**
+     * Marks the start of a primary write of <code>bytes</code> bytes that is coordinated by this node too. The bytes
+     * are already accounted for by {@link #markCoordinatingOperationStarted(long)} so they are never rejected.
+     */
+    public Releasable markPrimaryOperationLocalToCoordinatingNodeStarted(long bytes) {
+        currentPrimaryBytes.getAndAdd(bytes);
+        totalPrimaryBytes.getAndAdd(bytes);
+        return releaseOnce(() -> this.currentPrimaryBytes.getAndAdd(-bytes));
+    }
+
+    /**
+     * Marks the start of a primary write of <code>bytes</code> bytes on this node. The returned {@link Releasable}
+     * must be released once the write completed on all copies of the shard.
+     */
+    public Releasable markPrimaryOperationStarted(long bytes, boolean forceExecution) {
+        if (bytes == 0) {
+            return () -> {};
+        }
+        long combinedBytes = this.currentCombinedCoordinatingAndPrimaryBytes.addAndGet(bytes);
+        if (forceExecution == false && combinedBytes > primaryAndCoordinatingLimits) {
+            this.currentCombinedCoordinatingAndPrimaryBytes.getAndAdd(-bytes);
+            this.primaryRejections.getAndIncrement();
+            throw new EsRejectedExecutionException("rejected execution of primary operation [" +
+                "coordinating_and_primary_bytes=" + (combinedBytes - bytes) + ", " +
+                "primary_operation_bytes=" + bytes + ", " +
+                "max_coordinating_and_primary_bytes=" + primaryAndCoordinatingLimits + "]", false);
+        }
+        currentPrimaryBytes.getAndAdd(bytes);
+        totalCombinedCoordinatingAndPrimaryBytes.getAndAdd(bytes);
+        totalPrimaryBytes.getAndAdd(bytes);
+        return releaseOnce(() -> {
+            this.currentCombinedCoordinatingAndPrimaryBytes.getAndAdd(-bytes);
+            this.currentPrimaryBytes.getAndAdd(-bytes);
+        });
+    }
+
+    /**
+     * Marks the start of a replica write of <code>bytes</code> bytes on this node. The returned {@link Releasable}
+     * must be released once the write completed on the replica.
+     */
+    public Releasable markReplicaOperationStarted(long bytes, boolean forceExecution) {
+        if (bytes == 0) {
+            return () -> {};
+        }
+        long replicaWriteBytes = this.currentReplicaBytes.addAndGet(bytes);
+        if (forceExecution == false && replicaWriteBytes > replicaLimits) {
+            this.currentReplicaBytes.getAndAdd(-bytes);
+            this.replicaRejections.getAndIncrement();
+            throw new EsRejectedExecutionException("rejected execution of replica operation [" +
+                "replica_bytes=" + (replicaWriteBytes - bytes) + ", " +
+                "replica_operation_bytes=" + bytes + ", " +
+                "max_replica_bytes=" + replicaLimits + "]", false);
+        }
+        totalReplicaBytes.getAndAdd(bytes);
+        return releaseOnce(() -> this.currentReplicaBytes.getAndAdd(-bytes));
+    }
+
+    public long getCurrentCombinedCoordinatingAndPrimaryBytes() {
+        return currentCombinedCoordinatingAndPrimaryBytes.get();
+    }
+
+    public long getCurrentCoordinatingBytes() {
+        return currentCoordinatingBytes.get();
+    }
+
+    public long getCurrentPrimaryBytes() {
+        return currentPrimaryBytes.get();
+    }
+
+    public long getCurrentReplicaBytes() {
+        return currentReplicaBytes.get();
+    }
+
+    public IndexingPressureStats stats() {
+        return new IndexingPressureStats(totalCombinedCoordinatingAndPrimaryBytes.get(), totalCoordinatingBytes.get(),
+            totalPrimaryBytes.get(), totalReplicaBytes.get(), currentCombinedCoordinatingAndPrimaryBytes.get(),
+            currentCoordinatingBytes.get(), currentPrimaryBytes.get(), currentReplicaBytes.get(), coordinatingRejections.get(),
+            primaryRejections.get(), replicaRejections.get(), primaryAndCoordinatingLimits);
+    }
+
+    private static Releasable releaseOnce(Runnable release) {
+        final AtomicBoolean released = new AtomicBoolean(false);
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                release.run();
+            }
+        };
+    }
+}
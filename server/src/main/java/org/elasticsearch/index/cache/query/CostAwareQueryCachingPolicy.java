@@ -0,0 +1,144 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.cache.query;
+
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.UsageTrackingQueryCachingPolicy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A {@link UsageTrackingQueryCachingPolicy} that also takes the measured cost of queries into account. A query is
+ * cached once the time that its cached doc id sets would have saved over its recent uses outweighs the memory that
+ * they take, which is about one bit per document of a segment. Expensive queries are therefore cached after fewer uses
+ * and cheap queries after more uses than with the usage tracking policy alone, and queries whose cost has not been
+ * measured yet fall back to the thresholds of the usage tracking policy.
+ *
+ * Costs are recorded by the node-level query cache, see {@link org.elasticsearch.indices.IndicesQueryCache}. Only the
+ * evaluations of a query on whole segments tell its cost. When the query is not cached, the searcher iterates its
+ * matches and only the time to create its scorer can be measured. Queries that do their work while iterating, like
+ * script filters, take almost no time to create their scorers, so these times are only lower bounds of the costs. They
+ * can make a query be cached sooner but never later than with the usage tracking policy alone.
+ */
+public class CostAwareQueryCachingPolicy extends UsageTrackingQueryCachingPolicy {
+
+    /**
+     * The time, in nanoseconds per document of a segment, that caching a query must save over its recent uses in order
+     * to be worth the memory of the cached doc id set.
+     */
+    static final double MIN_SAVED_NANOS_PER_DOC = 10;
+    // the minimum number of uses, so that queries that are only used once are never cached
+    static final int MIN_FREQUENCY = 2;
+    // the weight of a new measurement in the moving average of the cost of a query
+    private static final double ALPHA = 0.3;
+    // the number of queries whose costs are tracked, matches the size of the usage history
+    private static final int MAX_TRACKED_QUERIES = 256;
+
+    // keyed by the queries themselves rather than their hash codes, so that queries with colliding hash codes don't share costs
+    private final Map<Query, Double> nanosPerDoc = newCostMap();
+    // the lower bounds of the costs of the queries, measured when their matches are iterated by the searcher
+    private final Map<Query, Double> minNanosPerDoc = newCostMap();
+
+    private static Map<Query, Double> newCostMap() {
+        return new LinkedHashMap<Query, Double>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Query, Double> eldest) {
+                return size() > MAX_TRACKED_QUERIES;
+            }
+        };
+    }
+
+    /**
+     * Records that evaluating the given query on a whole segment with {@code maxDoc} documents took {@code nanos} nanoseconds.
+     */
+    public void recordCost(Query query, long nanos, int maxDoc) {
+        record(nanosPerDoc, query, nanos, maxDoc);
+    }
+
+    /**
+     * Records that the given query took at least {@code nanos} nanoseconds on a segment with {@code maxDoc} documents, for
+     * instance to create its scorer when its matches are then iterated without being timed.
+     */
+    public void recordMinCost(Query query, long nanos, int maxDoc) {
+        record(minNanosPerDoc, query, nanos, maxDoc);
+    }
+
+    private static void record(Map<Query, Double> costs, Query query, long nanos, int maxDoc) {
+        if (maxDoc <= 0) {
+            return;
+        }
+        final double cost = Math.max(0, nanos) / (double) maxDoc;
+        synchronized (costs) {
+            costs.merge(query, cost, (previous, current) -> previous + ALPHA * (current - previous));
+        }
+    }
+
+    private static double get(Map<Query, Double> costs, Query query) {
+        final Double cost;
+        synchronized (costs) {
+            cost = costs.get(query);
+        }
+        return cost == null ? -1 : cost;
+    }
+
+    /**
+     * The measured cost of the given query in nanoseconds per document, or a negative value if it is unknown.
+     */
+    double nanosPerDoc(Query query) {
+        return get(nanosPerDoc, query);
+    }
+
+    /**
+     * The lower bound of the cost of the given query in nanoseconds per document, or a negative value if it is unknown.
+     */
+    double minNanosPerDoc(Query query) {
+        return get(minNanosPerDoc, query);
+    }
+
+    /**
+     * The estimated time, in nanoseconds, that reading the given query from the cache saves on a segment with
+     * {@code maxDoc} documents, or {@code 0} if the cost of the query is unknown.
+     */
+    public long savedNanos(Query query, int maxDoc) {
+        double cost = nanosPerDoc(query);
+        if (cost < 0) {
+            cost = minNanosPerDoc(query);
+        }
+        return cost <= 0 ? 0 : (long) (cost * maxDoc);
+    }
+
+    @Override
+    protected int minFrequencyToCache(Query query) {
+        final double cost = nanosPerDoc(query);
+        int minFrequency = cost < 0 ? super.minFrequencyToCache(query) : minFrequencyToCache(cost);
+        final double minCost = minNanosPerDoc(query);
+        if (minCost > 0) {
+            // a lower bound of the cost can only make caching pay off sooner
+            minFrequency = Math.min(minFrequency, minFrequencyToCache(minCost));
+        }
+        return minFrequency;
+    }
+
+    private static int minFrequencyToCache(double nanosPerDoc) {
+        final double minFrequency = Math.ceil(MIN_SAVED_NANOS_PER_DOC / nanosPerDoc);
+        return (int) Math.max(MIN_FREQUENCY, Math.min(minFrequency, Integer.MAX_VALUE));
+    }
+}
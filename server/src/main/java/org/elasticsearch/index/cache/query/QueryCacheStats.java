@@ -20,10 +20,12 @@
 package org.elasticsearch.index.cache.query;
 
 import org.apache.lucene.search.DocIdSet;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -37,6 +39,7 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
     private long missCount;
     private long cacheCount;
     private long cacheSize;
+    private long savedTimeInNanos;
 
     public QueryCacheStats() {
     }
@@ -47,14 +50,22 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
         missCount = in.readLong();
         cacheCount = in.readLong();
         cacheSize = in.readLong();
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            savedTimeInNanos = in.readVLong();
+        }
     }
 
     public QueryCacheStats(long ramBytesUsed, long hitCount, long missCount, long cacheCount, long cacheSize) {
+        this(ramBytesUsed, hitCount, missCount, cacheCount, cacheSize, 0);
+    }
+
+    public QueryCacheStats(long ramBytesUsed, long hitCount, long missCount, long cacheCount, long cacheSize, long savedTimeInNanos) {
         this.ramBytesUsed = ramBytesUsed;
         this.hitCount = hitCount;
         this.missCount = missCount;
         this.cacheCount = cacheCount;
         this.cacheSize = cacheSize;
+        this.savedTimeInNanos = savedTimeInNanos;
     }
 
     public void add(QueryCacheStats stats) {
@@ -63,6 +74,7 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
         missCount += stats.missCount;
         cacheCount += stats.cacheCount;
         cacheSize += stats.cacheSize;
+        savedTimeInNanos += stats.savedTimeInNanos;
     }
 
     public long getMemorySizeInBytes() {
@@ -115,6 +127,18 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
         return cacheCount - cacheSize;
     }
 
+    /**
+     * The estimated time that reading cached {@link DocIdSet}s saved compared to evaluating their queries. Only tracked
+     * for indices that admit queries into the cache based on their cost.
+     */
+    public TimeValue getSavedTime() {
+        return TimeValue.timeValueNanos(savedTimeInNanos);
+    }
+
+    public long getSavedTimeInMillis() {
+        return getSavedTime().millis();
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeLong(ramBytesUsed);
@@ -122,6 +146,9 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
         out.writeLong(missCount);
         out.writeLong(cacheCount);
         out.writeLong(cacheSize);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeVLong(savedTimeInNanos);
+        }
     }
 
     @Override
@@ -134,6 +161,7 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
         builder.field(Fields.CACHE_SIZE, getCacheSize());
         builder.field(Fields.CACHE_COUNT, getCacheCount());
         builder.field(Fields.EVICTIONS, getEvictions());
+        builder.humanReadableField(Fields.SAVED_TIME_IN_MILLIS, Fields.SAVED_TIME, getSavedTime());
         builder.endObject();
         return builder;
     }
@@ -148,6 +176,8 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
         static final String CACHE_SIZE = "cache_size";
         static final String CACHE_COUNT = "cache_count";
         static final String EVICTIONS = "evictions";
+        static final String SAVED_TIME = "saved_time";
+        static final String SAVED_TIME_IN_MILLIS = "saved_time_in_millis";
     }
 
 }
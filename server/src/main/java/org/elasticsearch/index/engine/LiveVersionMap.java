@@ -42,11 +42,12 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
 
         /** Tracks bytes used by current map, i.e. what is freed on refresh. For deletes, which are also added to tombstones,
          *  we only account for the CHM entry here, and account for BytesRef/VersionValue against the tombstones, since refresh would not
-         *  clear this RAM. */
-        final AtomicLong ramBytesUsed = new AtomicLong();
+         *  clear this RAM. Not used by packed maps, which account for their memory themselves. */
+        private final AtomicLong ramBytesUsed = new AtomicLong();
 
         private static final VersionLookup EMPTY = new VersionLookup(Collections.emptyMap());
         private final Map<BytesRef, VersionValue> map;
+        private final PackedVersionMap packedMap;
 
         // each version map has a notion of safe / unsafe which allows us to apply certain optimization in the auto-generated ID usecase
         // where we know that documents can't have any duplicates so we can skip the version map entirely. This reduces
@@ -66,22 +67,63 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
 
         private VersionLookup(Map<BytesRef, VersionValue> map) {
             this.map = map;
+            this.packedMap = null;
+        }
+
+        private VersionLookup(PackedVersionMap packedMap) {
+            this.map = null;
+            this.packedMap = packedMap;
+        }
+
+        static VersionLookup create(boolean packed, int expectedSize) {
+            if (packed) {
+                // not pre-sized since its memory is accounted for as soon as it is allocated
+                return new VersionLookup(new PackedVersionMap());
+            }
+            return new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(expectedSize));
+        }
+
+        boolean isPacked() {
+            return packedMap != null;
         }
 
         VersionValue get(BytesRef key) {
-            return map.get(key);
+            return packedMap != null ? packedMap.get(key) : map.get(key);
         }
 
-        VersionValue put(BytesRef key, VersionValue value) {
-            return map.put(key, value);
+        void put(BytesRef uid, IndexVersionValue version) {
+            if (packedMap != null) {
+                packedMap.put(uid, version);
+                return;
+            }
+            long uidRAMBytesUsed = BASE_BYTES_PER_BYTESREF + uid.bytes.length;
+            long ramAccounting = BASE_BYTES_PER_CHM_ENTRY + version.ramBytesUsed() + uidRAMBytesUsed;
+            VersionValue previousValue = map.put(uid, version);
+            ramAccounting += previousValue == null ? 0 : -(BASE_BYTES_PER_CHM_ENTRY + previousValue.ramBytesUsed() + uidRAMBytesUsed);
+            adjustRam(ramAccounting);
         }
 
         boolean isEmpty() {
-            return map.isEmpty();
+            return packedMap != null ? packedMap.isEmpty() : map.isEmpty();
         }
 
         int size() {
-            return map.size();
+            return packedMap != null ? packedMap.size() : map.size();
+        }
+
+        long ramBytesUsed() {
+            return packedMap != null ? packedMap.ramBytesUsed() : ramBytesUsed.get();
+        }
+
+        void adjustRam(long value) {
+            if (value != 0) {
+                long v = ramBytesUsed.addAndGet(value);
+                assert v >= 0 : "bytes=" + v;
+            }
+        }
+
+        Map<BytesRef, VersionValue> asMap() {
+            return packedMap != null ? packedMap.snapshot() : map;
         }
 
         boolean isUnsafe() {
@@ -92,7 +134,14 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             unsafe = true;
         }
 
+        /**
+         * Removes the given uid and returns its previous value, or {@code null} for packed maps, which don't materialize it.
+         */
         public VersionValue remove(BytesRef uid) {
+            if (packedMap != null) {
+                packedMap.remove(uid);
+                return null;
+            }
             return map.remove(uid);
         }
 
@@ -123,9 +172,8 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             this.previousMapsNeededSafeAccess = previousMapsNeededSafeAccess;
         }
 
-        Maps() {
-            this(new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency()),
-                VersionLookup.EMPTY, false);
+        Maps(boolean packed) {
+            this(VersionLookup.create(packed, 16), VersionLookup.EMPTY, false);
         }
 
         boolean isSafeAccessMode() {
@@ -143,8 +191,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
          * Builds a new map for the refresh transition this should be called in beforeRefresh()
          */
         Maps buildTransitionMap() {
-            return new Maps(new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(current.size())), current,
-                shouldInheritSafeAccess());
+            return new Maps(VersionLookup.create(current.isPacked(), current.size()), current, shouldInheritSafeAccess());
         }
 
         /**
@@ -154,19 +201,8 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             return new Maps(current, VersionLookup.EMPTY, previousMapsNeededSafeAccess);
         }
 
-        void put(BytesRef uid, VersionValue version) {
-            long uidRAMBytesUsed = BASE_BYTES_PER_BYTESREF + uid.bytes.length;
-            long ramAccounting = BASE_BYTES_PER_CHM_ENTRY + version.ramBytesUsed() + uidRAMBytesUsed;
-            VersionValue previousValue = current.put(uid, version);
-            ramAccounting += previousValue == null ? 0 : -(BASE_BYTES_PER_CHM_ENTRY + previousValue.ramBytesUsed() + uidRAMBytesUsed);
-            adjustRam(ramAccounting);
-        }
-
-        void adjustRam(long value) {
-            if (value != 0) {
-                long v = current.ramBytesUsed.addAndGet(value);
-                assert v >= 0 : "bytes=" + v;
-            }
+        void put(BytesRef uid, IndexVersionValue version) {
+            current.put(uid, version);
         }
 
         void remove(BytesRef uid, DeleteVersionValue deleted) {
@@ -174,7 +210,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             current.updateMinDeletedTimestamp(deleted);
             if (previousValue != null) {
                 long uidRAMBytesUsed = BASE_BYTES_PER_BYTESREF + uid.bytes.length;
-                adjustRam(-(BASE_BYTES_PER_CHM_ENTRY + previousValue.ramBytesUsed() + uidRAMBytesUsed));
+                current.adjustRam(-(BASE_BYTES_PER_CHM_ENTRY + previousValue.ramBytesUsed() + uidRAMBytesUsed));
             }
             if (old != VersionLookup.EMPTY) {
                 // we also need to remove it from the old map here to make sure we don't read this stale value while
@@ -191,10 +227,27 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
     // All deletes also go here, and delete "tombstones" are retained after refresh:
     private final Map<BytesRef, DeleteVersionValue> tombstones = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
 
-    private volatile Maps maps = new Maps();
+    // whether the current and old maps are packed, see PackedVersionMap
+    private final boolean packed;
+
+    private volatile Maps maps;
     // we maintain a second map that only receives the updates that we skip on the actual map (unsafe ops)
     // this map is only maintained if assertions are enabled
-    private volatile Maps unsafeKeysMap = new Maps();
+    private volatile Maps unsafeKeysMap;
+
+    LiveVersionMap() {
+        this(false);
+    }
+
+    /**
+     * @param packed whether to hold the versions of the uids that were indexed since the last refresh in a {@link PackedVersionMap}
+     *               rather than in a concurrent hash map. Tombstones are always held in a concurrent hash map.
+     */
+    LiveVersionMap(boolean packed) {
+        this.packed = packed;
+        this.maps = new Maps(packed);
+        this.unsafeKeysMap = new Maps(packed);
+    }
 
     /**
      * Bytes consumed for each BytesRef UID:
@@ -415,7 +468,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * Called when this index is closed.
      */
     synchronized void clear() {
-        maps = new Maps();
+        maps = new Maps(packed);
         tombstones.clear();
         // NOTE: we can't zero this here, because a refresh thread could be calling InternalEngine.pruneDeletedTombstones at the same time,
         // and this will lead to an assert trip.  Presumably it's fine if our ramBytesUsedTombstones is non-zero after clear since the
@@ -425,7 +478,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
 
     @Override
     public long ramBytesUsed() {
-        return maps.current.ramBytesUsed.get() + ramBytesUsedTombstones.get();
+        return maps.current.ramBytesUsed() + ramBytesUsedTombstones.get();
     }
 
     /**
@@ -433,7 +486,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * don't clear on refresh.
      */
     long ramBytesUsedForRefresh() {
-        return maps.current.ramBytesUsed.get();
+        return maps.current.ramBytesUsed();
     }
 
     /**
@@ -441,7 +494,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * except does not include tombstones because they don't clear on refresh.
      */
     long getRefreshingBytes() {
-        return maps.old.ramBytesUsed.get();
+        return maps.old.ramBytesUsed();
     }
 
     @Override
@@ -454,7 +507,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * Returns the current internal versions as a point in time snapshot
      */
     Map<BytesRef, VersionValue> getAllCurrent() {
-        return maps.current.map;
+        return maps.current.asMap();
     }
 
     /** Iterates over all deleted versions, including new ones (not yet exposed via reader) and old ones
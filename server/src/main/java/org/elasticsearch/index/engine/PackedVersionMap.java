@@ -0,0 +1,355 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.index.translog.Translog;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A memory-lean alternative to a {@code ConcurrentHashMap<BytesRef, IndexVersionValue>} for the live version map. Entries are
+ * stored in open-addressing hash tables with linear probing, one per segment of the hash space so that writes to different uids
+ * rarely contend. The uid bytes of all entries of a segment are appended to a single byte array and the version, seq# and term
+ * of each entry are packed into a long array together with its translog location, so an entry costs no object at all.
+ * {@link IndexVersionValue}s are only materialized on lookup.
+ *
+ * Since all the memory is held in a handful of arrays, {@link #ramBytesUsed()} is exact rather than estimated per entry. It
+ * includes the uid bytes of removed entries until the segment compacts its key bytes.
+ */
+final class PackedVersionMap implements Accountable {
+
+    private static final int SEGMENT_BITS = 4;
+    private static final int NUM_SEGMENTS = 1 << SEGMENT_BITS;
+    private static final int MIN_CAPACITY = 16;
+
+    private static final long EMPTY = -1L;
+
+    // the longs that are packed per slot
+    private static final int VERSION = 0;
+    private static final int SEQ_NO = 1;
+    private static final int TERM = 2;
+    private static final int LOCATION_GENERATION = 3;
+    private static final int LOCATION_OFFSET = 4;
+    private static final int VALUES_PER_SLOT = 5;
+    // the location size of entries without translog location
+    private static final int NO_LOCATION = -1;
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(PackedVersionMap.class)
+        + RamUsageEstimator.shallowSizeOfInstance(AtomicLong.class)
+        + RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+            + (long) NUM_SEGMENTS * RamUsageEstimator.NUM_BYTES_OBJECT_REF)
+        + NUM_SEGMENTS * RamUsageEstimator.shallowSizeOfInstance(Segment.class);
+
+    private final Segment[] segments = new Segment[NUM_SEGMENTS];
+    private final AtomicLong ramBytesUsed = new AtomicLong(BASE_RAM_BYTES_USED);
+
+    PackedVersionMap() {
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    private Segment segment(int hash) {
+        return segments[hash >>> (Integer.SIZE - SEGMENT_BITS)];
+    }
+
+    /**
+     * Returns the version value of the given uid or {@code null} if the uid is not in this map.
+     */
+    IndexVersionValue get(BytesRef uid) {
+        final int hash = uid.hashCode();
+        return segment(hash).get(uid, hash);
+    }
+
+    /**
+     * Adds or replaces the version value of the given uid.
+     *
+     * @return <code>true</code> if the uid was already in this map
+     */
+    boolean put(BytesRef uid, IndexVersionValue value) {
+        final int hash = uid.hashCode();
+        return segment(hash).put(uid, hash, value);
+    }
+
+    /**
+     * Removes the given uid.
+     *
+     * @return <code>true</code> if the uid was in this map
+     */
+    boolean remove(BytesRef uid) {
+        final int hash = uid.hashCode();
+        return segment(hash).remove(uid, hash);
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    boolean isEmpty() {
+        for (Segment segment : segments) {
+            if (segment.size() != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies all the entries of this map into a new map. Entries that are concurrently added or removed may or may not be
+     * included, but each segment is copied atomically.
+     */
+    Map<BytesRef, VersionValue> snapshot() {
+        final Map<BytesRef, VersionValue> snapshot = new HashMap<>();
+        for (Segment segment : segments) {
+            segment.copyTo(snapshot);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return ramBytesUsed.get();
+    }
+
+    private static long sizeOf(int[] array) {
+        return array == null ? 0 : RamUsageEstimator.sizeOf(array);
+    }
+
+    private static long sizeOf(long[] array) {
+        return array == null ? 0 : RamUsageEstimator.sizeOf(array);
+    }
+
+    private static long sizeOf(byte[] array) {
+        return array == null ? 0 : RamUsageEstimator.sizeOf(array);
+    }
+
+    private final class Segment {
+
+        // the arrays are only allocated on the first put, maps of idle shards are created on every refresh
+        private int[] hashes;
+        // the offset of the uid bytes in keyBytes in the upper 32 bits and their length in the lower bits, or EMPTY
+        private long[] keys;
+        private long[] values;
+        private int[] locationSizes;
+        private byte[] keyBytes;
+        private int keyBytesUsed;
+        // the number of bytes in keyBytes that belong to removed entries
+        private int garbageKeyBytes;
+        private int mask = -1;
+        private int size;
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized IndexVersionValue get(BytesRef uid, int hash) {
+            final int slot = find(uid, hash);
+            if (slot < 0) {
+                return null;
+            }
+            final int base = slot * VALUES_PER_SLOT;
+            final Translog.Location location = locationSizes[slot] == NO_LOCATION ? null
+                : new Translog.Location(values[base + LOCATION_GENERATION], values[base + LOCATION_OFFSET], locationSizes[slot]);
+            return new IndexVersionValue(location, values[base + VERSION], values[base + SEQ_NO], values[base + TERM]);
+        }
+
+        synchronized boolean put(BytesRef uid, int hash, IndexVersionValue value) {
+            int slot = find(uid, hash);
+            final boolean exists = slot >= 0;
+            if (exists == false) {
+                final long ramBytesBefore = arraysRamBytesUsed();
+                if (size + 1 > (mask + 1) - ((mask + 1) >>> 2)) {
+                    resize(Math.max(MIN_CAPACITY, (mask + 1) << 1), 0);
+                }
+                final int offset = appendKey(uid);
+                slot = hash & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                hashes[slot] = hash;
+                keys[slot] = ((long) offset << 32) | uid.length;
+                size++;
+                adjustRamBytesUsed(arraysRamBytesUsed() - ramBytesBefore);
+            }
+            final int base = slot * VALUES_PER_SLOT;
+            values[base + VERSION] = value.version;
+            values[base + SEQ_NO] = value.seqNo;
+            values[base + TERM] = value.term;
+            final Translog.Location location = value.getLocation();
+            if (location == null) {
+                values[base + LOCATION_GENERATION] = 0;
+                values[base + LOCATION_OFFSET] = 0;
+                locationSizes[slot] = NO_LOCATION;
+            } else {
+                values[base + LOCATION_GENERATION] = location.generation;
+                values[base + LOCATION_OFFSET] = location.translogLocation;
+                locationSizes[slot] = location.size;
+            }
+            return exists;
+        }
+
+        synchronized boolean remove(BytesRef uid, int hash) {
+            final int slot = find(uid, hash);
+            if (slot < 0) {
+                return false;
+            }
+            garbageKeyBytes += keyLength(keys[slot]);
+            size--;
+            // backward shift deletion: move the following entries of the probe sequence into the hole unless they would end up
+            // before their ideal slot, this keeps lookups correct without tombstones
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (keys[next] != EMPTY) {
+                final int ideal = hashes[next] & mask;
+                if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+                    move(next, hole);
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[hole] = EMPTY;
+            return true;
+        }
+
+        synchronized void copyTo(Map<BytesRef, VersionValue> map) {
+            for (int slot = 0; slot <= mask; slot++) {
+                if (keys[slot] != EMPTY) {
+                    final int offset = keyOffset(keys[slot]);
+                    final BytesRef uid = new BytesRef(Arrays.copyOfRange(keyBytes, offset, offset + keyLength(keys[slot])));
+                    map.put(uid, get(uid, hashes[slot]));
+                }
+            }
+        }
+
+        private int find(BytesRef uid, int hash) {
+            if (size == 0) {
+                return -1;
+            }
+            int slot = hash & mask;
+            long key;
+            while ((key = keys[slot]) != EMPTY) {
+                if (hashes[slot] == hash && keyLength(key) == uid.length) {
+                    final int offset = keyOffset(key);
+                    if (Arrays.equals(keyBytes, offset, offset + uid.length, uid.bytes, uid.offset, uid.offset + uid.length)) {
+                        return slot;
+                    }
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void move(int from, int to) {
+            hashes[to] = hashes[from];
+            keys[to] = keys[from];
+            locationSizes[to] = locationSizes[from];
+            System.arraycopy(values, from * VALUES_PER_SLOT, values, to * VALUES_PER_SLOT, VALUES_PER_SLOT);
+        }
+
+        /**
+         * Appends the given uid to the key bytes and returns its offset. The key bytes are compacted rather than grown if at
+         * least half of them belong to removed entries.
+         */
+        private int appendKey(BytesRef uid) {
+            if (keyBytes == null || keyBytesUsed + uid.length > keyBytes.length) {
+                if (garbageKeyBytes > 0 && garbageKeyBytes >= keyBytesUsed >>> 1) {
+                    resize(mask + 1, uid.length);
+                } else {
+                    keyBytes = ArrayUtil.grow(keyBytes == null ? new byte[0] : keyBytes, keyBytesUsed + uid.length);
+                }
+            }
+            final int offset = keyBytesUsed;
+            System.arraycopy(uid.bytes, uid.offset, keyBytes, offset, uid.length);
+            keyBytesUsed += uid.length;
+            return offset;
+        }
+
+        /**
+         * Rehashes all entries into tables of the given capacity and copies their uids, without the ones of removed entries,
+         * into new key bytes with room for at least {@code extraKeyBytes} more bytes.
+         */
+        private void resize(int capacity, int extraKeyBytes) {
+            assert Integer.bitCount(capacity) == 1 : capacity;
+            final int[] oldHashes = hashes;
+            final long[] oldKeys = keys;
+            final long[] oldValues = values;
+            final int[] oldLocationSizes = locationSizes;
+            final byte[] oldKeyBytes = keyBytes;
+            final int oldCapacity = mask + 1;
+            hashes = new int[capacity];
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            values = new long[capacity * VALUES_PER_SLOT];
+            locationSizes = new int[capacity];
+            final int liveKeyBytes = keyBytesUsed - garbageKeyBytes;
+            keyBytes = new byte[ArrayUtil.oversize(liveKeyBytes + extraKeyBytes, Byte.BYTES)];
+            keyBytesUsed = 0;
+            garbageKeyBytes = 0;
+            mask = capacity - 1;
+            for (int from = 0; from < oldCapacity; from++) {
+                final long key = oldKeys[from];
+                if (key != EMPTY) {
+                    final int length = keyLength(key);
+                    System.arraycopy(oldKeyBytes, keyOffset(key), keyBytes, keyBytesUsed, length);
+                    int to = oldHashes[from] & mask;
+                    while (keys[to] != EMPTY) {
+                        to = (to + 1) & mask;
+                    }
+                    hashes[to] = oldHashes[from];
+                    keys[to] = ((long) keyBytesUsed << 32) | length;
+                    locationSizes[to] = oldLocationSizes[from];
+                    System.arraycopy(oldValues, from * VALUES_PER_SLOT, values, to * VALUES_PER_SLOT, VALUES_PER_SLOT);
+                    keyBytesUsed += length;
+                }
+            }
+            assert keyBytesUsed == liveKeyBytes : keyBytesUsed + " != " + liveKeyBytes;
+        }
+
+        private long arraysRamBytesUsed() {
+            return sizeOf(hashes) + sizeOf(keys) + sizeOf(values) + sizeOf(locationSizes) + sizeOf(keyBytes);
+        }
+
+        private void adjustRamBytesUsed(long delta) {
+            if (delta != 0) {
+                final long v = ramBytesUsed.addAndGet(delta);
+                assert v >= BASE_RAM_BYTES_USED : "bytes=" + v;
+            }
+        }
+    }
+
+    private static int keyOffset(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int keyLength(long key) {
+        return (int) key;
+    }
+}
@@ -22,11 +22,14 @@ package org.elasticsearch.index.shard;
 import com.carrotsearch.hppc.ObjectLongMap;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.index.CheckIndex;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.FilterDirectoryReader;
 import org.apache.lucene.index.IndexCommit;
+import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.index.SegmentInfos;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.Query;
@@ -84,6 +87,7 @@ import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.cache.IndexCache;
 import org.elasticsearch.index.cache.bitset.ShardBitsetFilterCache;
+import org.elasticsearch.index.cache.query.CostAwareQueryCachingPolicy;
 import org.elasticsearch.index.cache.request.ShardRequestCache;
 import org.elasticsearch.index.codec.CodecService;
 import org.elasticsearch.index.engine.CommitStats;
@@ -102,9 +106,11 @@ import org.elasticsearch.index.fielddata.ShardFieldData;
 import org.elasticsearch.index.flush.FlushStats;
 import org.elasticsearch.index.get.GetStats;
 import org.elasticsearch.index.get.ShardGetService;
+import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.DocumentMapperForType;
 import org.elasticsearch.index.mapper.IdFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.Mapping;
 import org.elasticsearch.index.mapper.ParsedDocument;
@@ -136,6 +142,7 @@ import org.elasticsearch.index.warmer.ShardIndexWarmerService;
 import org.elasticsearch.index.warmer.WarmerStats;
 import org.elasticsearch.indices.IndexingMemoryController;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.TranslogSyncCoordinator;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.indices.recovery.PeerRecoveryTargetService;
@@ -166,6 +173,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -177,6 +185,7 @@ import java.util.function.Function;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.index.seqno.RetentionLeaseActions.RETAIN_ALL;
@@ -358,6 +367,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                     return true;
                 }
             };
+        } else if (IndexModule.INDEX_QUERY_CACHE_COST_BASED_ADMISSION_SETTING.get(settings)) {
+            cachingPolicy = new CostAwareQueryCachingPolicy();
         } else {
             cachingPolicy = new UsageTrackingQueryCachingPolicy();
         }
@@ -734,29 +745,73 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                                                            long ifSeqNo, long ifPrimaryTerm, long autoGeneratedTimestamp,
                                                            boolean isRetry)
         throws IOException {
+        return applyIndexOperationOnPrimary(version, versionType, sourceToParse, ifSeqNo, ifPrimaryTerm, autoGeneratedTimestamp,
+            isRetry, null);
+    }
+
+    /**
+     * Same as {@link #applyIndexOperationOnPrimary(long, VersionType, SourceToParse, long, long, long, boolean)} but uses the given
+     * pre-parsed document rather than parsing the source again, unless the mapping changed since it was parsed.
+     */
+    public Engine.IndexResult applyIndexOperationOnPrimary(long version, VersionType versionType, SourceToParse sourceToParse,
+                                                           long ifSeqNo, long ifPrimaryTerm, long autoGeneratedTimestamp,
+                                                           boolean isRetry, @Nullable PreParsedDocument preParsedDocument)
+        throws IOException {
         assert versionType.validateVersionForWrites(version);
         return applyIndexOperation(getEngine(), UNASSIGNED_SEQ_NO, getOperationPrimaryTerm(), version, versionType, ifSeqNo,
-            ifPrimaryTerm, autoGeneratedTimestamp, isRetry, Engine.Operation.Origin.PRIMARY, sourceToParse);
+            ifPrimaryTerm, autoGeneratedTimestamp, isRetry, Engine.Operation.Origin.PRIMARY, sourceToParse, preParsedDocument);
+    }
+
+    /**
+     * Parses the given source with the current mapping so that it can later be indexed with
+     * {@link #applyIndexOperationOnPrimary(long, VersionType, SourceToParse, long, long, long, boolean, PreParsedDocument)}.
+     * Parsing doesn't modify the shard, so this method may be called concurrently with any other operation.
+     *
+     * @return the parsed document or the failure to parse it, or {@code null} if the index has no mapping yet
+     */
+    @Nullable
+    public PreParsedDocument preParseDocument(SourceToParse sourceToParse) {
+        final DocumentMapper documentMapper = mapperService.documentMapper();
+        if (documentMapper == null) {
+            return null;
+        }
+        final long startTime = System.nanoTime();
+        try {
+            final ParsedDocument doc = documentMapper.parse(sourceToParse);
+            return new PreParsedDocument(documentMapper, doc, null, System.nanoTime() - startTime);
+        } catch (Exception e) {
+            return new PreParsedDocument(documentMapper, null, e, System.nanoTime() - startTime);
+        }
     }
 
     public Engine.IndexResult applyIndexOperationOnReplica(long seqNo, long opPrimaryTerm, long version, long autoGeneratedTimeStamp,
         boolean isRetry, SourceToParse sourceToParse)
         throws IOException {
         return applyIndexOperation(getEngine(), seqNo, opPrimaryTerm, version, null, UNASSIGNED_SEQ_NO, 0,
-            autoGeneratedTimeStamp, isRetry, Engine.Operation.Origin.REPLICA, sourceToParse);
+            autoGeneratedTimeStamp, isRetry, Engine.Operation.Origin.REPLICA, sourceToParse, null);
     }
 
     private Engine.IndexResult applyIndexOperation(Engine engine, long seqNo, long opPrimaryTerm, long version,
                                                    @Nullable VersionType versionType, long ifSeqNo, long ifPrimaryTerm,
                                                    long autoGeneratedTimeStamp, boolean isRetry, Engine.Operation.Origin origin,
-                                                   SourceToParse sourceToParse) throws IOException {
+                                                   SourceToParse sourceToParse, @Nullable PreParsedDocument preParsedDocument)
+        throws IOException {
         assert opPrimaryTerm <= getOperationPrimaryTerm()
                 : "op term [ " + opPrimaryTerm + " ] > shard term [" + getOperationPrimaryTerm() + "]";
         ensureWriteAllowed(origin);
         Engine.Index operation;
         try {
-            operation = prepareIndex(docMapper(), sourceToParse,
-                seqNo, opPrimaryTerm, version, versionType, origin, autoGeneratedTimeStamp, isRetry, ifSeqNo, ifPrimaryTerm);
+            if (preParsedDocument != null && preParsedDocument.isParsedWith(mapperService.documentMapper())) {
+                if (preParsedDocument.failure() != null) {
+                    throw preParsedDocument.failure();
+                }
+                // account for the time it took to parse the document as if it had been parsed here
+                operation = prepareIndex(preParsedDocument.parsedDocument(), System.nanoTime() - preParsedDocument.parseTimeInNanos(),
+                    seqNo, opPrimaryTerm, version, versionType, origin, autoGeneratedTimeStamp, isRetry, ifSeqNo, ifPrimaryTerm);
+            } else {
+                operation = prepareIndex(docMapper(), sourceToParse,
+                    seqNo, opPrimaryTerm, version, versionType, origin, autoGeneratedTimeStamp, isRetry, ifSeqNo, ifPrimaryTerm);
+            }
             Mapping update = operation.parsedDoc().dynamicMappingsUpdate();
             if (update != null) {
                 return new Engine.IndexResult(update);
@@ -782,6 +837,13 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         if (docMapper.getMapping() != null) {
             doc.addDynamicMappingsUpdate(docMapper.getMapping());
         }
+        return prepareIndex(doc, startTime, seqNo, primaryTerm, version, versionType, origin, autoGeneratedIdTimestamp, isRetry,
+            ifSeqNo, ifPrimaryTerm);
+    }
+
+    private static Engine.Index prepareIndex(ParsedDocument doc, long startTime, long seqNo, long primaryTerm, long version,
+                                             VersionType versionType, Engine.Operation.Origin origin, long autoGeneratedIdTimestamp,
+                                             boolean isRetry, long ifSeqNo, long ifPrimaryTerm) {
         Term uid = new Term(IdFieldMapper.NAME, Uid.encodeId(doc.id()));
         return new Engine.Index(uid, doc, seqNo, primaryTerm, version, versionType, origin, startTime, autoGeneratedIdTimestamp, isRetry,
             ifSeqNo, ifPrimaryTerm);
@@ -951,6 +1013,30 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return getEngine().docStats();
     }
 
+    /**
+     * Computes the range of the {@link IndexSettings#TIMESTAMP_FIELD_SETTING timestamp field} across the documents of this shard after
+     * refreshing it. The range is {@link ShardTimestampRange#UNKNOWN} unless the field is an indexed millisecond-resolution date field.
+     */
+    @Override
+    public ShardTimestampRange timestampRange() throws IOException {
+        final String field = IndexSettings.TIMESTAMP_FIELD_SETTING.get(indexSettings.getSettings());
+        final MappedFieldType fieldType = mapperService.fieldType(field);
+        if (fieldType instanceof DateFieldMapper.DateFieldType == false
+            || ((DateFieldMapper.DateFieldType) fieldType).resolution() != DateFieldMapper.Resolution.MILLISECONDS
+            || fieldType.indexOptions() == IndexOptions.NONE) {
+            return ShardTimestampRange.UNKNOWN;
+        }
+        refresh("timestamp_range");
+        try (Engine.Searcher searcher = acquireSearcherNoWrap("timestamp_range")) {
+            final byte[] minPackedValue = PointValues.getMinPackedValue(searcher.getIndexReader(), field);
+            final byte[] maxPackedValue = PointValues.getMaxPackedValue(searcher.getIndexReader(), field);
+            if (minPackedValue == null || maxPackedValue == null) {
+                return ShardTimestampRange.EMPTY;
+            }
+            return ShardTimestampRange.of(LongPoint.decodeDimension(minPackedValue, 0), LongPoint.decodeDimension(maxPackedValue, 0));
+        }
+    }
+
     /**
      * @return {@link CommitStats}
      * @throws AlreadyClosedException if shard is closed
@@ -1472,7 +1558,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 result = applyIndexOperation(engine, index.seqNo(), index.primaryTerm(), index.version(),
                     versionType, UNASSIGNED_SEQ_NO, 0, index.getAutoGeneratedIdTimestamp(), true, origin,
                     new SourceToParse(shardId.getIndexName(), index.id(), index.source(),
-                        XContentHelper.xContentType(index.source()), index.routing()));
+                        XContentHelper.xContentType(index.source()), index.routing()), null);
                 break;
             case DELETE:
                 final Translog.Delete delete = (Translog.Delete) operation;
@@ -2976,26 +3062,55 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return indexShardOperationPermits.getActiveOperations();
     }
 
+    private static final int TRANSLOG_SYNC_QUEUE_SIZE = 1024;
+
     private final AsyncIOProcessor<Translog.Location> translogSyncProcessor;
+    @Nullable
+    private volatile TranslogSyncCoordinator translogSyncCoordinator;
+    // bounds the syncs of this shard that are pending in the coordinator like the queue of the sync processor bounds its syncs
+    private final Semaphore coordinatedSyncPermits = new Semaphore(TRANSLOG_SYNC_QUEUE_SIZE);
 
     private static AsyncIOProcessor<Translog.Location> createTranslogSyncProcessor(Logger logger, ThreadContext threadContext,
                                                                                    Supplier<Engine> engineSupplier) {
-        return new AsyncIOProcessor<>(logger, 1024, threadContext) {
+        return new AsyncIOProcessor<>(logger, TRANSLOG_SYNC_QUEUE_SIZE, threadContext) {
             @Override
             protected void write(List<Tuple<Translog.Location, Consumer<Exception>>> candidates) throws IOException {
-                try {
-                    engineSupplier.get().ensureTranslogSynced(candidates.stream().map(Tuple::v1));
-                } catch (AlreadyClosedException ex) {
-                    // that's fine since we already synced everything on engine close - this also is conform with the methods
-                    // documentation
-                } catch (IOException ex) { // if this fails we are in deep shit - fail the request
-                    logger.debug("failed to sync translog", ex);
-                    throw ex;
-                }
+                ensureTranslogSynced(logger, engineSupplier, candidates.stream().map(Tuple::v1));
             }
         };
     }
 
+    private static boolean ensureTranslogSynced(Logger logger, Supplier<Engine> engineSupplier,
+                                                Stream<Translog.Location> locations) throws IOException {
+        try {
+            return engineSupplier.get().ensureTranslogSynced(locations);
+        } catch (AlreadyClosedException ex) {
+            // that's fine since we already synced everything on engine close - this also is conform with the methods
+            // documentation
+            return false;
+        } catch (IOException ex) { // if this fails we are in deep shit - fail the request
+            logger.debug("failed to sync translog", ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Syncs the given locations with the underlying storage unless already synced, on the calling thread.
+     *
+     * @return <code>true</code> iff an actual sync operation was needed
+     */
+    public boolean ensureTranslogSynced(Stream<Translog.Location> locations) throws IOException {
+        return ensureTranslogSynced(logger, this::getEngine, locations);
+    }
+
+    /**
+     * Hands the asynchronous translog syncs of this shard over to the given node level coordinator, which batches them together with
+     * the syncs of the other shards on the same data path.
+     */
+    public void setTranslogSyncCoordinator(@Nullable TranslogSyncCoordinator translogSyncCoordinator) {
+        this.translogSyncCoordinator = translogSyncCoordinator;
+    }
+
     /**
      * Syncs the given location with the underlying storage unless already synced. This method might return immediately without
      * actually fsyncing the location until the sync listener is called. Yet, unless there is already another thread fsyncing
@@ -3007,7 +3122,22 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
      */
     public final void sync(Translog.Location location, Consumer<Exception> syncListener) {
         verifyNotClosed();
-        translogSyncProcessor.put(location, syncListener);
+        final TranslogSyncCoordinator coordinator = translogSyncCoordinator;
+        if (coordinator != null) {
+            try {
+                coordinatedSyncPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                syncListener.accept(e);
+                return;
+            }
+            coordinator.sync(this, location, e -> {
+                coordinatedSyncPermits.release();
+                syncListener.accept(e);
+            });
+        } else {
+            translogSyncProcessor.put(location, syncListener);
+        }
     }
 
     public void sync() throws IOException {
@@ -0,0 +1,75 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.ParsedDocument;
+
+/**
+ * The result of parsing a document ahead of indexing it on the primary, see {@link IndexShard#preParseDocument}. It may only be
+ * used to index the document if the mapping of the shard did not change since it was parsed.
+ */
+public final class PreParsedDocument {
+
+    private final DocumentMapper documentMapper;
+    private final ParsedDocument parsedDocument;
+    private final Exception failure;
+    private final long parseTimeInNanos;
+
+    PreParsedDocument(DocumentMapper documentMapper, @Nullable ParsedDocument parsedDocument, @Nullable Exception failure,
+                      long parseTimeInNanos) {
+        assert (parsedDocument == null) != (failure == null);
+        this.documentMapper = documentMapper;
+        this.parsedDocument = parsedDocument;
+        this.failure = failure;
+        this.parseTimeInNanos = parseTimeInNanos;
+    }
+
+    /**
+     * Whether the document was parsed with the given mapper.
+     */
+    boolean isParsedWith(@Nullable DocumentMapper documentMapper) {
+        return this.documentMapper == documentMapper;
+    }
+
+    /**
+     * The parsed document, or {@code null} if parsing failed.
+     */
+    @Nullable
+    ParsedDocument parsedDocument() {
+        return parsedDocument;
+    }
+
+    /**
+     * The failure to parse the document, or {@code null} if parsing succeeded.
+     */
+    @Nullable
+    Exception failure() {
+        return failure;
+    }
+
+    /**
+     * The time it took to parse the document.
+     */
+    long parseTimeInNanos() {
+        return parseTimeInNanos;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * The range of values of the {@link org.elasticsearch.index.IndexSettings#TIMESTAMP_FIELD_SETTING timestamp field} held by a single shard,
+ * expressed in milliseconds since the epoch. A shard without any value for the field has an {@link #EMPTY} range; a shard whose range
+ * cannot be computed (e.g. because the field is not mapped as a millisecond {@code date}) has an {@link #UNKNOWN} range.
+ */
+public final class ShardTimestampRange implements Writeable {
+
+    public static final ShardTimestampRange UNKNOWN = new ShardTimestampRange(Long.MIN_VALUE, Long.MAX_VALUE, false);
+    public static final ShardTimestampRange EMPTY = new ShardTimestampRange(Long.MAX_VALUE, Long.MIN_VALUE, true);
+
+    private final long min;
+    private final long max;
+    private final boolean known;
+
+    private ShardTimestampRange(long min, long max, boolean known) {
+        this.min = min;
+        this.max = max;
+        this.known = known;
+    }
+
+    public static ShardTimestampRange of(long min, long max) {
+        if (min > max) {
+            throw new IllegalArgumentException("min [" + min + "] must be less than or equal to max [" + max + "]");
+        }
+        return new ShardTimestampRange(min, max, true);
+    }
+
+    public ShardTimestampRange(StreamInput in) throws IOException {
+        this.known = in.readBoolean();
+        this.min = in.readLong();
+        this.max = in.readLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeBoolean(known);
+        out.writeLong(min);
+        out.writeLong(max);
+    }
+
+    /**
+     * Whether the range of this shard could be computed.
+     */
+    public boolean isKnown() {
+        return known;
+    }
+
+    /**
+     * Whether this shard is known to hold no value for the timestamp field.
+     */
+    public boolean isEmpty() {
+        return known && min > max;
+    }
+
+    public long getMin() {
+        return min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ShardTimestampRange that = (ShardTimestampRange) o;
+        return min == that.min && max == that.max && known == that.known;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(min, max, known);
+    }
+
+    @Override
+    public String toString() {
+        if (known == false) {
+            return "[unknown]";
+        }
+        return isEmpty() ? "[empty]" : "[" + min + "-" + max + "]";
+    }
+}
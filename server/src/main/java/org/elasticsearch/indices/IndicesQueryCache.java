@@ -24,7 +24,9 @@ import org.apache.logging.log4j.Logger;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BulkScorer;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.LRUQueryCache;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.QueryCache;
@@ -32,11 +34,14 @@ import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.ScorerSupplier;
 import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lucene.ShardCoreKeyMap;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.cache.query.CostAwareQueryCachingPolicy;
 import org.elasticsearch.index.cache.query.QueryCacheStats;
 import org.elasticsearch.index.shard.ShardId;
 
@@ -48,6 +53,7 @@ import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Predicate;
 
 public class IndicesQueryCache implements QueryCache, Closeable {
@@ -117,21 +123,32 @@ public class IndicesQueryCache implements QueryCache, Closeable {
     @Override
     public Weight doCache(Weight weight, QueryCachingPolicy policy) {
         while (weight instanceof CachingWeightWrapper) {
-            weight = ((CachingWeightWrapper) weight).in;
+            weight = ((CachingWeightWrapper) weight).uncached;
+        }
+        if (policy instanceof CostAwareQueryCachingPolicy) {
+            // measure how long it takes to evaluate the query when it gets cached so that the policy can
+            // admit queries based on their cost, and how much time later cache hits save
+            final CostTrackingWeight costTracking = new CostTrackingWeight(weight, (CostAwareQueryCachingPolicy) policy);
+            return new CachingWeightWrapper(weight, cache.doCache(costTracking, policy), costTracking);
         }
         final Weight in = cache.doCache(weight, policy);
         // We wrap the weight to track the readers it sees and map them with
         // the shards they belong to
-        return new CachingWeightWrapper(in);
+        return new CachingWeightWrapper(weight, in, null);
     }
 
     private class CachingWeightWrapper extends Weight {
 
+        private final Weight uncached;
         private final Weight in;
+        @Nullable
+        private final CostTrackingWeight costTracking;
 
-        protected CachingWeightWrapper(Weight in) {
+        protected CachingWeightWrapper(Weight uncached, Weight in, @Nullable CostTrackingWeight costTracking) {
             super(in.getQuery());
+            this.uncached = uncached;
             this.in = in;
+            this.costTracking = costTracking;
         }
 
         @Override
@@ -148,19 +165,175 @@ public class IndicesQueryCache implements QueryCache, Closeable {
         @Override
         public Scorer scorer(LeafReaderContext context) throws IOException {
             shardKeyMap.add(context.reader());
-            return in.scorer(context);
+            if (costTracking == null) {
+                return in.scorer(context);
+            }
+            costTracking.pendingLeaves.add(context);
+            try {
+                return in.scorer(context);
+            } finally {
+                onScorerCreated(context);
+            }
         }
 
         @Override
         public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
             shardKeyMap.add(context.reader());
-            return in.scorerSupplier(context);
+            if (costTracking == null) {
+                return in.scorerSupplier(context);
+            }
+            costTracking.pendingLeaves.add(context);
+            try {
+                return in.scorerSupplier(context);
+            } finally {
+                onScorerCreated(context);
+            }
         }
 
         @Override
         public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
             shardKeyMap.add(context.reader());
-            return in.bulkScorer(context);
+            if (costTracking == null) {
+                return in.bulkScorer(context);
+            }
+            costTracking.pendingLeaves.add(context);
+            try {
+                return in.bulkScorer(context);
+            } finally {
+                onScorerCreated(context);
+            }
+        }
+
+        @Override
+        public boolean isCacheable(LeafReaderContext ctx) {
+            return in.isCacheable(ctx);
+        }
+
+        private void onScorerCreated(LeafReaderContext context) {
+            costTracking.pendingLeaves.remove(context);
+            if (costTracking.evaluatedLeaves.contains(context) == false && context.reader().getCoreCacheHelper() != null) {
+                // the cache did not need to evaluate the query on this segment so its doc id set was read from the cache
+                final ShardId shardId = shardKeyMap.getShardId(context.reader().getCoreCacheHelper().getKey());
+                final Stats stats = shardId == null ? null : shardStats.get(shardId);
+                if (stats != null) {
+                    stats.savedTimeInNanos.add(costTracking.policy.savedNanos(getQuery(), context.reader().maxDoc()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Wraps the weight that the cache evaluates in order to record which segments it evaluated, and how long it took to
+     * evaluate the query. When the query is cached, it is evaluated on the whole segment before the scorer is returned to
+     * the searcher, which measures its full cost. Otherwise only the creation of the scorer is measured, since iterating
+     * the scorer afterwards includes the time spent collecting matches. This is recorded as a lower bound of the cost: it
+     * tells that queries that do most of their work upfront, such as range and multi-term queries, are expensive before
+     * they are first cached, but can't tell that queries that do their work while iterating, such as script filters, are
+     * cheap.
+     */
+    private static class CostTrackingWeight extends Weight {
+
+        private final Weight in;
+        private final CostAwareQueryCachingPolicy policy;
+        // the segments that the outer wrapper is currently creating a scorer for
+        private final Set<LeafReaderContext> pendingLeaves = ConcurrentHashMap.newKeySet();
+        // the segments that the query has been evaluated on rather than read from the cache
+        private final Set<LeafReaderContext> evaluatedLeaves = ConcurrentHashMap.newKeySet();
+
+        CostTrackingWeight(Weight in, CostAwareQueryCachingPolicy policy) {
+            super(in.getQuery());
+            this.in = in;
+            this.policy = policy;
+        }
+
+        @Override
+        public void extractTerms(Set<Term> terms) {
+            in.extractTerms(terms);
+        }
+
+        @Override
+        public Explanation explain(LeafReaderContext context, int doc) throws IOException {
+            return in.explain(context, doc);
+        }
+
+        @Override
+        public Scorer scorer(LeafReaderContext context) throws IOException {
+            evaluatedLeaves.add(context);
+            final long start = System.nanoTime();
+            final Scorer scorer = in.scorer(context);
+            if (scorer == null) {
+                // nothing matches on this segment, the query was fully evaluated
+                policy.recordCost(getQuery(), System.nanoTime() - start, context.reader().maxDoc());
+            } else {
+                // the searcher iterates the matches, the query may do most of its work there
+                policy.recordMinCost(getQuery(), System.nanoTime() - start, context.reader().maxDoc());
+            }
+            return scorer;
+        }
+
+        @Override
+        public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+            evaluatedLeaves.add(context);
+            final long start = System.nanoTime();
+            final ScorerSupplier scorerSupplier = in.scorerSupplier(context);
+            final long creationNanos = System.nanoTime() - start;
+            if (scorerSupplier == null) {
+                // nothing matches on this segment
+                policy.recordCost(getQuery(), creationNanos, context.reader().maxDoc());
+                return null;
+            }
+            return new ScorerSupplier() {
+                @Override
+                public Scorer get(long leadCost) throws IOException {
+                    final long getStart = System.nanoTime();
+                    final Scorer scorer = scorerSupplier.get(leadCost);
+                    policy.recordMinCost(getQuery(), creationNanos + System.nanoTime() - getStart, context.reader().maxDoc());
+                    return scorer;
+                }
+
+                @Override
+                public long cost() {
+                    return scorerSupplier.cost();
+                }
+            };
+        }
+
+        @Override
+        public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
+            evaluatedLeaves.add(context);
+            final long start = System.nanoTime();
+            final BulkScorer bulkScorer = in.bulkScorer(context);
+            final long creationNanos = System.nanoTime() - start;
+            if (bulkScorer == null) {
+                // nothing matches on this segment
+                policy.recordCost(getQuery(), creationNanos, context.reader().maxDoc());
+                return null;
+            }
+            return new BulkScorer() {
+                private boolean recorded;
+
+                @Override
+                public int score(LeafCollector collector, Bits acceptDocs, int min, int max) throws IOException {
+                    final long scoreStart = System.nanoTime();
+                    final int next = bulkScorer.score(collector, acceptDocs, min, max);
+                    if (recorded == false) {
+                        recorded = true;
+                        if (min == 0 && max == DocIdSetIterator.NO_MORE_DOCS && pendingLeaves.contains(context)) {
+                            // the cache evaluated the query on the whole segment
+                            policy.recordCost(getQuery(), creationNanos + System.nanoTime() - scoreStart, context.reader().maxDoc());
+                        } else {
+                            // the searcher collects the matches, the creation of the scorer is only a lower bound of the cost
+                            policy.recordMinCost(getQuery(), creationNanos, context.reader().maxDoc());
+                        }
+                    }
+                    return next;
+                }
+
+                @Override
+                public long cost() {
+                    return bulkScorer.cost();
+                }
+            };
         }
 
         @Override
@@ -205,19 +378,20 @@ public class IndicesQueryCache implements QueryCache, Closeable {
         volatile long missCount;
         volatile long cacheCount;
         volatile long cacheSize;
+        final LongAdder savedTimeInNanos = new LongAdder();
 
         Stats(ShardId shardId) {
             this.shardId = shardId;
         }
 
         QueryCacheStats toQueryCacheStats() {
-            return new QueryCacheStats(ramBytesUsed, hitCount, missCount, cacheCount, cacheSize);
+            return new QueryCacheStats(ramBytesUsed, hitCount, missCount, cacheCount, cacheSize, savedTimeInNanos.sum());
         }
 
         @Override
         public String toString() {
             return "{shardId=" + shardId + ", ramBytedUsed=" + ramBytesUsed + ", hitCount=" + hitCount + ", missCount=" + missCount +
-                    ", cacheCount=" + cacheCount + ", cacheSize=" + cacheSize + "}";
+                    ", cacheCount=" + cacheCount + ", cacheSize=" + cacheSize + ", savedTimeInNanos=" + savedTimeInNanos + "}";
         }
     }
 
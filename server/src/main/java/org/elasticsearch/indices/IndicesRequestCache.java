@@ -74,6 +74,12 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
      */
     public static final Setting<Boolean> INDEX_CACHE_REQUEST_ENABLED_SETTING =
         Setting.boolSetting("index.requests.cache.enable", true, Property.Dynamic, Property.IndexScope);
+    /**
+     * A setting to cache the aggregation results of each segment of a shard in addition to the whole shard response, so
+     * that only the segments that changed since the last refresh need to be aggregated. Off by default.
+     */
+    public static final Setting<Boolean> INDEX_CACHE_REQUEST_SEGMENT_AGGREGATIONS_SETTING =
+        Setting.boolSetting("index.requests.cache.segment_aggregations", false, Property.Dynamic, Property.IndexScope);
     public static final Setting<ByteSizeValue> INDICES_CACHE_QUERY_SIZE =
         Setting.memorySizeSetting("indices.requests.cache.size", "1%", Property.NodeScope);
     public static final Setting<TimeValue> INDICES_CACHE_QUERY_EXPIRE =
@@ -143,6 +149,37 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
         return value;
     }
 
+    /**
+     * Returns the value cached for the given key and segment core, or {@code null} if there is none.
+     */
+    BytesReference get(CacheEntity cacheEntity, IndexReader.CacheHelper coreCacheHelper, BytesReference cacheKey) {
+        final BytesReference value = cache.get(new Key(cacheEntity, coreCacheHelper.getKey(), cacheKey));
+        if (value == null) {
+            cacheEntity.onMiss();
+        } else {
+            cacheEntity.onHit();
+        }
+        return value;
+    }
+
+    /**
+     * Caches the given value for the given key and segment core. Unlike the readers of a shard, the core of a segment is shared
+     * by all the readers that contain the segment, its entries are cleaned once it is closed, ie. once the segment is merged away.
+     * The key must therefore account for the documents that are deleted from the segment.
+     */
+    void put(CacheEntity cacheEntity, IndexReader.CacheHelper coreCacheHelper, BytesReference cacheKey, BytesReference value) {
+        final Key key = new Key(cacheEntity, coreCacheHelper.getKey(), cacheKey);
+        cacheEntity.onCached(key, value);
+        cache.put(key, value);
+        CleanupKey cleanupKey = new CleanupKey(cacheEntity, coreCacheHelper.getKey());
+        if (!registeredClosedListeners.containsKey(cleanupKey)) {
+            Boolean previous = registeredClosedListeners.putIfAbsent(cleanupKey, Boolean.TRUE);
+            if (previous == null) {
+                coreCacheHelper.addClosedListener(cleanupKey);
+            }
+        }
+    }
+
     /**
      * Invalidates the given the cache entry for the given key and it's context
      * @param cacheEntity the cache entity to invalidate for
@@ -24,6 +24,7 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader.CacheHelper;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.util.CollectionUtil;
 import org.apache.lucene.util.RamUsageEstimator;
@@ -48,7 +49,9 @@ import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.CheckedFunction;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.io.FileSystemUtils;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
@@ -57,6 +60,7 @@ import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.settings.IndexScopedSettings;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
@@ -126,6 +130,9 @@ import org.elasticsearch.plugins.IndexStorePlugin;
 import org.elasticsearch.plugins.PluginsService;
 import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.SegmentAggregationsCache;
+import org.elasticsearch.search.aggregations.bucket.significant.BackgroundFrequencyCache;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchRequest;
@@ -214,6 +221,9 @@ public class IndicesService extends AbstractLifecycleComponent
     private final TimeValue cleanInterval;
     final IndicesRequestCache indicesRequestCache; // pkg-private for testing
     private final IndicesQueryCache indicesQueryCache;
+    private final BackgroundFrequencyCache backgroundFrequencyCache;
+    @Nullable
+    private final TranslogSyncCoordinator translogSyncCoordinator;
     private final MetaStateService metaStateService;
     private final Collection<Function<IndexSettings, Optional<EngineFactory>>> engineFactoryProviders;
     private final Map<String, IndexStorePlugin.DirectoryFactory> directoryFactories;
@@ -250,6 +260,11 @@ public class IndicesService extends AbstractLifecycleComponent
         this.indexNameExpressionResolver = indexNameExpressionResolver;
         this.indicesRequestCache = new IndicesRequestCache(settings);
         this.indicesQueryCache = new IndicesQueryCache(settings);
+        this.backgroundFrequencyCache = new BackgroundFrequencyCache(settings);
+        this.translogSyncCoordinator = TranslogSyncCoordinator.INDICES_TRANSLOG_GROUP_SYNC_SETTING.get(settings)
+                ? new TranslogSyncCoordinator(threadPool.getThreadContext(), threadPool.generic(),
+                    TranslogSyncCoordinator.INDICES_TRANSLOG_GROUP_SYNC_MAX_CONCURRENT_FSYNCS_SETTING.get(settings), System::nanoTime)
+                : null;
         this.mapperRegistry = mapperRegistry;
         this.namedWriteableRegistry = namedWriteableRegistry;
         indexingMemoryController = new IndexingMemoryController(settings, threadPool,
@@ -299,7 +314,8 @@ public class IndicesService extends AbstractLifecycleComponent
                             indicesFieldDataCache,
                             cacheCleaner,
                             indicesRequestCache,
-                            indicesQueryCache);
+                            indicesQueryCache,
+                            backgroundFrequencyCache);
                 } catch (IOException e) {
                     throw new UncheckedIOException(e);
                 } finally {
@@ -702,6 +718,7 @@ public class IndicesService extends AbstractLifecycleComponent
         IndexService indexService = indexService(shardRouting.index());
         IndexShard indexShard = indexService.createShard(shardRouting, globalCheckpointSyncer, retentionLeaseSyncer);
         indexShard.addShardFailureCallback(onShardFailure);
+        indexShard.setTranslogSyncCoordinator(translogSyncCoordinator);
         indexShard.startRecovery(recoveryState, recoveryTargetService, recoveryListener, repositoriesService,
             mapping -> {
                 assert recoveryState.getRecoverySource().getType() == RecoverySource.Type.LOCAL_SHARDS:
@@ -760,6 +777,18 @@ public class IndicesService extends AbstractLifecycleComponent
         return indicesQueryCache;
     }
 
+    public BackgroundFrequencyCache getBackgroundFrequencyCache() {
+        return backgroundFrequencyCache;
+    }
+
+    /**
+     * Returns the statistics of the batched translog syncs, or {@code null} if translog syncs are not batched across shards.
+     */
+    @Nullable
+    public TranslogSyncStats translogSyncStats() {
+        return translogSyncCoordinator == null ? null : translogSyncCoordinator.stats();
+    }
+
     static class OldShardsStats implements IndexEventListener {
 
         final SearchStats searchStats = new SearchStats();
@@ -1362,6 +1391,84 @@ public class IndicesService extends AbstractLifecycleComponent
         }
     }
 
+    /**
+     * Returns a cache of the aggregation results of the single segments of the shard for the given request, or {@code null}
+     * if the results of the request cannot be cached per segment.
+     */
+    @Nullable
+    public SegmentAggregationsCache segmentAggregationsCache(ShardSearchRequest request, SearchContext context) {
+        if (context.indexShard().indexSettings().getValue(IndicesRequestCache.INDEX_CACHE_REQUEST_SEGMENT_AGGREGATIONS_SETTING) == false
+                || request.source() == null
+                || request.source().aggregations() == null
+                // segments that are not fully collected must not be cached
+                || context.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER
+                || canCache(request, context) == false) {
+            return null;
+        }
+        if (SegmentAggregationsCache.supports(request.source().aggregations().getAggregatorFactories()) == false) {
+            return null;
+        }
+        return new IndexShardSegmentAggregationsCache(new IndexShardCacheEntity(context.indexShard()), request);
+    }
+
+    /**
+     * Caches the aggregation results of segments in the {@link IndicesRequestCache}, keyed by the core of the segment, its
+     * number of deleted documents and the request. Documents are only ever added to the deletes of a segment, so the number
+     * of deleted documents identifies its live documents. Readers that filter documents on top of the segment are not cached.
+     */
+    private final class IndexShardSegmentAggregationsCache implements SegmentAggregationsCache {
+        private final IndexShardCacheEntity cacheEntity;
+        private final ShardSearchRequest request;
+        private BytesReference requestCacheKey;
+
+        private IndexShardSegmentAggregationsCache(IndexShardCacheEntity cacheEntity, ShardSearchRequest request) {
+            this.cacheEntity = cacheEntity;
+            this.request = request;
+        }
+
+        private boolean canCache(LeafReaderContext ctx) {
+            return Lucene.isSegmentReader(ctx.reader())
+                && ctx.reader().getReaderCacheHelper() != null
+                && ctx.reader().getCoreCacheHelper() != null;
+        }
+
+        private BytesReference cacheKey(LeafReaderContext ctx) throws IOException {
+            if (requestCacheKey == null) {
+                requestCacheKey = request.cacheKey();
+            }
+            try (BytesStreamOutput out = new BytesStreamOutput()) {
+                out.writeVInt(ctx.reader().numDeletedDocs());
+                return new CompositeBytesReference(new BytesArray(out.bytes().toBytesRef(), true), requestCacheKey);
+            }
+        }
+
+        @Override
+        public InternalAggregations get(LeafReaderContext ctx) throws IOException {
+            if (canCache(ctx) == false) {
+                return null;
+            }
+            final BytesReference value = indicesRequestCache.get(cacheEntity, ctx.reader().getCoreCacheHelper(), cacheKey(ctx));
+            if (value == null) {
+                return null;
+            }
+            try (StreamInput in = new NamedWriteableAwareStreamInput(value.streamInput(), namedWriteableRegistry)) {
+                return new InternalAggregations(in);
+            }
+        }
+
+        @Override
+        public void put(LeafReaderContext ctx, InternalAggregations aggregations) throws IOException {
+            if (canCache(ctx) == false) {
+                return;
+            }
+            // see cacheShardLevelResult for the expected size
+            try (BytesStreamOutput out = new BytesStreamOutput(512)) {
+                aggregations.writeTo(out);
+                indicesRequestCache.put(cacheEntity, ctx.reader().getCoreCacheHelper(), cacheKey(ctx), out.bytes());
+            }
+        }
+    }
+
     public ByteSizeValue getTotalIndexingBufferBytes() {
         return indexingMemoryController.indexingBufferSize();
     }
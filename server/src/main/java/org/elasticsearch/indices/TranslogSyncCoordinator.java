@@ -0,0 +1,226 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.util.concurrent.AsyncIOProcessor;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.translog.Translog;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Batches the asynchronous translog syncs of all the shards of a node that share a data path. Like the per-shard sync processor,
+ * the first thread that requests a sync processes all pending syncs while other threads queue their syncs for the next batch,
+ * except that batches span all shards of the data path. The translog of each shard in a batch is synced once, up to the highest
+ * pending location, and all the waiters of the batch are acknowledged together. The shards of a batch are synced in parallel
+ * by the processing thread and up to {@link #INDICES_TRANSLOG_GROUP_SYNC_MAX_CONCURRENT_FSYNCS_SETTING} - 1 forked workers,
+ * which bounds the number of concurrent fsyncs on a data path and lets each fsync cover the syncs that accumulated while the
+ * previous batch was processed.
+ * <p>
+ * The queue of a data path is unbounded, since the pending syncs of each shard are bounded by the shard itself, like the queue
+ * of its own sync processor bounds them when the syncs are not coordinated.
+ */
+public class TranslogSyncCoordinator {
+
+    private static final Logger logger = LogManager.getLogger(TranslogSyncCoordinator.class);
+
+    public static final Setting<Boolean> INDICES_TRANSLOG_GROUP_SYNC_SETTING =
+            Setting.boolSetting("indices.translog.group_sync.enabled", false, Property.NodeScope);
+
+    public static final Setting<Integer> INDICES_TRANSLOG_GROUP_SYNC_MAX_CONCURRENT_FSYNCS_SETTING =
+            Setting.intSetting("indices.translog.group_sync.max_concurrent_fsyncs", 4, 1, Property.NodeScope);
+
+    private final ThreadContext threadContext;
+    // forks the workers that sync the shards of a batch in parallel with the processing thread
+    private final Executor executor;
+    private final int maxConcurrentFsyncs;
+    private final LongSupplier relativeTimeInNanos;
+    private final Map<Path, DataPathSyncProcessor> processors = new ConcurrentHashMap<>();
+
+    public TranslogSyncCoordinator(ThreadContext threadContext, Executor executor, int maxConcurrentFsyncs,
+                                   LongSupplier relativeTimeInNanos) {
+        this.threadContext = threadContext;
+        this.executor = executor;
+        this.maxConcurrentFsyncs = maxConcurrentFsyncs;
+        this.relativeTimeInNanos = relativeTimeInNanos;
+    }
+
+    /**
+     * Syncs the given location of the translog of the given shard, together with the pending syncs of the other shards on
+     * the same data path. The listener is notified once the location is synced.
+     */
+    public void sync(IndexShard shard, Translog.Location location, Consumer<Exception> listener) {
+        final Path dataPath = shard.shardPath().getRootDataPath();
+        final PendingSync pendingSync = new PendingSync(shard, location);
+        processors.computeIfAbsent(dataPath, DataPathSyncProcessor::new)
+                .put(pendingSync, e -> listener.accept(e != null ? e : pendingSync.failure));
+    }
+
+    public TranslogSyncStats stats() {
+        final List<TranslogSyncStats.DataPathStats> stats = new ArrayList<>();
+        for (DataPathSyncProcessor processor : processors.values()) {
+            stats.add(processor.stats());
+        }
+        return new TranslogSyncStats(stats);
+    }
+
+    private static final class PendingSync {
+        final IndexShard shard;
+        final Translog.Location location;
+        // the failure to sync the translog of this shard, set before the listener is notified
+        Exception failure;
+
+        PendingSync(IndexShard shard, Translog.Location location) {
+            this.shard = shard;
+            this.location = location;
+        }
+    }
+
+    private final class DataPathSyncProcessor extends AsyncIOProcessor<PendingSync> {
+
+        private final Path dataPath;
+        private final CounterMetric batches = new CounterMetric();
+        private final CounterMetric syncs = new CounterMetric();
+        private final CounterMetric shardSyncs = new CounterMetric();
+        private final CounterMetric fsyncs = new CounterMetric();
+        private final CounterMetric totalTimeInNanos = new CounterMetric();
+        private final AtomicLongArray batchSizeHistogram = new AtomicLongArray(TranslogSyncStats.BATCH_SIZE_BOUNDS.length + 1);
+        private final AtomicLongArray latencyHistogram = new AtomicLongArray(TranslogSyncStats.LATENCY_BOUNDS_MILLIS.length + 1);
+
+        DataPathSyncProcessor(Path dataPath) {
+            super(logger, new LinkedBlockingQueue<>(), threadContext);
+            this.dataPath = dataPath;
+        }
+
+        @Override
+        protected void write(List<Tuple<PendingSync, Consumer<Exception>>> candidates) throws IOException {
+            final long startTime = relativeTimeInNanos.getAsLong();
+            final Map<IndexShard, List<PendingSync>> syncsByShard = new IdentityHashMap<>();
+            for (Tuple<PendingSync, Consumer<Exception>> candidate : candidates) {
+                syncsByShard.computeIfAbsent(candidate.v1().shard, shard -> new ArrayList<>()).add(candidate.v1());
+            }
+            final List<Map.Entry<IndexShard, List<PendingSync>>> shards = new ArrayList<>(syncsByShard.entrySet());
+            final AtomicInteger nextShard = new AtomicInteger();
+            final int numWorkers = Math.min(maxConcurrentFsyncs, shards.size()) - 1;
+            final CountDownLatch workersDone = new CountDownLatch(numWorkers);
+            for (int i = 0; i < numWorkers; i++) {
+                try {
+                    executor.execute(() -> {
+                        try {
+                            syncShards(shards, nextShard);
+                        } finally {
+                            workersDone.countDown();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // the processing thread syncs the shards that this worker would have synced
+                    workersDone.countDown();
+                }
+            }
+            syncShards(shards, nextShard);
+            // the listeners must not be notified before the shards that the workers are syncing are synced
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    workersDone.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            final long took = relativeTimeInNanos.getAsLong() - startTime;
+            batches.inc();
+            syncs.inc(candidates.size());
+            totalTimeInNanos.inc(took);
+            batchSizeHistogram.incrementAndGet(bucket(TranslogSyncStats.BATCH_SIZE_BOUNDS, candidates.size()));
+            latencyHistogram.incrementAndGet(bucket(TranslogSyncStats.LATENCY_BOUNDS_MILLIS, TimeUnit.NANOSECONDS.toMillis(took)));
+        }
+
+        /**
+         * Syncs the shards of the batch that no other thread took yet.
+         */
+        private void syncShards(List<Map.Entry<IndexShard, List<PendingSync>>> shards, AtomicInteger nextShard) {
+            for (int i = nextShard.getAndIncrement(); i < shards.size(); i = nextShard.getAndIncrement()) {
+                final IndexShard shard = shards.get(i).getKey();
+                final List<PendingSync> pendingSyncs = shards.get(i).getValue();
+                shardSyncs.inc();
+                try {
+                    if (shard.ensureTranslogSynced(pendingSyncs.stream().map(pendingSync -> pendingSync.location))) {
+                        fsyncs.inc();
+                    }
+                } catch (Exception e) {
+                    // only fail the syncs of this shard, the listeners are notified after the whole batch is processed
+                    logger.debug(() -> "failed to sync translog of " + shard.shardId(), e);
+                    for (PendingSync pendingSync : pendingSyncs) {
+                        pendingSync.failure = e;
+                    }
+                }
+            }
+        }
+
+        TranslogSyncStats.DataPathStats stats() {
+            return new TranslogSyncStats.DataPathStats(dataPath.toString(), batches.count(), syncs.count(), shardSyncs.count(),
+                    fsyncs.count(), totalTimeInNanos.count(), toArray(batchSizeHistogram), toArray(latencyHistogram));
+        }
+    }
+
+    /**
+     * Returns the index of the first bucket whose inclusive upper bound is greater than or equal to the given value, or the
+     * index of the overflow bucket.
+     */
+    static int bucket(long[] bounds, long value) {
+        final int index = Arrays.binarySearch(bounds, value);
+        return index >= 0 ? index : -1 - index;
+    }
+
+    private static long[] toArray(AtomicLongArray array) {
+        final long[] values = new long[array.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = array.get(i);
+        }
+        return values;
+    }
+}
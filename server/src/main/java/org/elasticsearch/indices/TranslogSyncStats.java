@@ -0,0 +1,214 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Node level statistics of the {@link TranslogSyncCoordinator}, per data path.
+ */
+public class TranslogSyncStats implements Writeable, ToXContentFragment {
+
+    /**
+     * The inclusive upper bounds of the buckets of the histogram of the number of syncs per batch, the last bucket counts the
+     * larger batches.
+     */
+    public static final long[] BATCH_SIZE_BOUNDS = new long[] { 1, 2, 4, 8, 16, 32, 64, 128, 256, 512, 1024 };
+    /**
+     * The inclusive upper bounds, in milliseconds, of the buckets of the histogram of the time it takes to process a batch, the
+     * last bucket counts the slower batches.
+     */
+    public static final long[] LATENCY_BOUNDS_MILLIS = new long[] { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000 };
+
+    private final List<DataPathStats> dataPaths;
+
+    public TranslogSyncStats(List<DataPathStats> dataPaths) {
+        this.dataPaths = dataPaths;
+    }
+
+    public TranslogSyncStats(StreamInput in) throws IOException {
+        dataPaths = in.readList(DataPathStats::new);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeList(dataPaths);
+    }
+
+    public List<DataPathStats> getDataPaths() {
+        return dataPaths;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("translog_sync");
+        builder.startArray("data_paths");
+        for (DataPathStats dataPath : dataPaths) {
+            dataPath.toXContent(builder, params);
+        }
+        builder.endArray();
+        return builder.endObject();
+    }
+
+    /**
+     * The statistics of the translog syncs of the shards of a single data path.
+     */
+    public static class DataPathStats implements Writeable, ToXContentObject {
+
+        private final String path;
+        private final long batches;
+        private final long syncs;
+        private final long shardSyncs;
+        private final long fsyncs;
+        private final long totalTimeInNanos;
+        private final long[] batchSizeHistogram;
+        private final long[] latencyHistogram;
+
+        public DataPathStats(String path, long batches, long syncs, long shardSyncs, long fsyncs, long totalTimeInNanos,
+                             long[] batchSizeHistogram, long[] latencyHistogram) {
+            assert batchSizeHistogram.length == BATCH_SIZE_BOUNDS.length + 1;
+            assert latencyHistogram.length == LATENCY_BOUNDS_MILLIS.length + 1;
+            this.path = path;
+            this.batches = batches;
+            this.syncs = syncs;
+            this.shardSyncs = shardSyncs;
+            this.fsyncs = fsyncs;
+            this.totalTimeInNanos = totalTimeInNanos;
+            this.batchSizeHistogram = batchSizeHistogram;
+            this.latencyHistogram = latencyHistogram;
+        }
+
+        public DataPathStats(StreamInput in) throws IOException {
+            path = in.readString();
+            batches = in.readVLong();
+            syncs = in.readVLong();
+            shardSyncs = in.readVLong();
+            fsyncs = in.readVLong();
+            totalTimeInNanos = in.readVLong();
+            batchSizeHistogram = in.readVLongArray();
+            latencyHistogram = in.readVLongArray();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(path);
+            out.writeVLong(batches);
+            out.writeVLong(syncs);
+            out.writeVLong(shardSyncs);
+            out.writeVLong(fsyncs);
+            out.writeVLong(totalTimeInNanos);
+            out.writeVLongArray(batchSizeHistogram);
+            out.writeVLongArray(latencyHistogram);
+        }
+
+        /**
+         * The data path.
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * The number of batches of syncs that have been processed.
+         */
+        public long getBatches() {
+            return batches;
+        }
+
+        /**
+         * The number of sync requests that have been acknowledged.
+         */
+        public long getSyncs() {
+            return syncs;
+        }
+
+        /**
+         * The number of times that the translog of a shard has been asked to sync, at most once per shard and batch.
+         */
+        public long getShardSyncs() {
+            return shardSyncs;
+        }
+
+        /**
+         * The number of shard syncs that actually needed to fsync the translog.
+         */
+        public long getFsyncs() {
+            return fsyncs;
+        }
+
+        /**
+         * The total time spent processing batches.
+         */
+        public TimeValue getTotalTime() {
+            return TimeValue.timeValueNanos(totalTimeInNanos);
+        }
+
+        /**
+         * The number of batches per batch size bucket, see {@link #BATCH_SIZE_BOUNDS}.
+         */
+        public long[] getBatchSizeHistogram() {
+            return batchSizeHistogram;
+        }
+
+        /**
+         * The number of batches per latency bucket, see {@link #LATENCY_BOUNDS_MILLIS}.
+         */
+        public long[] getLatencyHistogram() {
+            return latencyHistogram;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field("path", path);
+            builder.field("batches", batches);
+            builder.field("syncs", syncs);
+            builder.field("shard_syncs", shardSyncs);
+            builder.field("fsyncs", fsyncs);
+            builder.humanReadableField("total_time_in_millis", "total_time", getTotalTime());
+            histogramToXContent(builder, "batch_size_histogram", "le", BATCH_SIZE_BOUNDS, batchSizeHistogram);
+            histogramToXContent(builder, "latency_histogram", "le_millis", LATENCY_BOUNDS_MILLIS, latencyHistogram);
+            return builder.endObject();
+        }
+
+        private static void histogramToXContent(XContentBuilder builder, String name, String boundName, long[] bounds,
+                                                long[] counts) throws IOException {
+            builder.startArray(name);
+            for (int i = 0; i < counts.length; i++) {
+                builder.startObject();
+                if (i < bounds.length) {
+                    builder.field(boundName, bounds[i]);
+                }
+                builder.field("count", counts[i]);
+                builder.endObject();
+            }
+            builder.endArray();
+        }
+    }
+}
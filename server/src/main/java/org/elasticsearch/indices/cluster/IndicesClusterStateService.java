@@ -32,6 +32,7 @@ import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ClusterStateApplier;
 import org.elasticsearch.cluster.action.index.NodeMappingRefreshAction;
 import org.elasticsearch.cluster.action.shard.ShardStateAction;
+import org.elasticsearch.cluster.block.ClusterBlockLevel;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
@@ -67,6 +68,7 @@ import org.elasticsearch.index.shard.PrimaryReplicaSyncer;
 import org.elasticsearch.index.shard.PrimaryReplicaSyncer.ResyncTask;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardNotFoundException;
+import org.elasticsearch.index.shard.ShardTimestampRange;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.recovery.PeerRecoverySourceService;
 import org.elasticsearch.indices.recovery.PeerRecoveryTargetService;
@@ -117,6 +119,9 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
 
     private final FailedShardHandler failedShardHandler = new FailedShardHandler();
 
+    // shards of write-blocked indices whose timestamp range is being computed or sent to the master
+    private final Set<ShardId> pendingTimestampRanges = ConcurrentCollections.newConcurrentSet();
+
     private final boolean sendRefreshMapping;
     private final List<IndexEventListener> buildInIndexListener;
     private final PrimaryReplicaSyncer primaryReplicaSyncer;
@@ -652,6 +657,44 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
                     SHARD_STATE_ACTION_LISTENER, clusterState);
             }
         }
+
+        if (shardRouting.primary() && shardRouting.active() && state == IndexShardState.STARTED && nodes.getMasterNode() != null) {
+            sendTimestampRangeIfMissing(shard, clusterState);
+        }
+    }
+
+    /**
+     * Computes the timestamp range of a started primary of a write-blocked index and sends it to the master, unless the index metadata
+     * already holds the range of this shard.
+     */
+    private void sendTimestampRangeIfMissing(Shard shard, ClusterState clusterState) {
+        final ShardId shardId = shard.shardId();
+        final IndexMetaData indexMetaData = clusterState.metaData().index(shardId.getIndex());
+        if (clusterState.blocks().indexBlocked(ClusterBlockLevel.WRITE, shardId.getIndexName()) == false
+            || indexMetaData.getTimestampRange().hasShard(shardId.id())
+            || pendingTimestampRanges.add(shardId) == false) {
+            return;
+        }
+        final long settingsVersion = indexMetaData.getSettingsVersion();
+        threadPool.generic().execute(new AbstractRunnable() {
+            @Override
+            public void onFailure(Exception e) {
+                pendingTimestampRanges.remove(shardId);
+                logger.debug(() -> new ParameterizedMessage("{} failed to send timestamp range to master", shardId), e);
+            }
+
+            @Override
+            protected void doRun() throws Exception {
+                final ShardTimestampRange timestampRange = shard.timestampRange();
+                if (timestampRange.isKnown() == false) {
+                    pendingTimestampRanges.remove(shardId);
+                    return;
+                }
+                logger.trace("{} sending timestamp range {} to master", shardId, timestampRange);
+                shardStateAction.shardTimestampRange(shardId, settingsVersion, timestampRange,
+                    ActionListener.wrap(() -> pendingTimestampRanges.remove(shardId)));
+            }
+        });
     }
 
     /**
@@ -796,6 +839,11 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
          */
         RecoveryState recoveryState();
 
+        /**
+         * Computes the range of the timestamp field across the documents of this shard.
+         */
+        ShardTimestampRange timestampRange() throws IOException;
+
         /**
          * Updates the shard state based on an incoming cluster state:
          * - Updates and persists the new routing value.
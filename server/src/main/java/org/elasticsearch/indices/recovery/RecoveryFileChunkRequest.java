@@ -26,11 +26,12 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.store.StoreFileMetaData;
+import org.elasticsearch.transport.RawDataTransportRequest;
 import org.elasticsearch.transport.TransportRequest;
 
 import java.io.IOException;
 
-public final class RecoveryFileChunkRequest extends TransportRequest {
+public final class RecoveryFileChunkRequest extends TransportRequest implements RawDataTransportRequest {
     private boolean lastChunk;
     private long recoveryId;
     private ShardId shardId;
@@ -94,6 +95,11 @@ public final class RecoveryFileChunkRequest extends TransportRequest {
         return content;
     }
 
+    @Override
+    public long rawDataSizeInBytes() {
+        return content.length();
+    }
+
     public int totalTranslogOps() {
         return totalTranslogOps;
     }
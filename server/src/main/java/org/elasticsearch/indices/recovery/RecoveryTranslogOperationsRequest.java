@@ -25,12 +25,13 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.index.seqno.RetentionLeases;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.transport.RawDataTransportRequest;
 import org.elasticsearch.transport.TransportRequest;
 
 import java.io.IOException;
 import java.util.List;
 
-public class RecoveryTranslogOperationsRequest extends TransportRequest {
+public class RecoveryTranslogOperationsRequest extends TransportRequest implements RawDataTransportRequest {
 
     private final long recoveryId;
     private final ShardId shardId;
@@ -72,6 +73,15 @@ public class RecoveryTranslogOperationsRequest extends TransportRequest {
         return operations;
     }
 
+    @Override
+    public long rawDataSizeInBytes() {
+        long sizeInBytes = 0;
+        for (Translog.Operation operation : operations) {
+            sizeInBytes += operation.estimateSize();
+        }
+        return sizeInBytes;
+    }
+
     public int totalTranslogOps() {
         return totalTranslogOps;
     }
@@ -0,0 +1,50 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.ingest;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * A processor that can amortize its work over several documents, for instance by issuing a single remote lookup for all of them.
+ *
+ * When documents are ingested as part of a bulk request, documents that reach a batch processor are held back until every other
+ * document of the request has either completed or is held back as well. Each batch processor then receives the documents that are
+ * waiting for it as a single slice. Outside of bulk requests, for instance when simulating a pipeline, documents are passed on one
+ * at a time.
+ */
+public interface BatchProcessor extends Processor {
+
+    /**
+     * Introspect and potentially modify a slice of documents. The handler at position {@code i} must be invoked exactly once, from any
+     * thread, with the outcome for the document at position {@code i}. Exceptions thrown by this method fail all documents whose
+     * handler has not been invoked yet.
+     */
+    void execute(List<IngestDocument> ingestDocuments, List<BiConsumer<IngestDocument, Exception>> handlers);
+
+    @Override
+    default void execute(IngestDocument ingestDocument, BiConsumer<IngestDocument, Exception> handler) {
+        IngestBatch batch = ingestDocument.getBatch();
+        if (batch != null) {
+            batch.hold(this, ingestDocument, handler);
+        } else {
+            IngestBatch.executeSlice(this, List.of(ingestDocument), List.of(handler));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.ingest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * Tracks the documents of a bulk request while they run through their pipelines so that documents which reach a
+ * {@link BatchProcessor} can be handed to it together. A document that reaches a batch processor is held back, and once no document
+ * of the batch is running anymore, which means that all of them either completed or are held back, each batch processor is executed
+ * once with all documents that are waiting for it.
+ */
+final class IngestBatch {
+
+    private final Map<BatchProcessor, List<Slot>> held = new LinkedHashMap<>();
+    private int running;
+
+    /**
+     * Marks a document, or the caller that submits the documents, as running. Held back documents are not released before the
+     * matching call to {@link #completed()}.
+     */
+    synchronized void started() {
+        running++;
+    }
+
+    /**
+     * Marks a document, or the caller that submits the documents, as done and releases the held back documents if it was the last
+     * one running.
+     */
+    void completed() {
+        final Map<BatchProcessor, List<Slot>> slices;
+        synchronized (this) {
+            assert running > 0 : "no running documents";
+            running--;
+            slices = takeSlicesIfIdle();
+        }
+        release(slices);
+    }
+
+    void hold(BatchProcessor processor, IngestDocument ingestDocument, BiConsumer<IngestDocument, Exception> handler) {
+        final Map<BatchProcessor, List<Slot>> slices;
+        synchronized (this) {
+            assert running > 0 : "no running documents";
+            held.computeIfAbsent(processor, k -> new ArrayList<>()).add(new Slot(ingestDocument, handler));
+            running--;
+            slices = takeSlicesIfIdle();
+        }
+        release(slices);
+    }
+
+    private Map<BatchProcessor, List<Slot>> takeSlicesIfIdle() {
+        assert Thread.holdsLock(this);
+        if (running > 0 || held.isEmpty()) {
+            return Map.of();
+        }
+        final Map<BatchProcessor, List<Slot>> slices = new LinkedHashMap<>(held);
+        held.clear();
+        // released documents are running again until they complete or are held back by the next batch processor
+        for (List<Slot> slots : slices.values()) {
+            running += slots.size();
+        }
+        return slices;
+    }
+
+    private static void release(Map<BatchProcessor, List<Slot>> slices) {
+        for (Map.Entry<BatchProcessor, List<Slot>> entry : slices.entrySet()) {
+            final List<Slot> slots = entry.getValue();
+            final List<IngestDocument> ingestDocuments = new ArrayList<>(slots.size());
+            final List<BiConsumer<IngestDocument, Exception>> handlers = new ArrayList<>(slots.size());
+            for (Slot slot : slots) {
+                ingestDocuments.add(slot.ingestDocument);
+                handlers.add(slot.handler);
+            }
+            executeSlice(entry.getKey(), ingestDocuments, handlers);
+        }
+    }
+
+    /**
+     * Executes a batch processor on a slice of documents and makes sure that every handler is invoked exactly once.
+     */
+    static void executeSlice(BatchProcessor processor, List<IngestDocument> ingestDocuments,
+                             List<BiConsumer<IngestDocument, Exception>> handlers) {
+        assert ingestDocuments.size() == handlers.size();
+        final List<BiConsumer<IngestDocument, Exception>> onceHandlers = new ArrayList<>(handlers.size());
+        final List<AtomicBoolean> invoked = new ArrayList<>(handlers.size());
+        for (BiConsumer<IngestDocument, Exception> handler : handlers) {
+            final AtomicBoolean handlerInvoked = new AtomicBoolean();
+            invoked.add(handlerInvoked);
+            onceHandlers.add((result, e) -> {
+                if (handlerInvoked.compareAndSet(false, true)) {
+                    handler.accept(result, e);
+                } else {
+                    assert false : "handler invoked more than once";
+                }
+            });
+        }
+        try {
+            processor.execute(ingestDocuments, onceHandlers);
+        } catch (Exception e) {
+            for (int i = 0; i < handlers.size(); i++) {
+                if (invoked.get(i).compareAndSet(false, true)) {
+                    handlers.get(i).accept(null, e);
+                }
+            }
+        }
+    }
+
+    private static final class Slot {
+
+        private final IngestDocument ingestDocument;
+        private final BiConsumer<IngestDocument, Exception> handler;
+
+        private Slot(IngestDocument ingestDocument, BiConsumer<IngestDocument, Exception> handler) {
+            this.ingestDocument = ingestDocument;
+            this.handler = handler;
+        }
+    }
+}
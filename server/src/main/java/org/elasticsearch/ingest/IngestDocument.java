@@ -30,6 +30,7 @@ import org.elasticsearch.script.TemplateScript;
 
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
@@ -61,10 +62,27 @@ public final class IngestDocument {
     // Contains all pipelines that have been executed for this document
     private final Set<String> executedPipelines = new LinkedHashSet<>();
 
+    // The bulk request batch that this document is executed in, if any
+    private IngestBatch batch;
+
     public IngestDocument(String index, String id, String routing,
                           Long version, VersionType versionType, Map<String, Object> source) {
-        this.sourceAndMetadata = new HashMap<>();
-        this.sourceAndMetadata.putAll(source);
+        this(new HashMap<>(source), index, id, routing, version, versionType);
+    }
+
+    /**
+     * Creates a document that takes ownership of the given mutable source map and adds the metadata fields to it, rather than
+     * copying it like {@link #IngestDocument(String, String, String, Long, VersionType, Map)}. The caller must not use the map
+     * afterwards.
+     */
+    static IngestDocument ofOwnedSource(String index, String id, String routing, Long version, VersionType versionType,
+                                        Map<String, Object> source) {
+        return new IngestDocument(source, index, id, routing, version, versionType);
+    }
+
+    private IngestDocument(Map<String, Object> sourceAndMetadata, String index, String id, String routing,
+                           Long version, VersionType versionType) {
+        this.sourceAndMetadata = sourceAndMetadata;
         this.sourceAndMetadata.put(MetaData.INDEX.getFieldName(), index);
         this.sourceAndMetadata.put(MetaData.ID.getFieldName(), id);
         if (routing != null) {
@@ -553,13 +571,51 @@ public final class IngestDocument {
         return template.newInstance(createTemplateModel()).execute();
     }
 
-    private Map<String, Object> createTemplateModel() {
-        Map<String, Object> model = new HashMap<>(sourceAndMetadata);
-        model.put(SourceFieldMapper.NAME, sourceAndMetadata);
-        // If there is a field in the source with the name '_ingest' it gets overwritten here,
-        // if access to that field is required then it get accessed via '_source._ingest'
-        model.put(INGEST_KEY, ingestMetadata);
-        return model;
+    Map<String, Object> createTemplateModel() {
+        return new TemplateModel(sourceAndMetadata, ingestMetadata);
+    }
+
+    /**
+     * The model that templates are rendered against: the source and metadata fields of the document plus {@code _source} and
+     * {@code _ingest}, which point to the whole document and to the ingest metadata. This is a read-only view of the document
+     * rather than a copy of it since a model is created for every template that is rendered.
+     */
+    static final class TemplateModel extends AbstractMap<String, Object> {
+
+        private final Map<String, Object> sourceAndMetadata;
+        private final Map<String, Object> ingestMetadata;
+
+        TemplateModel(Map<String, Object> sourceAndMetadata, Map<String, Object> ingestMetadata) {
+            this.sourceAndMetadata = sourceAndMetadata;
+            this.ingestMetadata = ingestMetadata;
+        }
+
+        @Override
+        public Object get(Object key) {
+            if (SourceFieldMapper.NAME.equals(key)) {
+                return sourceAndMetadata;
+            }
+            // If there is a field in the source with the name '_ingest' it is hidden here,
+            // if access to that field is required then it get accessed via '_source._ingest'
+            if (INGEST_KEY.equals(key)) {
+                return ingestMetadata;
+            }
+            return sourceAndMetadata.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return SourceFieldMapper.NAME.equals(key) || INGEST_KEY.equals(key) || sourceAndMetadata.containsKey(key);
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            // only needed by templates that iterate over the whole model, which is rare
+            Map<String, Object> model = new HashMap<>(sourceAndMetadata);
+            model.put(SourceFieldMapper.NAME, sourceAndMetadata);
+            model.put(INGEST_KEY, ingestMetadata);
+            return Collections.unmodifiableMap(model).entrySet();
+        }
     }
 
     /**
@@ -637,6 +693,14 @@ public final class IngestDocument {
         }
     }
 
+    IngestBatch getBatch() {
+        return batch;
+    }
+
+    void setBatch(IngestBatch batch) {
+        this.batch = batch;
+    }
+
     /**
      * Executes the given pipeline with for this document unless the pipeline has already been executed
      * for this document.
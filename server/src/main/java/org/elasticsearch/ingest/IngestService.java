@@ -349,6 +349,9 @@ public class IngestService implements ClusterStateApplier {
             protected void doRun() {
                 final Thread originalThread = Thread.currentThread();
                 final AtomicInteger counter = new AtomicInteger(numberOfActionRequests);
+                // batch processors only release the documents they hold back once all documents have been submitted
+                final IngestBatch batch = new IngestBatch();
+                batch.started();
                 int i = 0;
                 for (DocWriteRequest<?> actionRequest : actionRequests) {
                     IndexRequest indexRequest = TransportBulkAction.getIndexWriteRequest(actionRequest);
@@ -380,10 +383,13 @@ public class IngestService implements ClusterStateApplier {
                         continue;
                     }
 
-                    executePipelines(i, pipelines.iterator(), indexRequest, onDropped, onFailure, counter, onCompletion, originalThread);
+                    batch.started();
+                    executePipelines(i, pipelines.iterator(), indexRequest, onDropped, onFailure, counter, onCompletion, originalThread,
+                        batch);
 
                     i++;
                 }
+                batch.completed();
             }
         });
     }
@@ -396,38 +402,39 @@ public class IngestService implements ClusterStateApplier {
         final BiConsumer<Integer, Exception> onFailure,
         final AtomicInteger counter,
         final BiConsumer<Thread, Exception> onCompletion,
-        final Thread originalThread
+        final Thread originalThread,
+        final IngestBatch batch
     ) {
-        while (it.hasNext()) {
-            final String pipelineId = it.next();
-            try {
-                PipelineHolder holder = pipelines.get(pipelineId);
-                if (holder == null) {
-                    throw new IllegalArgumentException("pipeline with id [" + pipelineId + "] does not exist");
+        // the next pipeline is only executed once the current one has completed, which may happen asynchronously
+        final String pipelineId = it.next();
+        try {
+            PipelineHolder holder = pipelines.get(pipelineId);
+            if (holder == null) {
+                throw new IllegalArgumentException("pipeline with id [" + pipelineId + "] does not exist");
+            }
+            Pipeline pipeline = holder.pipeline;
+            innerExecute(slot, indexRequest, pipeline, onDropped, batch, e -> {
+                if (e != null) {
+                    onFailure.accept(slot, e);
                 }
-                Pipeline pipeline = holder.pipeline;
-                innerExecute(slot, indexRequest, pipeline, onDropped, e -> {
-                    if (e != null) {
-                        onFailure.accept(slot, e);
-                    }
 
-                    if (it.hasNext()) {
-                        executePipelines(slot, it, indexRequest, onDropped, onFailure, counter, onCompletion, originalThread);
-                    } else {
-                        if (counter.decrementAndGet() == 0) {
-                            onCompletion.accept(originalThread, null);
-                        }
-                        assert counter.get() >= 0;
+                if (it.hasNext()) {
+                    executePipelines(slot, it, indexRequest, onDropped, onFailure, counter, onCompletion, originalThread, batch);
+                } else {
+                    if (counter.decrementAndGet() == 0) {
+                        onCompletion.accept(originalThread, null);
                     }
-                });
-            } catch (Exception e) {
-                onFailure.accept(slot, e);
-                if (counter.decrementAndGet() == 0) {
-                    onCompletion.accept(originalThread, null);
+                    assert counter.get() >= 0;
+                    batch.completed();
                 }
-                assert counter.get() >= 0;
-                break;
+            });
+        } catch (Exception e) {
+            onFailure.accept(slot, e);
+            if (counter.decrementAndGet() == 0) {
+                onCompletion.accept(originalThread, null);
             }
+            assert counter.get() >= 0;
+            batch.completed();
         }
     }
 
@@ -483,7 +490,7 @@ public class IngestService implements ClusterStateApplier {
     }
 
     private void innerExecute(int slot, IndexRequest indexRequest, Pipeline pipeline, IntConsumer itemDroppedHandler,
-                              Consumer<Exception> handler) {
+                              IngestBatch batch, Consumer<Exception> handler) {
         if (pipeline.getProcessors().isEmpty()) {
             handler.accept(null);
             return;
@@ -498,8 +505,10 @@ public class IngestService implements ClusterStateApplier {
         String routing = indexRequest.routing();
         Long version = indexRequest.version();
         VersionType versionType = indexRequest.versionType();
+        // the source is parsed into a new map that the document can take ownership of rather than copying it
         Map<String, Object> sourceAsMap = indexRequest.sourceAsMap();
-        IngestDocument ingestDocument = new IngestDocument(index, id, routing, version, versionType, sourceAsMap);
+        IngestDocument ingestDocument = IngestDocument.ofOwnedSource(index, id, routing, version, versionType, sourceAsMap);
+        ingestDocument.setBatch(batch);
         ingestDocument.executePipeline(pipeline, (result, e) -> {
             long ingestTimeInMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeInNanos);
             totalMetrics.postIngest(ingestTimeInMillis);
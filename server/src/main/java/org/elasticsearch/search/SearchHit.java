@@ -339,6 +339,13 @@ public final class SearchHit implements Writeable, ToXContentObject, Iterable<Do
         return nestedIdentity;
     }
 
+    /**
+     * Returns the length of the source as it is held, which may be compressed, without uncompressing it.
+     */
+    public int getSourceLength() {
+        return source == null ? 0 : source.length();
+    }
+
     /**
      * Returns bytes reference, also uncompress the source if needed.
      */
@@ -58,6 +58,7 @@ import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.index.query.Rewriteable;
 import org.elasticsearch.index.shard.IndexEventListener;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.SearchOperationListener;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
@@ -70,6 +71,8 @@ import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
 import org.elasticsearch.search.aggregations.SearchContextAggregations;
+import org.elasticsearch.search.aggregations.SegmentAggregationsCache;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.collapse.CollapseContext;
 import org.elasticsearch.search.dfs.DfsPhase;
@@ -84,6 +87,7 @@ import org.elasticsearch.search.fetch.subphase.ScriptFieldsContext.ScriptField;
 import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.InternalScrollSearchRequest;
+import org.elasticsearch.search.internal.ReaderContext;
 import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.SearchContext.Lifetime;
@@ -154,6 +158,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     public static final Setting<Integer> MAX_OPEN_SCROLL_CONTEXT =
         Setting.intSetting("search.max_open_scroll_context", 500, 0, Property.Dynamic, Property.NodeScope);
 
+    public static final Setting<Integer> MAX_OPEN_POINT_IN_TIME_CONTEXT =
+        Setting.intSetting("search.max_open_point_in_time_context", 500, 0, Property.Dynamic, Property.NodeScope);
+
     public static final int DEFAULT_SIZE = 10;
     public static final int DEFAULT_FROM = 0;
 
@@ -169,6 +176,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private final BigArrays bigArrays;
 
+    private final CircuitBreaker requestBreaker;
+
     private final DfsPhase dfsPhase = new DfsPhase();
 
     private final QueryPhase queryPhase;
@@ -187,12 +196,16 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private volatile int maxOpenScrollContext;
 
+    private volatile int maxOpenPointInTimeContext;
+
     private final Cancellable keepAliveReaper;
 
     private final AtomicLong idGenerator = new AtomicLong();
 
     private final ConcurrentMapLong<SearchContext> activeContexts = ConcurrentCollections.newConcurrentMapLongWithAggressiveConcurrency();
 
+    private final ConcurrentMapLong<ReaderContext> activeReaders = ConcurrentCollections.newConcurrentMapLongWithAggressiveConcurrency();
+
     private final MultiBucketConsumerService multiBucketConsumerService;
 
     private final AtomicInteger openScrollContexts = new AtomicInteger();
@@ -209,8 +222,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.bigArrays = bigArrays;
         this.queryPhase = new QueryPhase();
         this.fetchPhase = fetchPhase;
-        this.multiBucketConsumerService = new MultiBucketConsumerService(clusterService, settings,
-            circuitBreakerService.getBreaker(CircuitBreaker.REQUEST));
+        this.requestBreaker = circuitBreakerService.getBreaker(CircuitBreaker.REQUEST);
+        this.multiBucketConsumerService = new MultiBucketConsumerService(clusterService, settings, requestBreaker);
 
         TimeValue keepAliveInterval = KEEPALIVE_INTERVAL_SETTING.get(settings);
         setKeepAlives(DEFAULT_KEEPALIVE_SETTING.get(settings), MAX_KEEPALIVE_SETTING.get(settings));
@@ -230,6 +243,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         maxOpenScrollContext = MAX_OPEN_SCROLL_CONTEXT.get(settings);
         clusterService.getClusterSettings().addSettingsUpdateConsumer(MAX_OPEN_SCROLL_CONTEXT, this::setMaxOpenScrollContext);
 
+        maxOpenPointInTimeContext = MAX_OPEN_POINT_IN_TIME_CONTEXT.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(MAX_OPEN_POINT_IN_TIME_CONTEXT,
+            this::setMaxOpenPointInTimeContext);
+
         lowLevelCancellation = LOW_LEVEL_CANCELLATION_SETTING.get(settings);
         clusterService.getClusterSettings().addSettingsUpdateConsumer(LOW_LEVEL_CANCELLATION_SETTING, this::setLowLevelCancellation);
     }
@@ -264,6 +281,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.maxOpenScrollContext = maxOpenScrollContext;
     }
 
+    private void setMaxOpenPointInTimeContext(int maxOpenPointInTimeContext) {
+        this.maxOpenPointInTimeContext = maxOpenPointInTimeContext;
+    }
+
     private void setLowLevelCancellation(Boolean lowLevelCancellation) {
         this.lowLevelCancellation = lowLevelCancellation;
     }
@@ -299,6 +320,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         for (final SearchContext context : activeContexts.values()) {
             freeContext(context.id());
         }
+        for (final ReaderContext reader : activeReaders.values()) {
+            freeReaderContext(reader.id());
+        }
     }
 
     @Override
@@ -666,6 +690,17 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 context.size(DEFAULT_SIZE);
             }
 
+            if (context.aggregations() != null) {
+                // the bucket limit applies to the reduced results of the shard
+                context.aggregations().partialReduceContext(new InternalAggregation.ReduceContext(bigArrays, scriptService,
+                    context.aggregations().multiBucketConsumer(), requestBreaker, false));
+                SegmentAggregationsCache segmentAggregationsCache = indicesService.segmentAggregationsCache(request, context);
+                if (segmentAggregationsCache != null) {
+                    context.aggregations().segmentResultsCache(segmentAggregationsCache);
+                }
+                context.aggregations().backgroundFrequencyCache(indicesService.getBackgroundFrequencyCache());
+            }
+
             // pre process
             dfsPhase.preProcess(context);
             queryPhase.preProcess(context);
@@ -704,6 +739,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 indexShard.shardId(), request.getClusterAlias(), OriginalIndices.NONE);
             DefaultSearchContext searchContext = new DefaultSearchContext(idGenerator.incrementAndGet(), request, shardTarget,
                 searcher, clusterService, indexService, indexShard, bigArrays, threadPool::relativeTimeInMillis, timeout, fetchPhase);
+            final int maxConcurrentSlices = indexService.getIndexSettings().getMaxConcurrentSearchSlices();
+            if (maxConcurrentSlices > 1) {
+                searchContext.searcher().setSliceExecutor(threadPool.executor(Names.SEARCH_WORKER), maxConcurrentSlices);
+            }
             success = true;
             return searchContext;
         } finally {
@@ -723,6 +762,11 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 freeContext(ctx.id());
             }
         }
+        for (ReaderContext reader : activeReaders.values()) {
+            if (index.equals(reader.shardId().getIndex())) {
+                freeReaderContext(reader.id());
+            }
+        }
     }
 
 
@@ -736,6 +780,83 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         }
     }
 
+    /**
+     * Opens a point in time view of the given shard that pins the current searcher of the shard until the
+     * context is freed or is not accessed for longer than the provided keep alive.
+     *
+     * @return the id of the new {@link ReaderContext}
+     */
+    public long openReaderContext(ShardId shardId, TimeValue keepAlive) {
+        checkReaderKeepAlive(keepAlive.millis());
+        if (activeReaders.size() >= maxOpenPointInTimeContext) {
+            throw new ElasticsearchException(
+                "Trying to create too many point in time contexts. Must be less than or equal to: [" +
+                    maxOpenPointInTimeContext + "]. " + "This limit can be set by changing the ["
+                    + MAX_OPEN_POINT_IN_TIME_CONTEXT.getKey() + "] setting.");
+        }
+        IndexShard shard = indicesService.indexServiceSafe(shardId.getIndex()).getShard(shardId.id());
+        // the searcher is pinned without wrapping, each search wraps the leased searcher on its own
+        Engine.Searcher searcher = shard.acquireSearcherNoWrap("point_in_time");
+        boolean success = false;
+        try {
+            ReaderContext reader = new ReaderContext(idGenerator.incrementAndGet(), shard, searcher, keepAlive.millis(),
+                threadPool::relativeTimeInMillis);
+            final ReaderContext previous = activeReaders.put(reader.id(), reader);
+            assert previous == null;
+            success = true;
+            return reader.id();
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(searcher);
+            }
+        }
+    }
+
+    public boolean freeReaderContext(long id) {
+        ReaderContext reader = activeReaders.remove(id);
+        if (reader != null) {
+            reader.close();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of point in time reader contexts that are open on this node
+     */
+    public int getActiveReaderContexts() {
+        return activeReaders.size();
+    }
+
+    private void checkReaderKeepAlive(long keepAlive) {
+        if (keepAlive > maxKeepAlive) {
+            throw new IllegalArgumentException(
+                "Keep alive for point in time (" + TimeValue.timeValueMillis(keepAlive) + ") is too large. " +
+                    "It must be less than (" + TimeValue.timeValueMillis(maxKeepAlive) + "). " +
+                    "This limit can be set by changing the [" + MAX_KEEPALIVE_SETTING.getKey() + "] cluster level setting.");
+        }
+    }
+
+    /**
+     * Acquires the searcher the request should run against: a lease on the pinned searcher of the
+     * {@link ReaderContext} if the request targets a point in time, a fresh searcher of the shard otherwise.
+     */
+    private Engine.Searcher acquireSearcherNoWrap(ShardSearchRequest request, IndexShard shard, String source) {
+        if (request.readerId() == ShardSearchRequest.NO_READER_CONTEXT) {
+            return shard.acquireSearcherNoWrap(source);
+        }
+        ReaderContext reader = activeReaders.get(request.readerId());
+        if (reader == null || reader.shardId().equals(request.shardId()) == false) {
+            throw new SearchContextMissingException(request.readerId());
+        }
+        PointInTimeBuilder pointInTime = request.source() == null ? null : request.source().pointInTimeBuilder();
+        if (pointInTime != null && pointInTime.getKeepAlive() != null) {
+            checkReaderKeepAlive(pointInTime.getKeepAlive().millis());
+            reader.keepAlive(pointInTime.getKeepAlive().millis());
+        }
+        return reader.acquireSearcher(source);
+    }
+
     private void onFreeContext(SearchContext context) {
         assert context.refCount() > 0 : " refCount must be > 0: " + context.refCount();
         assert activeContexts.containsKey(context.id()) == false;
@@ -1065,6 +1186,13 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                     freeContext(context.id());
                 }
             }
+            for (ReaderContext reader : activeReaders.values()) {
+                if (reader.isExpired(time)) {
+                    logger.debug("freeing reader context [{}], time [{}], lastAccessTime [{}], keepAlive [{}]", reader.id(), time,
+                        reader.lastAccessTime(), reader.keepAlive());
+                    freeReaderContext(reader.id());
+                }
+            }
         }
     }
 
@@ -1083,7 +1211,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         IndexShard indexShard = indexService.getShard(request.shardId().getId());
         // we don't want to use the reader wrapper since it could run costly operations
         // and we can afford false positives.
-        try (Engine.Searcher searcher = indexShard.acquireSearcherNoWrap("can_match")) {
+        try (Engine.Searcher searcher = acquireSearcherNoWrap(request, indexShard, "can_match")) {
             QueryShardContext context = indexService.newQueryShardContext(request.shardId().id(), searcher,
                 request::nowInMillis, request.getClusterAlias());
             Rewriteable.rewrite(request.getRewriteable(), context, false);
@@ -1146,7 +1274,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     SearchRewriteContext acquireSearcherAndRewrite(ShardSearchRequest request, IndexShard shard) throws IOException {
         // acquire the searcher for rewrite with no wrapping in order to avoid costly
         // operations. We'll wrap the searcher at a later stage (when executing the query).
-        Engine.Searcher searcher = shard.acquireSearcherNoWrap("search");
+        Engine.Searcher searcher = acquireSearcherNoWrap(request, shard, "search");
         boolean success = false;
         try {
             IndexService indexService = indicesService.indexServiceSafe(request.shardId().getIndex());
@@ -1176,7 +1304,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     public InternalAggregation.ReduceContext createReduceContext(boolean finalReduce) {
         return new InternalAggregation.ReduceContext(bigArrays, scriptService,
-            finalReduce ? multiBucketConsumerService.create() : bucketCount -> {}, finalReduce);
+            finalReduce ? multiBucketConsumerService.create() : bucketCount -> {},
+            requestBreaker, finalReduce);
     }
 
     static class SearchRewriteContext {
@@ -21,8 +21,10 @@ package org.elasticsearch.search.aggregations;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.Query;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.search.SearchPhase;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
 import org.elasticsearch.search.aggregations.bucket.global.GlobalAggregator;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.pipeline.SiblingPipelineAggregator;
@@ -33,6 +35,7 @@ import org.elasticsearch.search.query.QueryPhaseExecutionException;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -47,7 +50,15 @@ public class AggregationPhase implements SearchPhase {
 
     @Override
     public void preProcess(SearchContext context) {
-        if (context.aggregations() != null) {
+        if (context.aggregations() != null && context.aggregations().segmentResultsCache() != null) {
+            try {
+                Collector collector = new SegmentCachingAggregationCollector(context, context.aggregations().segmentResultsCache());
+                context.aggregations().aggregators(new Aggregator[0]);
+                context.queryCollectors().put(AggregationPhase.class, collector);
+            } catch (IOException e) {
+                throw new AggregationInitializationException("Could not initialize aggregators", e);
+            }
+        } else if (context.aggregations() != null) {
             List<Aggregator> collectors = new ArrayList<>();
             Aggregator[] aggregators;
             try {
@@ -75,6 +86,35 @@ public class AggregationPhase implements SearchPhase {
         }
     }
 
+    /**
+     * Returns {@code true} if the aggregations of the request can be collected on concurrent slices of the shard, each
+     * additional slice with its own aggregators created by {@link #createSliceCollector(SearchContext)}. The results of the
+     * slices are partially reduced into the results of the shard, so this is only the case if all aggregations of the tree
+     * reduce to the same results as if a single aggregator had collected all documents.
+     */
+    public static boolean supportsParallelCollection(SearchContext context) {
+        final SearchContextAggregations aggregations = context.aggregations();
+        return aggregations != null
+            && aggregations.segmentResultsCache() == null
+            && aggregations.partialReduceContext() != null
+            && context.getProfilers() == null
+            && aggregations.factories().supportsParallelCollection();
+    }
+
+    /**
+     * Creates the collector of an additional slice of the shard that is collected concurrently with the query collector
+     * registered by {@link #preProcess(SearchContext)}. The slice gets its own top level aggregators, whose results are
+     * partially reduced with the results of the other slices when the aggregations are executed.
+     */
+    public static Collector createSliceCollector(SearchContext context) throws IOException {
+        assert supportsParallelCollection(context);
+        final Aggregator[] aggregators = context.aggregations().factories().createTopLevelAggregators(context);
+        context.aggregations().addSliceAggregators(aggregators);
+        final BucketCollector collector = MultiBucketCollector.wrap(Arrays.asList(aggregators));
+        collector.preCollection();
+        return collector;
+    }
+
     @Override
     public void execute(SearchContext context) {
         if (context.aggregations() == null) {
@@ -124,14 +164,52 @@ public class AggregationPhase implements SearchPhase {
 
         List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
         context.aggregations().resetBucketMultiConsumer();
-        for (Aggregator aggregator : context.aggregations().aggregators()) {
+        final MultiBucketConsumer bucketConsumer = context.aggregations().multiBucketConsumer();
+        // the results are accounted until they are sent back to the coordinating node
+        context.addReleasable(bucketConsumer::releaseEstimatedBytes, SearchContext.Lifetime.PHASE);
+        final Collector queryCollector = context.queryCollectors().get(AggregationPhase.class);
+        if (queryCollector instanceof SegmentCachingAggregationCollector) {
+            final List<InternalAggregation> shardAggregations;
             try {
-                aggregator.postCollection();
-                aggregations.add(aggregator.buildAggregation(0));
+                // the last segment may not have been fully collected if the search timed out
+                shardAggregations = ((SegmentCachingAggregationCollector) queryCollector).reduce(
+                    context.queryResult().searchTimedOut() == false, context.aggregations().partialReduceContext());
             } catch (IOException e) {
-                throw new AggregationExecutionException("Failed to build aggregation [" + aggregator.name() + "]", e);
+                throw new AggregationExecutionException("Failed to build aggregations", e);
+            }
+            for (InternalAggregation aggregation : shardAggregations) {
+                bucketConsumer.addEstimatedBytesAndMaybeBreak(aggregation.estimatedSizeInBytes(), "<agg [" + aggregation.getName() + "]>");
+                aggregations.add(aggregation);
             }
         }
+        final List<Aggregator[]> sliceAggregators = context.aggregations().sliceAggregators();
+        if (sliceAggregators.isEmpty()) {
+            for (Aggregator aggregator : context.aggregations().aggregators()) {
+                final InternalAggregation aggregation = buildAggregation(aggregator);
+                bucketConsumer.addEstimatedBytesAndMaybeBreak(aggregation.estimatedSizeInBytes(), "<agg [" + aggregator.name() + "]>");
+                aggregations.add(aggregation);
+            }
+        } else {
+            final List<InternalAggregations> sliceResults = new ArrayList<>(sliceAggregators.size() + 1);
+            sliceResults.add(buildSliceAggregations(context.aggregations().aggregators(), bucketConsumer));
+            for (Aggregator[] slice : sliceAggregators) {
+                try {
+                    sliceResults.add(buildSliceAggregations(slice, bucketConsumer));
+                } finally {
+                    // the results do not reference the aggregators, which can be released before the next slice is built
+                    Releasables.close(slice);
+                }
+            }
+            for (Aggregation aggregation : InternalAggregations.topLevelReduce(sliceResults,
+                    context.aggregations().partialReduceContext())) {
+                final InternalAggregation reduced = (InternalAggregation) aggregation;
+                bucketConsumer.addEstimatedBytesAndMaybeBreak(reduced.estimatedSizeInBytes(), "<agg [" + reduced.getName() + "]>");
+                aggregations.add(reduced);
+            }
+        }
+        if (context.getProfilers() != null) {
+            context.getProfilers().getAggregationProfiler().setEstimatedSizeInBytes(bucketConsumer.getEstimatedBytes());
+        }
         List<PipelineAggregator> pipelineAggregators = context.aggregations().factories().createPipelineAggregators();
         List<SiblingPipelineAggregator> siblingPipelineAggregators = new ArrayList<>(pipelineAggregators.size());
         for (PipelineAggregator pipelineAggregator : pipelineAggregators) {
@@ -150,4 +228,29 @@ public class AggregationPhase implements SearchPhase {
         context.queryCollectors().remove(AggregationPhase.class);
     }
 
+    private static InternalAggregation buildAggregation(Aggregator aggregator) {
+        try {
+            aggregator.postCollection();
+            return aggregator.buildAggregation(0);
+        } catch (IOException e) {
+            throw new AggregationExecutionException("Failed to build aggregation [" + aggregator.name() + "]", e);
+        }
+    }
+
+    /**
+     * Builds the results of the aggregators of a slice of the shard. The buckets of the slice are checked against the bucket
+     * limit but are not counted, they are counted again when the results of all slices are reduced into the results of the
+     * shard, which is where the bucket limit applies.
+     */
+    private static InternalAggregations buildSliceAggregations(Aggregator[] aggregators, MultiBucketConsumer bucketConsumer) {
+        final int bucketCount = bucketConsumer.getCount();
+        final List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
+        for (Aggregator aggregator : aggregators) {
+            assert aggregator instanceof GlobalAggregator == false : "global aggregations are not collected per slice";
+            aggregations.add(buildAggregation(aggregator));
+        }
+        bucketConsumer.accept(bucketCount - bucketConsumer.getCount());
+        return new InternalAggregations(aggregations);
+    }
+
 }
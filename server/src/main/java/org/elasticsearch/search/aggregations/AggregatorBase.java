@@ -22,6 +22,7 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.ScoreMode;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
@@ -56,6 +57,7 @@ public abstract class AggregatorBase extends Aggregator {
     private final List<PipelineAggregator> pipelineAggregators;
     private final CircuitBreakerService breakerService;
     private long requestBytesUsed;
+    private boolean closed;
 
     /**
      * Constructs a new Aggregator.
@@ -242,13 +244,21 @@ public abstract class AggregatorBase extends Aggregator {
         collectableSubAggregators.postCollection();
     }
 
-    /** Called upon release of the aggregator. */
+    /**
+     * Called upon release of the aggregator, also releases its sub-aggregators. Aggregators are released at the end of the
+     * phase, so this is a no-op if the aggregator was already released.
+     */
     @Override
     public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
         try {
             doClose();
         } finally {
             this.breakerService.getBreaker(CircuitBreaker.REQUEST).addWithoutBreaking(-this.requestBytesUsed);
+            Releasables.close(subAggregators);
         }
     }
 
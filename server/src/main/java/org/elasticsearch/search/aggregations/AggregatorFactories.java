@@ -210,6 +210,19 @@ public class AggregatorFactories {
         return aggregators;
     }
 
+    /**
+     * Returns {@code true} if all factories of the tree support the collection of concurrent slices of a shard with
+     * separate aggregators, see {@link AggregatorFactory#supportsParallelCollection()}.
+     */
+    public boolean supportsParallelCollection() {
+        for (AggregatorFactory factory : factories) {
+            if (factory.supportsParallelCollection() == false || factory.factories.supportsParallelCollection() == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * @return the number of sub-aggregator factories not including pipeline
      *         aggregator factories
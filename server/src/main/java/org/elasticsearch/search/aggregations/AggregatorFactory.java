@@ -43,6 +43,7 @@ public abstract class AggregatorFactory {
         private final Aggregator first;
         ObjectArray<Aggregator> aggregators;
         ObjectArray<LeafBucketCollector> collectors;
+        private boolean closed;
 
         MultiBucketAggregatorWrapper(BigArrays bigArrays, SearchContext context,
                                         Aggregator parent, AggregatorFactory factory, Aggregator first) {
@@ -163,7 +164,17 @@ public abstract class AggregatorFactory {
 
         @Override
         public void close() {
-            Releasables.close(aggregators, collectors);
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                for (long i = 0; i < aggregators.size(); i++) {
+                    Releasables.close(aggregators.get(i));
+                }
+            } finally {
+                Releasables.close(aggregators, collectors);
+            }
         }
     }
 
@@ -229,6 +240,16 @@ public abstract class AggregatorFactory {
         return parent;
     }
 
+    /**
+     * Returns {@code true} if the documents of concurrent slices of a shard can be collected by separate aggregators of
+     * this factory, whose results are then partially reduced into the results of the shard. This requires that the reduced
+     * results are the same as if a single aggregator had collected all documents, and that the aggregators of the slices
+     * share no mutable state with each other or with the search context.
+     */
+    public boolean supportsParallelCollection() {
+        return false;
+    }
+
     /**
      * Utility method. Given an {@link AggregatorFactory} that creates
      * {@link Aggregator}s that only know how to collect bucket {@code 0}, this
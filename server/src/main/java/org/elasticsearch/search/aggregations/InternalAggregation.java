@@ -18,7 +18,9 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.io.stream.NamedWriteable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -45,16 +47,31 @@ public abstract class InternalAggregation implements Aggregation, NamedWriteable
         private final BigArrays bigArrays;
         private final ScriptService scriptService;
         private final IntConsumer multiBucketConsumer;
+        private final CircuitBreaker breaker;
         private final boolean isFinalReduce;
 
+        // the estimated bytes of the aggregations that are currently accounted in the breaker, and the most ever accounted
+        private long estimatedBytes;
+        private long maxEstimatedBytes;
+
         public ReduceContext(BigArrays bigArrays, ScriptService scriptService, boolean isFinalReduce) {
             this(bigArrays, scriptService, (s) -> {}, isFinalReduce);
         }
 
         public ReduceContext(BigArrays bigArrays, ScriptService scriptService, IntConsumer multiBucketConsumer, boolean isFinalReduce) {
+            this(bigArrays, scriptService, multiBucketConsumer, null, isFinalReduce);
+        }
+
+        /**
+         * @param breaker the circuit breaker in which the estimated size of the reduced aggregations is accounted, or
+         *                {@code null} to not account for them
+         */
+        public ReduceContext(BigArrays bigArrays, ScriptService scriptService, IntConsumer multiBucketConsumer,
+                             @Nullable CircuitBreaker breaker, boolean isFinalReduce) {
             this.bigArrays = bigArrays;
             this.scriptService = scriptService;
             this.multiBucketConsumer = multiBucketConsumer;
+            this.breaker = breaker;
             this.isFinalReduce = isFinalReduce;
         }
 
@@ -83,8 +100,38 @@ public abstract class InternalAggregation implements Aggregation, NamedWriteable
             multiBucketConsumer.accept(size);
         }
 
+        /**
+         * Adds the estimated size of aggregations that are held in memory by the reduce to the circuit breaker and fails
+         * the reduce if the breaker trips. The bytes stay accounted until {@link #releaseEstimatedBytes()}.
+         */
+        void addEstimatedBytesAndMaybeBreak(long bytes) {
+            if (breaker != null) {
+                breaker.addEstimateBytesAndMaybeBreak(bytes, "<reduce_aggs>");
+            }
+            estimatedBytes += bytes;
+            maxEstimatedBytes = Math.max(maxEstimatedBytes, estimatedBytes);
+        }
+
+        void releaseEstimatedBytes() {
+            if (breaker != null) {
+                breaker.addWithoutBreaking(-estimatedBytes);
+            }
+            estimatedBytes = 0;
+        }
+
+        /**
+         * The largest estimated size of the aggregations held in memory at once by reduces that used this context.
+         */
+        public long getMaxEstimatedBytes() {
+            return maxEstimatedBytes;
+        }
     }
 
+    /**
+     * A rough estimate of the heap used by an aggregation result without buckets or sub-aggregations.
+     */
+    protected static final long BASE_SIZE_IN_BYTES = 128;
+
     protected final String name;
 
     protected final Map<String, Object> metaData;
@@ -126,6 +173,15 @@ public abstract class InternalAggregation implements Aggregation, NamedWriteable
         return name;
     }
 
+    /**
+     * Estimates the heap used by this aggregation result including its buckets and sub-aggregations. The estimate is
+     * accounted in the request circuit breaker when the result is built on a shard and when it is reduced, so it must
+     * be cheap to compute and should rather overestimate results that hold a lot of data.
+     */
+    public long estimatedSizeInBytes() {
+        return BASE_SIZE_IN_BYTES;
+    }
+
     /**
      * Creates the output from all pipeline aggs that this aggregation is associated with.  Should only
      * be called after all aggregations have been fully reduced
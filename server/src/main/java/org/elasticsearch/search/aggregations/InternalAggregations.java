@@ -97,6 +97,26 @@ public final class InternalAggregations extends Aggregations implements Writeabl
         return (List<InternalAggregation>) aggregations;
     }
 
+    /**
+     * Estimates the heap used by these aggregations, see {@link InternalAggregation#estimatedSizeInBytes()}.
+     */
+    public long estimatedSizeInBytes() {
+        return estimatedSizeInBytes(this);
+    }
+
+    /**
+     * Estimates the heap used by the given aggregations, usually the sub-aggregations of a bucket.
+     */
+    public static long estimatedSizeInBytes(Aggregations aggregations) {
+        long size = 0;
+        for (Aggregation aggregation : aggregations) {
+            if (aggregation instanceof InternalAggregation) {
+                size += ((InternalAggregation) aggregation).estimatedSizeInBytes();
+            }
+        }
+        return size;
+    }
+
     /**
      * Begin the reduction process.  This should be the entry point for the "first" reduction, e.g. called by
      * SearchPhaseController or anywhere else that wants to initiate a reduction.  It _should not_ be called
@@ -104,8 +124,28 @@ public final class InternalAggregations extends Aggregations implements Writeabl
      *
      * This method first reduces the aggregations, and if it is the final reduce, then reduce the pipeline
      * aggregations (both embedded parent/sibling as well as top-level sibling pipelines)
+     *
+     * The estimated sizes of the aggregations to reduce and of the reduced aggregations, which are all in memory at the
+     * end of the reduce, are accounted in the circuit breaker of the context while reducing.
      */
     public static InternalAggregations topLevelReduce(List<InternalAggregations> aggregationsList, ReduceContext context) {
+        long inputBytes = 0;
+        for (InternalAggregations aggregations : aggregationsList) {
+            inputBytes += aggregations.estimatedSizeInBytes();
+        }
+        context.addEstimatedBytesAndMaybeBreak(inputBytes);
+        try {
+            InternalAggregations reduced = doTopLevelReduce(aggregationsList, context);
+            if (reduced != null) {
+                context.addEstimatedBytesAndMaybeBreak(reduced.estimatedSizeInBytes());
+            }
+            return reduced;
+        } finally {
+            context.releaseEstimatedBytes();
+        }
+    }
+
+    private static InternalAggregations doTopLevelReduce(List<InternalAggregations> aggregationsList, ReduceContext context) {
         InternalAggregations reduced = reduce(aggregationsList, context);
         if (reduced == null) {
             return null;
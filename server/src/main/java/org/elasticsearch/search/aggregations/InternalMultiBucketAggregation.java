@@ -76,6 +76,20 @@ public abstract class InternalMultiBucketAggregation<A extends InternalMultiBuck
     @Override
     public abstract List<B> getBuckets();
 
+    /**
+     * A rough estimate of the heap used by a bucket without its sub-aggregations.
+     */
+    protected static final long BUCKET_BASE_SIZE_IN_BYTES = 64;
+
+    @Override
+    public long estimatedSizeInBytes() {
+        long size = BASE_SIZE_IN_BYTES;
+        for (B bucket : getBuckets()) {
+            size += BUCKET_BASE_SIZE_IN_BYTES + InternalAggregations.estimatedSizeInBytes(bucket.getAggregations());
+        }
+        return size;
+    }
+
     @Override
     public Object getProperty(List<String> path) {
         if (path.isEmpty()) {
@@ -36,6 +36,8 @@ import java.util.function.IntConsumer;
  * The consumer is used by {@link BucketsAggregator} and {@link InternalMultiBucketAggregation} to limit the number of buckets created
  * in {@link Aggregator#buildAggregation} and {@link InternalAggregation#reduce}.
  * The limit can be set by changing the `search.max_buckets` cluster setting and defaults to 10000.
+ * The consumer also accounts the estimated size of the aggregation results built on a shard in the request circuit breaker,
+ * so that the memory that buckets actually use is limited too.
  */
 public class MultiBucketConsumerService {
     public static final int DEFAULT_MAX_BUCKETS = 10000;
@@ -102,6 +104,7 @@ public class MultiBucketConsumerService {
 
         // aggregations execute in a single thread so no atomic here
         private int count;
+        private long estimatedBytes;
 
         public MultiBucketConsumer(int limit, CircuitBreaker breaker) {
             this.limit = limit;
@@ -127,6 +130,29 @@ public class MultiBucketConsumerService {
             this.count = 0;
         }
 
+        /**
+         * Adds the estimated size of an aggregation result to the request circuit breaker and fails if the breaker trips.
+         * The bytes stay accounted until {@link #releaseEstimatedBytes()} is called.
+         *
+         * @see InternalAggregation#estimatedSizeInBytes()
+         */
+        public void addEstimatedBytesAndMaybeBreak(long bytes, String label) {
+            breaker.addEstimateBytesAndMaybeBreak(bytes, label);
+            estimatedBytes += bytes;
+        }
+
+        /**
+         * Releases the bytes accounted with {@link #addEstimatedBytesAndMaybeBreak(long, String)}.
+         */
+        public void releaseEstimatedBytes() {
+            breaker.addWithoutBreaking(-estimatedBytes);
+            estimatedBytes = 0;
+        }
+
+        public long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+
         public int getCount() {
             return count;
         }
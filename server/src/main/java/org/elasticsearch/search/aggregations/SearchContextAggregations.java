@@ -18,6 +18,13 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.bucket.significant.BackgroundFrequencyCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
 
 /**
@@ -28,6 +35,10 @@ public class SearchContextAggregations {
     private final AggregatorFactories factories;
     private final MultiBucketConsumer multiBucketConsumer;
     private Aggregator[] aggregators;
+    private final List<Aggregator[]> sliceAggregators = new ArrayList<>();
+    private ReduceContext partialReduceContext;
+    private SegmentAggregationsCache segmentResultsCache;
+    private BackgroundFrequencyCache backgroundFrequencyCache;
 
     /**
      * Creates a new aggregation context with the parsed aggregator factories
@@ -62,6 +73,71 @@ public class SearchContextAggregations {
         return multiBucketConsumer;
     }
 
+    /**
+     * Sets the context of the partial reduce of the results of the segments or slices of the shard that are collected
+     * separately, which must count buckets with {@link #multiBucketConsumer()}.
+     */
+    public void partialReduceContext(ReduceContext partialReduceContext) {
+        assert partialReduceContext.isFinalReduce() == false : "the results of the shard must be partially reduced";
+        this.partialReduceContext = partialReduceContext;
+    }
+
+    /**
+     * Returns the context of the partial reduce of the results of the segments or slices of the shard, or {@code null}
+     * if the results can't be reduced on the shard.
+     */
+    @Nullable
+    public ReduceContext partialReduceContext() {
+        return partialReduceContext;
+    }
+
+    /**
+     * Sets the cache of the aggregation results of single segments, the results of the segments of the shard are reduced
+     * together with the {@link #partialReduceContext()}.
+     */
+    public void segmentResultsCache(SegmentAggregationsCache segmentResultsCache) {
+        assert partialReduceContext != null : "segment results must be partially reduced";
+        this.segmentResultsCache = segmentResultsCache;
+    }
+
+    /**
+     * Returns the cache of the aggregation results of single segments, or {@code null} if the results are not cached per segment.
+     */
+    @Nullable
+    public SegmentAggregationsCache segmentResultsCache() {
+        return segmentResultsCache;
+    }
+
+    /**
+     * Sets the cache of the background frequencies of significant terms.
+     */
+    public void backgroundFrequencyCache(BackgroundFrequencyCache backgroundFrequencyCache) {
+        this.backgroundFrequencyCache = backgroundFrequencyCache;
+    }
+
+    /**
+     * Returns the cache of the background frequencies of significant terms, or {@code null} if they are not cached.
+     */
+    @Nullable
+    public BackgroundFrequencyCache backgroundFrequencyCache() {
+        return backgroundFrequencyCache;
+    }
+
+    /**
+     * Registers the top level aggregators of an additional slice of the shard that is collected concurrently with the
+     * slice collected by the {@link #aggregators()}.
+     */
+    void addSliceAggregators(Aggregator[] aggregators) {
+        sliceAggregators.add(aggregators);
+    }
+
+    /**
+     * Returns the top level aggregators of the additional slices of the shard, see {@link #addSliceAggregators(Aggregator[])}.
+     */
+    List<Aggregator[]> sliceAggregators() {
+        return sliceAggregators;
+    }
+
     void resetBucketMultiConsumer() {
         multiBucketConsumer.reset();
     }
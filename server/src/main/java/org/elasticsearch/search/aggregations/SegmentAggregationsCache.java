@@ -0,0 +1,118 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.filter.FilterAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.HistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.missing.MissingAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.nested.NestedAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.nested.ReverseNestedAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.range.DateRangeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.range.GeoDistanceAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.range.IpRangeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.range.RangeAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.AvgAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.CardinalityAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.ExtendedStatsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.GeoBoundsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.GeoCentroidAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.MaxAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.MedianAbsoluteDeviationAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.MinAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.PercentileRanksAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.PercentilesAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.StatsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.ValueCountAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.WeightedAvgAggregationBuilder;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Caches the aggregation results of single segments of a shard, so that a request only needs to aggregate the segments
+ * that were not aggregated by a previous execution of the same request. The results of the segments are reduced together
+ * into the shard result.
+ */
+public interface SegmentAggregationsCache {
+
+    /**
+     * The types of the aggregations whose results of single segments reduce to the result of the whole shard. Aggregations
+     * that prune their buckets on the shard, like {@code terms}, or that reference documents, like {@code top_hits}, are not
+     * part of it.
+     */
+    Set<String> SUPPORTED_TYPES = Set.of(
+        AvgAggregationBuilder.NAME,
+        CardinalityAggregationBuilder.NAME,
+        CompositeAggregationBuilder.NAME,
+        DateHistogramAggregationBuilder.NAME,
+        DateRangeAggregationBuilder.NAME,
+        ExtendedStatsAggregationBuilder.NAME,
+        FilterAggregationBuilder.NAME,
+        FiltersAggregationBuilder.NAME,
+        GeoBoundsAggregationBuilder.NAME,
+        GeoCentroidAggregationBuilder.NAME,
+        GeoDistanceAggregationBuilder.NAME,
+        HistogramAggregationBuilder.NAME,
+        IpRangeAggregationBuilder.NAME,
+        MaxAggregationBuilder.NAME,
+        MedianAbsoluteDeviationAggregationBuilder.NAME,
+        MinAggregationBuilder.NAME,
+        MissingAggregationBuilder.NAME,
+        NestedAggregationBuilder.NAME,
+        PercentileRanksAggregationBuilder.NAME,
+        PercentilesAggregationBuilder.NAME,
+        RangeAggregationBuilder.NAME,
+        ReverseNestedAggregationBuilder.NAME,
+        StatsAggregationBuilder.NAME,
+        SumAggregationBuilder.NAME,
+        ValueCountAggregationBuilder.NAME,
+        WeightedAvgAggregationBuilder.NAME
+    );
+
+    /**
+     * Returns the cached aggregation results of the given segment, or {@code null} if they are not cached.
+     */
+    @Nullable
+    InternalAggregations get(LeafReaderContext ctx) throws IOException;
+
+    /**
+     * Caches the aggregation results of the given segment.
+     */
+    void put(LeafReaderContext ctx, InternalAggregations aggregations) throws IOException;
+
+    /**
+     * Returns <code>true</code> if all the aggregations of the given tree can be cached per segment.
+     */
+    static boolean supports(Collection<AggregationBuilder> aggregations) {
+        for (AggregationBuilder aggregation : aggregations) {
+            if (SUPPORTED_TYPES.contains(aggregation.getType()) == false || supports(aggregation.getSubAggregations()) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.ScoreMode;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A {@link Collector} that aggregates each segment with its own top-level aggregators and caches their results in a
+ * {@link SegmentAggregationsCache}, so that the segments whose results are already cached are not aggregated again.
+ * The segments must be collected one after the other.
+ */
+final class SegmentCachingAggregationCollector implements Collector {
+
+    private final SearchContext context;
+    private final SegmentAggregationsCache cache;
+    private final ScoreMode scoreMode;
+    private final List<InternalAggregations> segmentResults = new ArrayList<>();
+
+    // the aggregators of the next segment to aggregate, the first ones are created upfront to know the score mode
+    private Aggregator[] nextAggregators;
+
+    private LeafReaderContext currentSegment;
+    private Aggregator[] currentAggregators;
+    private BucketCollector currentCollector;
+
+    SegmentCachingAggregationCollector(SearchContext context, SegmentAggregationsCache cache) throws IOException {
+        this.context = context;
+        this.cache = cache;
+        this.nextAggregators = context.aggregations().factories().createTopLevelAggregators(context);
+        this.scoreMode = MultiBucketCollector.wrap(Arrays.asList(nextAggregators)).scoreMode();
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+        return scoreMode;
+    }
+
+    @Override
+    public LeafCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
+        finishSegment(true);
+        final InternalAggregations cached = cache.get(ctx);
+        if (cached != null) {
+            segmentResults.add(cached);
+            throw new CollectionTerminatedException();
+        }
+        if (nextAggregators == null) {
+            nextAggregators = context.aggregations().factories().createTopLevelAggregators(context);
+        }
+        currentSegment = ctx;
+        currentAggregators = nextAggregators;
+        nextAggregators = null;
+        currentCollector = MultiBucketCollector.wrap(Arrays.asList(currentAggregators));
+        currentCollector.preCollection();
+        return currentCollector.getLeafCollector(ctx);
+    }
+
+    private void finishSegment(boolean cacheResults) throws IOException {
+        if (currentSegment == null) {
+            return;
+        }
+        currentCollector.postCollection();
+        final MultiBucketConsumer bucketConsumer = context.aggregations().multiBucketConsumer();
+        final int bucketCount = bucketConsumer.getCount();
+        final List<InternalAggregation> aggregations = new ArrayList<>(currentAggregators.length);
+        try {
+            for (Aggregator aggregator : currentAggregators) {
+                aggregations.add(aggregator.buildAggregation(0));
+            }
+        } finally {
+            // the results do not reference the aggregators, which can be released before the next segment is collected
+            Releasables.close(currentAggregators);
+        }
+        // the buckets of the segment are counted again when the results of all segments are reduced into the result of
+        // the shard, which is where the bucket limit applies
+        bucketConsumer.accept(bucketCount - bucketConsumer.getCount());
+        final InternalAggregations results = new InternalAggregations(aggregations);
+        if (cacheResults) {
+            cache.put(currentSegment, results);
+        }
+        segmentResults.add(results);
+        currentSegment = null;
+        currentAggregators = null;
+        currentCollector = null;
+    }
+
+    /**
+     * Builds the results of the last collected segment and reduces the results of all segments into the results of the shard.
+     * The reduce context must count the buckets of the reduced results against the bucket limit of the search.
+     *
+     * @param cacheLastSegment whether the results of the last collected segment may be cached, which is not the case if
+     *                         the collection of the segment was interrupted by a timeout
+     */
+    List<InternalAggregation> reduce(boolean cacheLastSegment, ReduceContext reduceContext) throws IOException {
+        finishSegment(cacheLastSegment);
+        final List<InternalAggregation> results = new ArrayList<>();
+        if (segmentResults.isEmpty()) {
+            // the shard has no segments
+            for (Aggregator aggregator : nextAggregators) {
+                results.add(aggregator.buildEmptyAggregation());
+            }
+            Releasables.close(nextAggregators);
+        } else {
+            for (Aggregation aggregation : InternalAggregations.topLevelReduce(segmentResults, reduceContext)) {
+                results.add((InternalAggregation) aggregation);
+            }
+        }
+        return results;
+    }
+}
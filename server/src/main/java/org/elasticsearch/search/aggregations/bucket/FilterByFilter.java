@@ -0,0 +1,132 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Weight;
+import org.elasticsearch.search.aggregations.AggregationInitializationException;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+
+/**
+ * Counts the documents of the buckets of an aggregation one bucket at a time, by running the query of the search
+ * intersected with the filter of each bucket, instead of checking every filter against every document that matches the
+ * query. The intersections go through the searcher so they benefit from the query cache and from the point trees of
+ * range filters, which makes counting a bucket a single index operation.
+ * <p>
+ * This only produces the doc counts of the buckets, see {@link #canCount(SearchContext, Aggregator, AggregatorFactories)}.
+ * Since the query of the search runs once per bucket, segments on which it can neither be served from the query cache nor
+ * matches all documents have their documents collected instead, see {@link #count(LeafReaderContext)}.
+ */
+public final class FilterByFilter {
+
+    private final String aggregationName;
+    private final SearchContext context;
+    private final Query[] filters;
+    private Weight queryWeight;
+    private boolean matchAll;
+    private Weight[] weights;
+
+    public FilterByFilter(String aggregationName, SearchContext context, Query[] filters) {
+        this.aggregationName = aggregationName;
+        this.context = context;
+        this.filters = filters;
+    }
+
+    /**
+     * Returns whether an aggregation can count its buckets filter by filter: it must be a top-level aggregation without
+     * sub-aggregations, since it does not see the individual documents, and every document that matches the query of
+     * the search must be collected, which rules out a minimum score, {@code terminate_after} and profiling.
+     */
+    public static boolean canCount(SearchContext context, Aggregator parent, AggregatorFactories factories) {
+        return parent == null
+            && factories.countAggregators() == 0
+            && context.query() != null
+            && context.minimumScore() == null
+            && context.terminateAfter() == SearchContext.DEFAULT_TERMINATE_AFTER
+            && context.getProfilers() == null;
+    }
+
+    /**
+     * Builds a filter that matches the documents that none of the given filters match.
+     */
+    public static Query otherFilter(Query[] filters) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.add(new MatchAllDocsQuery(), BooleanClause.Occur.FILTER);
+        for (Query filter : filters) {
+            builder.add(filter, BooleanClause.Occur.MUST_NOT);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Counts the live documents of the segment that match the query of the search and each of the filters, or returns
+     * {@code null} if running the query once per filter would be too costly on this segment, in which case the caller
+     * must collect the documents of the segment instead. Counting checks for the cancellation and the timeout of the search.
+     */
+    public int[] count(LeafReaderContext ctx) throws IOException {
+        final Weight[] weights = getWeights();
+        if (matchAll == false && queryWeight.isCacheable(ctx) == false) {
+            // the query would be evaluated from scratch for every filter, scripts for instance would run once per filter
+            return null;
+        }
+        final int[] counts = new int[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            // counts in windows of documents so that cancelled and timed out searches stop counting
+            counts[i] = context.searcher().count(weights[i], ctx);
+        }
+        return counts;
+    }
+
+    /**
+     * Creates the weights lazily so that they are only built if the search collects documents.
+     */
+    private Weight[] getWeights() {
+        if (weights == null) {
+            try {
+                IndexSearcher searcher = context.searcher();
+                Query query = searcher.rewrite(context.query());
+                this.matchAll = query instanceof MatchAllDocsQuery;
+                this.queryWeight = searcher.createWeight(query, ScoreMode.COMPLETE_NO_SCORES, 1);
+                Weight[] weights = new Weight[filters.length];
+                for (int i = 0; i < filters.length; i++) {
+                    Query intersection = new BooleanQuery.Builder()
+                        .add(query, BooleanClause.Occur.FILTER)
+                        .add(filters[i], BooleanClause.Occur.FILTER)
+                        .build();
+                    weights[i] = searcher.createWeight(searcher.rewrite(intersection), ScoreMode.COMPLETE_NO_SCORES, 1);
+                }
+                this.weights = weights;
+            } catch (IOException e) {
+                throw new AggregationInitializationException("Failed to initialise filters for aggregation [" + aggregationName + "]", e);
+            }
+        }
+        return weights;
+    }
+}
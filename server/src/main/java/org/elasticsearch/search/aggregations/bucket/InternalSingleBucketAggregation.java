@@ -79,6 +79,11 @@ public abstract class InternalSingleBucketAggregation extends InternalAggregatio
         return aggregations;
     }
 
+    @Override
+    public long estimatedSizeInBytes() {
+        return BASE_SIZE_IN_BYTES + aggregations.estimatedSizeInBytes();
+    }
+
     /**
      * Create a new copy of this {@link Aggregation} with the same settings as
      * this {@link Aggregation} and contains the provided sub-aggregations.
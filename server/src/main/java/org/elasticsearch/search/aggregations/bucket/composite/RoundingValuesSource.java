@@ -29,19 +29,19 @@ import org.elasticsearch.search.aggregations.support.ValuesSource;
 import java.io.IOException;
 
 /**
- * A wrapper for {@link ValuesSource.Numeric} that uses {@link Rounding} to transform the long values
+ * A wrapper for {@link ValuesSource.Numeric} that uses a {@link Rounding.Prepared} to transform the long values
  * produced by the underlying source.
  */
 class RoundingValuesSource extends ValuesSource.Numeric {
     private final ValuesSource.Numeric vs;
-    private final Rounding rounding;
+    private final Rounding.Prepared rounding;
 
     /**
      *
      * @param vs The original values source
      * @param rounding How to round the values
      */
-    RoundingValuesSource(Numeric vs, Rounding rounding) {
+    RoundingValuesSource(Numeric vs, Rounding.Prepared rounding) {
         this.vs = vs;
         this.rounding = rounding;
     }
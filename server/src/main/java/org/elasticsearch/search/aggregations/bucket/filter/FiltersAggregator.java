@@ -20,8 +20,10 @@
 package org.elasticsearch.search.aggregations.bucket.filter;
 
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.Bits;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -37,6 +39,7 @@ import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
+import org.elasticsearch.search.aggregations.bucket.FilterByFilter;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.internal.SearchContext;
 
@@ -121,14 +124,20 @@ public class FiltersAggregator extends BucketsAggregator {
     private final boolean showOtherBucket;
     private final String otherBucketKey;
     private final int totalNumKeys;
+    private final FilterByFilter filterByFilter;
 
+    /**
+     * @param filterByFilter counts the documents of the filters followed by the other bucket if there is one, or null if the
+     *                       documents have to be checked against the filters one by one
+     */
     public FiltersAggregator(String name, AggregatorFactories factories, String[] keys, Supplier<Weight[]> filters, boolean keyed,
-            String otherBucketKey, SearchContext context, Aggregator parent, List<PipelineAggregator> pipelineAggregators,
-            Map<String, Object> metaData) throws IOException {
+            String otherBucketKey, @Nullable FilterByFilter filterByFilter, SearchContext context, Aggregator parent,
+            List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
         super(name, factories, context, parent, pipelineAggregators, metaData);
         this.keyed = keyed;
         this.keys = keys;
         this.filters = filters;
+        this.filterByFilter = filterByFilter;
         this.showOtherBucket = otherBucketKey != null;
         this.otherBucketKey = otherBucketKey;
         if (showOtherBucket) {
@@ -141,6 +150,17 @@ public class FiltersAggregator extends BucketsAggregator {
     @Override
     public LeafBucketCollector getLeafCollector(LeafReaderContext ctx,
             final LeafBucketCollector sub) throws IOException {
+        final int[] counts = filterByFilter == null ? null : filterByFilter.count(ctx);
+        if (counts != null) {
+            assert counts.length == totalNumKeys;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    incrementBucketDocCount(bucketOrd(0, i), counts[i]);
+                }
+            }
+            // the buckets of this segment are complete, no need to collect its documents
+            throw new CollectionTerminatedException();
+        }
         // no need to provide deleted docs to the filter
         Weight[] filters = this.filters.get();
         final Bits[] bits = new Bits[filters.length];
@@ -28,11 +28,13 @@ import org.elasticsearch.search.aggregations.AggregationInitializationException;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.bucket.FilterByFilter;
 import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregator.KeyedFilter;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -91,8 +93,17 @@ public class FiltersAggregatorFactory extends AggregatorFactory {
                                         boolean collectsFromSingleBucket,
                                         List<PipelineAggregator> pipelineAggregators,
                                         Map<String, Object> metaData) throws IOException {
+        FilterByFilter filterByFilter = null;
+        if (FilterByFilter.canCount(searchContext, parent, factories)) {
+            Query[] bucketFilters = filters;
+            if (otherBucket) {
+                bucketFilters = Arrays.copyOf(filters, filters.length + 1);
+                bucketFilters[filters.length] = FilterByFilter.otherFilter(filters);
+            }
+            filterByFilter = new FilterByFilter(name, searchContext, bucketFilters);
+        }
         return new FiltersAggregator(name, factories, keys, () -> getWeights(searchContext), keyed,
-            otherBucket ? otherBucketKey : null, searchContext, parent, pipelineAggregators, metaData);
+            otherBucket ? otherBucketKey : null, filterByFilter, searchContext, parent, pipelineAggregators, metaData);
     }
 
 
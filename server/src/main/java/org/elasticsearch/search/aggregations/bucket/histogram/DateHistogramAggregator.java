@@ -56,7 +56,7 @@ class DateHistogramAggregator extends BucketsAggregator {
     private final ValuesSource.Numeric valuesSource;
     private final DocValueFormat formatter;
     private final Rounding rounding;
-    private final Rounding shardRounding;
+    private final Rounding.Prepared shardRounding;
     private final BucketOrder order;
     private final boolean keyed;
 
@@ -65,7 +65,7 @@ class DateHistogramAggregator extends BucketsAggregator {
 
     private final LongHash bucketOrds;
 
-    DateHistogramAggregator(String name, AggregatorFactories factories, Rounding rounding, Rounding shardRounding,
+    DateHistogramAggregator(String name, AggregatorFactories factories, Rounding rounding, Rounding.Prepared shardRounding,
             BucketOrder order, boolean keyed,
             long minDocCount, @Nullable ExtendedBounds extendedBounds, @Nullable ValuesSource.Numeric valuesSource,
             DocValueFormat formatter, SearchContext aggregationContext,
@@ -110,7 +110,7 @@ class DateHistogramAggregator extends BucketsAggregator {
                     for (int i = 0; i < valuesCount; ++i) {
                         long value = values.nextValue();
                         // We can use shardRounding here, which is sometimes more efficient
-                        // if daylight saving times are involved.
+                        // if daylight saving times are involved, and is prepared for the values of the shard.
                         long rounded = shardRounding.round(value);
                         assert rounded >= previousRounded;
                         if (rounded == previousRounded) {
@@ -19,7 +19,12 @@
 
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.PointValues;
 import org.elasticsearch.common.Rounding;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.RangeType;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.search.aggregations.Aggregator;
@@ -45,6 +50,7 @@ public final class DateHistogramAggregatorFactory
     private final ExtendedBounds extendedBounds;
     private final Rounding rounding;
     private final Rounding shardRounding;
+    private Rounding.Prepared preparedShardRounding;
 
     public DateHistogramAggregatorFactory(String name, ValuesSourceConfig<ValuesSource> config,
             BucketOrder order, boolean keyed, long minDocCount,
@@ -64,6 +70,27 @@ public final class DateHistogramAggregatorFactory
         return minDocCount;
     }
 
+    /**
+     * Prepares {@code rounding} for the values of the field on the shard, read from the points of the field, see
+     * {@link Rounding#prepare(long, long)}.
+     */
+    public static Rounding.Prepared prepareRounding(Rounding rounding, ValuesSourceConfig<?> config,
+                                                    QueryShardContext queryShardContext) throws IOException {
+        final MappedFieldType fieldType = config.fieldContext() != null ? config.fieldContext().fieldType() : null;
+        final IndexReader reader = queryShardContext.getIndexReader();
+        if (config.script() != null || fieldType instanceof DateFieldMapper.DateFieldType == false || reader == null
+                || ((DateFieldMapper.DateFieldType) fieldType).resolution() != DateFieldMapper.Resolution.MILLISECONDS) {
+            return rounding.prepareForUnknown();
+        }
+        final byte[] min = PointValues.getMinPackedValue(reader, fieldType.name());
+        final byte[] max = PointValues.getMaxPackedValue(reader, fieldType.name());
+        if (min == null || max == null) {
+            // the field is not indexed or has no values on this shard
+            return rounding.prepareForUnknown();
+        }
+        return rounding.prepare(LongPoint.decodeDimension(min, 0), LongPoint.decodeDimension(max, 0));
+    }
+
     @Override
     protected ValuesSource resolveMissingAny(Object missing) {
         if (missing instanceof Number) {
@@ -102,8 +129,12 @@ public final class DateHistogramAggregatorFactory
     private Aggregator createAggregator(ValuesSource.Numeric valuesSource, SearchContext searchContext,
                                         Aggregator parent, List<PipelineAggregator> pipelineAggregators,
             Map<String, Object> metaData) throws IOException {
-        return new DateHistogramAggregator(name, factories, rounding, shardRounding, order, keyed, minDocCount, extendedBounds,
-                valuesSource, config.format(), searchContext, parent, pipelineAggregators, metaData);
+        if (preparedShardRounding == null) {
+            // prepared once per shard since the aggregator is created for each owning bucket under multi bucket aggregations
+            preparedShardRounding = prepareRounding(shardRounding, config, queryShardContext);
+        }
+        return new DateHistogramAggregator(name, factories, rounding, preparedShardRounding, order, keyed, minDocCount,
+                extendedBounds, valuesSource, config.format(), searchContext, parent, pipelineAggregators, metaData);
     }
 
     private Aggregator createRangeAggregator(ValuesSource.Range valuesSource,
@@ -122,4 +153,10 @@ public final class DateHistogramAggregatorFactory
                                             Map<String, Object> metaData) throws IOException {
         return createAggregator(null, searchContext, parent, pipelineAggregators, metaData);
     }
+
+    @Override
+    public boolean supportsParallelCollection() {
+        // sub-aggregators are wrapped to collect any bucket, creating new aggregators while collecting
+        return parent == null && readsValuesWithoutScript();
+    }
 }
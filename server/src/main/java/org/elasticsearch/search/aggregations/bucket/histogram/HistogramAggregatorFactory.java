@@ -119,4 +119,10 @@ public final class HistogramAggregatorFactory extends ValuesSourceAggregatorFact
         return new NumericHistogramAggregator(name, factories, interval, offset, order, keyed, minDocCount, minBound, maxBound,
             null, config.format(), searchContext, parent, pipelineAggregators, metaData);
     }
+
+    @Override
+    public boolean supportsParallelCollection() {
+        // sub-aggregators are wrapped to collect any bucket, creating new aggregators while collecting
+        return parent == null && readsValuesWithoutScript();
+    }
 }
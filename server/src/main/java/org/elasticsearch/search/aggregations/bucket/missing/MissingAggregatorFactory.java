@@ -58,4 +58,8 @@ public class MissingAggregatorFactory extends ValuesSourceAggregatorFactory<Valu
         return new MissingAggregator(name, factories, valuesSource, searchContext, parent, pipelineAggregators, metaData);
     }
 
+    @Override
+    public boolean supportsParallelCollection() {
+        return readsValuesWithoutScript();
+    }
 }
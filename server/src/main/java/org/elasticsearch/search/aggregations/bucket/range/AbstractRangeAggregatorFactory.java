@@ -19,10 +19,16 @@
 
 package org.elasticsearch.search.aggregations.bucket.range;
 
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.bucket.FilterByFilter;
 import org.elasticsearch.search.aggregations.bucket.range.RangeAggregator.Range;
 import org.elasticsearch.search.aggregations.bucket.range.RangeAggregator.Unmapped;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
@@ -72,9 +78,57 @@ public class AbstractRangeAggregatorFactory<R extends Range> extends ValuesSourc
                                             boolean collectsFromSingleBucket,
                                             List<PipelineAggregator> pipelineAggregators,
                                             Map<String, Object> metaData) throws IOException {
-        return new RangeAggregator(name, factories, valuesSource, config.format(), rangeFactory, ranges, keyed, searchContext, parent,
-                pipelineAggregators, metaData);
+        FilterByFilter filterByFilter = null;
+        if (FilterByFilter.canCount(searchContext, parent, factories)) {
+            Query[] filters = rangeFilters();
+            if (filters != null) {
+                filterByFilter = new FilterByFilter(name, searchContext, filters);
+            }
+        }
+        return new RangeAggregator(name, factories, valuesSource, config.format(), rangeFactory, ranges, keyed, filterByFilter,
+                searchContext, parent, pipelineAggregators, metaData);
     }
 
+    /**
+     * Builds one query per range that matches exactly the documents that have a value in the range, or returns null if the
+     * values of the aggregation do not come straight from an indexed millisecond date or integral number field.
+     */
+    private Query[] rangeFilters() {
+        if (config.fieldContext() == null || config.script() != null || config.missing() != null) {
+            return null;
+        }
+        final MappedFieldType fieldType = config.fieldContext().fieldType();
+        if (fieldType.isSearchable() == false) {
+            return null;
+        }
+        final Query[] filters = new Query[ranges.length];
+        for (int i = 0; i < ranges.length; i++) {
+            final Range range = ranges[i];
+            if (fieldType instanceof DateFieldMapper.DateFieldType
+                    && ((DateFieldMapper.DateFieldType) fieldType).resolution() == DateFieldMapper.Resolution.MILLISECONDS) {
+                // ranges include their lower bound and exclude their upper bound
+                final long from = range.from == Double.NEGATIVE_INFINITY ? Long.MIN_VALUE : (long) Math.ceil(range.from);
+                final long to = range.to == Double.POSITIVE_INFINITY ? Long.MAX_VALUE : (long) Math.ceil(range.to) - 1;
+                filters[i] = LongPoint.newRangeQuery(fieldType.name(), from, to);
+            } else if (fieldType instanceof NumberFieldMapper.NumberFieldType
+                    && ((NumberFieldMapper.NumberFieldType) fieldType).numericType().isFloatingPoint() == false) {
+                final Double from = range.from == Double.NEGATIVE_INFINITY ? null : range.from;
+                final Double to = range.to == Double.POSITIVE_INFINITY ? null : range.to;
+                try {
+                    filters[i] = ((NumberFieldMapper.NumberFieldType) fieldType).rangeQuery(from, to, true, false, queryShardContext);
+                } catch (IllegalArgumentException e) {
+                    // the bounds are out of the range of the field type
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+        return filters;
+    }
 
+    @Override
+    public boolean supportsParallelCollection() {
+        return readsValuesWithoutScript();
+    }
 }
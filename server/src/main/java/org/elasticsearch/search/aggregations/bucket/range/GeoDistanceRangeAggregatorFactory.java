@@ -81,7 +81,7 @@ public class GeoDistanceRangeAggregatorFactory
                                             List<PipelineAggregator> pipelineAggregators,
                                             Map<String, Object> metaData) throws IOException {
         DistanceSource distanceSource = new DistanceSource(valuesSource, distanceType, origin, unit);
-        return new RangeAggregator(name, factories, distanceSource, config.format(), rangeFactory, ranges, keyed, searchContext,
+        return new RangeAggregator(name, factories, distanceSource, config.format(), rangeFactory, ranges, keyed, null, searchContext,
                 parent,
                 pipelineAggregators, metaData);
     }
@@ -19,7 +19,9 @@
 package org.elasticsearch.search.aggregations.bucket.range;
 
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.ScoreMode;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -38,6 +40,7 @@ import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.NonCollectingAggregator;
 import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
+import org.elasticsearch.search.aggregations.bucket.FilterByFilter;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.internal.SearchContext;
@@ -225,9 +228,16 @@ public class RangeAggregator extends BucketsAggregator {
 
     final double[] maxTo;
 
+    private final FilterByFilter filterByFilter;
+
+    /**
+     * @param filterByFilter counts the documents of the ranges from one query per range, or null if the values of the
+     *                       documents have to be checked against the ranges one by one
+     */
     public RangeAggregator(String name, AggregatorFactories factories, ValuesSource.Numeric valuesSource, DocValueFormat format,
-            InternalRange.Factory rangeFactory, Range[] ranges, boolean keyed, SearchContext context,
-            Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
+            InternalRange.Factory rangeFactory, Range[] ranges, boolean keyed, @Nullable FilterByFilter filterByFilter,
+            SearchContext context, Aggregator parent, List<PipelineAggregator> pipelineAggregators,
+            Map<String, Object> metaData) throws IOException {
 
         super(name, factories, context, parent, pipelineAggregators, metaData);
         assert valuesSource != null;
@@ -235,6 +245,7 @@ public class RangeAggregator extends BucketsAggregator {
         this.format = format;
         this.keyed = keyed;
         this.rangeFactory = rangeFactory;
+        this.filterByFilter = filterByFilter;
 
         this.ranges = ranges;
 
@@ -257,6 +268,17 @@ public class RangeAggregator extends BucketsAggregator {
     @Override
     public LeafBucketCollector getLeafCollector(LeafReaderContext ctx,
             final LeafBucketCollector sub) throws IOException {
+        final int[] counts = filterByFilter == null ? null : filterByFilter.count(ctx);
+        if (counts != null) {
+            assert counts.length == ranges.length;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    incrementBucketDocCount(subBucketOrdinal(0, i), counts[i]);
+                }
+            }
+            // the buckets of this segment are complete, no need to collect its documents
+            throw new CollectionTerminatedException();
+        }
         final SortedNumericDoubleValues values = valuesSource.doubleValues(ctx);
         return new LeafBucketCollectorBase(sub, values) {
             @Override
@@ -0,0 +1,226 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.significant;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.FilteredDocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.BitSet;
+import org.apache.lucene.util.Bits;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.lucene.Lucene;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Looks up the background frequencies of the candidate terms of a {@code significant_terms} or {@code significant_text}
+ * aggregation segment by segment, reading the frequencies of each segment from the {@link BackgroundFrequencyCache} if possible.
+ * <p>
+ * Values of fields that use the inverted index are counted with the terms dictionary of each segment. When the background is
+ * restricted by a filter, the documents that match the filter are collected into a bit set in a single pass over each segment,
+ * once per request and only for the segments whose frequencies are not cached, and the postings of each term are counted
+ * against it. Values of other fields are counted with a query.
+ */
+final class BackgroundFrequencies {
+
+    private final IndexSearcher searcher;
+    private final String field;
+    @Nullable
+    private final Query filter;
+    @Nullable
+    private final BackgroundFrequencyCache cache;
+    private final List<LeafReaderContext> leaves;
+    // per segment, lazily created
+    private final TermsEnum[] termsEnums;
+    private final Bits[] filterBits;
+    // the frequencies that were already looked up, if they are looked up repeatedly
+    @Nullable
+    private final Map<String, Long> frequencies;
+    private Weight filterWeight;
+    private PostingsEnum postings;
+
+    BackgroundFrequencies(IndexReader reader, String field, @Nullable Query filter, @Nullable BackgroundFrequencyCache cache,
+                          boolean remember) {
+        // frequencies are cached by this class, there is no need to also cache the filter
+        this.searcher = new IndexSearcher(reader);
+        this.searcher.setQueryCache(null);
+        this.field = field;
+        this.filter = filter;
+        this.cache = cache;
+        this.leaves = reader.leaves();
+        this.termsEnums = new TermsEnum[leaves.size()];
+        this.filterBits = new Bits[leaves.size()];
+        this.frequencies = remember ? new HashMap<>() : null;
+    }
+
+    /**
+     * Returns the number of documents in the background that contain the given value.
+     *
+     * @param value the value, as formatted for the user
+     * @param query the query that matches the documents that contain the value
+     */
+    long frequency(String value, Query query) throws IOException {
+        if (frequencies != null) {
+            final Long frequency = frequencies.get(value);
+            if (frequency != null) {
+                return frequency;
+            }
+        }
+        long frequency = 0;
+        Weight weight = null;
+        for (LeafReaderContext leaf : leaves) {
+            final IndexReader.CacheHelper cacheHelper = leaf.reader().getCoreCacheHelper();
+            BackgroundFrequencyCache.Key key = null;
+            // wrappers of the segment, like the readers of document level security, may hide documents differently per search
+            if (cache != null && cacheHelper != null && Lucene.isSegmentReader(leaf.reader())) {
+                key = new BackgroundFrequencyCache.Key(cacheHelper.getKey(), leaf.reader().numDeletedDocs(), field, filter, value);
+                final Long cached = cache.get(key);
+                if (cached != null) {
+                    frequency += cached;
+                    continue;
+                }
+            }
+            final long leafFrequency;
+            if (query instanceof TermQuery) {
+                leafFrequency = termFrequency(leaf, ((TermQuery) query).getTerm());
+            } else {
+                if (weight == null) {
+                    weight = createWeight(query);
+                }
+                leafFrequency = count(leaf, weight);
+            }
+            if (key != null) {
+                cache.put(cacheHelper, key, leafFrequency);
+            }
+            frequency += leafFrequency;
+        }
+        if (frequencies != null) {
+            frequencies.put(value, frequency);
+        }
+        return frequency;
+    }
+
+    private long termFrequency(LeafReaderContext leaf, Term term) throws IOException {
+        TermsEnum termsEnum = termsEnums[leaf.ord];
+        if (termsEnum == null) {
+            final Terms terms = leaf.reader().terms(term.field());
+            if (terms == null) {
+                return 0;
+            }
+            termsEnum = termsEnums[leaf.ord] = terms.iterator();
+        }
+        if (termsEnum.seekExact(term.bytes()) == false) {
+            return 0;
+        }
+        if (filter == null) {
+            // Important - the doc freq includes deleted docs, like the size of the superset
+            // or we have this issue: https://github.com/elastic/elasticsearch/issues/7951
+            return termsEnum.docFreq();
+        }
+        final Bits bits = filterBits(leaf);
+        if (bits == null) {
+            return 0;
+        }
+        postings = termsEnum.postings(postings, PostingsEnum.NONE);
+        long count = 0;
+        for (int doc = postings.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = postings.nextDoc()) {
+            if (bits.get(doc)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the live documents of the segment that match the filter, or {@code null} if none match.
+     */
+    @Nullable
+    private Bits filterBits(LeafReaderContext leaf) throws IOException {
+        if (filterBits[leaf.ord] == null) {
+            if (filterWeight == null) {
+                filterWeight = searcher.createWeight(searcher.rewrite(filter), ScoreMode.COMPLETE_NO_SCORES, 1f);
+            }
+            final Scorer scorer = filterWeight.scorer(leaf);
+            if (scorer == null) {
+                filterBits[leaf.ord] = new Bits.MatchNoBits(leaf.reader().maxDoc());
+            } else {
+                DocIdSetIterator docs = scorer.iterator();
+                final Bits liveDocs = leaf.reader().getLiveDocs();
+                if (liveDocs != null) {
+                    docs = new FilteredDocIdSetIterator(docs) {
+                        @Override
+                        protected boolean match(int doc) {
+                            return liveDocs.get(doc);
+                        }
+                    };
+                }
+                final BitSet bits = BitSet.of(docs, leaf.reader().maxDoc());
+                filterBits[leaf.ord] = bits;
+            }
+        }
+        final Bits bits = filterBits[leaf.ord];
+        return bits instanceof Bits.MatchNoBits ? null : bits;
+    }
+
+    private Weight createWeight(Query query) throws IOException {
+        if (filter != null) {
+            query = new BooleanQuery.Builder()
+                    .add(query, Occur.FILTER)
+                    .add(filter, Occur.FILTER)
+                    .build();
+        }
+        return searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+    }
+
+    /**
+     * Counts the live documents of the segment that match the weight.
+     */
+    private static long count(LeafReaderContext leaf, Weight weight) throws IOException {
+        final Scorer scorer = weight.scorer(leaf);
+        if (scorer == null) {
+            return 0;
+        }
+        final Bits liveDocs = leaf.reader().getLiveDocs();
+        final DocIdSetIterator iterator = scorer.iterator();
+        long count = 0;
+        for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+            if (liveDocs == null || liveDocs.get(doc)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.significant;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.RemovalListener;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The node level cache of the background frequencies that the {@code significant_terms} and {@code significant_text}
+ * aggregations look up for their candidate terms. Frequencies are cached per segment so that they remain valid across
+ * refreshes, and the entries of a segment are invalidated when the segment is closed.
+ */
+public final class BackgroundFrequencyCache implements RemovalListener<BackgroundFrequencyCache.Key, Long>, Closeable {
+
+    public static final Setting<ByteSizeValue> INDICES_CACHE_BACKGROUND_FREQUENCY_SIZE_SETTING =
+            Setting.memorySizeSetting("indices.significant_terms.background_cache.size", "1%", Property.NodeScope);
+
+    private static final long VALUE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Long.class);
+
+    private final Cache<Key, Long> cache;
+    // the keys of the cached entries of each segment, to invalidate them when the segment is closed
+    private final Map<IndexReader.CacheKey, Set<Key>> segmentKeys = new ConcurrentHashMap<>();
+
+    public BackgroundFrequencyCache(Settings settings) {
+        final long sizeInBytes = INDICES_CACHE_BACKGROUND_FREQUENCY_SIZE_SETTING.get(settings).getBytes();
+        this.cache = CacheBuilder.<Key, Long>builder()
+                .setMaximumWeight(sizeInBytes)
+                .weigher((k, v) -> k.ramBytesUsed() + VALUE_RAM_BYTES_USED)
+                .removalListener(this)
+                .build();
+    }
+
+    /**
+     * Returns the cached frequency for the given key, or {@code null} if it is not cached.
+     */
+    @Nullable
+    Long get(Key key) {
+        return cache.get(key);
+    }
+
+    /**
+     * Caches the frequency for the given key until the segment of the given core cache helper is closed.
+     */
+    void put(IndexReader.CacheHelper coreCacheHelper, Key key, long frequency) {
+        assert coreCacheHelper.getKey() == key.coreKey;
+        final Set<Key> keys = segmentKeys.computeIfAbsent(key.coreKey, coreKey -> {
+            coreCacheHelper.addClosedListener(this::onClose);
+            return ConcurrentHashMap.newKeySet();
+        });
+        keys.add(key);
+        cache.put(key, frequency);
+    }
+
+    private void onClose(IndexReader.CacheKey coreKey) {
+        final Set<Key> keys = segmentKeys.remove(coreKey);
+        if (keys != null) {
+            for (Key key : keys) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    @Override
+    public void onRemoval(RemovalNotification<Key, Long> notification) {
+        final Set<Key> keys = segmentKeys.get(notification.getKey().coreKey);
+        if (keys != null) {
+            keys.remove(notification.getKey());
+        }
+    }
+
+    int count() {
+        return cache.count();
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+        segmentKeys.clear();
+    }
+
+    /**
+     * Identifies the frequency of a value of a field on a segment, among the live documents that match the background filter.
+     */
+    static final class Key implements Accountable {
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class);
+        // the default size of a filter that does not report its memory usage, as in Lucene's query cache
+        private static final long DEFAULT_FILTER_RAM_BYTES_USED = 1024;
+
+        private final IndexReader.CacheKey coreKey;
+        // only segment readers are cached, whose deletes only accumulate, so the number of deleted docs identifies their live docs
+        private final int numDeletedDocs;
+        private final String field;
+        @Nullable
+        private final Query filter;
+        private final String value;
+
+        Key(IndexReader.CacheKey coreKey, int numDeletedDocs, String field, @Nullable Query filter, String value) {
+            this.coreKey = Objects.requireNonNull(coreKey);
+            this.numDeletedDocs = numDeletedDocs;
+            this.field = Objects.requireNonNull(field);
+            this.filter = filter;
+            this.value = Objects.requireNonNull(value);
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            // the field name is shared by all entries, but each entry may hold its own instance of the filter
+            return BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(value)
+                    + (filter == null ? 0 : RamUsageEstimator.sizeOf(filter, DEFAULT_FILTER_RAM_BYTES_USED));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return coreKey == key.coreKey
+                    && numDeletedDocs == key.numDeletedDocs
+                    && field.equals(key.field)
+                    && Objects.equals(filter, key.filter)
+                    && value.equals(key.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(coreKey, numDeletedDocs, field, filter, value);
+        }
+
+        @Override
+        public String toString() {
+            return "Key{field=" + field + ", filter=" + filter + ", value=" + value + ", numDeletedDocs=" + numDeletedDocs + "}";
+        }
+    }
+}
@@ -20,20 +20,13 @@
 package org.elasticsearch.search.aggregations.bucket.significant;
 
 import org.apache.logging.log4j.LogManager;
-import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.index.PostingsEnum;
-import org.apache.lucene.index.Term;
-import org.apache.lucene.search.BooleanClause.Occur;
-import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
-import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.logging.DeprecationLogger;
-import org.elasticsearch.common.lucene.index.FilterableTermsEnum;
-import org.elasticsearch.common.lucene.index.FreqTermsEnum;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryShardContext;
@@ -68,7 +61,9 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
     private final String executionHint;
     private String indexedFieldName;
     private MappedFieldType fieldType;
-    private FilterableTermsEnum termsEnum;
+    private BackgroundFrequencies backgroundFrequencies;
+    @Nullable
+    private BackgroundFrequencyCache backgroundFrequencyCache;
     private int numberOfAggregatorsCreated;
     final Query filter;
     private final int supersetNumDocs;
@@ -115,40 +110,13 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
         return supersetNumDocs;
     }
 
-    private FilterableTermsEnum getTermsEnum(String field) throws IOException {
-        if (termsEnum != null) {
-            return termsEnum;
-        }
-        IndexReader reader = queryShardContext.getIndexReader();
-        if (numberOfAggregatorsCreated > 1) {
-            termsEnum = new FreqTermsEnum(reader, field, true, false, filter, queryShardContext.bigArrays());
-        } else {
-            termsEnum = new FilterableTermsEnum(reader, indexedFieldName, PostingsEnum.NONE, filter);
-        }
-        return termsEnum;
-    }
-
     private long getBackgroundFrequency(String value) throws IOException {
-        Query query = fieldType.termQuery(value, queryShardContext);
-        if (query instanceof TermQuery) {
-            // for types that use the inverted index, we prefer using a caching terms
-            // enum that will do a better job at reusing index inputs
-            Term term = ((TermQuery) query).getTerm();
-            FilterableTermsEnum termsEnum = getTermsEnum(term.field());
-            if (termsEnum.seekExact(term.bytes())) {
-                return termsEnum.docFreq();
-            } else {
-                return 0;
-            }
+        if (backgroundFrequencies == null) {
+            // several aggregators look up the frequencies of the same terms, remember them for the whole request
+            backgroundFrequencies = new BackgroundFrequencies(queryShardContext.getIndexReader(), indexedFieldName, filter,
+                    backgroundFrequencyCache, numberOfAggregatorsCreated > 1);
         }
-        // otherwise do it the naive way
-        if (filter != null) {
-            query = new BooleanQuery.Builder()
-                    .add(query, Occur.FILTER)
-                    .add(filter, Occur.FILTER)
-                    .build();
-        }
-        return queryShardContext.searcher().count(query);
+        return backgroundFrequencies.frequency(value, fieldType.termQuery(value, queryShardContext));
     }
 
     public long getBackgroundFrequency(BytesRef termBytes) throws IOException {
@@ -188,6 +156,9 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
         }
 
         numberOfAggregatorsCreated++;
+        if (searchContext.aggregations() != null) {
+            backgroundFrequencyCache = searchContext.aggregations().backgroundFrequencyCache();
+        }
         BucketCountThresholds bucketCountThresholds = new BucketCountThresholds(this.bucketCountThresholds);
         if (bucketCountThresholds.getShardSize() == SignificantTermsAggregationBuilder.DEFAULT_BUCKET_COUNT_THRESHOLDS.getShardSize()) {
             // The user has not made a shardSize selection .
@@ -354,12 +325,6 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
 
     @Override
     public void close() {
-        try {
-            if (termsEnum instanceof Releasable) {
-                ((Releasable) termsEnum).close();
-            }
-        } finally {
-            termsEnum = null;
-        }
+        backgroundFrequencies = null;
     }
 }
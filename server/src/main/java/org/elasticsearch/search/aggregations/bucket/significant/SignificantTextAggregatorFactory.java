@@ -19,18 +19,11 @@
 
 package org.elasticsearch.search.aggregations.bucket.significant;
 
-import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.index.PostingsEnum;
-import org.apache.lucene.index.Term;
-import org.apache.lucene.search.BooleanClause.Occur;
-import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
-import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lease.Releasable;
-import org.elasticsearch.common.lucene.index.FilterableTermsEnum;
-import org.elasticsearch.common.lucene.index.FreqTermsEnum;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryShardContext;
@@ -57,7 +50,9 @@ public class SignificantTextAggregatorFactory extends AggregatorFactory
     private String indexedFieldName;
     private MappedFieldType fieldType;
     private final String[] sourceFieldNames;
-    private FilterableTermsEnum termsEnum;
+    private BackgroundFrequencies backgroundFrequencies;
+    @Nullable
+    private BackgroundFrequencyCache backgroundFrequencyCache;
     private int numberOfAggregatorsCreated;
     private final Query filter;
     private final int supersetNumDocs;
@@ -110,40 +105,13 @@ public class SignificantTextAggregatorFactory extends AggregatorFactory
         return supersetNumDocs;
     }
 
-    private FilterableTermsEnum getTermsEnum(String field) throws IOException {
-        if (termsEnum != null) {
-            return termsEnum;
-        }
-        IndexReader reader = queryShardContext.getIndexReader();
-        if (numberOfAggregatorsCreated > 1) {
-            termsEnum = new FreqTermsEnum(reader, field, true, false, filter, queryShardContext.bigArrays());
-        } else {
-            termsEnum = new FilterableTermsEnum(reader, indexedFieldName, PostingsEnum.NONE, filter);
-        }
-        return termsEnum;
-    }
-
     private long getBackgroundFrequency(String value) throws IOException {
-        Query query = fieldType.termQuery(value, queryShardContext);
-        if (query instanceof TermQuery) {
-            // for types that use the inverted index, we prefer using a caching terms
-            // enum that will do a better job at reusing index inputs
-            Term term = ((TermQuery) query).getTerm();
-            FilterableTermsEnum termsEnum = getTermsEnum(term.field());
-            if (termsEnum.seekExact(term.bytes())) {
-                return termsEnum.docFreq();
-            } else {
-                return 0;
-            }
+        if (backgroundFrequencies == null) {
+            // several aggregators look up the frequencies of the same terms, remember them for the whole request
+            backgroundFrequencies = new BackgroundFrequencies(queryShardContext.getIndexReader(), indexedFieldName, filter,
+                    backgroundFrequencyCache, numberOfAggregatorsCreated > 1);
         }
-        // otherwise do it the naive way
-        if (filter != null) {
-            query = new BooleanQuery.Builder()
-                    .add(query, Occur.FILTER)
-                    .add(filter, Occur.FILTER)
-                    .build();
-        }
-        return queryShardContext.searcher().count(query);
+        return backgroundFrequencies.frequency(value, fieldType.termQuery(value, queryShardContext));
     }
 
     public long getBackgroundFrequency(BytesRef termBytes) throws IOException {
@@ -154,13 +122,7 @@ public class SignificantTextAggregatorFactory extends AggregatorFactory
 
     @Override
     public void close() {
-        try {
-            if (termsEnum instanceof Releasable) {
-                ((Releasable) termsEnum).close();
-            }
-        } finally {
-            termsEnum = null;
-        }
+        backgroundFrequencies = null;
     }
 
     @Override
@@ -172,6 +134,9 @@ public class SignificantTextAggregatorFactory extends AggregatorFactory
         }
 
         numberOfAggregatorsCreated++;
+        if (searchContext.aggregations() != null) {
+            backgroundFrequencyCache = searchContext.aggregations().backgroundFrequencyCache();
+        }
         BucketCountThresholds bucketCountThresholds = new BucketCountThresholds(this.bucketCountThresholds);
         if (bucketCountThresholds.getShardSize() == SignificantTextAggregationBuilder.DEFAULT_BUCKET_COUNT_THRESHOLDS.getShardSize()) {
             // The user has not made a shardSize selection.
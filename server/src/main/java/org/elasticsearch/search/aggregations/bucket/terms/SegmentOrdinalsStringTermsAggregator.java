@@ -0,0 +1,142 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.lucene.index.SortedSetDocValues.NO_MORE_ORDS;
+
+/**
+ * Variant of {@link StringTermsAggregator} that collects the ordinals of each segment, and only looks up the term of an ordinal the
+ * first time that it matches in the segment. This is beneficial for fields that have few unique values per segment, because it
+ * neither needs global ordinals, which are expensive to build on frequently refreshed indices, nor a hash lookup for every match.
+ */
+public class SegmentOrdinalsStringTermsAggregator extends StringTermsAggregator {
+
+    /**
+     * The maximum number of unique values per segment for this aggregator to be used instead of global ordinals.
+     */
+    static final long MAX_SEGMENT_VALUE_COUNT = 2048;
+
+    private final ValuesSource.Bytes.WithOrdinals valuesSource;
+    private final IncludeExclude.StringFilter includeExclude;
+
+    // For each ordinal of the current segment, the generation of the segment in the upper 32 bits and 1 + the bucket ordinal of
+    // its term in the lower 32 bits, 0 if the term is excluded. Entries of previous segments have an older generation, so the
+    // array doesn't need to be cleared between segments.
+    private LongArray segmentBucketOrds;
+    private long generation;
+
+    SegmentOrdinalsStringTermsAggregator(String name, AggregatorFactories factories, ValuesSource.Bytes.WithOrdinals valuesSource,
+            BucketOrder order, DocValueFormat format, BucketCountThresholds bucketCountThresholds,
+            IncludeExclude.StringFilter includeExclude, SearchContext context,
+            Aggregator parent, SubAggCollectionMode collectionMode, boolean showTermDocCountError,
+            List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
+        super(name, factories, valuesSource, order, format, bucketCountThresholds, includeExclude, context, parent, collectionMode,
+            showTermDocCountError, pipelineAggregators, metaData);
+        this.valuesSource = valuesSource;
+        this.includeExclude = includeExclude;
+        this.segmentBucketOrds = context.bigArrays().newLongArray(1, true);
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx,
+            final LeafBucketCollector sub) throws IOException {
+        final SortedSetDocValues segmentOrds = valuesSource.ordinalsValues(ctx);
+        segmentBucketOrds = context.bigArrays().grow(segmentBucketOrds, segmentOrds.getValueCount());
+        generation++;
+        final SortedDocValues singleValues = DocValues.unwrapSingleton(segmentOrds);
+        if (singleValues != null) {
+            return new LeafBucketCollectorBase(sub, segmentOrds) {
+                @Override
+                public void collect(int doc, long bucket) throws IOException {
+                    assert bucket == 0;
+                    if (singleValues.advanceExact(doc)) {
+                        final long bucketOrd = bucketOrd(segmentOrds, singleValues.ordValue());
+                        if (bucketOrd >= 0) {
+                            collectBucket(sub, doc, bucketOrd);
+                        }
+                    }
+                }
+            };
+        } else {
+            return new LeafBucketCollectorBase(sub, segmentOrds) {
+                @Override
+                public void collect(int doc, long bucket) throws IOException {
+                    assert bucket == 0;
+                    if (segmentOrds.advanceExact(doc)) {
+                        for (long segmentOrd = segmentOrds.nextOrd(); segmentOrd != NO_MORE_ORDS; segmentOrd = segmentOrds.nextOrd()) {
+                            final long bucketOrd = bucketOrd(segmentOrds, segmentOrd);
+                            if (bucketOrd >= 0) {
+                                collectBucket(sub, doc, bucketOrd);
+                            }
+                        }
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * Returns the bucket ordinal of the term of the given segment ordinal, or {@code -1} if the term is excluded.
+     */
+    private long bucketOrd(SortedSetDocValues segmentOrds, long segmentOrd) throws IOException {
+        final long entry = segmentBucketOrds.get(segmentOrd);
+        if ((entry >>> 32) == generation) {
+            return (entry & 0xFFFFFFFFL) - 1;
+        }
+        final BytesRef term = segmentOrds.lookupOrd(segmentOrd);
+        long bucketOrd = -1;
+        if (includeExclude == null || includeExclude.accept(term)) {
+            bucketOrd = bucketOrds.add(term);
+            if (bucketOrd < 0) { // already seen in a previous segment
+                bucketOrd = -1 - bucketOrd;
+            }
+        }
+        assert bucketOrd < Integer.MAX_VALUE;
+        segmentBucketOrds.set(segmentOrd, (generation << 32) | (bucketOrd + 1));
+        return bucketOrd;
+    }
+
+    @Override
+    public void doClose() {
+        super.doClose();
+        Releasables.close(segmentBucketOrds);
+    }
+}
@@ -20,6 +20,7 @@
 package org.elasticsearch.search.aggregations.bucket.terms;
 
 import org.apache.logging.log4j.LogManager;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.IndexSearcher;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.logging.DeprecationLogger;
@@ -50,7 +51,7 @@ import java.util.Map;
 public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSource> {
     private static final DeprecationLogger deprecationLogger = new DeprecationLogger(LogManager.getLogger(TermsAggregatorFactory.class));
 
-    static Boolean REMAP_GLOBAL_ORDS, COLLECT_SEGMENT_ORDS;
+    static Boolean REMAP_GLOBAL_ORDS, COLLECT_SEGMENT_ORDS, SKIP_GLOBAL_ORDS;
 
     private final BucketOrder order;
     private final IncludeExclude includeExclude;
@@ -159,6 +160,12 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                         + "include/exclude clauses");
             }
 
+            if (executionHint == null && skipGlobalOrds(valuesSource, searchContext.searcher(), parent)) {
+                final IncludeExclude.StringFilter filter = includeExclude == null ? null : includeExclude.convertToStringFilter(format);
+                return new SegmentOrdinalsStringTermsAggregator(name, factories, (ValuesSource.Bytes.WithOrdinals) valuesSource, order,
+                    format, bucketCountThresholds, filter, searchContext, parent, cm, showTermDocCountError, pipelineAggregators, metaData);
+            }
+
             return execution.create(name, factories, valuesSource, order, format,
                 bucketCountThresholds, includeExclude, searchContext, parent, cm, showTermDocCountError, pipelineAggregators, metaData);
         }
@@ -213,6 +220,34 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
         return SubAggCollectionMode.DEPTH_FIRST;
     }
 
+    /**
+     * Whether terms should be collected with the ordinals of each segment rather than with global ordinals. This is the case if
+     * the aggregation is at the top level, since under a parent bucket aggregation an aggregator, and its array of segment
+     * ordinals, would be created per parent bucket, and if all of the several segments have few unique values, so that looking
+     * up the terms of the ordinals that match in each segment is cheaper than building global ordinals.
+     */
+    static boolean skipGlobalOrds(ValuesSource valuesSource, IndexSearcher searcher, Aggregator parent) throws IOException {
+        if (parent != null || valuesSource instanceof ValuesSource.Bytes.WithOrdinals == false) {
+            return false;
+        }
+        if (SKIP_GLOBAL_ORDS != null) {
+            // We use SKIP_GLOBAL_ORDS to allow tests to force specific optimizations
+            return SKIP_GLOBAL_ORDS.booleanValue();
+        }
+        final List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        if (leaves.size() <= 1) {
+            // global ordinals are the ordinals of the only segment
+            return false;
+        }
+        final ValuesSource.Bytes.WithOrdinals ordinalsValuesSource = (ValuesSource.Bytes.WithOrdinals) valuesSource;
+        for (LeafReaderContext leaf : leaves) {
+            if (ordinalsValuesSource.ordinalsValues(leaf).getValueCount() > SegmentOrdinalsStringTermsAggregator.MAX_SEGMENT_VALUE_COUNT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Get the maximum global ordinal value for the provided {@link ValuesSource} or -1
      * if the values source is not an instance of {@link ValuesSource.Bytes.WithOrdinals}.
@@ -27,6 +27,7 @@ import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -88,14 +89,11 @@ abstract class AbstractInternalTDigestPercentiles extends InternalNumericMetrics
 
     @Override
     public AbstractInternalTDigestPercentiles reduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
-        TDigestState merged = null;
+        final List<TDigestState> states = new ArrayList<>(aggregations.size());
         for (InternalAggregation aggregation : aggregations) {
-            final AbstractInternalTDigestPercentiles percentiles = (AbstractInternalTDigestPercentiles) aggregation;
-            if (merged == null) {
-                merged = new TDigestState(percentiles.state.compression());
-            }
-            merged.add(percentiles.state);
+            states.add(((AbstractInternalTDigestPercentiles) aggregation).state);
         }
+        final TDigestState merged = TDigestState.merge(states.get(0).compression(), states);
         return createReduced(getName(), keys, merged, keyed, pipelineAggregators(), getMetaData());
     }
 
@@ -58,4 +58,9 @@ class AvgAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSource.Nu
                                             Map<String, Object> metaData) throws IOException {
         return new AvgAggregator(name, valuesSource, config.format(), searchContext, parent, pipelineAggregators, metaData);
     }
+
+    @Override
+    public boolean supportsParallelCollection() {
+        return readsValuesWithoutScript();
+    }
 }
@@ -71,4 +71,9 @@ class CardinalityAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesS
                 ? HyperLogLogPlusPlus.DEFAULT_PRECISION
                 : HyperLogLogPlusPlus.precisionFromThreshold(precisionThreshold);
     }
+
+    @Override
+    public boolean supportsParallelCollection() {
+        return readsValuesWithoutScript();
+    }
 }
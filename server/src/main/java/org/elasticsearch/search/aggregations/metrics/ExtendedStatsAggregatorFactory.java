@@ -68,4 +68,9 @@ class ExtendedStatsAggregatorFactory extends ValuesSourceAggregatorFactory<Value
         return new ExtendedStatsAggregator(name, valuesSource, config.format(), searchContext,
             parent, sigma, pipelineAggregators, metaData);
     }
+
+    @Override
+    public boolean supportsParallelCollection() {
+        return readsValuesWithoutScript();
+    }
 }
@@ -19,21 +19,23 @@
 
 package org.elasticsearch.search.aggregations.metrics;
 
+import com.carrotsearch.hppc.BitMixer;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.LongBitSet;
 import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.ByteArray;
-import org.elasticsearch.common.util.ByteUtils;
 import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.ObjectArray;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -47,6 +49,8 @@ import java.util.Set;
  *
  * This implementation is different from the original implementation in that it uses a hash table instead of a sorted list for linear
  * counting. Although this requires more space and makes hyperloglog (which is less accurate) used sooner, this is also considerably faster.
+ * Hash tables grow with the number of distinct values of their bucket, and hyperloglog registers are only allocated when a bucket is
+ * upgraded, packed on 6 bits, so that many buckets with few distinct values stay cheap.
  *
  * Trying to understand what this class does without having read the paper is considered adventurous.
  */
@@ -60,6 +64,12 @@ public final class HyperLogLogPlusPlus implements Releasable {
     private static final float MAX_LOAD_FACTOR = 0.75f;
     private static final int P2 = 25;
     private static final int BIAS_K = 6;
+    private static final int INITIAL_HASH_TABLE_CAPACITY = 16;
+    // run lengths are at most 65 - MIN_PRECISION, so they fit on 6 bits and 4 registers fit on 3 bytes
+    private static final int REGISTER_BITS = 6;
+    private static final int REGISTER_MASK = (1 << REGISTER_BITS) - 1;
+    private static final int REGISTERS_PER_GROUP = 4;
+    private static final int REGISTER_GROUP_SIZE_IN_BYTES = REGISTERS_PER_GROUP * REGISTER_BITS / Byte.SIZE;
 
     /**
      * Compute the required precision so that <code>count</code> distinct entries would be counted with linear counting.
@@ -73,10 +83,10 @@ public final class HyperLogLogPlusPlus implements Releasable {
     }
 
     /**
-     * Return the expected per-bucket memory usage for the given precision.
+     * Return the expected per-bucket memory usage for the given precision, once the bucket uses hyperloglog.
      */
     public static long memoryUsage(int precision) {
-        return 1L << precision;
+        return (1L << precision) / REGISTERS_PER_GROUP * REGISTER_GROUP_SIZE_IN_BYTES;
     }
 
     // these static tables come from the appendix of the paper
@@ -767,10 +777,16 @@ public final class HyperLogLogPlusPlus implements Releasable {
 
     private final BigArrays bigArrays;
     private final OpenBitSet algorithm;
-    private ByteArray runLens;
+    // the registers of the buckets that use hyperloglog, see registersStart
+    private ByteArray registers;
+    // for every bucket, 1 + the slot of its registers in the registers array, or 0 if it uses linear counting
+    private LongArray registerSlots;
+    private long usedRegisterSlots;
     private final Hashset hashSet;
     private final int p, m;
+    private final int registersSizeInBytes;
     private final double alphaMM;
+    private long maxBucket;
 
     public HyperLogLogPlusPlus(int precision, BigArrays bigArrays, long initialBucketCount) {
         if (precision < 4) {
@@ -781,10 +797,20 @@ public final class HyperLogLogPlusPlus implements Releasable {
         }
         p = precision;
         m = 1 << p;
+        registersSizeInBytes = Math.toIntExact(memoryUsage(p));
         this.bigArrays = bigArrays;
         algorithm = new OpenBitSet();
-        runLens = bigArrays.newByteArray(initialBucketCount << p);
-        hashSet = new Hashset(initialBucketCount);
+        boolean success = false;
+        try {
+            registers = bigArrays.newByteArray(0);
+            registerSlots = bigArrays.newLongArray(initialBucketCount);
+            hashSet = new Hashset(initialBucketCount);
+            success = true;
+        } finally {
+            if (success == false) {
+                Releasables.close(registers, registerSlots);
+            }
+        }
         final double alpha;
         switch (p) {
             case 4:
@@ -805,11 +831,22 @@ public final class HyperLogLogPlusPlus implements Releasable {
     }
 
     public long maxBucket() {
-        return runLens.size() >>> p;
+        return maxBucket;
     }
 
     private void ensureCapacity(long numBuckets) {
-        runLens = bigArrays.grow(runLens, numBuckets << p);
+        maxBucket = Math.max(maxBucket, numBuckets);
+    }
+
+    /**
+     * Return the estimated number of bytes that the sketch of the given bucket takes.
+     */
+    public long estimatedSizeInBytes(long bucket) {
+        if (algorithm.get(bucket) == LINEAR_COUNTING) {
+            return (long) hashSet.size(bucket) * Integer.BYTES;
+        } else {
+            return registersSizeInBytes;
+        }
     }
 
     public void merge(long thisBucket, HyperLogLogPlusPlus other, long otherBucket) {
@@ -835,10 +872,13 @@ public final class HyperLogLogPlusPlus implements Releasable {
             if (algorithm.get(thisBucket) != HYPERLOGLOG) {
                 upgradeToHll(thisBucket);
             }
-            final long thisStart = thisBucket << p;
-            final long otherStart = otherBucket << p;
+            final long thisStart = registersStart(thisBucket);
+            final long otherStart = other.registersStart(otherBucket);
             for (int i = 0; i < m; ++i) {
-                runLens.set(thisStart + i, (byte) Math.max(runLens.get(thisStart + i), other.runLens.get(otherStart + i)));
+                final int otherRunLen = other.getRegister(otherStart, i);
+                if (otherRunLen > getRegister(thisStart, i)) {
+                    setRegister(thisStart, i, otherRunLen);
+                }
             }
         }
     }
@@ -877,8 +917,42 @@ public final class HyperLogLogPlusPlus implements Releasable {
     }
 
     private void collectHll(long bucket, long index, int runLen) {
-        final long bucketIndex = (bucket << p) + index;
-        runLens.set(bucketIndex, (byte) Math.max(runLen, runLens.get(bucketIndex)));
+        final long start = registersStart(bucket);
+        if (runLen > getRegister(start, index)) {
+            setRegister(start, index, runLen);
+        }
+    }
+
+    /**
+     * Return the offset of the registers of the given bucket, which must use hyperloglog. Registers take
+     * {@link #REGISTER_BITS} bits and are packed by groups of {@link #REGISTERS_PER_GROUP} into
+     * {@link #REGISTER_GROUP_SIZE_IN_BYTES} little-endian bytes.
+     */
+    private long registersStart(long bucket) {
+        final long slot = registerSlots.get(bucket) - 1;
+        assert slot >= 0 : "bucket [" + bucket + "] does not use hyperloglog";
+        return slot * registersSizeInBytes;
+    }
+
+    private int getRegisterGroup(long offset) {
+        return (registers.get(offset) & 0xFF)
+            | (registers.get(offset + 1) & 0xFF) << 8
+            | (registers.get(offset + 2) & 0xFF) << 16;
+    }
+
+    private int getRegister(long start, long index) {
+        final int group = getRegisterGroup(start + (index / REGISTERS_PER_GROUP) * REGISTER_GROUP_SIZE_IN_BYTES);
+        return (group >>> ((index % REGISTERS_PER_GROUP) * REGISTER_BITS)) & REGISTER_MASK;
+    }
+
+    private void setRegister(long start, long index, int runLen) {
+        assert runLen >= 0 && runLen <= REGISTER_MASK : runLen;
+        final long offset = start + (index / REGISTERS_PER_GROUP) * REGISTER_GROUP_SIZE_IN_BYTES;
+        final int shift = (int) (index % REGISTERS_PER_GROUP) * REGISTER_BITS;
+        final int group = (getRegisterGroup(offset) & ~(REGISTER_MASK << shift)) | (runLen << shift);
+        registers.set(offset, (byte) group);
+        registers.set(offset + 1, (byte) (group >>> 8));
+        registers.set(offset + 2, (byte) (group >>> 16));
     }
 
     public long cardinality(long bucket) {
@@ -898,8 +972,9 @@ public final class HyperLogLogPlusPlus implements Releasable {
     private long cardinalityHll(long bucket) {
         double inverseSum = 0;
         int zeros = 0;
-        for (long i = bucket << p, end = i + m; i < end; ++i) {
-            final int runLen = runLens.get(i);
+        final long start = registersStart(bucket);
+        for (int i = 0; i < m; ++i) {
+            final int runLen = getRegister(start, i);
             inverseSum += 1. / (1L << runLen);
             if (runLen == 0) {
                 ++zeros;
@@ -924,12 +999,19 @@ public final class HyperLogLogPlusPlus implements Releasable {
         ensureCapacity(bucket + 1);
         final IntArray values = hashSet.values(bucket);
         try {
-            runLens.fill(bucket << p, (bucket << p) + m, (byte) 0);
+            registerSlots = bigArrays.grow(registerSlots, bucket + 1);
+            assert registerSlots.get(bucket) == 0 : "bucket [" + bucket + "] already uses hyperloglog";
+            final long slot = usedRegisterSlots++;
+            final long start = slot * registersSizeInBytes;
+            registers = bigArrays.grow(registers, start + registersSizeInBytes);
+            registers.fill(start, start + registersSizeInBytes, (byte) 0);
+            registerSlots.set(bucket, slot + 1);
+            algorithm.set(bucket);
             for (long i = 0; i < values.size(); ++i) {
                 final int encoded = values.get(i);
                 collectHllEncoded(bucket, encoded);
             }
-            algorithm.set(bucket);
+            hashSet.clear(bucket);
         } finally {
             Releasables.close(values);
         }
@@ -1031,7 +1113,7 @@ public final class HyperLogLogPlusPlus implements Releasable {
 
     @Override
     public void close() {
-        Releasables.close(runLens, hashSet.sizes);
+        Releasables.close(registers, registerSlots, hashSet);
     }
 
     private Object getComparableData(long bucket) {
@@ -1044,15 +1126,10 @@ public final class HyperLogLogPlusPlus implements Releasable {
             }
             return values;
         } else {
-            Map<Byte, Integer> values = new HashMap<>();
-            for (long i = 0; i < runLens.size(); i++) {
-                byte runLength = runLens.get((bucket << p) + i);
-                Integer numOccurances = values.get(runLength);
-                if (numOccurances == null) {
-                    values.put(runLength, 1);
-                } else {
-                    values.put(runLength, numOccurances + 1);
-                }
+            Map<Integer, Integer> values = new HashMap<>();
+            final long start = registersStart(bucket);
+            for (int i = 0; i < m; i++) {
+                values.merge(getRegister(start, i), 1, Integer::sum);
             }
             return values;
         }
@@ -1069,45 +1146,37 @@ public final class HyperLogLogPlusPlus implements Releasable {
     }
 
     /**
-     * We are actually using HyperLogLog's runLens array but interpreting it as a hash set for linear counting.
+     * Hash tables of encoded hashes for the buckets that use linear counting. Tables start small and double in size
+     * when they get full so that buckets with few distinct values only take a few bytes, up to {@code m / 4} ints,
+     * which is when the bucket is upgraded to hyperloglog.
      */
-    private class Hashset {
+    private class Hashset implements Releasable {
 
-        private final int capacity;
+        private final int maxCapacity;
         private final int threshold;
-        private final int mask;
         private IntArray sizes;
-        private final BytesRef readSpare;
-        private final ByteBuffer writeSpare;
+        private ObjectArray<IntArray> tables;
 
         Hashset(long initialBucketCount) {
-            capacity = m / 4; // because ints take 4 bytes
-            threshold = (int) (capacity * MAX_LOAD_FACTOR);
-            mask = capacity - 1;
-            sizes = bigArrays.newIntArray(initialBucketCount);
-            readSpare = new BytesRef();
-            writeSpare = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
-        }
-
-        private long index(long bucket, int index) {
-            return (bucket << p) + (index << 2);
-        }
-
-        private int get(long bucket, int index) {
-            runLens.get(index(bucket, index), 4, readSpare);
-            return ByteUtils.readIntLE(readSpare.bytes, readSpare.offset);
-        }
-
-        private void set(long bucket, int index, int value) {
-            writeSpare.putInt(0, value);
-            runLens.set(index(bucket, index), writeSpare.array(), 0, 4);
+            maxCapacity = m / 4; // because ints take 4 bytes
+            threshold = (int) (maxCapacity * MAX_LOAD_FACTOR);
+            boolean success = false;
+            try {
+                sizes = bigArrays.newIntArray(initialBucketCount);
+                tables = bigArrays.newObjectArray(initialBucketCount);
+                success = true;
+            } finally {
+                if (success == false) {
+                    Releasables.close(sizes, tables);
+                }
+            }
         }
 
         private int recomputedSize(long bucket) {
+            final IntArray table = tables.get(bucket);
             int size = 0;
-            for (int i = 0; i <= mask; ++i) {
-                final int v = get(bucket, i);
-                if (v != 0) {
+            for (long i = 0; table != null && i < table.size(); ++i) {
+                if (table.get(i) != 0) {
                     ++size;
                 }
             }
@@ -1128,17 +1197,46 @@ public final class HyperLogLogPlusPlus implements Releasable {
          * or the new set size if it was added.
          */
         public int add(long bucket, int k) {
-            sizes = bigArrays.grow(sizes, bucket + 1);
             assert k != 0;
-            for (int i = (k & mask);; i = (i + 1) & mask) {
-                final int v = get(bucket, i);
+            sizes = bigArrays.grow(sizes, bucket + 1);
+            tables = bigArrays.grow(tables, bucket + 1);
+            IntArray table = tables.get(bucket);
+            if (table == null) {
+                table = bigArrays.newIntArray(Math.min(INITIAL_HASH_TABLE_CAPACITY, maxCapacity));
+                tables.set(bucket, table);
+            } else if (sizes.get(bucket) >= table.size() * MAX_LOAD_FACTOR && table.size() < maxCapacity) {
+                table = grow(bucket, table);
+            }
+            if (insert(table, k)) {
+                return sizes.increment(bucket, 1);
+            }
+            return -1;
+        }
+
+        private IntArray grow(long bucket, IntArray table) {
+            final IntArray grown = bigArrays.newIntArray(table.size() * 2);
+            for (long i = 0; i < table.size(); ++i) {
+                final int k = table.get(i);
+                if (k != 0) {
+                    insert(grown, k);
+                }
+            }
+            tables.set(bucket, grown);
+            Releasables.close(table);
+            return grown;
+        }
+
+        private boolean insert(IntArray table, int k) {
+            final int mask = (int) table.size() - 1;
+            for (int i = BitMixer.mix32(k) & mask;; i = (i + 1) & mask) {
+                final int v = table.get(i);
                 if (v == 0) {
                     // means unused, take it!
-                    set(bucket, i, k);
-                    return sizes.increment(bucket, 1);
+                    table.set(i, k);
+                    return true;
                 } else if (v == k) {
                     // k is already in the set
-                    return -1;
+                    return false;
                 }
             }
         }
@@ -1149,9 +1247,10 @@ public final class HyperLogLogPlusPlus implements Releasable {
             if (size == 0) {
                 return values;
             }
+            final IntArray table = tables.get(bucket);
             int i = 0;
-            for (int j = 0; j < capacity; ++j) {
-                final int k = get(bucket, j);
+            for (long j = 0; j < table.size(); ++j) {
+                final int k = table.get(j);
                 if (k != 0) {
                     values.set(i++, k);
                 }
@@ -1160,6 +1259,23 @@ public final class HyperLogLogPlusPlus implements Releasable {
             return values;
         }
 
+        /**
+         * Release the hash table of the given bucket once it has been upgraded to hyperloglog.
+         */
+        void clear(long bucket) {
+            if (bucket < tables.size()) {
+                Releasables.close(tables.set(bucket, null));
+                sizes.set(bucket, 0);
+            }
+        }
+
+        @Override
+        public void close() {
+            for (long i = 0; i < tables.size(); ++i) {
+                Releasables.close(tables.get(i));
+            }
+            Releasables.close(sizes, tables);
+        }
     }
 
     public void writeTo(long bucket, StreamOutput out) throws IOException {
@@ -1167,15 +1283,37 @@ public final class HyperLogLogPlusPlus implements Releasable {
         if (algorithm.get(bucket) == LINEAR_COUNTING) {
             out.writeBoolean(LINEAR_COUNTING);
             try (IntArray hashes = hashSet.values(bucket)) {
-                out.writeVLong(hashes.size());
-                for (long i = 0; i < hashes.size(); ++i) {
-                    out.writeInt(hashes.get(i));
+                if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                    // sorted so that hashes can be written as the deltas to the previous hash, which take fewer bytes
+                    final long[] sorted = new long[Math.toIntExact(hashes.size())];
+                    for (int i = 0; i < sorted.length; ++i) {
+                        sorted[i] = Integer.toUnsignedLong(hashes.get(i));
+                    }
+                    Arrays.sort(sorted);
+                    out.writeVInt(sorted.length);
+                    long previous = 0;
+                    for (long hash : sorted) {
+                        out.writeVLong(hash - previous);
+                        previous = hash;
+                    }
+                } else {
+                    out.writeVLong(hashes.size());
+                    for (long i = 0; i < hashes.size(); ++i) {
+                        out.writeInt(hashes.get(i));
+                    }
                 }
             }
         } else {
             out.writeBoolean(HYPERLOGLOG);
-            for (long i = bucket << p, end = i + m; i < end; ++i) {
-                out.writeByte(runLens.get(i));
+            final long start = registersStart(bucket);
+            if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                final BytesRef packed = new BytesRef();
+                registers.get(start, registersSizeInBytes, packed);
+                out.writeBytes(packed.bytes, packed.offset, packed.length);
+            } else {
+                for (int i = 0; i < m; ++i) {
+                    out.writeByte((byte) getRegister(start, i));
+                }
             }
         }
     }
@@ -1183,18 +1321,35 @@ public final class HyperLogLogPlusPlus implements Releasable {
     public static HyperLogLogPlusPlus readFrom(StreamInput in, BigArrays bigArrays) throws IOException {
         final int precision = in.readVInt();
         HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(precision, bigArrays, 1);
+        counts.ensureCapacity(1);
         final boolean algorithm = in.readBoolean();
         if (algorithm == LINEAR_COUNTING) {
             counts.algorithm.clear(0);
-            final long size = in.readVLong();
-            for (long i = 0; i < size; ++i) {
-                final int encoded = in.readInt();
-                counts.hashSet.add(0, encoded);
+            if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+                final int size = in.readVInt();
+                long hash = 0;
+                for (int i = 0; i < size; ++i) {
+                    hash += in.readVLong();
+                    counts.hashSet.add(0, (int) hash);
+                }
+            } else {
+                final long size = in.readVLong();
+                for (long i = 0; i < size; ++i) {
+                    final int encoded = in.readInt();
+                    counts.hashSet.add(0, encoded);
+                }
             }
         } else {
-            counts.algorithm.set(0);
-            for (int i = 0; i < counts.m; ++i) {
-                counts.runLens.set(i, in.readByte());
+            counts.upgradeToHll(0);
+            final long start = counts.registersStart(0);
+            if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+                final byte[] packed = new byte[counts.registersSizeInBytes];
+                in.readBytes(packed, 0, packed.length);
+                counts.registers.set(start, packed, 0, packed.length);
+            } else {
+                for (int i = 0; i < counts.m; ++i) {
+                    counts.setRegister(start, i, in.readByte());
+                }
             }
         }
         return counts;
@@ -84,6 +84,11 @@ public final class InternalCardinality extends InternalNumericMetricsAggregation
         return counts;
     }
 
+    @Override
+    public long estimatedSizeInBytes() {
+        return BASE_SIZE_IN_BYTES + (counts == null ? 0 : counts.estimatedSizeInBytes(0));
+    }
+
     @Override
     public InternalAggregation reduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
         InternalCardinality reduced = null;
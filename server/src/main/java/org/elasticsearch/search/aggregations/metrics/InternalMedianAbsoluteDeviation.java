@@ -27,6 +27,7 @@ import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -81,11 +82,11 @@ public class InternalMedianAbsoluteDeviation extends InternalNumericMetricsAggre
 
     @Override
     public InternalAggregation reduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
-        final TDigestState valueMerged = new TDigestState(valuesSketch.compression());
+        final List<TDigestState> valuesSketches = new ArrayList<>(aggregations.size());
         for (InternalAggregation aggregation : aggregations) {
-            final InternalMedianAbsoluteDeviation madAggregation = (InternalMedianAbsoluteDeviation) aggregation;
-            valueMerged.add(madAggregation.valuesSketch);
+            valuesSketches.add(((InternalMedianAbsoluteDeviation) aggregation).valuesSketch);
         }
+        final TDigestState valueMerged = TDigestState.merge(valuesSketch.compression(), valuesSketches);
 
         return new InternalMedianAbsoluteDeviation(name, pipelineAggregators(), metaData, format, valueMerged);
     }
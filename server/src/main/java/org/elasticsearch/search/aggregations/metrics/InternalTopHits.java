@@ -86,6 +86,20 @@ public class InternalTopHits extends InternalAggregation implements TopHits {
         return searchHits;
     }
 
+    /**
+     * A rough estimate of the heap used by a hit without its source.
+     */
+    private static final long HIT_BASE_SIZE_IN_BYTES = 256;
+
+    @Override
+    public long estimatedSizeInBytes() {
+        long size = BASE_SIZE_IN_BYTES;
+        for (SearchHit hit : searchHits.getHits()) {
+            size += HIT_BASE_SIZE_IN_BYTES + hit.getSourceLength();
+        }
+        return size;
+    }
+
     TopDocsAndMaxScore getTopDocs() {
         return topDocs;
     }
@@ -58,4 +58,9 @@ class MaxAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSource.Nu
                                             Map<String, Object> metaData) throws IOException {
         return new MaxAggregator(name, config, valuesSource, searchContext, parent, pipelineAggregators, metaData);
     }
+
+    @Override
+    public boolean supportsParallelCollection() {
+        return readsValuesWithoutScript();
+    }
 }
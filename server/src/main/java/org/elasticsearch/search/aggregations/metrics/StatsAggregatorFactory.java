@@ -63,4 +63,9 @@ class StatsAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSource.
                                             Map<String, Object> metaData) throws IOException {
         return new StatsAggregator(name, valuesSource, config.format(), searchContext, parent, pipelineAggregators, metaData);
     }
+
+    @Override
+    public boolean supportsParallelCollection() {
+        return readsValuesWithoutScript();
+    }
 }
@@ -63,4 +63,9 @@ class SumAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSource.Nu
                                             Map<String, Object> metaData) throws IOException {
         return new SumAggregator(name, valuesSource, config.format(), searchContext, parent, pipelineAggregators, metaData);
     }
+
+    @Override
+    public boolean supportsParallelCollection() {
+        return readsValuesWithoutScript();
+    }
 }
@@ -20,10 +20,14 @@ package org.elasticsearch.search.aggregations.metrics;
 
 import com.tdunning.math.stats.AVLTreeDigest;
 import com.tdunning.math.stats.Centroid;
+import org.apache.lucene.util.IntroSorter;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Iterator;
 
 /**
@@ -46,9 +50,48 @@ public class TDigestState extends AVLTreeDigest {
     public static void write(TDigestState state, StreamOutput out) throws IOException {
         out.writeDouble(state.compression);
         out.writeVInt(state.centroidCount());
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            writeCompact(state, out);
+        } else {
+            for (Centroid centroid : state.centroids()) {
+                out.writeDouble(centroid.mean());
+                out.writeVLong(centroid.count());
+            }
+        }
+    }
+
+    /**
+     * Centroids are sorted by mean, so means are written as the deltas of their sortable bits to the previous mean, without the
+     * trailing zeros that all deltas share, which there are many of when values are integers. Counts are written after the means.
+     */
+    private static void writeCompact(TDigestState state, StreamOutput out) throws IOException {
+        final int centroidCount = state.centroidCount();
+        if (centroidCount == 0) {
+            return;
+        }
+        final long[] sortableMeans = new long[centroidCount];
+        final int[] counts = new int[centroidCount];
+        int i = 0;
         for (Centroid centroid : state.centroids()) {
-            out.writeDouble(centroid.mean());
-            out.writeVLong(centroid.count());
+            sortableMeans[i] = NumericUtils.doubleToSortableLong(centroid.mean());
+            counts[i] = centroid.count();
+            i++;
+        }
+        int shift = Long.SIZE - 1;
+        for (i = 1; i < centroidCount; i++) {
+            final long delta = sortableMeans[i] - sortableMeans[i - 1];
+            if (delta != 0) {
+                shift = Math.min(shift, Long.numberOfTrailingZeros(delta));
+            }
+        }
+        out.writeLong(sortableMeans[0]);
+        out.writeByte((byte) shift);
+        for (i = 1; i < centroidCount; i++) {
+            // deltas may overflow when means go from large negative to large positive values, hence the zig-zag encoding
+            out.writeZLong((sortableMeans[i] - sortableMeans[i - 1]) >>> shift);
+        }
+        for (i = 0; i < centroidCount; i++) {
+            out.writeVInt(counts[i]);
         }
     }
 
@@ -56,12 +99,112 @@ public class TDigestState extends AVLTreeDigest {
         double compression = in.readDouble();
         TDigestState state = new TDigestState(compression);
         int n = in.readVInt();
-        for (int i = 0; i < n; i++) {
-            state.add(in.readDouble(), in.readVInt());
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            readCompact(state, n, in);
+        } else {
+            for (int i = 0; i < n; i++) {
+                state.add(in.readDouble(), in.readVInt());
+            }
         }
         return state;
     }
 
+    private static void readCompact(TDigestState state, int centroidCount, StreamInput in) throws IOException {
+        if (centroidCount == 0) {
+            return;
+        }
+        final double[] means = new double[centroidCount];
+        long sortableMean = in.readLong();
+        means[0] = NumericUtils.sortableLongToDouble(sortableMean);
+        final int shift = in.readByte();
+        for (int i = 1; i < centroidCount; i++) {
+            sortableMean += in.readZLong() << shift;
+            means[i] = NumericUtils.sortableLongToDouble(sortableMean);
+        }
+        for (int i = 0; i < centroidCount; i++) {
+            state.add(means[i], in.readVInt());
+        }
+    }
+
+    /**
+     * Merges the given digests in a single sorted pass over all of their centroids, which is much cheaper than adding them to a
+     * new digest one after the other when there are many of them, like when reducing the results of many shards. Adjacent
+     * centroids are combined as long as the combined centroid stays within the size bound of the digest at its quantile, except
+     * for the first and last centroids so that the minimum and maximum are preserved.
+     */
+    public static TDigestState merge(double compression, Collection<TDigestState> states) {
+        int centroidCount = 0;
+        for (TDigestState state : states) {
+            centroidCount += state.centroidCount();
+        }
+        final double[] means = new double[centroidCount];
+        final long[] counts = new long[centroidCount];
+        long totalCount = 0;
+        int i = 0;
+        for (TDigestState state : states) {
+            for (Centroid centroid : state.centroids()) {
+                means[i] = centroid.mean();
+                counts[i] = centroid.count();
+                totalCount += centroid.count();
+                i++;
+            }
+        }
+        new IntroSorter() {
+            double pivot;
+
+            @Override
+            protected void setPivot(int i) {
+                pivot = means[i];
+            }
+
+            @Override
+            protected int comparePivot(int j) {
+                return Double.compare(pivot, means[j]);
+            }
+
+            @Override
+            protected int compare(int i, int j) {
+                return Double.compare(means[i], means[j]);
+            }
+
+            @Override
+            protected void swap(int i, int j) {
+                final double mean = means[i];
+                means[i] = means[j];
+                means[j] = mean;
+                final long count = counts[i];
+                counts[i] = counts[j];
+                counts[j] = count;
+            }
+        }.sort(0, centroidCount);
+
+        final TDigestState merged = new TDigestState(compression);
+        double mean = 0;
+        long count = 0;
+        long countBefore = 0;
+        for (i = 0; i < centroidCount; i++) {
+            if (i > 1 && i < centroidCount - 1) {
+                final long combinedCount = count + counts[i];
+                final double q = (countBefore + combinedCount / 2.0) / totalCount;
+                if (combinedCount <= Integer.MAX_VALUE && combinedCount <= 4 * totalCount * q * (1 - q) / compression) {
+                    mean += (means[i] - mean) * counts[i] / combinedCount;
+                    count = combinedCount;
+                    continue;
+                }
+            }
+            if (i > 0) {
+                merged.add(mean, (int) count);
+                countBefore += count;
+            }
+            mean = means[i];
+            count = counts[i];
+        }
+        if (centroidCount > 0) {
+            merged.add(mean, (int) count);
+        }
+        return merged;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null || obj instanceof TDigestState == false) {
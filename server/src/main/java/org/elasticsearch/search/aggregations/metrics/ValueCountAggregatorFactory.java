@@ -57,4 +57,9 @@ class ValueCountAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSo
                                             Map<String, Object> metaData) throws IOException {
         return new ValueCountAggregator(name, valuesSource, searchContext, parent, pipelineAggregators, metaData);
     }
+
+    @Override
+    public boolean supportsParallelCollection() {
+        return readsValuesWithoutScript();
+    }
 }
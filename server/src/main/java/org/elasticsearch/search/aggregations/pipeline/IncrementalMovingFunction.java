@@ -0,0 +1,408 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.pipeline;
+
+import org.elasticsearch.script.Script;
+import org.elasticsearch.script.ScriptType;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluates one of the {@link MovingFunctions} over a window that slides forward across the values of a
+ * {@code moving_fn} aggregation. Rather than scanning the whole window for every bucket, the state of the function is
+ * updated with the values that enter and leave the window. To bound the accumulation of floating point errors, the state
+ * is rebuilt from scratch once the window has slid by as many values as it holds, which keeps the amortized cost per
+ * bucket constant.
+ */
+abstract class IncrementalMovingFunction {
+
+    private static final String NUMBER = "(\\d+(?:\\.\\d*)?|\\.\\d+)";
+    private static final Pattern SIMPLE = Pattern.compile("MovingFunctions\\.(max|min|sum|unweightedAvg)\\(values\\)");
+    private static final Pattern STD_DEV =
+        Pattern.compile("MovingFunctions\\.stdDev\\(values,MovingFunctions\\.unweightedAvg\\(values\\)\\)");
+    private static final Pattern EWMA = Pattern.compile("MovingFunctions\\.ewma\\(values," + NUMBER + "\\)");
+    private static final Pattern HOLT = Pattern.compile("MovingFunctions\\.holt\\(values," + NUMBER + "," + NUMBER + "\\)");
+
+    // the window that the state currently covers
+    private int from;
+    private int to;
+    // the number of values that left the window since the state was last rebuilt
+    private int removedSinceRebuild;
+
+    /**
+     * Returns an incremental version of the given {@code moving_fn} script if it only calls one of the built-in
+     * {@link MovingFunctions} on the window, or {@code null} if the script must be executed.
+     */
+    static IncrementalMovingFunction forScript(Script script) {
+        if (script.getType() != ScriptType.INLINE || "painless".equals(script.getLang()) == false) {
+            return null;
+        }
+        String source = script.getIdOrCode().replaceAll("\\s+", "");
+        if (source.startsWith("return")) {
+            source = source.substring("return".length());
+        }
+        if (source.endsWith(";")) {
+            source = source.substring(0, source.length() - 1);
+        }
+        Matcher matcher = SIMPLE.matcher(source);
+        if (matcher.matches()) {
+            switch (matcher.group(1)) {
+                case "max":
+                    return new Max();
+                case "min":
+                    return new Min();
+                case "sum":
+                    return new Sum();
+                case "unweightedAvg":
+                    return new UnweightedAvg();
+                default:
+                    throw new AssertionError("unexpected function [" + matcher.group(1) + "]");
+            }
+        }
+        if (STD_DEV.matcher(source).matches()) {
+            return new StdDev();
+        }
+        matcher = EWMA.matcher(source);
+        if (matcher.matches()) {
+            return new Ewma(Double.parseDouble(matcher.group(1)));
+        }
+        matcher = HOLT.matcher(source);
+        if (matcher.matches()) {
+            return new Holt(Double.parseDouble(matcher.group(1)), Double.parseDouble(matcher.group(2)));
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value of the function over {@code values[newFrom, newTo)}. Neither bound may decrease between calls.
+     */
+    final double apply(double[] values, int newFrom, int newTo) {
+        assert newFrom <= newTo && newFrom >= from && newTo >= to
+            : "window moved from [" + from + ", " + to + ") to [" + newFrom + ", " + newTo + ")";
+        if (newFrom >= to || removedSinceRebuild >= to - from) {
+            reset();
+            from = newFrom;
+            to = newFrom;
+            removedSinceRebuild = 0;
+        }
+        while (from < newFrom) {
+            remove(values, from, to - from);
+            from++;
+            removedSinceRebuild++;
+        }
+        while (to < newTo) {
+            add(values, to, to - from);
+            to++;
+        }
+        return value(values, from, to);
+    }
+
+    /**
+     * Clears the state so that it covers an empty window.
+     */
+    abstract void reset();
+
+    /**
+     * Adds {@code values[index]} at the end of the window, which holds {@code count} values before the addition.
+     */
+    abstract void add(double[] values, int index, int count);
+
+    /**
+     * Removes {@code values[index]} from the start of the window, which holds {@code count} values before the removal.
+     */
+    abstract void remove(double[] values, int index, int count);
+
+    /**
+     * Returns the value of the function over {@code values[from, to)}.
+     */
+    abstract double value(double[] values, int from, int to);
+
+    /**
+     * See {@link MovingFunctions#sum(double[])}.
+     */
+    static class Sum extends IncrementalMovingFunction {
+        double sum;
+
+        @Override
+        void reset() {
+            sum = 0;
+        }
+
+        @Override
+        void add(double[] values, int index, int count) {
+            sum += values[index];
+        }
+
+        @Override
+        void remove(double[] values, int index, int count) {
+            sum -= values[index];
+        }
+
+        @Override
+        double value(double[] values, int from, int to) {
+            return from == to ? 0.0 : sum;
+        }
+    }
+
+    /**
+     * See {@link MovingFunctions#unweightedAvg(double[])}.
+     */
+    static class UnweightedAvg extends Sum {
+        @Override
+        double value(double[] values, int from, int to) {
+            return from == to ? Double.NaN : sum / (to - from);
+        }
+    }
+
+    /**
+     * See {@link MovingFunctions#stdDev(double[], double)} with the {@link MovingFunctions#unweightedAvg(double[])}
+     * of the window. The sums are of the differences to the first value after a rebuild, which avoids the cancellation
+     * of large sums of squares when the values are large compared to their deviation.
+     */
+    static class StdDev extends IncrementalMovingFunction {
+        private boolean hasShift;
+        private double shift;
+        private double sum;
+        private double sumOfSquares;
+
+        @Override
+        void reset() {
+            hasShift = false;
+            sum = 0;
+            sumOfSquares = 0;
+        }
+
+        @Override
+        void add(double[] values, int index, int count) {
+            if (hasShift == false) {
+                shift = values[index];
+                hasShift = true;
+            }
+            double delta = values[index] - shift;
+            sum += delta;
+            sumOfSquares += delta * delta;
+        }
+
+        @Override
+        void remove(double[] values, int index, int count) {
+            double delta = values[index] - shift;
+            sum -= delta;
+            sumOfSquares -= delta * delta;
+        }
+
+        @Override
+        double value(double[] values, int from, int to) {
+            if (from == to) {
+                return Double.NaN;
+            }
+            int count = to - from;
+            double mean = sum / count;
+            return Math.sqrt(Math.max(0, sumOfSquares / count - mean * mean));
+        }
+    }
+
+    /**
+     * Keeps the indices of the values that may become the extreme of the window in a monotonic queue, so that the
+     * extreme is always at its head.
+     */
+    abstract static class Extreme extends IncrementalMovingFunction {
+        private int[] queue;
+        private int head;
+        private int tail;
+
+        /**
+         * Whether {@code value} replaces {@code previous} as a candidate for the extreme of the window.
+         */
+        abstract boolean replaces(double value, double previous);
+
+        @Override
+        void reset() {
+            head = 0;
+            tail = 0;
+        }
+
+        @Override
+        void add(double[] values, int index, int count) {
+            if (queue == null) {
+                // there are at most as many additions between two resets as values
+                queue = new int[values.length];
+            }
+            while (tail > head && replaces(values[index], values[queue[tail - 1]])) {
+                tail--;
+            }
+            queue[tail++] = index;
+        }
+
+        @Override
+        void remove(double[] values, int index, int count) {
+            if (queue[head] == index) {
+                head++;
+            }
+        }
+
+        @Override
+        double value(double[] values, int from, int to) {
+            return head == tail ? Double.NaN : values[queue[head]];
+        }
+    }
+
+    /**
+     * See {@link MovingFunctions#max(double[])}.
+     */
+    static class Max extends Extreme {
+        @Override
+        boolean replaces(double value, double previous) {
+            return Double.compare(value, previous) >= 0;
+        }
+    }
+
+    /**
+     * See {@link MovingFunctions#min(double[])}.
+     */
+    static class Min extends Extreme {
+        @Override
+        boolean replaces(double value, double previous) {
+            return Double.compare(value, previous) <= 0;
+        }
+    }
+
+    /**
+     * See {@link MovingFunctions#ewma(double[], double)}. Over a window {@code v[0..m)} the average is
+     * {@code alpha * S + (1 - alpha)^m * v[0]} where {@code S} is the sum of the values weighted by
+     * {@code (1 - alpha)^(m - 1 - i)}, which can be updated as values enter and leave the window.
+     */
+    static class Ewma extends IncrementalMovingFunction {
+        private final double alpha;
+        private final double decay;
+        private double weightedSum;
+
+        Ewma(double alpha) {
+            this.alpha = alpha;
+            this.decay = 1 - alpha;
+        }
+
+        @Override
+        void reset() {
+            weightedSum = 0;
+        }
+
+        @Override
+        void add(double[] values, int index, int count) {
+            weightedSum = decay * weightedSum + values[index];
+        }
+
+        @Override
+        void remove(double[] values, int index, int count) {
+            weightedSum -= Math.pow(decay, count - 1) * values[index];
+        }
+
+        @Override
+        double value(double[] values, int from, int to) {
+            if (from == to) {
+                return Double.NaN;
+            }
+            return alpha * weightedSum + Math.pow(decay, to - from) * values[from];
+        }
+    }
+
+    /**
+     * See {@link MovingFunctions#holt(double[], double, double)}. The smoothed value and trend are a linear recurrence
+     * {@code x[k] = A * x[k - 1] + B * v[k]} that starts from {@code x[0] = (v[0], 0)}, so over a window {@code v[0..m)}
+     * they are {@code Y + A^(m - 1) * ((1, 0) - B) * v[0]} where {@code Y} is the sum of {@code A^(m - 1 - i) * B * v[i]},
+     * which can be updated as values enter and leave the window.
+     */
+    static class Holt extends IncrementalMovingFunction {
+        // A = [[a00, a01], [a10, a11]], B = [b0, b1]
+        private final double a00;
+        private final double a01;
+        private final double a10;
+        private final double a11;
+        private final double b0;
+        private final double b1;
+        private double y0;
+        private double y1;
+
+        Holt(double alpha, double beta) {
+            a00 = 1 - alpha;
+            a01 = 1 - alpha;
+            a10 = -alpha * beta;
+            a11 = 1 - alpha * beta;
+            b0 = alpha;
+            b1 = alpha * beta;
+        }
+
+        @Override
+        void reset() {
+            y0 = 0;
+            y1 = 0;
+        }
+
+        @Override
+        void add(double[] values, int index, int count) {
+            double v = values[index];
+            double next0 = a00 * y0 + a01 * y1 + b0 * v;
+            double next1 = a10 * y0 + a11 * y1 + b1 * v;
+            y0 = next0;
+            y1 = next1;
+        }
+
+        @Override
+        void remove(double[] values, int index, int count) {
+            double[] p = power(count - 1);
+            double v = values[index];
+            y0 -= (p[0] * b0 + p[1] * b1) * v;
+            y1 -= (p[2] * b0 + p[3] * b1) * v;
+        }
+
+        @Override
+        double value(double[] values, int from, int to) {
+            if (from == to) {
+                return Double.NaN;
+            }
+            double[] p = power(to - from - 1);
+            double v = values[from];
+            return y0 + (p[0] * (1 - b0) - p[1] * b1) * v;
+        }
+
+        /**
+         * Returns {@code A^n} as {@code [a00, a01, a10, a11]}.
+         */
+        private double[] power(int n) {
+            double[] result = new double[] {1, 0, 0, 1};
+            double[] square = new double[] {a00, a01, a10, a11};
+            while (n > 0) {
+                if ((n & 1) == 1) {
+                    result = multiply(result, square);
+                }
+                square = multiply(square, square);
+                n >>= 1;
+            }
+            return result;
+        }
+
+        private static double[] multiply(double[] x, double[] y) {
+            return new double[] {
+                x[0] * y[0] + x[1] * y[2], x[0] * y[1] + x[1] * y[3],
+                x[2] * y[0] + x[3] * y[2], x[2] * y[1] + x[3] * y[3]
+            };
+        }
+    }
+}
@@ -124,12 +124,18 @@ public class MovFnPipelineAggregator extends PipelineAggregator {
             vars.putAll(script.getParams());
         }
 
-        MovingFunctionScript executableScript = scriptFactory.newInstance();
+        // The built-in functions are evaluated incrementally as the window slides instead of executing the script on each window.
+        // The script is still compiled above so that it goes through the same checks as any other script.
+        IncrementalMovingFunction incrementalFunction = IncrementalMovingFunction.forScript(script);
+        MovingFunctionScript executableScript = incrementalFunction == null ? scriptFactory.newInstance() : null;
 
-        List<Double> values = buckets.stream()
+        double[] values = buckets.stream()
             .map(b -> resolveBucketValue(histo, b, bucketsPaths()[0], gapPolicy))
             .filter(v -> v != null && v.isNaN() == false)
-            .collect(Collectors.toList());
+            .mapToDouble(Double::doubleValue)
+            .toArray();
+        // reused for consecutive windows of the same length, which is all of them once the window is full
+        double[] windowValues = null;
 
         int index = 0;
         for (InternalMultiBucketAggregation.InternalBucket bucket : buckets) {
@@ -145,12 +151,16 @@ public class MovFnPipelineAggregator extends PipelineAggregator {
                 // don't need null checks, etc.
                 int fromIndex = clamp(index - window + shift, values);
                 int toIndex = clamp(index + shift, values);
-                double movavg = executableScript.execute(
-                    vars,
-                    values.subList(fromIndex, toIndex).stream()
-                        .mapToDouble(Double::doubleValue)
-                        .toArray()
-                );
+                double movavg;
+                if (incrementalFunction != null) {
+                    movavg = incrementalFunction.apply(values, fromIndex, toIndex);
+                } else {
+                    if (windowValues == null || windowValues.length != toIndex - fromIndex) {
+                        windowValues = new double[toIndex - fromIndex];
+                    }
+                    System.arraycopy(values, fromIndex, windowValues, 0, windowValues.length);
+                    movavg = executableScript.execute(vars, windowValues);
+                }
 
                 List<InternalAggregation> aggs = StreamSupport
                     .stream(bucket.getAggregations().spliterator(), false)
@@ -166,12 +176,12 @@ public class MovFnPipelineAggregator extends PipelineAggregator {
         return factory.createAggregation(newBuckets);
     }
 
-    private int clamp(int index, List<Double> list) {
+    private int clamp(int index, double[] values) {
         if (index < 0) {
             return 0;
         }
-        if (index > list.size()) {
-            return list.size();
+        if (index > values.length) {
+            return values.length;
         }
         return index;
     }
@@ -50,6 +50,14 @@ public abstract class ValuesSourceAggregatorFactory<VS extends ValuesSource> ext
         return doCreateInternal(vs, searchContext, parent, collectsFromSingleBucket, pipelineAggregators, metaData);
     }
 
+    /**
+     * Returns {@code true} if the values are read without a script. Scripts read the documents through the lookup of the
+     * search context, which can't be used by the aggregators of concurrent slices of a shard.
+     */
+    protected final boolean readsValuesWithoutScript() {
+        return config.script() == null;
+    }
+
     /**
      * This method provides a hook for aggregations that need finer grained control over the ValuesSource selected when the user supplies a
      * missing value and there is no mapped field to infer the type from.  This will only be called for aggregations that specify the
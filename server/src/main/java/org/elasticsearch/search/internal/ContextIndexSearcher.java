@@ -40,7 +40,9 @@ import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TermStatistics;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.search.similarities.Similarity;
@@ -62,8 +64,15 @@ import org.elasticsearch.search.query.QuerySearchResult;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Context-aware extension of {@link IndexSearcher}.
@@ -78,6 +87,8 @@ public class ContextIndexSearcher extends IndexSearcher {
     private AggregatedDfs aggregatedDfs;
     private QueryProfiler profiler;
     private Runnable checkCancelled;
+    private Executor sliceExecutor;
+    private int maxSlices = 1;
 
     public ContextIndexSearcher(IndexReader reader, Similarity similarity, QueryCache queryCache, QueryCachingPolicy queryCachingPolicy) {
         super(reader);
@@ -98,6 +109,24 @@ public class ContextIndexSearcher extends IndexSearcher {
         this.checkCancelled = checkCancelled;
     }
 
+    /**
+     * Allows {@link #search(List, Weight, CollectorManager, QuerySearchResult, DocValueFormat[], TotalHits)} to split the
+     * leaves into up to <code>maxSlices</code> slices that are searched concurrently on the provided executor.
+     */
+    public void setSliceExecutor(Executor sliceExecutor, int maxSlices) {
+        assert maxSlices >= 1 : "maxSlices must be greater than 0 but was " + maxSlices;
+        this.sliceExecutor = sliceExecutor;
+        this.maxSlices = maxSlices;
+    }
+
+    /**
+     * Returns <code>true</code> if leaves may be searched concurrently by
+     * {@link #search(List, Weight, CollectorManager, QuerySearchResult, DocValueFormat[], TotalHits)}.
+     */
+    public boolean hasSliceExecutor() {
+        return sliceExecutor != null && maxSlices > 1;
+    }
+
     public void setAggregatedDfs(AggregatedDfs aggregatedDfs) {
         this.aggregatedDfs = aggregatedDfs;
     }
@@ -148,28 +177,175 @@ public class ContextIndexSearcher extends IndexSearcher {
     @SuppressWarnings({"unchecked", "rawtypes"})
     public void search(List<LeafReaderContext> leaves, Weight weight, CollectorManager manager,
             QuerySearchResult result, DocValueFormat[] formats, TotalHits totalHits) throws IOException {
-        final List<Collector> collectors = new ArrayList<>(leaves.size());
-        for (LeafReaderContext ctx : leaves) {
-            final Collector collector = manager.newCollector();
-            searchLeaf(ctx, weight, collector);
-            collectors.add(collector);
+        final List<Collector> collectors;
+        if (hasSliceExecutor() && leaves.size() > 1) {
+            collectors = searchSlices(computeSlices(leaves, maxSlices), weight, manager);
+        } else {
+            collectors = new ArrayList<>(leaves.size());
+            for (LeafReaderContext ctx : leaves) {
+                final Collector collector = manager.newCollector();
+                searchLeaf(ctx, weight, collector, checkCancelled);
+                collectors.add(collector);
+            }
         }
-        TopFieldDocs mergedTopDocs = (TopFieldDocs) manager.reduce(collectors);
+        TopDocs mergedTopDocs = (TopDocs) manager.reduce(collectors);
         // Lucene sets shards indexes during merging of topDocs from different collectors
         // We need to reset shard index; ES will set shard index later during reduce stage
         for (ScoreDoc scoreDoc : mergedTopDocs.scoreDocs) {
             scoreDoc.shardIndex = -1;
         }
-        if (totalHits != null) { // we have already precalculated totalHits for the whole index
-            mergedTopDocs = new TopFieldDocs(totalHits, mergedTopDocs.scoreDocs, mergedTopDocs.fields);
+        final float maxScore;
+        if (mergedTopDocs instanceof TopFieldDocs) {
+            if (totalHits != null) { // we have already precalculated totalHits for the whole index
+                TopFieldDocs fieldDocs = (TopFieldDocs) mergedTopDocs;
+                mergedTopDocs = new TopFieldDocs(totalHits, fieldDocs.scoreDocs, fieldDocs.fields);
+            }
+            maxScore = Float.NaN;
+        } else {
+            if (totalHits != null) {
+                mergedTopDocs = new TopDocs(totalHits, mergedTopDocs.scoreDocs);
+            }
+            maxScore = mergedTopDocs.scoreDocs.length == 0 ? Float.NaN : mergedTopDocs.scoreDocs[0].score;
+        }
+        result.topDocs(new TopDocsAndMaxScore(mergedTopDocs, maxScore), formats);
+    }
+
+    /**
+     * Searches each slice with its own collector, the first slice on the calling thread and the others
+     * on the slice executor. If a slice fails, the slices that are still running are aborted and the
+     * first failure is rethrown once all slices are done.
+     */
+    private List<Collector> searchSlices(List<List<LeafReaderContext>> slices, Weight weight,
+                                         CollectorManager<?, ?> manager) throws IOException {
+        final List<Collector> collectors = new ArrayList<>(slices.size());
+        for (int i = 0; i < slices.size(); i++) {
+            collectors.add(manager.newCollector());
+        }
+        final AtomicBoolean aborted = new AtomicBoolean();
+        final Runnable sliceCheckCancelled = () -> {
+            if (aborted.get()) {
+                throw new SliceAbortedException();
+            }
+            checkCancelled();
+        };
+        final List<FutureTask<Void>> tasks = new ArrayList<>(slices.size() - 1);
+        for (int i = 1; i < slices.size(); i++) {
+            final List<LeafReaderContext> slice = slices.get(i);
+            final Collector collector = collectors.get(i);
+            final FutureTask<Void> task = new FutureTask<>(() -> {
+                try {
+                    for (LeafReaderContext ctx : slice) {
+                        searchLeaf(ctx, weight, collector, sliceCheckCancelled);
+                    }
+                } catch (Exception e) {
+                    aborted.set(true);
+                    throw e;
+                }
+                return null;
+            });
+            tasks.add(task);
+            try {
+                sliceExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // the executor is shutting down, search the slice on the calling thread
+                task.run();
+            }
+        }
+
+        Exception failure = null;
+        try {
+            for (LeafReaderContext ctx : slices.get(0)) {
+                searchLeaf(ctx, weight, collectors.get(0), sliceCheckCancelled);
+            }
+        } catch (Exception e) {
+            aborted.set(true);
+            failure = e;
+        }
+        // we must wait for all slices since they hold on the reader that is released once the query phase returns
+        boolean interrupted = false;
+        for (FutureTask<Void> task : tasks) {
+            while (true) {
+                try {
+                    task.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    if (failure == null || failure instanceof SliceAbortedException) {
+                        failure = (Exception) cause;
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            assert failure instanceof SliceAbortedException == false : "a slice was aborted without a failure";
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else {
+                throw new IOException(failure);
+            }
+        }
+        return collectors;
+    }
+
+    /**
+     * Splits the provided leaves into at most <code>maxSlices</code> slices of roughly the same number of documents.
+     * Leaves are assigned from the largest to the smallest to the slice that holds the least documents so far,
+     * and each slice keeps its leaves in the order of the provided list.
+     */
+    static List<List<LeafReaderContext>> computeSlices(List<LeafReaderContext> leaves, int maxSlices) {
+        final int numSlices = Math.min(maxSlices, leaves.size());
+        final Integer[] sortedByMaxDoc = new Integer[leaves.size()];
+        for (int i = 0; i < sortedByMaxDoc.length; i++) {
+            sortedByMaxDoc[i] = i;
+        }
+        Arrays.sort(sortedByMaxDoc, Comparator.comparingInt((Integer i) -> leaves.get(i).reader().maxDoc()).reversed());
+        // a heap of (number of docs, slice index) pairs
+        final PriorityQueue<long[]> queue = new PriorityQueue<>(numSlices,
+            Comparator.<long[]>comparingLong(slice -> slice[0]).thenComparingLong(slice -> slice[1]));
+        for (int i = 0; i < numSlices; i++) {
+            queue.add(new long[] { 0, i });
+        }
+        final int[] assignment = new int[leaves.size()];
+        for (int leaf : sortedByMaxDoc) {
+            final long[] slice = queue.poll();
+            assignment[leaf] = (int) slice[1];
+            slice[0] += leaves.get(leaf).reader().maxDoc();
+            queue.add(slice);
+        }
+        final List<List<LeafReaderContext>> slices = new ArrayList<>(numSlices);
+        for (int i = 0; i < numSlices; i++) {
+            slices.add(new ArrayList<>());
+        }
+        for (int i = 0; i < leaves.size(); i++) {
+            slices.get(assignment[i]).add(leaves.get(i));
+        }
+        return slices;
+    }
+
+    /**
+     * Thrown by slices that are still running when another slice of the same search failed.
+     */
+    private static final class SliceAbortedException extends RuntimeException {
+        SliceAbortedException() {
+            super("aborted since another slice failed", null, false, false);
         }
-        result.topDocs(new TopDocsAndMaxScore(mergedTopDocs, Float.NaN), formats);
     }
 
     @Override
     protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
         for (LeafReaderContext ctx : leaves) { // search each subreader
-            searchLeaf(ctx, weight, collector);
+            searchLeaf(ctx, weight, collector, checkCancelled);
         }
     }
 
@@ -179,9 +355,11 @@ public class ContextIndexSearcher extends IndexSearcher {
      * {@link LeafCollector#collect(int)} is called for every matching document in
      * the provided <code>ctx</code>.
      */
-    private void searchLeaf(LeafReaderContext ctx, Weight weight, Collector collector) throws IOException {
-        checkCancelled();
-        weight = wrapWeight(weight);
+    private void searchLeaf(LeafReaderContext ctx, Weight weight, Collector collector, Runnable checkCancelled) throws IOException {
+        if (checkCancelled != null) {
+            checkCancelled.run();
+        }
+        weight = wrapWeight(weight, checkCancelled);
         final LeafCollector leafCollector;
         try {
             leafCollector = collector.getLeafCollector(ctx);
@@ -217,7 +395,28 @@ public class ContextIndexSearcher extends IndexSearcher {
         }
     }
 
-    private Weight wrapWeight(Weight weight) {
+    /**
+     * Counts the live documents of the segment that match the given weight. Like the collection of the documents of the search,
+     * the count checks for cancellation and timeout on a regular basis, so that counting large segments can be interrupted.
+     */
+    public int count(Weight weight, LeafReaderContext ctx) throws IOException {
+        final Runnable checkCancelled = this.checkCancelled;
+        if (checkCancelled != null) {
+            checkCancelled.run();
+        }
+        BulkScorer scorer = weight.bulkScorer(ctx);
+        if (scorer == null) {
+            return 0;
+        }
+        if (checkCancelled != null) {
+            scorer = new CancellableBulkScorer(scorer, checkCancelled);
+        }
+        final TotalHitCountCollector collector = new TotalHitCountCollector();
+        scorer.score(collector.getLeafCollector(ctx), ctx.reader().getLiveDocs());
+        return collector.getTotalHits();
+    }
+
+    private static Weight wrapWeight(Weight weight, Runnable checkCancelled) {
         if (checkCancelled != null) {
             return new Weight(weight.getQuery()) {
                 @Override
@@ -0,0 +1,123 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.internal;
+
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.SearchContextMissingException;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds a point in time view of a shard. Unlike a scroll, which keeps an entire {@link SearchContext} open,
+ * a reader context only pins the {@link Engine.Searcher} of the shard. Any number of search requests can lease
+ * the pinned searcher concurrently through {@link #acquireSearcher(String)}; the underlying searcher is released
+ * once the context is closed and all leases have been returned.
+ */
+public final class ReaderContext extends AbstractRefCounted implements Releasable {
+    private final long id;
+    private final IndexShard indexShard;
+    private final Engine.Searcher searcher;
+    private final LongSupplier relativeTimeInMillis;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final AtomicInteger activeSearchers = new AtomicInteger();
+    private volatile long keepAlive;
+    private volatile long lastAccessTime;
+
+    public ReaderContext(long id, IndexShard indexShard, Engine.Searcher searcher, long keepAlive, LongSupplier relativeTimeInMillis) {
+        super("reader_context");
+        this.id = id;
+        this.indexShard = indexShard;
+        this.searcher = searcher;
+        this.keepAlive = keepAlive;
+        this.relativeTimeInMillis = relativeTimeInMillis;
+        this.lastAccessTime = relativeTimeInMillis.getAsLong();
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public IndexShard indexShard() {
+        return indexShard;
+    }
+
+    public ShardId shardId() {
+        return indexShard.shardId();
+    }
+
+    public long keepAlive() {
+        return keepAlive;
+    }
+
+    public void keepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public long lastAccessTime() {
+        return lastAccessTime;
+    }
+
+    /**
+     * Returns <code>true</code> if no searcher is currently leased and the context was not accessed
+     * within its keep alive.
+     */
+    public boolean isExpired(long currentTimeInMillis) {
+        return activeSearchers.get() == 0 && currentTimeInMillis - lastAccessTime > keepAlive;
+    }
+
+    /**
+     * Leases a searcher that shares the reader, similarity and caches of the pinned searcher. The returned searcher
+     * must be closed once the request is done with it but closing it never releases the pinned reader.
+     */
+    public Engine.Searcher acquireSearcher(String source) {
+        if (tryIncRef() == false) {
+            throw new SearchContextMissingException(id);
+        }
+        activeSearchers.incrementAndGet();
+        lastAccessTime = relativeTimeInMillis.getAsLong();
+        final AtomicBoolean released = new AtomicBoolean(false);
+        return new Engine.Searcher(source, searcher.getIndexReader(), searcher.getSimilarity(), searcher.getQueryCache(),
+            searcher.getQueryCachingPolicy(), () -> {
+                if (released.compareAndSet(false, true)) {
+                    lastAccessTime = relativeTimeInMillis.getAsLong();
+                    activeSearchers.decrementAndGet();
+                    decRef();
+                }
+            });
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            decRef();
+        }
+    }
+
+    @Override
+    protected void closeInternal() {
+        searcher.close();
+    }
+}
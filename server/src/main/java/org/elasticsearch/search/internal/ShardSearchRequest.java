@@ -63,6 +63,11 @@ import java.util.function.Function;
  * Provides a cache key based on its content that can be used to cache shard level response.
  */
 public class ShardSearchRequest extends TransportRequest implements IndicesRequest {
+    /**
+     * Marker for requests that search the current reader of the shard rather than a {@link ReaderContext}.
+     */
+    public static final long NO_READER_CONTEXT = -1L;
+
     private final String clusterAlias;
     private final ShardId shardId;
     private final int numberOfShards;
@@ -77,6 +82,7 @@ public class ShardSearchRequest extends TransportRequest implements IndicesReque
     private final OriginalIndices originalIndices;
 
     private boolean canReturnNullResponseIfMatchNoDocs;
+    private long readerId = NO_READER_CONTEXT;
 
     //these are the only mutable fields, as they are subject to rewriting
     private AliasFilter aliasFilter;
@@ -175,6 +181,9 @@ public class ShardSearchRequest extends TransportRequest implements IndicesReque
         } else {
             canReturnNullResponseIfMatchNoDocs = false;
         }
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            readerId = in.readLong();
+        }
         originalIndices = OriginalIndices.readOriginalIndices(in);
     }
 
@@ -212,6 +221,9 @@ public class ShardSearchRequest extends TransportRequest implements IndicesReque
         if (out.getVersion().onOrAfter(Version.V_7_7_0)) {
             out.writeBoolean(canReturnNullResponseIfMatchNoDocs);
         }
+        if (asKey == false && out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeLong(readerId);
+        }
     }
 
     @Override
@@ -299,6 +311,18 @@ public class ShardSearchRequest extends TransportRequest implements IndicesReque
         this.canReturnNullResponseIfMatchNoDocs = value;
     }
 
+    /**
+     * Returns the id of the {@link ReaderContext} this request should be executed against, or
+     * {@link #NO_READER_CONTEXT} if the request should use the current reader of the shard.
+     */
+    public long readerId() {
+        return readerId;
+    }
+
+    public void readerId(long readerId) {
+        this.readerId = readerId;
+    }
+
     /**
      * Returns the cache key for this shard search request, based on its content
      */
@@ -19,6 +19,7 @@ package org.elasticsearch.search.profile;
  * under the License.
  */
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -50,12 +51,24 @@ public final class SearchProfileShardResults implements Writeable, ToXContentFra
     private static final String SEARCHES_FIELD = "searches";
     private static final String ID_FIELD = "id";
     private static final String SHARDS_FIELD = "shards";
+    private static final String COORDINATOR_FIELD = "coordinator";
+    private static final String AGGREGATIONS_ESTIMATED_SIZE_FIELD = "aggregations_estimated_size_in_bytes";
     public static final String PROFILE_FIELD = "profile";
 
     private Map<String, ProfileShardResult> shardResults;
+    private final long reducedAggregationsEstimatedSize;
 
     public SearchProfileShardResults(Map<String, ProfileShardResult> shardResults) {
+        this(shardResults, 0);
+    }
+
+    /**
+     * @param reducedAggregationsEstimatedSize the largest estimated size of the aggregations held in memory at once while
+     *                                         reducing them on the coordinating node
+     */
+    public SearchProfileShardResults(Map<String, ProfileShardResult> shardResults, long reducedAggregationsEstimatedSize) {
         this.shardResults =  Collections.unmodifiableMap(shardResults);
+        this.reducedAggregationsEstimatedSize = reducedAggregationsEstimatedSize;
     }
 
     public SearchProfileShardResults(StreamInput in) throws IOException {
@@ -68,12 +81,25 @@ public final class SearchProfileShardResults implements Writeable, ToXContentFra
             shardResults.put(key, shardResult);
         }
         shardResults = Collections.unmodifiableMap(shardResults);
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            reducedAggregationsEstimatedSize = in.readVLong();
+        } else {
+            reducedAggregationsEstimatedSize = 0;
+        }
     }
 
     public Map<String, ProfileShardResult> getShardResults() {
         return this.shardResults;
     }
 
+    /**
+     * The largest estimated size of the aggregations held in memory at once while reducing them on the coordinating node,
+     * which is accounted in the request circuit breaker.
+     */
+    public long getReducedAggregationsEstimatedSize() {
+        return reducedAggregationsEstimatedSize;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeInt(shardResults.size());
@@ -81,6 +107,9 @@ public final class SearchProfileShardResults implements Writeable, ToXContentFra
             out.writeString(entry.getKey());
             entry.getValue().writeTo(out);
         }
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeVLong(reducedAggregationsEstimatedSize);
+        }
     }
 
     @Override
@@ -99,9 +128,20 @@ public final class SearchProfileShardResults implements Writeable, ToXContentFra
             }
             builder.endArray();
             profileShardResult.getAggregationProfileResults().toXContent(builder, params);
+            // the estimated sizes are only reported for searches that have aggregations
+            long aggregationsEstimatedSize = profileShardResult.getAggregationProfileResults().getEstimatedSizeInBytes();
+            if (aggregationsEstimatedSize > 0) {
+                builder.field(AGGREGATIONS_ESTIMATED_SIZE_FIELD, aggregationsEstimatedSize);
+            }
+            builder.endObject();
+        }
+        builder.endArray();
+        if (reducedAggregationsEstimatedSize > 0) {
+            builder.startObject(COORDINATOR_FIELD);
+            builder.field(AGGREGATIONS_ESTIMATED_SIZE_FIELD, reducedAggregationsEstimatedSize);
             builder.endObject();
         }
-        builder.endArray().endObject();
+        builder.endObject();
         return builder;
     }
 
@@ -109,6 +149,7 @@ public final class SearchProfileShardResults implements Writeable, ToXContentFra
         XContentParser.Token token = parser.currentToken();
         ensureExpectedToken(XContentParser.Token.START_OBJECT, token, parser::getTokenLocation);
         Map<String, ProfileShardResult> searchProfileResults = new HashMap<>();
+        long reducedAggregationsEstimatedSize = 0;
         while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
             if (token == XContentParser.Token.START_ARRAY) {
                 if (SHARDS_FIELD.equals(parser.currentName())) {
@@ -119,10 +160,23 @@ public final class SearchProfileShardResults implements Writeable, ToXContentFra
                     parser.skipChildren();
                 }
             } else if (token == XContentParser.Token.START_OBJECT) {
-                parser.skipChildren();
+                if (COORDINATOR_FIELD.equals(parser.currentName())) {
+                    String currentFieldName = null;
+                    while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                        if (token == XContentParser.Token.FIELD_NAME) {
+                            currentFieldName = parser.currentName();
+                        } else if (AGGREGATIONS_ESTIMATED_SIZE_FIELD.equals(currentFieldName) && token.isValue()) {
+                            reducedAggregationsEstimatedSize = parser.longValue();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
             }
         }
-        return new SearchProfileShardResults(searchProfileResults);
+        return new SearchProfileShardResults(searchProfileResults, reducedAggregationsEstimatedSize);
     }
 
     private static void parseSearchProfileResultsEntry(XContentParser parser,
@@ -131,6 +185,7 @@ public final class SearchProfileShardResults implements Writeable, ToXContentFra
         ensureExpectedToken(XContentParser.Token.START_OBJECT, token, parser::getTokenLocation);
         List<QueryProfileShardResult> queryProfileResults = new ArrayList<>();
         AggregationProfileShardResult aggProfileShardResult = null;
+        long aggregationsEstimatedSize = 0;
         String id = null;
         String currentFieldName = null;
         while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
@@ -139,6 +194,8 @@ public final class SearchProfileShardResults implements Writeable, ToXContentFra
             } else if (token.isValue()) {
                 if (ID_FIELD.equals(currentFieldName)) {
                     id = parser.text();
+                } else if (AGGREGATIONS_ESTIMATED_SIZE_FIELD.equals(currentFieldName)) {
+                    aggregationsEstimatedSize = parser.longValue();
                 } else {
                     parser.skipChildren();
                 }
@@ -156,6 +213,10 @@ public final class SearchProfileShardResults implements Writeable, ToXContentFra
                 parser.skipChildren();
             }
         }
+        if (aggProfileShardResult != null) {
+            aggProfileShardResult = new AggregationProfileShardResult(aggProfileShardResult.getProfileResults(),
+                aggregationsEstimatedSize);
+        }
         searchProfileResults.put(id, new ProfileShardResult(queryProfileResults, aggProfileShardResult));
     }
 
@@ -177,7 +238,8 @@ public final class SearchProfileShardResults implements Writeable, ToXContentFra
                     queryProfiler.getCollector());
             queryResults.add(result);
         }
-        AggregationProfileShardResult aggResults = new AggregationProfileShardResult(aggProfiler.getTree());
+        AggregationProfileShardResult aggResults = new AggregationProfileShardResult(aggProfiler.getTree(),
+            aggProfiler.getEstimatedSizeInBytes());
         return new ProfileShardResult(queryResults, aggResults);
     }
 }
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.search.profile.aggregation;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -42,9 +43,18 @@ public final class AggregationProfileShardResult implements Writeable, ToXConten
 
     public static final String AGGREGATIONS = "aggregations";
     private final List<ProfileResult> aggProfileResults;
+    private final long estimatedSizeInBytes;
 
     public AggregationProfileShardResult(List<ProfileResult> aggProfileResults) {
+        this(aggProfileResults, 0);
+    }
+
+    /**
+     * @param estimatedSizeInBytes the estimated size of the aggregation results of the shard
+     */
+    public AggregationProfileShardResult(List<ProfileResult> aggProfileResults, long estimatedSizeInBytes) {
         this.aggProfileResults = aggProfileResults;
+        this.estimatedSizeInBytes = estimatedSizeInBytes;
     }
 
     /**
@@ -56,6 +66,11 @@ public final class AggregationProfileShardResult implements Writeable, ToXConten
         for (int j = 0; j < profileSize; j++) {
             aggProfileResults.add(new ProfileResult(in));
         }
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            estimatedSizeInBytes = in.readVLong();
+        } else {
+            estimatedSizeInBytes = 0;
+        }
     }
 
     @Override
@@ -64,6 +79,9 @@ public final class AggregationProfileShardResult implements Writeable, ToXConten
         for (ProfileResult p : aggProfileResults) {
             p.writeTo(out);
         }
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeVLong(estimatedSizeInBytes);
+        }
     }
 
 
@@ -71,6 +89,13 @@ public final class AggregationProfileShardResult implements Writeable, ToXConten
         return Collections.unmodifiableList(aggProfileResults);
     }
 
+    /**
+     * The estimated size of the aggregation results of the shard that was accounted in the request circuit breaker.
+     */
+    public long getEstimatedSizeInBytes() {
+        return estimatedSizeInBytes;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startArray(AGGREGATIONS);
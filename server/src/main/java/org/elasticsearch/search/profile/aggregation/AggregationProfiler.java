@@ -30,6 +30,7 @@ import java.util.Map;
 public class AggregationProfiler extends AbstractProfiler<AggregationProfileBreakdown, Aggregator> {
 
     private final Map<List<String>, AggregationProfileBreakdown> profileBrakdownLookup = new HashMap<>();
+    private long estimatedSizeInBytes;
 
     public AggregationProfiler() {
         super(new InternalAggregationProfileTree());
@@ -46,6 +47,17 @@ public class AggregationProfiler extends AbstractProfiler<AggregationProfileBrea
         return aggregationProfileBreakdown;
     }
 
+    /**
+     * Sets the estimated size of the aggregation results of the shard, accounted in the request circuit breaker.
+     */
+    public void setEstimatedSizeInBytes(long estimatedSizeInBytes) {
+        this.estimatedSizeInBytes = estimatedSizeInBytes;
+    }
+
+    public long getEstimatedSizeInBytes() {
+        return estimatedSizeInBytes;
+    }
+
     public static List<String> getAggregatorPath(Aggregator agg) {
         LinkedList<String> path = new LinkedList<>();
         while (agg != null) {
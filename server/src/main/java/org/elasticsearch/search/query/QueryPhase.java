@@ -44,6 +44,8 @@ import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldCollector;
 import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.TotalHits;
 import org.elasticsearch.action.search.SearchShardTask;
 import org.apache.lucene.search.Weight;
@@ -74,6 +76,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
@@ -85,6 +88,7 @@ import static org.elasticsearch.search.query.QueryCollectorContext.createFiltere
 import static org.elasticsearch.search.query.QueryCollectorContext.createMinScoreCollectorContext;
 import static org.elasticsearch.search.query.QueryCollectorContext.createMultiCollectorContext;
 import static org.elasticsearch.search.query.TopDocsCollectorContext.createTopDocsCollectorContext;
+import static org.elasticsearch.search.query.TopDocsCollectorContext.hasInfMaxScore;
 import static org.elasticsearch.search.query.TopDocsCollectorContext.shortcutTotalHitCount;
 
 
@@ -290,6 +294,8 @@ public class QueryPhase implements SearchPhase {
             // if we are optimizing sort and there are no other collectors
             if (sortAndFormatsForRewrittenNumericSort != null && collectors.size() == 0 && searchContext.getProfilers() == null) {
                 shouldRescore = searchWithCollectorManager(searchContext, searcher, query, leafSorter, timeoutSet);
+            } else if (canSearchConcurrently(searchContext)) {
+                shouldRescore = searchConcurrently(searchContext, searcher, query, timeoutSet);
             } else {
                 shouldRescore = searchWithCollector(searchContext, searcher, query, collectors, hasFilterCollector, timeoutSet);
             }
@@ -401,6 +407,130 @@ public class QueryPhase implements SearchPhase {
         return false; // no rescoring when sorting by field
     }
 
+    /**
+     * Returns <code>true</code> if the request can be collected on concurrent slices of the shard, with the top hits collected
+     * by a shared {@link CollectorManager} and the aggregations by one aggregator tree per slice. Requests with filter collectors
+     * (post filters, min_score), profiling, aggregations that can't be reduced per slice or that are tied to a single collector
+     * (scroll, collapse, rescore) are executed sequentially.
+     */
+    static boolean canSearchConcurrently(SearchContext searchContext) {
+        if (searchContext.searcher().hasSliceExecutor() == false) return false;
+        if (searchContext.getProfilers() != null) return false;
+        if (searchContext.scrollContext() != null) return false;
+        if (searchContext.collapse() != null) return false;
+        if (searchContext.rescore().isEmpty() == false) return false;
+        if (searchContext.parsedPostFilter() != null) return false;
+        if (searchContext.minimumScore() != null) return false;
+        if (searchContext.sort() != null && searchContext.trackScores()) return false;
+        for (Class<?> collectorOwner : searchContext.queryCollectors().keySet()) {
+            if (collectorOwner != AggregationPhase.class) return false;
+        }
+        if (searchContext.aggregations() != null) {
+            return AggregationPhase.supportsParallelCollection(searchContext);
+        }
+        return searchContext.size() > 0;
+    }
+
+    /**
+     * Collects the top hits of the request with a shared {@link CollectorManager} and the aggregations with one aggregator
+     * tree per slice so that the {@link ContextIndexSearcher} can search slices of the shard concurrently.
+     */
+    private static boolean searchConcurrently(SearchContext searchContext, ContextIndexSearcher searcher, Query query,
+                                              boolean timeoutSet) throws IOException {
+        final IndexReader reader = searcher.getIndexReader();
+        final int numHits = Math.min(searchContext.from() + searchContext.size(), Math.max(1, reader.numDocs()));
+        final SortAndFormats sortAndFormats = searchContext.sort();
+        final boolean sortByScore = sortAndFormats == null || SortField.FIELD_SCORE.equals(sortAndFormats.sort.getSort()[0]);
+        final Collector aggregationCollector = searchContext.queryCollectors().get(AggregationPhase.class);
+        final boolean hasTerminateAfter = searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER;
+
+        int totalHitsThreshold;
+        TotalHits totalHits;
+        if (searchContext.size() > 0 && sortByScore && hasInfMaxScore(query)) {
+            // disable max score optimization since we have a mandatory clause
+            // that doesn't track the maximum score
+            totalHitsThreshold = Integer.MAX_VALUE;
+            totalHits = null;
+        } else if (searchContext.trackTotalHitsUpTo() == SearchContext.TRACK_TOTAL_HITS_DISABLED) {
+            totalHitsThreshold = 1;
+            totalHits = new TotalHits(0, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
+        } else {
+            // implicit total hit counts are not valid when terminate_after can stop the collection
+            int hitCount = hasTerminateAfter ? -1 : shortcutTotalHitCount(reader, query);
+            if (hitCount == -1) {
+                totalHitsThreshold = searchContext.trackTotalHitsUpTo();
+                totalHits = null; // will be computed via the collectors
+            } else {
+                totalHitsThreshold = 1;
+                totalHits = new TotalHits(hitCount, TotalHits.Relation.EQUAL_TO); // don't compute hit counts via the collectors
+            }
+        }
+
+        final CollectorManager<?, ? extends TopDocs> topDocsManager;
+        ScoreMode scoreMode;
+        final DocValueFormat[] formats;
+        if (searchContext.size() == 0) {
+            topDocsManager = new HitCountCollectorManager();
+            scoreMode = ScoreMode.COMPLETE_NO_SCORES;
+            formats = null;
+        } else if (sortAndFormats == null) {
+            topDocsManager = TopScoreDocCollector.createSharedManager(numHits, searchContext.searchAfter(), totalHitsThreshold);
+            scoreMode = totalHitsThreshold == Integer.MAX_VALUE ? ScoreMode.COMPLETE : ScoreMode.TOP_SCORES;
+            formats = null;
+        } else {
+            topDocsManager = TopFieldCollector.createSharedManager(sortAndFormats.sort, numHits,
+                searchContext.searchAfter(), totalHitsThreshold);
+            scoreMode = sortAndFormats.sort.needsScores() ? ScoreMode.COMPLETE : ScoreMode.COMPLETE_NO_SCORES;
+            formats = sortAndFormats.formats;
+        }
+        if (aggregationCollector != null || hasTerminateAfter) {
+            // aggregations and terminate_after must see all matching documents, none can be skipped
+            final boolean needsScores = scoreMode.needsScores()
+                || (aggregationCollector != null && aggregationCollector.scoreMode().needsScores());
+            scoreMode = needsScores ? ScoreMode.COMPLETE : ScoreMode.COMPLETE_NO_SCORES;
+        }
+
+        final QuerySearchResult queryResult = searchContext.queryResult();
+        final SliceCollectorManager<?> manager = new SliceCollectorManager<>(topDocsManager, searchContext.terminateAfter(),
+            aggregationCollector, searchContext);
+        try {
+            Weight weight = searcher.createWeight(searcher.rewrite(query), scoreMode, 1f);
+            searcher.search(reader.leaves(), weight, manager, queryResult, formats, totalHits);
+        } catch (TimeExceededException e) {
+            assert timeoutSet : "TimeExceededException thrown even though timeout wasn't set";
+            if (searchContext.request().allowPartialSearchResults() == false) {
+                // Can't rethrow TimeExceededException because not serializable
+                throw new QueryPhaseExecutionException(searchContext.shardTarget(), "Time exceeded");
+            }
+            queryResult.searchTimedOut(true);
+        } finally {
+            searchContext.clearReleasables(SearchContext.Lifetime.COLLECTION);
+        }
+        if (hasTerminateAfter) {
+            queryResult.terminatedEarly(manager.hasEarlyTerminated());
+        }
+        return false; // requests with rescorers are searched sequentially
+    }
+
+    /**
+     * Counts the hits of each slice when no top hits are requested.
+     */
+    private static class HitCountCollectorManager implements CollectorManager<TotalHitCountCollector, TopDocs> {
+        @Override
+        public TotalHitCountCollector newCollector() {
+            return new TotalHitCountCollector();
+        }
+
+        @Override
+        public TopDocs reduce(Collection<TotalHitCountCollector> collectors) {
+            int totalHits = 0;
+            for (TotalHitCountCollector collector : collectors) {
+                totalHits += collector.getTotalHits();
+            }
+            return new TopDocs(new TotalHits(totalHits, TotalHits.Relation.EQUAL_TO), Lucene.EMPTY_SCORE_DOCS);
+        }
+    }
+
     private static Query tryRewriteLongSort(SearchContext searchContext, IndexReader reader,
                                             Query query, boolean hasFilterCollector) throws IOException {
         if (searchContext.searchAfter() != null) return null; //TODO: handle sort optimization with search after
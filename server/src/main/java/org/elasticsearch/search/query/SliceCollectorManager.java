@@ -0,0 +1,106 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.MultiCollector;
+import org.apache.lucene.search.TopDocs;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.search.aggregations.AggregationPhase;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link CollectorManager} for the concurrent search of the slices of a shard. Each slice collects its top docs with a
+ * collector of the provided top docs manager and, if the request has aggregations, its aggregations with its own aggregators:
+ * the first slice uses the aggregators of the search context and the other slices get new ones from the
+ * {@link AggregationPhase}, which reduces the results of all slices. With <code>terminate_after</code>, the slices share
+ * the number of collected documents so that the collection stops once the limit is reached by the shard.
+ */
+final class SliceCollectorManager<C extends Collector> implements CollectorManager<Collector, TopDocs> {
+    private final CollectorManager<C, ? extends TopDocs> topDocsManager;
+    private final int terminateAfter;
+    private final Collector aggregationCollector;
+    private final SearchContext searchContext;
+    private final AtomicInteger numCollected = new AtomicInteger();
+    private final List<C> topDocsCollectors = new ArrayList<>();
+    private final List<EarlyTerminatingCollector> terminatingCollectors = new ArrayList<>();
+
+    /**
+     * Ctr
+     * @param topDocsManager The manager of the top docs collectors of the slices
+     * @param terminateAfter The number of documents to collect before termination, or {@link SearchContext#DEFAULT_TERMINATE_AFTER}
+     * @param aggregationCollector The query collector of the aggregations of the search context, if any
+     * @param searchContext The search context
+     */
+    SliceCollectorManager(CollectorManager<C, ? extends TopDocs> topDocsManager, int terminateAfter,
+                          @Nullable Collector aggregationCollector, SearchContext searchContext) {
+        this.topDocsManager = topDocsManager;
+        this.terminateAfter = terminateAfter;
+        this.aggregationCollector = aggregationCollector;
+        this.searchContext = searchContext;
+    }
+
+    @Override
+    public Collector newCollector() throws IOException {
+        final C topDocsCollector = topDocsManager.newCollector();
+        topDocsCollectors.add(topDocsCollector);
+        Collector collector = topDocsCollector;
+        if (aggregationCollector != null) {
+            final Collector sliceAggregationCollector = topDocsCollectors.size() == 1
+                ? aggregationCollector
+                : AggregationPhase.createSliceCollector(searchContext);
+            collector = MultiCollector.wrap(collector, sliceAggregationCollector);
+        }
+        if (terminateAfter != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            // documents that are not accepted anymore end the collection of the current leaf of the slice
+            final EarlyTerminatingCollector terminatingCollector =
+                new EarlyTerminatingCollector(collector, terminateAfter, false, numCollected);
+            terminatingCollectors.add(terminatingCollector);
+            collector = terminatingCollector;
+        }
+        return collector;
+    }
+
+    @Override
+    public TopDocs reduce(Collection<Collector> collectors) throws IOException {
+        // the top docs collectors are wrapped in the returned collectors
+        assert collectors.size() == topDocsCollectors.size();
+        return topDocsManager.reduce(topDocsCollectors);
+    }
+
+    /**
+     * Returns true if a slice stopped collecting documents because <code>terminate_after</code> documents had been collected.
+     */
+    boolean hasEarlyTerminated() {
+        for (EarlyTerminatingCollector collector : terminatingCollectors) {
+            if (collector.hasEarlyTerminated()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -74,6 +74,7 @@ public class ThreadPool implements Scheduler {
         public static final String WRITE = "write";
         public static final String SEARCH = "search";
         public static final String SEARCH_THROTTLED = "search_throttled";
+        public static final String SEARCH_WORKER = "search_worker";
         public static final String MANAGEMENT = "management";
         public static final String FLUSH = "flush";
         public static final String REFRESH = "refresh";
@@ -128,7 +129,8 @@ public class ThreadPool implements Scheduler {
         entry(Names.FORCE_MERGE, ThreadPoolType.FIXED),
         entry(Names.FETCH_SHARD_STARTED, ThreadPoolType.SCALING),
         entry(Names.FETCH_SHARD_STORE, ThreadPoolType.SCALING),
-        entry(Names.SEARCH_THROTTLED, ThreadPoolType.FIXED_AUTO_QUEUE_SIZE));
+        entry(Names.SEARCH_THROTTLED, ThreadPoolType.FIXED_AUTO_QUEUE_SIZE),
+        entry(Names.SEARCH_WORKER, ThreadPoolType.FIXED));
 
     private final Map<String, ExecutorHolder> executors;
 
@@ -171,6 +173,9 @@ public class ThreadPool implements Scheduler {
                         Names.SEARCH, searchThreadPoolSize(availableProcessors), 1000, 1000, 1000, 2000));
         builders.put(Names.SEARCH_THROTTLED, new AutoQueueAdjustingExecutorBuilder(settings,
             Names.SEARCH_THROTTLED, 1, 100, 100, 100, 200));
+        // slices of a single shard search are only queued behind a search thread that already got admitted,
+        // so the queue is unbounded and back pressure is applied by the search thread pool
+        builders.put(Names.SEARCH_WORKER, new FixedExecutorBuilder(settings, Names.SEARCH_WORKER, availableProcessors, -1));
         builders.put(Names.MANAGEMENT, new ScalingExecutorBuilder(Names.MANAGEMENT, 1, 5, TimeValue.timeValueMinutes(5)));
         // no queue as this means clients will need to handle rejections on listener queue even if the operation succeeded
         // the assumption here is that the listeners should be very lightweight on the listeners side
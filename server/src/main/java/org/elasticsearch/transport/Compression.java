@@ -0,0 +1,108 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.compress.Lz4Compressor;
+import org.elasticsearch.common.io.stream.StreamInput;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * The compression schemes that can be used for transport messages. The scheme of a compressed message is identified by the header of
+ * its compressed stream, so the receiving side does not need to know which scheme the sender is configured with.
+ */
+public final class Compression {
+
+    /**
+     * The version from which on nodes can decompress {@link Scheme#LZ4} messages. Messages to nodes of an older version fall back to
+     * {@link Scheme#DEFLATE}.
+     */
+    static final Version LZ4_VERSION = Version.V_8_0_0;
+
+    private static final Compressor LZ4_COMPRESSOR = new Lz4Compressor();
+
+    // both compressors use four byte headers
+    private static final int HEADER_LENGTH = 4;
+
+    private Compression() {}
+
+    public enum Scheme {
+        DEFLATE,
+        LZ4;
+
+        public static Scheme parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("unknown transport compression scheme [" + value + "]");
+            }
+        }
+
+        /**
+         * Returns the compressor to use for messages to a node of the given version.
+         */
+        Compressor compressor(Version version) {
+            if (this == LZ4 && version.onOrAfter(LZ4_VERSION)) {
+                return LZ4_COMPRESSOR;
+            }
+            return CompressorFactory.COMPRESSOR;
+        }
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Detects the compressor that was used to compress the remaining bytes of the given stream without consuming them.
+     *
+     * @return the compressor or {@code null} if the stream does not start with a known compression header
+     */
+    static Compressor compressor(StreamInput in) throws IOException {
+        if (in.markSupported() == false) {
+            // only DEFLATE compressed messages predate the detection of the compression scheme
+            return CompressorFactory.COMPRESSOR;
+        }
+        final byte[] header = new byte[HEADER_LENGTH];
+        in.mark(HEADER_LENGTH);
+        int len = 0;
+        while (len < header.length) {
+            final int read = in.read(header, len, header.length - len);
+            if (read == -1) {
+                break;
+            }
+            len += read;
+        }
+        in.reset();
+        final BytesArray headerBytes = new BytesArray(header, 0, len);
+        if (CompressorFactory.COMPRESSOR.isCompressed(headerBytes)) {
+            return CompressorFactory.COMPRESSOR;
+        } else if (LZ4_COMPRESSOR.isCompressed(headerBytes)) {
+            return LZ4_COMPRESSOR;
+        }
+        return null;
+    }
+}
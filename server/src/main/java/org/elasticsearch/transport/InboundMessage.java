@@ -20,7 +20,7 @@ package org.elasticsearch.transport;
 
 import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesReference;
-import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -105,13 +105,13 @@ public abstract class InboundMessage extends NetworkMessage implements Closeable
 
         static StreamInput decompressingStream(byte status, Version remoteVersion, StreamInput streamInput) throws IOException {
             if (TransportStatus.isCompress(status) && streamInput.available() > 0) {
-                try {
-                    StreamInput decompressor = CompressorFactory.COMPRESSOR.streamInput(streamInput);
-                    decompressor.setVersion(remoteVersion);
-                    return decompressor;
-                } catch (IllegalArgumentException e) {
-                    throw new IllegalStateException("stream marked as compressed, but is missing deflate header");
+                final Compressor compressor = Compression.compressor(streamInput);
+                if (compressor == null) {
+                    throw new IllegalStateException("stream marked as compressed, but is missing compression header");
                 }
+                StreamInput decompressor = compressor.streamInput(streamInput);
+                decompressor.setVersion(remoteVersion);
+                return decompressor;
             } else {
                 return streamInput;
             }
@@ -35,6 +35,7 @@ import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.network.CloseableChannel;
 import org.elasticsearch.common.transport.NetworkExceptionHelper;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -51,13 +52,22 @@ final class OutboundHandler {
     private final Version version;
     private final ThreadPool threadPool;
     private final BigArrays bigArrays;
+    private final Compression.Scheme compressionScheme;
+    private final long rawDataCompressionThreshold;
     private volatile TransportMessageListener messageListener = TransportMessageListener.NOOP_LISTENER;
 
     OutboundHandler(String nodeName, Version version, ThreadPool threadPool, BigArrays bigArrays) {
+        this(nodeName, version, threadPool, bigArrays, Compression.Scheme.DEFLATE, new ByteSizeValue(-1));
+    }
+
+    OutboundHandler(String nodeName, Version version, ThreadPool threadPool, BigArrays bigArrays, Compression.Scheme compressionScheme,
+                    ByteSizeValue rawDataCompressionThreshold) {
         this.nodeName = nodeName;
         this.version = version;
         this.threadPool = threadPool;
         this.bigArrays = bigArrays;
+        this.compressionScheme = compressionScheme;
+        this.rawDataCompressionThreshold = rawDataCompressionThreshold.getBytes();
     }
 
     void sendBytes(TcpChannel channel, BytesReference bytes, ActionListener<Void> listener) {
@@ -78,13 +88,23 @@ final class OutboundHandler {
                      final TransportRequest request, final TransportRequestOptions options, final Version channelVersion,
                      final boolean compressRequest, final boolean isHandshake) throws IOException, TransportException {
         Version version = Version.min(this.version, channelVersion);
-        OutboundMessage.Request message =
-            new OutboundMessage.Request(threadPool.getThreadContext(), request, version, action, requestId, isHandshake, compressRequest);
+        final boolean compress = compressRequest || shouldCompressRawData(request);
+        OutboundMessage.Request message = new OutboundMessage.Request(threadPool.getThreadContext(), request, version, action, requestId,
+            isHandshake, compress, compressionScheme);
         ActionListener<Void> listener = ActionListener.wrap(() ->
             messageListener.onRequestSent(node, requestId, action, request, options));
         sendMessage(channel, message, listener);
     }
 
+    /**
+     * Whether the request carries raw indexing or recovery data that is large enough to be compressed even if compression is not
+     * enabled for the connection, see {@link TransportSettings#TRANSPORT_COMPRESS_RAW_DATA_THRESHOLD}.
+     */
+    private boolean shouldCompressRawData(TransportRequest request) {
+        return rawDataCompressionThreshold >= 0 && request instanceof RawDataTransportRequest
+            && ((RawDataTransportRequest) request).rawDataSizeInBytes() >= rawDataCompressionThreshold;
+    }
+
     /**
      * Sends the response to the given channel. This method should be used to send {@link TransportResponse}
      * objects back to the caller.
@@ -95,7 +115,7 @@ final class OutboundHandler {
                       final TransportResponse response, final boolean compress, final boolean isHandshake) throws IOException {
         Version version = Version.min(this.version, nodeVersion);
         OutboundMessage.Response message = new OutboundMessage.Response(threadPool.getThreadContext(), response, version,
-            requestId, isHandshake, compress);
+            requestId, isHandshake, compress, compressionScheme);
         ActionListener<Void> listener = ActionListener.wrap(() -> messageListener.onResponseSent(requestId, action, response));
         sendMessage(channel, message, listener);
     }
@@ -33,10 +33,13 @@ import java.io.IOException;
 abstract class OutboundMessage extends NetworkMessage {
 
     private final Writeable message;
+    private final Compression.Scheme compressionScheme;
 
-    OutboundMessage(ThreadContext threadContext, Version version, byte status, long requestId, Writeable message) {
+    OutboundMessage(ThreadContext threadContext, Version version, byte status, long requestId, Writeable message,
+                    Compression.Scheme compressionScheme) {
         super(threadContext, version, status, requestId);
         this.message = message;
+        this.compressionScheme = compressionScheme;
     }
 
     BytesReference serialize(BytesStreamOutput bytesStream) throws IOException {
@@ -54,7 +57,8 @@ abstract class OutboundMessage extends NetworkMessage {
             variableHeaderLength = Math.toIntExact(bytesStream.position() - preHeaderPosition);
         }
 
-        try (CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bytesStream, TransportStatus.isCompress(status))) {
+        try (CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bytesStream, TransportStatus.isCompress(status),
+                compressionScheme.compressor(version))) {
             stream.setVersion(version);
             if (variableHeaderLength == -1) {
                 writeVariableHeader(stream);
@@ -104,7 +108,12 @@ abstract class OutboundMessage extends NetworkMessage {
 
         Request(ThreadContext threadContext, Writeable message, Version version, String action, long requestId,
                 boolean isHandshake, boolean compress) {
-            super(threadContext, version, setStatus(compress, isHandshake, message), requestId, message);
+            this(threadContext, message, version, action, requestId, isHandshake, compress, Compression.Scheme.DEFLATE);
+        }
+
+        Request(ThreadContext threadContext, Writeable message, Version version, String action, long requestId,
+                boolean isHandshake, boolean compress, Compression.Scheme compressionScheme) {
+            super(threadContext, version, setStatus(compress, isHandshake, message), requestId, message, compressionScheme);
             this.action = action;
         }
 
@@ -135,7 +144,12 @@ abstract class OutboundMessage extends NetworkMessage {
     static class Response extends OutboundMessage {
 
         Response(ThreadContext threadContext, Writeable message, Version version, long requestId, boolean isHandshake, boolean compress) {
-            super(threadContext, version, setStatus(compress, isHandshake, message), requestId, message);
+            this(threadContext, message, version, requestId, isHandshake, compress, Compression.Scheme.DEFLATE);
+        }
+
+        Response(ThreadContext threadContext, Writeable message, Version version, long requestId, boolean isHandshake, boolean compress,
+                 Compression.Scheme compressionScheme) {
+            super(threadContext, version, setStatus(compress, isHandshake, message), requestId, message, compressionScheme);
         }
 
         private static byte setStatus(boolean compress, boolean isHandshake, Writeable message) {
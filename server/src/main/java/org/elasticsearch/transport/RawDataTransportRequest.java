@@ -0,0 +1,33 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+/**
+ * A transport request that carries raw indexing or recovery data, e.g. document sources, translog operations or file chunks. Such
+ * requests are compressed when their data exceeds {@link TransportSettings#TRANSPORT_COMPRESS_RAW_DATA_THRESHOLD}, even on connections
+ * that do not compress messages otherwise.
+ */
+public interface RawDataTransportRequest {
+
+    /**
+     * The size in bytes of the raw data carried by this request.
+     */
+    long rawDataSizeInBytes();
+}
@@ -137,7 +137,9 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         String nodeName = Node.NODE_NAME_SETTING.get(settings);
         BigArrays bigArrays = new BigArrays(pageCacheRecycler, circuitBreakerService, CircuitBreaker.IN_FLIGHT_REQUESTS);
 
-        this.outboundHandler = new OutboundHandler(nodeName, version, threadPool, bigArrays);
+        this.outboundHandler = new OutboundHandler(nodeName, version, threadPool, bigArrays,
+            TransportSettings.TRANSPORT_COMPRESSION_SCHEME.get(settings),
+            TransportSettings.TRANSPORT_COMPRESS_RAW_DATA_THRESHOLD.get(settings));
         this.handshaker = new TransportHandshaker(ClusterName.CLUSTER_NAME_SETTING.get(settings), version, threadPool,
             (node, channel, requestId, v) -> outboundHandler.sendRequest(node, channel, requestId,
                 TransportHandshaker.HANDSHAKE_ACTION_NAME, new TransportHandshaker.HandshakeRequest(version),
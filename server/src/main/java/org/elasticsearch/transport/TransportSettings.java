@@ -62,6 +62,13 @@ public final class TransportSettings {
         key -> intSetting(key, -1, -1, Setting.Property.NodeScope));
     public static final Setting<Boolean> TRANSPORT_COMPRESS =
         boolSetting("transport.compress", false, Setting.Property.NodeScope);
+    public static final Setting<Compression.Scheme> TRANSPORT_COMPRESSION_SCHEME =
+        new Setting<>("transport.compression_scheme", Compression.Scheme.DEFLATE.toString(), Compression.Scheme::parse,
+            Setting.Property.NodeScope);
+    // requests carrying raw indexing or recovery data of at least this size are compressed regardless of transport.compress,
+    // defaults to disabled (-1)
+    public static final Setting<ByteSizeValue> TRANSPORT_COMPRESS_RAW_DATA_THRESHOLD =
+        Setting.byteSizeSetting("transport.compress_raw_data_threshold", new ByteSizeValue(-1), Setting.Property.NodeScope);
     // the scheduled internal ping interval setting, defaults to disabled (-1)
     public static final Setting<TimeValue> PING_SCHEDULE =
         timeSetting("transport.ping_schedule", TimeValue.timeValueSeconds(-1), Setting.Property.NodeScope);
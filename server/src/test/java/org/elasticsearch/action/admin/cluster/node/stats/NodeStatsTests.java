@@ -26,6 +26,8 @@ import org.elasticsearch.discovery.DiscoveryStats;
 import org.elasticsearch.cluster.coordination.PendingClusterStateStats;
 import org.elasticsearch.cluster.coordination.PublishClusterStateStats;
 import org.elasticsearch.http.HttpStats;
+import org.elasticsearch.index.IndexingPressureStats;
+import org.elasticsearch.indices.TranslogSyncStats;
 import org.elasticsearch.indices.breaker.AllCircuitBreakerStats;
 import org.elasticsearch.indices.breaker.CircuitBreakerStats;
 import org.elasticsearch.ingest.IngestStats;
@@ -311,6 +313,42 @@ public class NodeStatsTests extends ESTestCase {
                         assertEquals(aStats.responseTime, bStats.responseTime, 0.01);
                     });
                 }
+                IndexingPressureStats indexingPressureStats = nodeStats.getIndexingPressureStats();
+                IndexingPressureStats deserializedIndexingPressureStats = deserializedNodeStats.getIndexingPressureStats();
+                if (indexingPressureStats == null) {
+                    assertNull(deserializedIndexingPressureStats);
+                } else {
+                    assertEquals(indexingPressureStats.getTotalCoordinatingBytes(),
+                        deserializedIndexingPressureStats.getTotalCoordinatingBytes());
+                    assertEquals(indexingPressureStats.getTotalPrimaryBytes(), deserializedIndexingPressureStats.getTotalPrimaryBytes());
+                    assertEquals(indexingPressureStats.getTotalReplicaBytes(), deserializedIndexingPressureStats.getTotalReplicaBytes());
+                    assertEquals(indexingPressureStats.getCurrentCombinedCoordinatingAndPrimaryBytes(),
+                        deserializedIndexingPressureStats.getCurrentCombinedCoordinatingAndPrimaryBytes());
+                    assertEquals(indexingPressureStats.getCoordinatingRejections(),
+                        deserializedIndexingPressureStats.getCoordinatingRejections());
+                    assertEquals(indexingPressureStats.getPrimaryRejections(), deserializedIndexingPressureStats.getPrimaryRejections());
+                    assertEquals(indexingPressureStats.getReplicaRejections(), deserializedIndexingPressureStats.getReplicaRejections());
+                    assertEquals(indexingPressureStats.getMemoryLimit(), deserializedIndexingPressureStats.getMemoryLimit());
+                }
+                TranslogSyncStats translogSyncStats = nodeStats.getTranslogSyncStats();
+                TranslogSyncStats deserializedTranslogSyncStats = deserializedNodeStats.getTranslogSyncStats();
+                if (translogSyncStats == null) {
+                    assertNull(deserializedTranslogSyncStats);
+                } else {
+                    assertEquals(translogSyncStats.getDataPaths().size(), deserializedTranslogSyncStats.getDataPaths().size());
+                    for (int i = 0; i < translogSyncStats.getDataPaths().size(); i++) {
+                        TranslogSyncStats.DataPathStats dataPath = translogSyncStats.getDataPaths().get(i);
+                        TranslogSyncStats.DataPathStats deserializedDataPath = deserializedTranslogSyncStats.getDataPaths().get(i);
+                        assertEquals(dataPath.getPath(), deserializedDataPath.getPath());
+                        assertEquals(dataPath.getBatches(), deserializedDataPath.getBatches());
+                        assertEquals(dataPath.getSyncs(), deserializedDataPath.getSyncs());
+                        assertEquals(dataPath.getShardSyncs(), deserializedDataPath.getShardSyncs());
+                        assertEquals(dataPath.getFsyncs(), deserializedDataPath.getFsyncs());
+                        assertEquals(dataPath.getTotalTime(), deserializedDataPath.getTotalTime());
+                        assertArrayEquals(dataPath.getBatchSizeHistogram(), deserializedDataPath.getBatchSizeHistogram());
+                        assertArrayEquals(dataPath.getLatencyHistogram(), deserializedDataPath.getLatencyHistogram());
+                    }
+                }
             }
         }
     }
@@ -485,10 +523,36 @@ public class NodeStatsTests extends ESTestCase {
             }
             adaptiveSelectionStats = new AdaptiveSelectionStats(nodeConnections, nodeStats);
         }
+        IndexingPressureStats indexingPressureStats = null;
+        if (frequently()) {
+            indexingPressureStats = new IndexingPressureStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+                randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+                randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+                randomNonNegativeLong());
+        }
+        TranslogSyncStats translogSyncStats = null;
+        if (frequently()) {
+            List<TranslogSyncStats.DataPathStats> dataPaths = new ArrayList<>();
+            int numDataPaths = randomIntBetween(0, 3);
+            for (int i = 0; i < numDataPaths; i++) {
+                long[] batchSizeHistogram = new long[TranslogSyncStats.BATCH_SIZE_BOUNDS.length + 1];
+                for (int j = 0; j < batchSizeHistogram.length; j++) {
+                    batchSizeHistogram[j] = randomNonNegativeLong();
+                }
+                long[] latencyHistogram = new long[TranslogSyncStats.LATENCY_BOUNDS_MILLIS.length + 1];
+                for (int j = 0; j < latencyHistogram.length; j++) {
+                    latencyHistogram[j] = randomNonNegativeLong();
+                }
+                dataPaths.add(new TranslogSyncStats.DataPathStats(randomAlphaOfLengthBetween(3, 10), randomNonNegativeLong(),
+                    randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+                    batchSizeHistogram, latencyHistogram));
+            }
+            translogSyncStats = new TranslogSyncStats(dataPaths);
+        }
         //TODO NodeIndicesStats are not tested here, way too complicated to create, also they need to be migrated to Writeable yet
         return new NodeStats(node, randomNonNegativeLong(), null, osStats, processStats, jvmStats, threadPoolStats,
                 fsInfo, transportStats, httpStats, allCircuitBreakerStats, scriptStats, discoveryStats,
-                ingestStats, adaptiveSelectionStats);
+                ingestStats, adaptiveSelectionStats, indexingPressureStats, translogSyncStats);
     }
 
     private IngestStats.Stats getPipelineStats(List<IngestStats.PipelineStat> pipelineStats, String id) {
@@ -38,12 +38,15 @@ import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.action.update.UpdateResponse;
 import org.elasticsearch.client.Requests;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.VersionConflictEngineException;
+import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.Mapping;
 import org.elasticsearch.index.mapper.MetadataFieldMapper;
@@ -53,10 +56,12 @@ import org.elasticsearch.index.shard.IndexShardTestCase;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.util.Collections;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.CoreMatchers.equalTo;
@@ -64,6 +69,9 @@ import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.Matchers.arrayWithSize;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
@@ -224,6 +232,102 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         latch.await();
     }
 
+    public void testPreParseDocumentsInParallel() throws Exception {
+        IndexShard shard = newStartedShard(true,
+            Settings.builder().put(IndexSettings.INDEX_BULK_PARALLEL_PARSING_SETTING.getKey(), true).build());
+
+        BulkItemRequest[] items = new BulkItemRequest[randomIntBetween(TransportShardBulkAction.MIN_DOCUMENTS_PER_PARSER * 2, 100)];
+        final int malformedItem = randomIntBetween(0, items.length - 1);
+        for (int i = 0; i < items.length; i++) {
+            IndexRequest writeRequest = new IndexRequest("index").id("id_" + i);
+            if (i == malformedItem) {
+                writeRequest.source(new BytesArray("{\"foo\": "), XContentType.JSON);
+            } else {
+                writeRequest.source(Requests.INDEX_CONTENT_TYPE);
+            }
+            items[i] = new BulkItemRequest(i, writeRequest);
+        }
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        TransportShardBulkAction.performOnPrimary(
+            bulkShardRequest, shard, null, threadPool::absoluteTimeInMillis, new NoopMappingUpdatePerformer(),
+            listener -> {}, ActionListener.runAfter(
+                ActionTestUtils.assertNoFailureListener(result -> {
+                    assertThat(result.finalResponseIfSuccessful.getResponses(), arrayWithSize(items.length));
+                    long lastSeqNo = -1;
+                    for (int i = 0; i < items.length; i++) {
+                        BulkItemResponse response = result.finalResponseIfSuccessful.getResponses()[i];
+                        assertThat(response.getItemId(), equalTo(i));
+                        assertThat(response.getId(), equalTo("id_" + i));
+                        if (i == malformedItem) {
+                            assertTrue(response.isFailed());
+                            assertThat(response.getFailure().getCause(), instanceOf(MapperParsingException.class));
+                        } else {
+                            assertFalse(response.isFailed());
+                            // documents are still indexed in the order of the items
+                            assertThat(response.getResponse().getSeqNo(), greaterThan(lastSeqNo));
+                            lastSeqNo = response.getResponse().getSeqNo();
+                        }
+                    }
+                    try {
+                        assertDocCount(shard, items.length - 1);
+                        closeShards(shard);
+                    } catch (IOException e) {
+                        throw new AssertionError(e);
+                    }
+                }), latch::countDown), threadPool);
+
+        latch.await();
+    }
+
+    public void testPreParsedDocumentsAreParsedAgainAfterMappingUpdate() throws Exception {
+        IndexShard shard = newStartedShard(true,
+            Settings.builder().put(IndexSettings.INDEX_BULK_PARALLEL_PARSING_SETTING.getKey(), true).build());
+
+        // all documents have the new field, but only the first of them that is executed triggers a mapping update
+        BulkItemRequest[] items = new BulkItemRequest[randomIntBetween(TransportShardBulkAction.MIN_DOCUMENTS_PER_PARSER * 2, 100)];
+        for (int i = 0; i < items.length; i++) {
+            IndexRequest writeRequest = new IndexRequest("index").id("id_" + i).source("new_field", "value_" + i);
+            items[i] = new BulkItemRequest(i, writeRequest);
+        }
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+
+        final AtomicInteger mappingUpdates = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+        TransportShardBulkAction.performOnPrimary(
+            bulkShardRequest, shard, null, threadPool::absoluteTimeInMillis, (update, updatedShardId, listener) -> {
+                mappingUpdates.incrementAndGet();
+                updateMappings(shard, IndexMetaData.builder(shard.indexSettings().getIndexMetaData())
+                    .putMapping(update.toString()).build());
+                listener.onResponse(null);
+            }, listener -> listener.onResponse(null), ActionListener.runAfter(
+                ActionTestUtils.assertNoFailureListener(result -> {
+                    assertThat(result.finalResponseIfSuccessful.getResponses(), arrayWithSize(items.length));
+                    for (BulkItemResponse response : result.finalResponseIfSuccessful.getResponses()) {
+                        assertFalse(response.isFailed());
+                    }
+                    // documents that were parsed with the previous mapping would require the mapping update again
+                    assertThat(mappingUpdates.get(), equalTo(1));
+                    try {
+                        assertDocCount(shard, items.length);
+                        closeShards(shard);
+                    } catch (IOException e) {
+                        throw new AssertionError(e);
+                    }
+                }), latch::countDown), threadPool);
+
+        latch.await();
+    }
+
+    public void testIdleThreads() {
+        assertThat(TransportShardBulkAction.idleThreads(Runnable::run, 3), equalTo(3));
+        assertThat(TransportShardBulkAction.idleThreads(Runnable::run, 0), equalTo(0));
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) threadPool.executor(ThreadPool.Names.WRITE);
+        assertThat(TransportShardBulkAction.idleThreads(executor, executor.getMaximumPoolSize() + 1),
+            lessThanOrEqualTo(executor.getMaximumPoolSize()));
+    }
+
     public void testExecuteBulkIndexRequestWithMappingUpdates() throws Exception {
 
         BulkItemRequest[] items = new BulkItemRequest[1];
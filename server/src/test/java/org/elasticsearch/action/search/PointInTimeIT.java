@@ -0,0 +1,91 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.MatchAllQueryBuilder;
+import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.ESIntegTestCase;
+
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertNoFailures;
+import static org.hamcrest.Matchers.equalTo;
+
+public class PointInTimeIT extends ESIntegTestCase {
+
+    public void testSearchAfterPointInTime() throws Exception {
+        assertAcked(prepareCreate("test").setSettings(Settings.builder()
+            .put("index.number_of_shards", between(1, 5))
+            .put("index.number_of_replicas", between(0, 1))));
+        int numDocs = between(10, 50);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex("test").setId(Integer.toString(i)).setSource("value", i).get();
+        }
+        refresh("test");
+        ensureGreen("test");
+
+        final String pitId = client().execute(OpenPointInTimeAction.INSTANCE,
+            new OpenPointInTimeRequest("test").keepAlive(TimeValue.timeValueMinutes(2))).actionGet().getSearchContextId();
+        try {
+            // documents indexed after the point in time was opened are not visible to it
+            int extraDocs = between(1, 10);
+            for (int i = 0; i < extraDocs; i++) {
+                client().prepareIndex("test").setId("extra-" + i).setSource("value", numDocs + i).get();
+            }
+            refresh("test");
+            assertHitCount(client().prepareSearch("test").setSize(0).get(), numDocs + extraDocs);
+
+            int pageSize = between(1, 10);
+            int seen = 0;
+            Object[] searchAfter = null;
+            while (true) {
+                SearchSourceBuilder source = new SearchSourceBuilder()
+                    .query(new MatchAllQueryBuilder())
+                    .size(pageSize)
+                    .sort("value", SortOrder.ASC)
+                    .pointInTimeBuilder(new PointInTimeBuilder(pitId, TimeValue.timeValueMinutes(2)));
+                if (searchAfter != null) {
+                    source.searchAfter(searchAfter);
+                }
+                SearchResponse resp = client().search(new SearchRequest().source(source)).actionGet();
+                assertNoFailures(resp);
+                assertThat(resp.getHits().getTotalHits().value, equalTo((long) numDocs));
+                if (resp.getHits().getHits().length == 0) {
+                    break;
+                }
+                seen += resp.getHits().getHits().length;
+                searchAfter = resp.getHits().getHits()[resp.getHits().getHits().length - 1].getSortValues();
+            }
+            assertThat(seen, equalTo(numDocs));
+        } finally {
+            ClosePointInTimeResponse closeResponse =
+                client().execute(ClosePointInTimeAction.INSTANCE, new ClosePointInTimeRequest(pitId)).actionGet();
+            assertTrue(closeResponse.isSucceeded());
+        }
+        for (SearchService searchService : internalCluster().getInstances(SearchService.class)) {
+            assertThat(searchService.getActiveReaderContexts(), equalTo(0));
+        }
+    }
+}
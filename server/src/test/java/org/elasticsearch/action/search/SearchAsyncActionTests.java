@@ -44,6 +44,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -372,6 +373,97 @@ public class SearchAsyncActionTests extends ESTestCase {
         executor.shutdown();
     }
 
+    public void testBatchRequestsPerNode() throws InterruptedException {
+        SearchRequest request = new SearchRequest();
+        request.allowPartialSearchResults(true);
+        AtomicReference<SearchResponse> response = new AtomicReference<>();
+        ActionListener<SearchResponse> responseListener = ActionListener.wrap(response::set,
+            (e) -> { throw new AssertionError("unexpected", e);});
+        DiscoveryNode primaryNode = new DiscoveryNode("node_1", buildNewFakeTransportAddress(), Version.CURRENT);
+
+        int numShards = randomIntBetween(2, 10);
+        GroupShardsIterator<SearchShardIterator> shardsIter = getShardsIter("idx",
+            new OriginalIndices(new String[]{"idx"}, SearchRequest.DEFAULT_INDICES_OPTIONS),
+            numShards, false, primaryNode, null);
+        Set<Integer> failingShards = new HashSet<>();
+        for (int i = 1; i < numShards; i++) {
+            if (randomBoolean()) {
+                failingShards.add(i);
+            }
+        }
+        Map<String, Transport.Connection> lookup = Collections.singletonMap(primaryNode.getId(), new MockConnection(primaryNode));
+        Map<String, AliasFilter> aliasFilters = Collections.singletonMap("_na_", new AliasFilter(null, Strings.EMPTY_ARRAY));
+        ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, Runtime.getRuntime().availableProcessors()));
+        AtomicInteger numNodeRequests = new AtomicInteger();
+        AtomicInteger contextIdGenerator = new AtomicInteger(0);
+        CountDownLatch latch = new CountDownLatch(1);
+        AbstractSearchAsyncAction<TestSearchPhaseResult> asyncAction =
+            new AbstractSearchAsyncAction<TestSearchPhaseResult>(
+                "test",
+                logger,
+                new SearchTransportService(null, null),
+                (cluster, node) -> lookup.get(node),
+                aliasFilters,
+                Collections.emptyMap(),
+                Collections.emptyMap(),
+                executor,
+                request,
+                responseListener,
+                shardsIter,
+                new TransportSearchAction.SearchTimeProvider(0, 0, () -> 0),
+                0,
+                null,
+                new ArraySearchPhaseResults<>(shardsIter.size()),
+                request.getMaxConcurrentShardRequests(),
+                SearchResponse.Clusters.EMPTY) {
+
+                @Override
+                protected NodePhaseExecutor<TestSearchPhaseResult> nodePhaseExecutor() {
+                    return (clusterAlias, nodeId, shardIts, listeners) -> {
+                        numNodeRequests.incrementAndGet();
+                        assertEquals(primaryNode.getId(), nodeId);
+                        assertEquals(numShards, shardIts.size());
+                        assertEquals(numShards, listeners.size());
+                        new Thread(() -> {
+                            for (int i = 0; i < shardIts.size(); i++) {
+                                if (failingShards.contains(shardIts.get(i).shardId().id())) {
+                                    listeners.get(i).onFailure(new RuntimeException("boom"));
+                                } else {
+                                    listeners.get(i).onResponse(new TestSearchPhaseResult(contextIdGenerator.incrementAndGet(),
+                                        primaryNode));
+                                }
+                            }
+                        }).start();
+                    };
+                }
+
+                @Override
+                protected void executePhaseOnShard(SearchShardIterator shardIt, ShardRouting shard,
+                                                   SearchActionListener<TestSearchPhaseResult> listener) {
+                    throw new AssertionError("all shards are on the same node and should be batched");
+                }
+
+                @Override
+                protected SearchPhase getNextPhase(SearchPhaseResults<TestSearchPhaseResult> results, SearchPhaseContext context) {
+                    return new SearchPhase("test") {
+                        @Override
+                        public void run() {
+                            responseListener.onResponse(buildSearchResponse(null, null, buildShardFailures()));
+                            latch.countDown();
+                        }
+                    };
+                }
+            };
+        asyncAction.start();
+        latch.await();
+        assertEquals(1, numNodeRequests.get());
+        assertNotNull(response.get());
+        assertEquals(numShards, response.get().getTotalShards());
+        assertEquals(numShards - failingShards.size(), response.get().getSuccessfulShards());
+        assertEquals(failingShards.size(), response.get().getFailedShards());
+        executor.shutdown();
+    }
+
     public void testAllowPartialResults() throws InterruptedException {
         SearchRequest request = new SearchRequest();
         request.allowPartialSearchResults(false);
@@ -60,12 +60,15 @@ import org.elasticsearch.test.ESTestCase;
 import org.junit.Before;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -215,6 +218,31 @@ public class SearchPhaseControllerTests extends ESTestCase {
         }
     }
 
+    public void testGetPartialHits() {
+        int nShards = randomIntBetween(1, 20);
+        int queryResultSize = randomIntBetween(1, nShards * 2);
+        AtomicArray<SearchPhaseResult> queryResults = generateQueryResults(nShards, Collections.emptyList(), queryResultSize, false);
+        SearchPhaseController.ReducedQueryPhase reducedQueryPhase = searchPhaseController.reducedQueryPhase(queryResults.asList(),
+            false, SearchContext.TRACK_TOTAL_HITS_ACCURATE, true);
+        AtomicArray<SearchPhaseResult> fetchResults = generateFetchResults(nShards,
+            reducedQueryPhase.sortedTopDocs.scoreDocs, new Suggest(Collections.emptyList()));
+        Set<Integer> fetchedShards = new HashSet<>();
+        for (int i = 0; i < nShards; i++) {
+            if (randomBoolean()) {
+                fetchedShards.add(i);
+            }
+        }
+        SearchHits partialHits = searchPhaseController.getPartialHits(reducedQueryPhase, nShards,
+            i -> fetchedShards.contains(i) ? fetchResults.get(i) : null);
+        InternalSearchResponse mergedResponse = searchPhaseController.merge(false, reducedQueryPhase, fetchResults.asList(),
+            fetchResults::get);
+        List<SearchHit> expectedHits = Arrays.stream(mergedResponse.hits().getHits())
+            .filter(hit -> fetchedShards.contains(hit.getShard().getShardId().id()))
+            .collect(Collectors.toList());
+        assertEquals(expectedHits, Arrays.asList(partialHits.getHits()));
+        assertEquals(mergedResponse.hits().getTotalHits(), partialHits.getTotalHits());
+    }
+
     /**
      * Generate random query results received from the provided number of shards, including the provided
      * number of search hits and randomly generated completion suggestions based on the name and size of the provided ones.
@@ -484,6 +512,51 @@ public class SearchPhaseControllerTests extends ESTestCase {
         assertNull(reduce.sortedTopDocs.collapseValues);
     }
 
+    public void testConsumerWithNodeReducedAggs() {
+        int numNodes = randomIntBetween(1, 10);
+        int bufferSize = randomIntBetween(2, 200);
+        SearchRequest request = randomSearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(AggregationBuilders.avg("foo")).size(0));
+        request.setBatchedReduceSize(bufferSize);
+        List<QuerySearchResult[]> nodeResults = new ArrayList<>();
+        int expectedNumResults = 0;
+        int max = 0;
+        for (int node = 0; node < numNodes; node++) {
+            QuerySearchResult[] results = new QuerySearchResult[randomIntBetween(1, 10)];
+            for (int i = 0; i < results.length; i++) {
+                int shardIndex = expectedNumResults++;
+                int number = randomIntBetween(1, 1000);
+                max = Math.max(max, number);
+                QuerySearchResult result = new QuerySearchResult(shardIndex, new SearchShardTarget("node" + node,
+                    new ShardId("a", "b", shardIndex), null, OriginalIndices.NONE));
+                result.topDocs(new TopDocsAndMaxScore(new TopDocs(new TotalHits(1, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]),
+                    number), new DocValueFormat[0]);
+                result.aggregations(new InternalAggregations(Collections.singletonList(new InternalMax("test", (double) number,
+                    DocValueFormat.RAW, Collections.emptyList(), Collections.emptyMap()))));
+                result.setShardIndex(shardIndex);
+                result.size(1);
+                results[i] = result;
+            }
+            SearchTransportService.reduceAggs(results,
+                () -> new InternalAggregation.ReduceContext(BigArrays.NON_RECYCLING_INSTANCE, null, false));
+            assertEquals(1, Arrays.stream(results).filter(r -> r.aggregations().asList().isEmpty() == false).count());
+            assertTrue(Arrays.stream(results).allMatch(QuerySearchResult::hasAggs));
+            nodeResults.add(results);
+        }
+        ArraySearchPhaseResults<SearchPhaseResult> consumer =
+            searchPhaseController.newSearchPhaseResults(NOOP, request, expectedNumResults);
+        for (QuerySearchResult[] results : nodeResults) {
+            for (QuerySearchResult result : results) {
+                consumer.consumeResult(result);
+            }
+        }
+        SearchPhaseController.ReducedQueryPhase reduce = consumer.reduce();
+        assertFinalReduction(request);
+        InternalMax internalMax = (InternalMax) reduce.aggregations.asList().get(0);
+        assertEquals(max, internalMax.getValue(), 0.0D);
+        assertEquals(expectedNumResults, reduce.totalHits.value);
+    }
+
     public void testConsumerOnlyAggs() {
         int expectedNumResults = randomIntBetween(1, 100);
         int bufferSize = randomIntBetween(2, 200);
@@ -28,6 +28,7 @@ import org.elasticsearch.common.util.ArrayUtils;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.AbstractSearchTestCase;
 import org.elasticsearch.search.Scroll;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.rescore.QueryRescorerBuilder;
 import org.elasticsearch.test.ESTestCase;
@@ -161,6 +162,26 @@ public class SearchRequestTests extends AbstractSearchTestCase {
             assertEquals(1, validationErrors.validationErrors().size());
             assertEquals("using [rescore] is not allowed in a scroll context", validationErrors.validationErrors().get(0));
         }
+        {
+            // Point in time is not allowed on scroll requests
+            SearchRequest searchRequest = new SearchRequest().source(new SearchSourceBuilder()
+                .pointInTimeBuilder(new PointInTimeBuilder(randomAlphaOfLength(10), null)));
+            searchRequest.scroll(new TimeValue(1000));
+            ActionRequestValidationException validationErrors = searchRequest.validate();
+            assertNotNull(validationErrors);
+            assertEquals(1, validationErrors.validationErrors().size());
+            assertEquals("using [point in time] is not allowed in a scroll context", validationErrors.validationErrors().get(0));
+        }
+        {
+            // Indices are taken from the point in time id
+            SearchRequest searchRequest = new SearchRequest("index").source(new SearchSourceBuilder()
+                .pointInTimeBuilder(new PointInTimeBuilder(randomAlphaOfLength(10), null)));
+            ActionRequestValidationException validationErrors = searchRequest.validate();
+            assertNotNull(validationErrors);
+            assertEquals(1, validationErrors.validationErrors().size());
+            assertEquals("[indices] cannot be used with point in time, they are taken from the point in time id",
+                validationErrors.validationErrors().get(0));
+        }
     }
 
     public void testCopyConstructor() throws IOException {
@@ -0,0 +1,101 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.IndexTimestampRange;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.index.shard.ShardTimestampRange;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TimestampRangeShardFilterTests extends ESTestCase {
+
+    private static final long NOW = TimeUnit.DAYS.toMillis(365 * 50);
+
+    public void testCollectRequiredRangeQueries() {
+        final RangeQueryBuilder filter = QueryBuilders.rangeQuery("@timestamp").gte("now-15m");
+        final RangeQueryBuilder must = QueryBuilders.rangeQuery("other").lt(10);
+        final List<RangeQueryBuilder> rangeQueries = new ArrayList<>();
+        TimestampRangeShardFilter.collectRequiredRangeQueries(QueryBuilders.boolQuery()
+            .filter(QueryBuilders.constantScoreQuery(filter))
+            .must(must)
+            .should(QueryBuilders.rangeQuery("@timestamp").lt("now-1d")), rangeQueries);
+        assertThat(rangeQueries, contains(filter, must));
+    }
+
+    public void testCanMatch() {
+        final IndexMetaData indexMetaData = writeBlockedIndex(NOW - TimeUnit.DAYS.toMillis(2), NOW - TimeUnit.DAYS.toMillis(1));
+        assertTrue(indexMetaData.getTimestampRange().containsAllShardRanges());
+
+        assertFalse(canMatch(indexMetaData, QueryBuilders.rangeQuery("@timestamp").gte("now-15m")));
+        assertTrue(canMatch(indexMetaData, QueryBuilders.rangeQuery("@timestamp").gte("now-36h")));
+        assertFalse(canMatch(indexMetaData, QueryBuilders.rangeQuery("@timestamp").lt("now-3d")));
+        assertTrue(canMatch(indexMetaData, QueryBuilders.rangeQuery("@timestamp").gte("now-3d/d")));
+        assertFalse(canMatch(indexMetaData,
+            QueryBuilders.rangeQuery("@timestamp").gt(NOW - TimeUnit.DAYS.toMillis(1)).format("epoch_millis")));
+        assertTrue(canMatch(indexMetaData,
+            QueryBuilders.rangeQuery("@timestamp").gte(NOW - TimeUnit.DAYS.toMillis(1)).format("epoch_millis")));
+        // the bound can only be resolved with the mapping of the field
+        assertTrue(canMatch(indexMetaData, QueryBuilders.rangeQuery("@timestamp").gte(NOW)));
+        // not the timestamp field
+        assertTrue(canMatch(indexMetaData, QueryBuilders.rangeQuery("other").gte("now-15m")));
+    }
+
+    public void testRangeDiscardedWithoutWriteBlock() {
+        final IndexMetaData indexMetaData = writeBlockedIndex(NOW - TimeUnit.DAYS.toMillis(2), NOW - TimeUnit.DAYS.toMillis(1));
+        final IndexMetaData unblocked = IndexMetaData.builder(indexMetaData)
+            .settings(Settings.builder().put(indexMetaData.getSettings()).put(IndexMetaData.SETTING_BLOCKS_WRITE, false))
+            .build();
+        assertThat(unblocked.getTimestampRange(), equalTo(IndexTimestampRange.NO_SHARDS));
+        assertTrue(canMatch(unblocked, QueryBuilders.rangeQuery("@timestamp").gte("now-15m")));
+    }
+
+    private static boolean canMatch(IndexMetaData indexMetaData, RangeQueryBuilder rangeQuery) {
+        return TimestampRangeShardFilter.canMatch(indexMetaData, Collections.singletonList(rangeQuery), NOW);
+    }
+
+    private static IndexMetaData writeBlockedIndex(long min, long max) {
+        final int numberOfShards = between(1, 5);
+        IndexTimestampRange timestampRange = IndexTimestampRange.NO_SHARDS;
+        for (int shardId = 0; shardId < numberOfShards; shardId++) {
+            timestampRange = timestampRange.extendWithShardRange(shardId, numberOfShards,
+                shardId == 0 ? ShardTimestampRange.of(min, max) : ShardTimestampRange.of(min + 1, max - 1));
+        }
+        return IndexMetaData.builder("index")
+            .settings(Settings.builder()
+                .put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+                .put(IndexMetaData.SETTING_BLOCKS_WRITE, true))
+            .numberOfShards(numberOfShards)
+            .numberOfReplicas(0)
+            .timestampRange(timestampRange)
+            .build();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.metadata;
+
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.index.shard.ShardTimestampRange;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class IndexTimestampRangeTests extends ESTestCase {
+
+    public void testExtendWithShardRanges() {
+        final int numberOfShards = 3;
+        IndexTimestampRange range = IndexTimestampRange.NO_SHARDS;
+        assertFalse(range.containsAllShardRanges());
+        assertTrue(range.mayIntersect(Long.MIN_VALUE, Long.MAX_VALUE));
+
+        range = range.extendWithShardRange(1, numberOfShards, ShardTimestampRange.of(100, 200));
+        assertTrue(range.hasShard(1));
+        assertFalse(range.hasShard(0));
+        assertThat(range.extendWithShardRange(1, numberOfShards, ShardTimestampRange.of(0, 1000)), sameInstance(range));
+
+        range = range.extendWithShardRange(0, numberOfShards, ShardTimestampRange.EMPTY);
+        assertFalse(range.containsAllShardRanges());
+        // not every shard has reported its range yet
+        assertTrue(range.mayIntersect(500, 600));
+
+        range = range.extendWithShardRange(2, numberOfShards, ShardTimestampRange.of(300, 400));
+        assertTrue(range.containsAllShardRanges());
+        assertThat(range.getMin(), equalTo(100L));
+        assertThat(range.getMax(), equalTo(400L));
+        assertTrue(range.mayIntersect(50, 100));
+        assertTrue(range.mayIntersect(250, 260));
+        assertTrue(range.mayIntersect(400, Long.MAX_VALUE));
+        assertFalse(range.mayIntersect(0, 99));
+        assertFalse(range.mayIntersect(401, 1000));
+    }
+
+    public void testEmptyRange() {
+        IndexTimestampRange range = IndexTimestampRange.NO_SHARDS;
+        for (int i = 0; i < 2; i++) {
+            range = range.extendWithShardRange(i, 2, ShardTimestampRange.EMPTY);
+        }
+        assertTrue(range.containsAllShardRanges());
+        assertTrue(range.isEmpty());
+        assertFalse(range.mayIntersect(Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    public void testSerialization() throws IOException {
+        final IndexTimestampRange range = randomRange();
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            range.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                assertThat(new IndexTimestampRange(in), equalTo(range));
+            }
+        }
+    }
+
+    public void testXContentRoundTrip() throws IOException {
+        final IndexTimestampRange range = randomRange();
+        final XContentBuilder builder = JsonXContent.contentBuilder();
+        builder.startObject();
+        range.toXContent(builder, null);
+        builder.endObject();
+        try (XContentParser parser = createParser(JsonXContent.jsonXContent, Strings.toString(builder))) {
+            assertThat(parser.nextToken(), equalTo(XContentParser.Token.START_OBJECT));
+            assertThat(IndexTimestampRange.fromXContent(parser), equalTo(range));
+        }
+    }
+
+    private static IndexTimestampRange randomRange() {
+        final int numberOfShards = between(1, 10);
+        IndexTimestampRange range = IndexTimestampRange.NO_SHARDS;
+        for (int shardId = 0; shardId < numberOfShards; shardId++) {
+            if (randomBoolean()) {
+                final long min = randomLongBetween(0, Long.MAX_VALUE / 2);
+                range = range.extendWithShardRange(shardId, numberOfShards,
+                    randomBoolean() ? ShardTimestampRange.EMPTY : ShardTimestampRange.of(min, min + randomLongBetween(0, 1000)));
+            }
+        }
+        return range;
+    }
+}
@@ -255,6 +255,61 @@ public class RoundingTests extends ESTestCase {
         }
     }
 
+    /**
+     * A rounding prepared for a range of values rounds every value, inside or outside of the range, like the rounding itself.
+     */
+    public void testPreparedRoundingRandom() {
+        for (int i = 0; i < 100; i++) {
+            ZoneId tz = randomZone();
+            Rounding rounding;
+            long unitMillis;
+            if (randomBoolean()) {
+                Rounding.DateTimeUnit unit = randomFrom(Rounding.DateTimeUnit.values());
+                rounding = new Rounding.TimeUnitRounding(unit, tz);
+                unitMillis = unit.getField().getBaseUnit().getDuration().toMillis();
+            } else {
+                unitMillis = TimeUnit.MINUTES.toMillis(randomIntBetween(1, 60 * 24));
+                rounding = new Rounding.TimeIntervalRounding(unitMillis, tz);
+            }
+            if (randomBoolean()) {
+                rounding = new Rounding.OffsetRounding(rounding, randomLongBetween(-unitMillis, unitMillis));
+            }
+            long min = Math.abs(randomLong() % (2 * (long) 10e11)); // 1970-01-01T00:00:00Z - 2033-05-18T05:33:20.000+02:00
+            if (randomBoolean()) {
+                min = nastyDate(min, tz, unitMillis);
+            }
+            long max = min + randomLongBetween(0, unitMillis * randomIntBetween(1, 2 * Rounding.MAX_PRECOMPUTED_VALUES));
+            Rounding.Prepared prepared = randomBoolean() ? rounding.prepare(min, max) : rounding.prepareForUnknown();
+            for (int j = 0; j < 100; j++) {
+                long date = randomFrom(randomLongBetween(min, max), min, max, min - 1, max + 1,
+                    randomLongBetween(min - 2 * unitMillis, max + 2 * unitMillis));
+                assertThat("prepared rounding of [" + Instant.ofEpochMilli(date) + "] with [" + rounding + "] between ["
+                    + Instant.ofEpochMilli(min) + "] and [" + Instant.ofEpochMilli(max) + "]",
+                    prepared.round(date), isDate(rounding.round(date), tz));
+                long rounded = rounding.round(date);
+                assertThat(prepared.nextRoundingValue(rounded), isDate(rounding.nextRoundingValue(rounded), tz));
+            }
+        }
+    }
+
+    public void testPreparedRoundingAcrossTransitions() {
+        ZoneId tz = ZoneId.of("Europe/Paris");
+        Rounding rounding = new Rounding.TimeUnitRounding(Rounding.DateTimeUnit.HOUR_OF_DAY, tz);
+        long min = time("2019-10-26T12:00:00", tz);
+        long max = time("2019-10-28T12:00:00", tz);
+        Rounding.Prepared prepared = rounding.prepare(min, max);
+        for (long date = min; date <= max; date += TimeUnit.MINUTES.toMillis(7)) {
+            assertThat(prepared.round(date), isDate(rounding.round(date), tz));
+        }
+
+        // no transition in the range
+        min = time("2019-11-01T00:00:00", tz);
+        max = time("2019-11-30T00:00:00", tz);
+        prepared = new Rounding.TimeUnitRounding(Rounding.DateTimeUnit.DAY_OF_MONTH, tz).prepare(min, max);
+        assertThat(prepared.round(time("2019-11-15T18:00:00", tz)), isDate(time("2019-11-15T00:00:00", tz), tz));
+        assertThat(prepared.round(time("2019-10-27T18:00:00", tz)), isDate(time("2019-10-27T00:00:00", tz), tz));
+    }
+
     /**
      * To be even more nasty, go to a transition in the selected time zone.
      * In one third of the cases stay there, otherwise go half a unit back or forth
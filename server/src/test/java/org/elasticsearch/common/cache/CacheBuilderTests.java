@@ -47,4 +47,9 @@ public class CacheBuilderTests extends ESTestCase {
         Cache<Object, Object> cache = CacheBuilder.builder().setExpireAfterWrite(timeValue).build();
         assertEquals(timeValue.getNanos(), cache.getExpireAfterWriteNanos());
     }
+
+    public void testTinyLfu() {
+        assertFalse(CacheBuilder.builder().build().isTinyLfu());
+        assertTrue(CacheBuilder.builder().tinyLfu().build().isTinyLfu());
+    }
 }
@@ -48,7 +48,9 @@ import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class CacheTests extends ESTestCase {
     private int numberOfEntries;
@@ -914,6 +916,104 @@ public class CacheTests extends ESTestCase {
         assertEquals(500, cache.count());
     }
 
+    // cache hot keys and read them repeatedly, then cache a scan of keys that are used once; as the admission relies on
+    // frequency estimates, we only check that the scan rejected by far most of the scanned keys instead of the hot keys
+    public void testTinyLfuScanResistance() {
+        int maximumWeight = randomIntBetween(10, 100);
+        AtomicLong evictions = new AtomicLong();
+        Cache<Integer, String> cache =
+            CacheBuilder.<Integer, String>builder()
+                .setMaximumWeight(maximumWeight)
+                .removalListener(notification -> {
+                    assertEquals(RemovalNotification.RemovalReason.EVICTED, notification.getRemovalReason());
+                    evictions.incrementAndGet();
+                })
+                .tinyLfu()
+                .build();
+        for (int i = 0; i < maximumWeight; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        for (int j = 0; j < 5; j++) {
+            for (int i = 0; i < maximumWeight; i++) {
+                assertEquals(Integer.toString(i), cache.get(i));
+            }
+        }
+        cache.refresh();
+        for (int i = 0; i < maximumWeight; i++) {
+            cache.put(maximumWeight + i, "scan");
+        }
+        cache.refresh();
+        assertEquals(maximumWeight, cache.count());
+        assertEquals(maximumWeight, evictions.get());
+        assertEquals(maximumWeight, cache.stats().getEvictions());
+        int hotKeys = 0;
+        for (int i = 0; i < maximumWeight; i++) {
+            if (cache.get(i) != null) {
+                hotKeys++;
+            }
+        }
+        assertThat(hotKeys, greaterThanOrEqualTo(maximumWeight * 9 / 10));
+    }
+
+    // a key that keeps being loaded eventually wins the admission against the least recently used entry
+    public void testTinyLfuAdmitsFrequentKeys() throws ExecutionException {
+        int maximumWeight = randomIntBetween(10, 100);
+        Cache<Integer, String> cache = CacheBuilder.<Integer, String>builder().setMaximumWeight(maximumWeight).tinyLfu().build();
+        for (int i = 0; i < maximumWeight; i++) {
+            cache.put(i, Integer.toString(i));
+            cache.get(i);
+        }
+        int loads = 0;
+        while (cache.get(-1) == null) {
+            assertEquals("value", cache.computeIfAbsent(-1, k -> "value"));
+            assertThat(++loads, lessThanOrEqualTo(FrequencySketch.MAXIMUM_FREQUENCY + 1));
+        }
+        assertEquals(maximumWeight, cache.count());
+    }
+
+    public void testTinyLfuConcurrentReadsAndWrites() throws BrokenBarrierException, InterruptedException {
+        int numberOfThreads = randomIntBetween(2, 32);
+        final Cache<Integer, String> cache =
+                CacheBuilder.<Integer, String>builder()
+                        .setMaximumWeight(1000)
+                        .weigher((k, v) -> 2)
+                        .tinyLfu()
+                        .build();
+        AtomicLong lookups = new AtomicLong();
+        CyclicBarrier barrier = new CyclicBarrier(1 + numberOfThreads);
+        for (int i = 0; i < numberOfThreads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    barrier.await();
+                    Random random = new Random(random().nextLong());
+                    for (int j = 0; j < numberOfEntries; j++) {
+                        Integer key = random.nextInt(numberOfEntries);
+                        if (random.nextBoolean()) {
+                            cache.put(key, Integer.toString(j));
+                        } else {
+                            cache.get(key);
+                            lookups.incrementAndGet();
+                        }
+                    }
+                    barrier.await();
+                } catch (BrokenBarrierException | InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            });
+            thread.start();
+        }
+
+        // wait for all threads to be ready
+        barrier.await();
+        // wait for all threads to finish
+        barrier.await();
+
+        cache.refresh();
+        assertEquals(500, cache.count());
+        assertEquals(1000, cache.weight());
+        assertEquals(lookups.get(), cache.stats().getHits() + cache.stats().getMisses());
+    }
+
     public void testRemoveUsingValuesIterator() {
         final List<RemovalNotification<Integer, String>> removalNotifications = new ArrayList<>();
         Cache<Integer, String> cache =
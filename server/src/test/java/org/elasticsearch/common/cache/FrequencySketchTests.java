@@ -0,0 +1,86 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.cache;
+
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class FrequencySketchTests extends ESTestCase {
+
+    public void testIncrement() {
+        FrequencySketch sketch = new FrequencySketch();
+        String key = randomAlphaOfLength(10);
+        int increments = randomIntBetween(1, FrequencySketch.MAXIMUM_FREQUENCY);
+        for (int i = 0; i < increments; i++) {
+            sketch.increment(key);
+        }
+        // frequencies are over-estimated at worst
+        assertThat(sketch.frequency(key), greaterThanOrEqualTo(increments));
+    }
+
+    public void testSaturation() {
+        FrequencySketch sketch = new FrequencySketch();
+        String key = randomAlphaOfLength(10);
+        for (int i = 0; i < FrequencySketch.MAXIMUM_FREQUENCY + randomIntBetween(1, 10); i++) {
+            sketch.increment(key);
+        }
+        assertEquals(FrequencySketch.MAXIMUM_FREQUENCY, sketch.frequency(key));
+    }
+
+    public void testAgeing() {
+        FrequencySketch sketch = new FrequencySketch();
+        Integer hot = -1;
+        for (int i = 0; i < FrequencySketch.MAXIMUM_FREQUENCY; i++) {
+            sketch.increment(hot);
+        }
+        // once the sample size is reached all counters are halved
+        for (int i = 0; i < 10 * sketch.capacity(); i++) {
+            sketch.increment(i);
+        }
+        assertThat(sketch.frequency(hot), lessThan(FrequencySketch.MAXIMUM_FREQUENCY));
+    }
+
+    public void testGrowthKeepsFrequencies() {
+        FrequencySketch sketch = new FrequencySketch();
+        int numberOfKeys = randomIntBetween(1, 16);
+        for (int key = 0; key < numberOfKeys; key++) {
+            for (int i = 0; i <= key % 8; i++) {
+                sketch.increment(key);
+            }
+        }
+        int[] frequencies = new int[numberOfKeys];
+        for (int key = 0; key < numberOfKeys; key++) {
+            frequencies[key] = sketch.frequency(key);
+        }
+        sketch.ensureCapacity(randomIntBetween(17, 1 << 16));
+        assertThat(sketch.capacity(), greaterThanOrEqualTo(17));
+        for (int key = 0; key < numberOfKeys; key++) {
+            assertEquals(frequencies[key], sketch.frequency(key));
+        }
+    }
+
+    public void testMaximumCapacity() {
+        FrequencySketch sketch = new FrequencySketch();
+        sketch.ensureCapacity(Long.MAX_VALUE);
+        assertEquals(FrequencySketch.MAXIMUM_CAPACITY, sketch.capacity());
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.apache.lucene.util.LineFileDocs;
+import org.apache.lucene.util.TestUtil;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.lessThan;
+
+public class Lz4CompressTests extends ESTestCase {
+
+    private final Compressor compressor = new Lz4Compressor();
+
+    public void testRandom() throws IOException {
+        Random r = random();
+        for (int i = 0; i < 10; i++) {
+            byte[] bytes = new byte[TestUtil.nextInt(r, 0, 300000)];
+            r.nextBytes(bytes);
+            doTest(bytes);
+        }
+    }
+
+    public void testRepetitive() throws IOException {
+        Random r = random();
+        for (int i = 0; i < 10; i++) {
+            byte[] bytes = new byte[TestUtil.nextInt(r, 1, 300000)];
+            final int alphabet = TestUtil.nextInt(r, 1, 4);
+            for (int j = 0; j < bytes.length; j++) {
+                bytes[j] = (byte) r.nextInt(alphabet);
+            }
+            doTest(bytes);
+        }
+    }
+
+    public void testLineDocs() throws IOException {
+        Random r = random();
+        LineFileDocs lineFileDocs = new LineFileDocs(r);
+        for (int i = 0; i < 10; i++) {
+            int numDocs = TestUtil.nextInt(r, 1, 200);
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            for (int j = 0; j < numDocs; j++) {
+                String s = lineFileDocs.nextDoc().get("body");
+                bos.write(s.getBytes(StandardCharsets.UTF_8));
+            }
+            doTest(bos.toByteArray());
+        }
+        lineFileDocs.close();
+    }
+
+    public void testCompressesRepetitiveData() throws IOException {
+        byte[] bytes = new byte[100000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) ('a' + (i / 10) % 26);
+        }
+        BytesReference compressed = compress(bytes);
+        assertTrue(compressor.isCompressed(compressed));
+        assertThat(compressed.length(), lessThan(bytes.length / 10));
+    }
+
+    public void testNotCompressed() throws IOException {
+        StreamInput in = new BytesArray("{\"foo\":\"bar\"}").streamInput();
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> compressor.streamInput(in));
+        assertEquals("Input stream is not compressed with LZ4!", e.getMessage());
+    }
+
+    private BytesReference compress(byte[] bytes) throws IOException {
+        BytesStreamOutput bos = new BytesStreamOutput();
+        try (StreamOutput os = compressor.streamOutput(bos)) {
+            int offset = 0;
+            while (offset < bytes.length) {
+                final int len = Math.min(bytes.length - offset, TestUtil.nextInt(random(), 1, 70000));
+                os.writeBytes(bytes, offset, len);
+                offset += len;
+                if (rarely()) {
+                    // flushing in the middle of the stream must not break decompression
+                    os.flush();
+                }
+            }
+        }
+        return bos.bytes();
+    }
+
+    private void doTest(byte[] bytes) throws IOException {
+        BytesReference compressed = compress(bytes);
+        try (StreamInput in = compressor.streamInput(compressed.streamInput())) {
+            assertArrayEquals(bytes, BytesReference.toBytes(Streams.readFully(in)));
+            assertEquals(-1, in.read());
+        }
+    }
+}
@@ -32,8 +32,10 @@ import org.apache.lucene.store.SimpleFSDirectory;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.action.shard.ShardStateAction;
 import org.elasticsearch.cluster.coordination.CoordinationMetaData;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.IndexTimestampRange;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
@@ -50,6 +52,8 @@ import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.env.NodeMetaData;
 import org.elasticsearch.gateway.PersistedClusterStateService.Writer;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardTimestampRange;
 import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.MockLogAppender;
@@ -667,6 +671,42 @@ public class PersistedClusterStateServiceTests extends ESTestCase {
         }
     }
 
+    public void testPersistsAndReloadsTimestampRange() throws Exception {
+        try (NodeEnvironment nodeEnvironment = newNodeEnvironment(createDataPaths())) {
+            final PersistedClusterStateService persistedClusterStateService = newPersistedClusterStateService(nodeEnvironment);
+            final IndexTimestampRange timestampRange;
+
+            try (Writer writer = persistedClusterStateService.createWriter()) {
+                ClusterState clusterState = loadPersistedClusterState(persistedClusterStateService);
+                writer.writeFullStateAndCommit(0L, ClusterState.builder(clusterState)
+                    .metaData(MetaData.builder(clusterState.metaData())
+                        .put(IndexMetaData.builder("test")
+                            .settings(Settings.builder()
+                                .put(IndexMetaData.INDEX_NUMBER_OF_SHARDS_SETTING.getKey(), 2)
+                                .put(IndexMetaData.INDEX_NUMBER_OF_REPLICAS_SETTING.getKey(), 0)
+                                .put(IndexMetaData.INDEX_BLOCKS_WRITE_SETTING.getKey(), true)
+                                .put(IndexMetaData.SETTING_INDEX_VERSION_CREATED.getKey(), Version.CURRENT)
+                                .put(IndexMetaData.SETTING_INDEX_UUID, UUIDs.randomBase64UUID(random())))))
+                    .incrementVersion().build());
+
+                clusterState = loadPersistedClusterState(persistedClusterStateService);
+                final IndexMetaData indexMetaData = clusterState.metaData().index("test");
+                final ShardStateAction.ShardTimestampRangeEntry entry = new ShardStateAction.ShardTimestampRangeEntry(
+                    new ShardId(indexMetaData.getIndex(), 0), indexMetaData.getSettingsVersion(), ShardTimestampRange.of(10L, 20L));
+                final ClusterState updatedState = new ShardStateAction.ShardTimestampRangeClusterStateTaskExecutor(logger)
+                    .execute(clusterState, List.of(entry)).resultingState;
+                timestampRange = updatedState.metaData().index("test").getTimestampRange();
+                assertTrue(timestampRange.hasShard(0));
+
+                // the incremental writer only persists the index metadata whose version changed
+                writer.writeIncrementalStateAndCommit(0L, clusterState, ClusterState.builder(updatedState).incrementVersion().build());
+            }
+
+            final IndexMetaData indexMetaData = loadPersistedClusterState(persistedClusterStateService).metaData().index("test");
+            assertThat(indexMetaData.getTimestampRange(), equalTo(timestampRange));
+        }
+    }
+
     public void testPersistsAndReloadsIndexMetadataForMultipleIndices() throws IOException {
         try (NodeEnvironment nodeEnvironment = newNodeEnvironment(createDataPaths())) {
             final PersistedClusterStateService persistedClusterStateService = newPersistedClusterStateService(nodeEnvironment);
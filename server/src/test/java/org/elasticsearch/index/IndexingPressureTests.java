@@ -0,0 +1,108 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index;
+
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.test.ESTestCase;
+
+public class IndexingPressureTests extends ESTestCase {
+
+    private final Settings settings = Settings.builder().put(IndexingPressure.MAX_INDEXING_BYTES.getKey(), "10KB").build();
+
+    public void testMemoryBytesMarkedAndReleased() {
+        IndexingPressure indexingPressure = new IndexingPressure(settings);
+        try (Releasable coordinating = indexingPressure.markCoordinatingOperationStarted(10);
+             Releasable coordinating2 = indexingPressure.markCoordinatingOperationStarted(50);
+             Releasable primary = indexingPressure.markPrimaryOperationStarted(15, true);
+             Releasable primary2 = indexingPressure.markPrimaryOperationStarted(5, false);
+             Releasable replica = indexingPressure.markReplicaOperationStarted(25, true);
+             Releasable replica2 = indexingPressure.markReplicaOperationStarted(10, false)) {
+            IndexingPressureStats stats = indexingPressure.stats();
+            assertEquals(60, stats.getCurrentCoordinatingBytes());
+            assertEquals(20, stats.getCurrentPrimaryBytes());
+            assertEquals(80, stats.getCurrentCombinedCoordinatingAndPrimaryBytes());
+            assertEquals(35, stats.getCurrentReplicaBytes());
+        }
+        IndexingPressureStats stats = indexingPressure.stats();
+        assertEquals(0, stats.getCurrentCoordinatingBytes());
+        assertEquals(0, stats.getCurrentPrimaryBytes());
+        assertEquals(0, stats.getCurrentCombinedCoordinatingAndPrimaryBytes());
+        assertEquals(0, stats.getCurrentReplicaBytes());
+        assertEquals(60, stats.getTotalCoordinatingBytes());
+        assertEquals(20, stats.getTotalPrimaryBytes());
+        assertEquals(80, stats.getTotalCombinedCoordinatingAndPrimaryBytes());
+        assertEquals(35, stats.getTotalReplicaBytes());
+    }
+
+    public void testPrimaryLocalToCoordinatingIsNotCountedTwice() {
+        IndexingPressure indexingPressure = new IndexingPressure(settings);
+        try (Releasable coordinating = indexingPressure.markCoordinatingOperationStarted(10);
+             Releasable primary = indexingPressure.markPrimaryOperationLocalToCoordinatingNodeStarted(10)) {
+            IndexingPressureStats stats = indexingPressure.stats();
+            assertEquals(10, stats.getCurrentCoordinatingBytes());
+            assertEquals(10, stats.getCurrentPrimaryBytes());
+            assertEquals(10, stats.getCurrentCombinedCoordinatingAndPrimaryBytes());
+        }
+        assertEquals(0, indexingPressure.stats().getCurrentCombinedCoordinatingAndPrimaryBytes());
+    }
+
+    public void testReleaseIsIdempotent() {
+        IndexingPressure indexingPressure = new IndexingPressure(settings);
+        Releasable coordinating = indexingPressure.markCoordinatingOperationStarted(10);
+        try (Releasable other = indexingPressure.markCoordinatingOperationStarted(5)) {
+            coordinating.close();
+            coordinating.close();
+            assertEquals(5, indexingPressure.stats().getCurrentCoordinatingBytes());
+        }
+    }
+
+    public void testCoordinatingAndPrimaryRejections() {
+        IndexingPressure indexingPressure = new IndexingPressure(settings);
+        try (Releasable coordinating = indexingPressure.markCoordinatingOperationStarted(1024 * 3);
+             Releasable primary = indexingPressure.markPrimaryOperationStarted(1024 * 3, false);
+             Releasable replica = indexingPressure.markReplicaOperationStarted(1024 * 3, false)) {
+            expectThrows(EsRejectedExecutionException.class, () -> indexingPressure.markCoordinatingOperationStarted(1024 * 5));
+            expectThrows(EsRejectedExecutionException.class, () -> indexingPressure.markPrimaryOperationStarted(1024 * 5, false));
+            // forced operations are never rejected
+            indexingPressure.markPrimaryOperationStarted(1024 * 5, true).close();
+
+            IndexingPressureStats stats = indexingPressure.stats();
+            assertEquals(1, stats.getCoordinatingRejections());
+            assertEquals(1, stats.getPrimaryRejections());
+            assertEquals(1024 * 6, stats.getCurrentCombinedCoordinatingAndPrimaryBytes());
+        }
+        assertEquals(0, indexingPressure.stats().getCurrentCombinedCoordinatingAndPrimaryBytes());
+    }
+
+    public void testReplicaRejections() {
+        IndexingPressure indexingPressure = new IndexingPressure(settings);
+        try (Releasable replica = indexingPressure.markReplicaOperationStarted(1024 * 10, false)) {
+            // the replica limit is 1.5 times the primary and coordinating limit
+            indexingPressure.markReplicaOperationStarted(1024 * 4, false).close();
+            expectThrows(EsRejectedExecutionException.class, () -> indexingPressure.markReplicaOperationStarted(1024 * 6, false));
+            indexingPressure.markReplicaOperationStarted(1024 * 6, true).close();
+            assertEquals(1, indexingPressure.stats().getReplicaRejections());
+            assertEquals(1024 * 10, indexingPressure.stats().getCurrentReplicaBytes());
+        }
+        assertEquals(0, indexingPressure.stats().getCurrentReplicaBytes());
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.cache.query;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+public class CostAwareQueryCachingPolicyTests extends ESTestCase {
+
+    private static Query query(String value) {
+        return new PhraseQuery("field", "foo", value);
+    }
+
+    private static int usesUntilCached(CostAwareQueryCachingPolicy policy, Query query) throws IOException {
+        for (int uses = 1; uses <= 256; ++uses) {
+            policy.onUse(query);
+            if (policy.shouldCache(query)) {
+                return uses;
+            }
+        }
+        throw new AssertionError("query was never cached");
+    }
+
+    public void testUnknownCostUsesFrequency() throws IOException {
+        assertEquals(5, usesUntilCached(new CostAwareQueryCachingPolicy(), query("bar")));
+    }
+
+    public void testExpensiveQueriesAreCachedSooner() throws IOException {
+        CostAwareQueryCachingPolicy policy = new CostAwareQueryCachingPolicy();
+        Query query = query("bar");
+        policy.recordCost(query, 1_000_000, 1000);
+        assertEquals(CostAwareQueryCachingPolicy.MIN_FREQUENCY, usesUntilCached(policy, query));
+        assertEquals(1_000_000, policy.savedNanos(query, 1000));
+    }
+
+    public void testCheapQueriesAreCachedLater() throws IOException {
+        CostAwareQueryCachingPolicy policy = new CostAwareQueryCachingPolicy();
+        Query query = query("bar");
+        // half a nanosecond per document, caching only pays off after 20 uses
+        policy.recordCost(query, 500, 1000);
+        assertEquals(20, usesUntilCached(policy, query));
+        assertEquals(0, policy.savedNanos(query("baz"), 1000));
+    }
+
+    public void testCostIsMovingAverage() {
+        CostAwareQueryCachingPolicy policy = new CostAwareQueryCachingPolicy();
+        Query query = query("bar");
+        policy.recordCost(query, 1000, 10);
+        assertEquals(100, policy.nanosPerDoc(query), 0d);
+        policy.recordCost(query, 2000, 10);
+        assertEquals(130, policy.nanosPerDoc(query), 0.0001d);
+        // empty segments don't tell anything about the cost
+        policy.recordCost(query, 2000, 0);
+        assertEquals(130, policy.nanosPerDoc(query), 0.0001d);
+        assertEquals(-1, policy.nanosPerDoc(query("baz")), 0d);
+    }
+
+    public void testCostsAreKeyedByQuery() {
+        CostAwareQueryCachingPolicy policy = new CostAwareQueryCachingPolicy();
+        Query query = new CollidingQuery(1);
+        policy.recordCost(query, 1000, 10);
+        assertEquals(100, policy.nanosPerDoc(new CollidingQuery(1)), 0d);
+        assertEquals(-1, policy.nanosPerDoc(new CollidingQuery(2)), 0d);
+    }
+
+    public void testMinCostOnlyMakesQueriesCachedSooner() throws IOException {
+        CostAwareQueryCachingPolicy policy = new CostAwareQueryCachingPolicy();
+        Query cheap = query("bar");
+        // a query that takes no time to create its scorer may still be expensive to iterate
+        policy.recordMinCost(cheap, 0, 1000);
+        assertEquals(-1, policy.nanosPerDoc(cheap), 0d);
+        assertEquals(5, usesUntilCached(policy, cheap));
+
+        Query expensive = query("baz");
+        policy.recordMinCost(expensive, 1_000_000, 1000);
+        assertEquals(CostAwareQueryCachingPolicy.MIN_FREQUENCY, usesUntilCached(policy, expensive));
+        assertEquals(1_000_000, policy.savedNanos(expensive, 1000));
+
+        // a lower bound makes a query that was measured as cheap be cached sooner
+        Query measured = query("qux");
+        policy.recordCost(measured, 500, 1000);
+        policy.recordMinCost(measured, 1_000_000, 1000);
+        assertEquals(CostAwareQueryCachingPolicy.MIN_FREQUENCY, usesUntilCached(policy, measured));
+    }
+
+    /**
+     * A query whose hash code is the same whatever its id.
+     */
+    private static class CollidingQuery extends Query {
+        private final int id;
+
+        CollidingQuery(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public String toString(String field) {
+            return "colliding(" + id + ")";
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return sameClassAs(obj) && id == ((CollidingQuery) obj).id;
+        }
+
+        @Override
+        public int hashCode() {
+            return classHash();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageTester;
+import org.apache.lucene.util.TestUtil;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class PackedVersionMapTests extends ESTestCase {
+
+    public void testRandomOperations() {
+        final PackedVersionMap map = new PackedVersionMap();
+        final Map<BytesRef, VersionValue> expected = new HashMap<>();
+        final List<BytesRef> uids = new ArrayList<>();
+        final int numUids = randomIntBetween(1, 2000);
+        for (int i = 0; i < numUids; i++) {
+            uids.add(new BytesRef(TestUtil.randomSimpleString(random(), 1, 30)));
+        }
+        final int numOps = randomIntBetween(1, 20000);
+        for (int i = 0; i < numOps; i++) {
+            final BytesRef uid = randomFrom(uids);
+            if (rarely()) {
+                assertEquals(expected.remove(uid) != null, map.remove(uid));
+            } else {
+                final IndexVersionValue value = randomIndexVersionValue();
+                assertEquals(expected.put(uid, value) != null, map.put(uid, value));
+            }
+            if (rarely()) {
+                final BytesRef other = randomFrom(uids);
+                assertEquals(expected.get(other), map.get(other));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected.isEmpty(), map.isEmpty());
+        for (BytesRef uid : uids) {
+            // lookups must not depend on the offset of the uid
+            final byte[] bytes = new byte[uid.length + 4];
+            System.arraycopy(uid.bytes, uid.offset, bytes, 2, uid.length);
+            assertEquals(expected.get(uid), map.get(new BytesRef(bytes, 2, uid.length)));
+        }
+        assertEquals(expected, map.snapshot());
+
+        for (BytesRef uid : uids) {
+            map.remove(uid);
+        }
+        assertEquals(0, map.size());
+        assertTrue(map.isEmpty());
+        assertTrue(map.snapshot().isEmpty());
+    }
+
+    public void testRamBytesUsed() {
+        final PackedVersionMap map = new PackedVersionMap();
+        assertEquals(RamUsageTester.sizeOf(map), map.ramBytesUsed());
+        final List<BytesRef> uids = new ArrayList<>();
+        final int numDocs = randomIntBetween(1, 10000);
+        for (int i = 0; i < numDocs; i++) {
+            final BytesRef uid = new BytesRef(TestUtil.randomSimpleString(random(), 10, 20));
+            uids.add(uid);
+            map.put(uid, randomIndexVersionValue());
+        }
+        assertEquals(RamUsageTester.sizeOf(map), map.ramBytesUsed());
+        // removed entries keep their uid bytes until they are compacted, which must be accounted for too
+        for (BytesRef uid : randomSubsetOf(uids)) {
+            map.remove(uid);
+        }
+        for (int i = 0; i < numDocs; i++) {
+            map.put(new BytesRef(TestUtil.randomSimpleString(random(), 10, 20)), randomIndexVersionValue());
+        }
+        assertEquals(RamUsageTester.sizeOf(map), map.ramBytesUsed());
+    }
+
+    private IndexVersionValue randomIndexVersionValue() {
+        final Translog.Location location = randomBoolean() ? null
+            : new Translog.Location(randomNonNegativeLong(), randomNonNegativeLong(), randomIntBetween(0, Integer.MAX_VALUE));
+        return new IndexVersionValue(location, randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong());
+    }
+}
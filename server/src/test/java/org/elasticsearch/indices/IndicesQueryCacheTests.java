@@ -35,11 +35,13 @@ import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.TwoPhaseIterator;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.cache.query.CostAwareQueryCachingPolicy;
 import org.elasticsearch.index.cache.query.QueryCacheStats;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.ESTestCase;
@@ -47,6 +49,9 @@ import org.elasticsearch.test.ESTestCase;
 import java.io.IOException;
 import java.util.Set;
 
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
 public class IndicesQueryCacheTests extends ESTestCase {
 
     private static class DummyQuery extends Query {
@@ -427,4 +432,222 @@ public class IndicesQueryCacheTests extends ESTestCase {
         cache.onClose(shard);
         cache.close();
     }
+
+    public void testSavedTimeWithCostAwarePolicy() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+        w.addDocument(new Document());
+        DirectoryReader r = DirectoryReader.open(w);
+        w.close();
+        ShardId shard = new ShardId("index", "_na_", 0);
+        r = ElasticsearchDirectoryReader.wrap(r, shard);
+        IndexSearcher s = new IndexSearcher(r);
+        CostAwareQueryCachingPolicy policy = new CostAwareQueryCachingPolicy();
+        s.setQueryCachingPolicy(policy);
+
+        Settings settings = Settings.builder()
+                .put(IndicesQueryCache.INDICES_CACHE_QUERY_COUNT_SETTING.getKey(), 10)
+                .put(IndicesQueryCache.INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING.getKey(), true)
+                .build();
+        IndicesQueryCache cache = new IndicesQueryCache(settings);
+        s.setQueryCache(cache);
+
+        // an expensive query gets cached on its second use
+        policy.recordCost(new DummyQuery(0), 1_000_000, 1);
+        assertEquals(1, s.count(new DummyQuery(0)));
+        QueryCacheStats stats = cache.getStats(shard);
+        assertEquals(0L, stats.getCacheCount());
+        assertEquals(1L, stats.getMissCount());
+
+        assertEquals(1, s.count(new DummyQuery(0)));
+        stats = cache.getStats(shard);
+        assertEquals(1L, stats.getCacheCount());
+        assertEquals(2L, stats.getMissCount());
+        assertEquals(0L, stats.getHitCount());
+        assertEquals(0L, stats.getSavedTime().nanos());
+
+        // reading it from the cache saves the time it took to evaluate it
+        assertEquals(1, s.count(new DummyQuery(0)));
+        stats = cache.getStats(shard);
+        assertEquals(1L, stats.getHitCount());
+        assertThat(stats.getSavedTime().nanos(), greaterThan(0L));
+
+        IOUtils.close(r, dir);
+        cache.onClose(shard);
+        cache.close();
+    }
+
+    public void testCostIsMeasuredWithoutCaching() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+        w.addDocument(new Document());
+        DirectoryReader r = DirectoryReader.open(w);
+        w.close();
+        ShardId shard = new ShardId("index", "_na_", 0);
+        r = ElasticsearchDirectoryReader.wrap(r, shard);
+        IndexSearcher s = new IndexSearcher(r);
+        CostAwareQueryCachingPolicy policy = new CostAwareQueryCachingPolicy();
+        s.setQueryCachingPolicy(policy);
+
+        Settings settings = Settings.builder()
+                .put(IndicesQueryCache.INDICES_CACHE_QUERY_COUNT_SETTING.getKey(), 10)
+                .put(IndicesQueryCache.INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING.getKey(), true)
+                .build();
+        IndicesQueryCache cache = new IndicesQueryCache(settings);
+        s.setQueryCache(cache);
+
+        // the first use is not cached but tells that the query is expensive, so it gets cached on its second use
+        Query query = new SlowQuery(1_000_000);
+        assertEquals(1, s.count(query));
+        QueryCacheStats stats = cache.getStats(shard);
+        assertEquals(0L, stats.getCacheCount());
+        assertThat(policy.savedNanos(query, 1), greaterThanOrEqualTo(1_000_000L));
+
+        assertEquals(1, s.count(query));
+        stats = cache.getStats(shard);
+        assertEquals(1L, stats.getCacheCount());
+
+        IOUtils.close(r, dir);
+        cache.onClose(shard);
+        cache.close();
+    }
+
+    public void testLazyQueriesAreStillCached() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+        for (int i = 0; i < 10; i++) {
+            w.addDocument(new Document());
+        }
+        DirectoryReader r = DirectoryReader.open(w);
+        w.close();
+        ShardId shard = new ShardId("index", "_na_", 0);
+        r = ElasticsearchDirectoryReader.wrap(r, shard);
+        IndexSearcher s = new IndexSearcher(r);
+        CostAwareQueryCachingPolicy policy = new CostAwareQueryCachingPolicy();
+        s.setQueryCachingPolicy(policy);
+
+        Settings settings = Settings.builder()
+                .put(IndicesQueryCache.INDICES_CACHE_QUERY_COUNT_SETTING.getKey(), 10)
+                .put(IndicesQueryCache.INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING.getKey(), true)
+                .build();
+        IndicesQueryCache cache = new IndicesQueryCache(settings);
+        s.setQueryCache(cache);
+
+        // creating the scorer of the query takes almost no time, so its uncached uses can't tell its cost, it is still cached
+        // after at most as many uses as without cost-based admission
+        Query query = new LazyQuery(10_000);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(10, s.count(query));
+        }
+        assertEquals(1L, cache.getStats(shard).getCacheCount());
+
+        IOUtils.close(r, dir);
+        cache.onClose(shard);
+        cache.close();
+    }
+
+    /**
+     * A query that does its work while its matches are iterated, taking at least the given time per document, like script
+     * queries.
+     */
+    private static class LazyQuery extends Query {
+
+        private final long nanosPerDoc;
+
+        LazyQuery(long nanosPerDoc) {
+            this.nanosPerDoc = nanosPerDoc;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return sameClassAs(obj) && nanosPerDoc == ((LazyQuery) obj).nanosPerDoc;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * classHash() + Long.hashCode(nanosPerDoc);
+        }
+
+        @Override
+        public String toString(String field) {
+            return "lazy";
+        }
+
+        @Override
+        public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+            return new ConstantScoreWeight(this, boost) {
+                @Override
+                public Scorer scorer(LeafReaderContext context) throws IOException {
+                    final DocIdSetIterator approximation = DocIdSetIterator.all(context.reader().maxDoc());
+                    final TwoPhaseIterator twoPhase = new TwoPhaseIterator(approximation) {
+                        @Override
+                        public boolean matches() {
+                            final long start = System.nanoTime();
+                            while (System.nanoTime() - start < nanosPerDoc) {
+                                Thread.onSpinWait();
+                            }
+                            return true;
+                        }
+
+                        @Override
+                        public float matchCost() {
+                            return 1000;
+                        }
+                    };
+                    return new ConstantScoreScorer(this, score(), scoreMode, twoPhase);
+                }
+
+                @Override
+                public boolean isCacheable(LeafReaderContext ctx) {
+                    return true;
+                }
+            };
+        }
+    }
+
+    /**
+     * A query that takes at least the given time to create a scorer.
+     */
+    private static class SlowQuery extends Query {
+
+        private final long nanos;
+
+        SlowQuery(long nanos) {
+            this.nanos = nanos;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return sameClassAs(obj) && nanos == ((SlowQuery) obj).nanos;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * classHash() + Long.hashCode(nanos);
+        }
+
+        @Override
+        public String toString(String field) {
+            return "slow";
+        }
+
+        @Override
+        public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+            return new ConstantScoreWeight(this, boost) {
+                @Override
+                public Scorer scorer(LeafReaderContext context) throws IOException {
+                    final long start = System.nanoTime();
+                    while (System.nanoTime() - start < nanos) {
+                        Thread.onSpinWait();
+                    }
+                    return new ConstantScoreScorer(this, score(), scoreMode, DocIdSetIterator.all(context.reader().maxDoc()));
+                }
+
+                @Override
+                public boolean isCacheable(LeafReaderContext ctx) {
+                    return true;
+                }
+            };
+        }
+    }
 }
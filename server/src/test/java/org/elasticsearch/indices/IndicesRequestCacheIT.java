@@ -27,12 +27,15 @@ import org.elasticsearch.client.Client;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.time.DateFormatter;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.MergePolicyConfig;
 import org.elasticsearch.index.cache.request.RequestCacheStats;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.aggregations.bucket.global.GlobalAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
 import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
 import org.elasticsearch.search.aggregations.bucket.histogram.Histogram.Bucket;
+import org.elasticsearch.search.aggregations.metrics.Sum;
 import org.elasticsearch.test.ESIntegTestCase;
 import org.elasticsearch.test.hamcrest.ElasticsearchAssertions;
 
@@ -46,6 +49,8 @@ import java.util.List;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.dateHistogram;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.dateRange;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.filter;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.histogram;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.sum;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
 import static org.hamcrest.Matchers.equalTo;
@@ -462,6 +467,50 @@ public class IndicesRequestCacheIT extends ESIntegTestCase {
         }
     }
 
+    public void testSegmentAggregations() throws Exception {
+        Client client = client();
+        Settings settings = Settings.builder().put(IndicesRequestCache.INDEX_CACHE_REQUEST_ENABLED_SETTING.getKey(), true)
+            .put(IndicesRequestCache.INDEX_CACHE_REQUEST_SEGMENT_AGGREGATIONS_SETTING.getKey(), true)
+            .put(MergePolicyConfig.INDEX_MERGE_ENABLED, false)
+            .put(IndexSettings.INDEX_REFRESH_INTERVAL_SETTING.getKey(), -1)
+            .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1).put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0).build();
+        assertAcked(client.admin().indices().prepareCreate("index").setMapping("v", "type=long").setSettings(settings).get());
+        ensureGreen("index");
+        assertCacheState(client, "index", 0, 0);
+
+        long expectedSum = 0;
+        final int numBatches = randomIntBetween(2, 5);
+        for (int batch = 0; batch < numBatches; batch++) {
+            final int numDocs = randomIntBetween(1, 20);
+            for (int i = 0; i < numDocs; i++) {
+                final long value = randomIntBetween(0, 100);
+                client.prepareIndex("index").setSource("v", value).get();
+                expectedSum += value;
+            }
+            refresh("index");
+            for (boolean requestCache : new boolean[] { true, false }) {
+                final SearchResponse response = client.prepareSearch("index").setSize(0).setRequestCache(requestCache)
+                    .addAggregation(sum("sum").field("v"))
+                    .addAggregation(histogram("histo").field("v").interval(10))
+                    .get();
+                assertSearchResponse(response);
+                final Sum sum = response.getAggregations().get("sum");
+                assertEquals(expectedSum, sum.getValue(), 0d);
+                final Histogram histogram = response.getAggregations().get("histo");
+                long docCount = 0;
+                for (Histogram.Bucket bucket : histogram.getBuckets()) {
+                    docCount += bucket.getDocCount();
+                }
+                assertEquals(response.getHits().getTotalHits().value, docCount);
+            }
+        }
+        // every batch but the first hits the cached results of the segments of the previous batches
+        RequestCacheStats requestCacheStats = client.admin().indices().prepareStats("index")
+            .setRequestCache(true)
+            .get().getTotal().getRequestCache();
+        assertThat(requestCacheStats.getHitCount(), greaterThan(0L));
+    }
+
     private static void assertCacheState(Client client, String index, long expectedHits, long expectedMisses) {
         RequestCacheStats requestCacheStats = client.admin().indices().prepareStats(index)
             .setRequestCache(true)
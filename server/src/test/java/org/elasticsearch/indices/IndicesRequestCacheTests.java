@@ -26,6 +26,7 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.TermQuery;
@@ -429,6 +430,52 @@ public class IndicesRequestCacheTests extends ESTestCase {
         assertEquals(0, cache.numRegisteredCloseListeners());
     }
 
+    public void testSegmentCache() throws Exception {
+        ShardRequestCache requestCacheStats = new ShardRequestCache();
+        IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY);
+        AtomicBoolean indexShard = new AtomicBoolean(true);
+        TestEntity entity = new TestEntity(requestCacheStats, indexShard);
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+        writer.addDocument(newDoc(0, "foo"));
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "bar", 1));
+        TermQueryBuilder termQuery = new TermQueryBuilder("id", "0");
+        BytesReference termBytes = XContentHelper.toXContent(termQuery, XContentType.JSON, false);
+        IndexReader.CacheHelper coreCacheHelper = reader.leaves().get(0).reader().getCoreCacheHelper();
+
+        assertNull(cache.get(entity, coreCacheHelper, termBytes));
+        assertEquals(0, requestCacheStats.stats().getHitCount());
+        assertEquals(1, requestCacheStats.stats().getMissCount());
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.writeString("foo");
+        cache.put(entity, coreCacheHelper, termBytes, out.bytes());
+        assertEquals(1, cache.count());
+        assertEquals(1, cache.numRegisteredCloseListeners());
+        assertTrue(requestCacheStats.stats().getMemorySize().bytesAsInt() > out.bytes().length());
+
+        // a new reader that contains the segment shares its cached value
+        writer.addDocument(newDoc(1, "bar"));
+        DirectoryReader secondReader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "bar", 1));
+        assertEquals(2, secondReader.leaves().size());
+        BytesReference value = cache.get(entity, secondReader.leaves().get(0).reader().getCoreCacheHelper(), termBytes);
+        assertEquals("foo", value.streamInput().readString());
+        assertNull(cache.get(entity, secondReader.leaves().get(1).reader().getCoreCacheHelper(), termBytes));
+        assertEquals(1, requestCacheStats.stats().getHitCount());
+        assertEquals(2, requestCacheStats.stats().getMissCount());
+
+        // the value is cleaned once the segment core is closed by all readers
+        reader.close();
+        cache.cleanCache();
+        assertEquals(1, cache.count());
+        IOUtils.close(secondReader, writer, dir);
+        cache.cleanCache();
+        assertEquals(0, cache.count());
+        assertEquals(0, cache.numRegisteredCloseListeners());
+        assertEquals(0, requestCacheStats.stats().getMemorySize().bytesAsInt());
+        cache.close();
+    }
+
     public void testEqualsKey() throws IOException {
         AtomicBoolean trueBoolean = new AtomicBoolean(true);
         AtomicBoolean falseBoolean = new AtomicBoolean(false);
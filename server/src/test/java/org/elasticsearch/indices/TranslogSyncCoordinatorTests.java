@@ -0,0 +1,173 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.routing.RecoverySource;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.ShardRoutingState;
+import org.elasticsearch.cluster.routing.TestShardRouting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.engine.InternalEngineFactory;
+import org.elasticsearch.index.seqno.RetentionLeaseSyncer;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardTestCase;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardPath;
+import org.elasticsearch.index.translog.Translog;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class TranslogSyncCoordinatorTests extends IndexShardTestCase {
+
+    public void testBucket() {
+        final long[] bounds = new long[] { 1, 2, 4, 8 };
+        assertThat(TranslogSyncCoordinator.bucket(bounds, 0), equalTo(0));
+        assertThat(TranslogSyncCoordinator.bucket(bounds, 1), equalTo(0));
+        assertThat(TranslogSyncCoordinator.bucket(bounds, 2), equalTo(1));
+        assertThat(TranslogSyncCoordinator.bucket(bounds, 3), equalTo(2));
+        assertThat(TranslogSyncCoordinator.bucket(bounds, 8), equalTo(3));
+        assertThat(TranslogSyncCoordinator.bucket(bounds, 9), equalTo(4));
+        assertThat(TranslogSyncCoordinator.bucket(bounds, Long.MAX_VALUE), equalTo(4));
+    }
+
+    public void testSyncThroughCoordinator() throws Exception {
+        final TranslogSyncCoordinator coordinator = new TranslogSyncCoordinator(new ThreadContext(Settings.EMPTY), Runnable::run,
+            randomIntBetween(1, 4), System::nanoTime);
+        final IndexShard shard = newStartedShard(true);
+        try {
+            shard.setTranslogSyncCoordinator(coordinator);
+            final int numDocs = randomIntBetween(1, 10);
+            for (int i = 0; i < numDocs; i++) {
+                final Engine.IndexResult result = indexDoc(shard, "_doc", Integer.toString(i));
+                final CountDownLatch latch = new CountDownLatch(1);
+                final AtomicReference<Exception> failure = new AtomicReference<>();
+                shard.sync(result.getTranslogLocation(), e -> {
+                    failure.set(e);
+                    latch.countDown();
+                });
+                assertTrue(latch.await(10, TimeUnit.SECONDS));
+                assertNull(failure.get());
+                assertFalse(shard.ensureTranslogSynced(Stream.of(result.getTranslogLocation())));
+            }
+
+            final TranslogSyncStats stats = coordinator.stats();
+            assertThat(stats.getDataPaths().size(), equalTo(1));
+            final TranslogSyncStats.DataPathStats dataPath = stats.getDataPaths().get(0);
+            assertThat(dataPath.getPath(), equalTo(shard.shardPath().getRootDataPath().toString()));
+            assertThat(dataPath.getSyncs(), equalTo((long) numDocs));
+            assertThat(dataPath.getBatches(), equalTo((long) numDocs));
+            assertThat(dataPath.getShardSyncs(), equalTo((long) numDocs));
+            assertThat(dataPath.getFsyncs(), lessThanOrEqualTo((long) numDocs));
+            assertThat(dataPath.getBatchSizeHistogram()[0], equalTo((long) numDocs));
+        } finally {
+            closeShards(shard);
+        }
+    }
+
+    public void testSyncsShardsOfBatchInParallel() throws Exception {
+        // blocks the processing of the first batch until the syncs of the other shards are queued
+        final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        final CountDownLatch otherSyncsQueued = new CountDownLatch(1);
+        final AtomicBoolean firstBatch = new AtomicBoolean(true);
+        final AtomicInteger forkedWorkers = new AtomicInteger();
+        final TranslogSyncCoordinator coordinator = new TranslogSyncCoordinator(new ThreadContext(Settings.EMPTY), command -> {
+            forkedWorkers.incrementAndGet();
+            new Thread(command).start();
+        }, 4, () -> {
+            if (firstBatch.compareAndSet(true, false)) {
+                firstBatchStarted.countDown();
+                try {
+                    otherSyncsQueued.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }
+            return System.nanoTime();
+        });
+        final NodeEnvironment.NodePath nodePath = new NodeEnvironment.NodePath(createTempDir());
+        final IndexShard[] shards = new IndexShard[3];
+        try {
+            for (int i = 0; i < shards.length; i++) {
+                final ShardId shardId = new ShardId("index", "_na_", i);
+                final ShardPath shardPath = new ShardPath(false, nodePath.resolve(shardId), nodePath.resolve(shardId), shardId);
+                final IndexMetaData metaData = IndexMetaData.builder("index")
+                    .settings(Settings.builder().put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+                        .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+                        .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, shards.length))
+                    .primaryTerm(i, primaryTerm)
+                    .putMapping("{ \"properties\": {} }")
+                    .build();
+                final ShardRouting routing = TestShardRouting.newShardRouting(shardId, randomAlphaOfLength(5), true,
+                    ShardRoutingState.INITIALIZING, RecoverySource.EmptyStoreRecoverySource.INSTANCE);
+                shards[i] = newStartedShard(primary -> newShard(routing, shardPath, metaData, null, null, new InternalEngineFactory(),
+                    () -> {}, RetentionLeaseSyncer.EMPTY, EMPTY_EVENT_LISTENER), true);
+                shards[i].setTranslogSyncCoordinator(coordinator);
+            }
+
+            final CountDownLatch synced = new CountDownLatch(shards.length);
+            final AtomicReference<Exception> failure = new AtomicReference<>();
+            final Translog.Location[] locations = new Translog.Location[shards.length];
+            for (int i = 0; i < shards.length; i++) {
+                locations[i] = indexDoc(shards[i], "_doc", "id").getTranslogLocation();
+            }
+            final Thread firstSync = new Thread(() -> shards[0].sync(locations[0], e -> {
+                failure.compareAndSet(null, e);
+                synced.countDown();
+            }));
+            firstSync.start();
+            assertTrue(firstBatchStarted.await(10, TimeUnit.SECONDS));
+            for (int i = 1; i < shards.length; i++) {
+                shards[i].sync(locations[i], e -> {
+                    failure.compareAndSet(null, e);
+                    synced.countDown();
+                });
+            }
+            otherSyncsQueued.countDown();
+            assertTrue(synced.await(10, TimeUnit.SECONDS));
+            firstSync.join();
+            assertNull(failure.get());
+            for (int i = 0; i < shards.length; i++) {
+                assertFalse(shards[i].ensureTranslogSynced(Stream.of(locations[i])));
+            }
+
+            // the second batch holds the syncs of two shards, one of them is synced by a forked worker
+            assertThat(forkedWorkers.get(), equalTo(1));
+            final TranslogSyncStats.DataPathStats dataPath = coordinator.stats().getDataPaths().get(0);
+            assertThat(dataPath.getBatches(), equalTo(2L));
+            assertThat(dataPath.getSyncs(), equalTo(3L));
+            assertThat(dataPath.getShardSyncs(), equalTo(3L));
+        } finally {
+            closeShards(shards);
+        }
+    }
+}
@@ -38,6 +38,7 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.PrimaryReplicaSyncer.ResyncTask;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardTimestampRange;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService.AllocatedIndex;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService.AllocatedIndices;
@@ -350,6 +351,11 @@ public abstract class AbstractIndicesClusterStateServiceTestCase extends ESTestC
             return recoveryState;
         }
 
+        @Override
+        public ShardTimestampRange timestampRange() {
+            return ShardTimestampRange.UNKNOWN;
+        }
+
         @Override
         public void updateShardState(ShardRouting shardRouting,
                                      long newPrimaryTerm,
@@ -0,0 +1,152 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.ingest;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class IngestBatchTests extends ESTestCase {
+
+    public void testDocumentsAreHeldUntilNoDocumentIsRunning() {
+        List<List<IngestDocument>> slices = new ArrayList<>();
+        BatchProcessor processor = new RecordingBatchProcessor(slices);
+        IngestBatch batch = new IngestBatch();
+        batch.started();
+
+        int numDocs = randomIntBetween(1, 16);
+        int numRunning = randomIntBetween(0, 4);
+        List<IngestDocument> results = new ArrayList<>();
+        List<IngestDocument> ingestDocuments = new ArrayList<>();
+        for (int i = 0; i < numDocs; i++) {
+            IngestDocument ingestDocument = newIngestDocument(batch);
+            ingestDocuments.add(ingestDocument);
+            batch.started();
+            processor.execute(ingestDocument, (result, e) -> {
+                assertThat(e, nullValue());
+                results.add(result);
+                batch.completed();
+            });
+        }
+        for (int i = 0; i < numRunning; i++) {
+            batch.started();
+        }
+        // the submitting caller is done, but other documents are still running
+        batch.completed();
+        assertThat(slices.size(), equalTo(numRunning == 0 ? 1 : 0));
+        for (int i = 0; i < numRunning; i++) {
+            batch.completed();
+        }
+        assertThat(slices, equalTo(List.of(ingestDocuments)));
+        assertThat(results, equalTo(ingestDocuments));
+    }
+
+    public void testDocumentsWithoutBatchAreExecutedOneByOne() {
+        List<List<IngestDocument>> slices = new ArrayList<>();
+        BatchProcessor processor = new RecordingBatchProcessor(slices);
+        IngestDocument ingestDocument = newIngestDocument(null);
+        List<IngestDocument> results = new ArrayList<>();
+        processor.execute(ingestDocument, (result, e) -> results.add(result));
+        assertThat(slices, equalTo(List.of(List.of(ingestDocument))));
+        assertThat(results.size(), equalTo(1));
+        assertThat(results.get(0), sameInstance(ingestDocument));
+    }
+
+    public void testExceptionFailsDocumentsWithoutOutcome() {
+        int numDocs = randomIntBetween(1, 16);
+        int numCompleted = randomIntBetween(0, numDocs - 1);
+        RuntimeException failure = new RuntimeException("boom");
+        BatchProcessor processor = new RecordingBatchProcessor(new ArrayList<>()) {
+            @Override
+            public void execute(List<IngestDocument> ingestDocuments, List<BiConsumer<IngestDocument, Exception>> handlers) {
+                for (int i = 0; i < numCompleted; i++) {
+                    handlers.get(i).accept(ingestDocuments.get(i), null);
+                }
+                throw failure;
+            }
+        };
+        List<IngestDocument> ingestDocuments = new ArrayList<>();
+        List<BiConsumer<IngestDocument, Exception>> handlers = new ArrayList<>();
+        Map<Integer, Exception> failures = new HashMap<>();
+        List<Integer> completed = new ArrayList<>();
+        for (int i = 0; i < numDocs; i++) {
+            final int slot = i;
+            ingestDocuments.add(newIngestDocument(null));
+            handlers.add((result, e) -> {
+                if (e != null) {
+                    failures.put(slot, e);
+                } else {
+                    completed.add(slot);
+                }
+            });
+        }
+        IngestBatch.executeSlice(processor, ingestDocuments, handlers);
+        assertThat(completed.size(), equalTo(numCompleted));
+        assertThat(failures.size(), equalTo(numDocs - numCompleted));
+        for (int i = numCompleted; i < numDocs; i++) {
+            assertThat(failures.get(i), sameInstance(failure));
+        }
+    }
+
+    private static IngestDocument newIngestDocument(IngestBatch batch) {
+        IngestDocument ingestDocument = new IngestDocument("index", "id", null, null, null, new HashMap<>());
+        ingestDocument.setBatch(batch);
+        return ingestDocument;
+    }
+
+    private static class RecordingBatchProcessor implements BatchProcessor {
+
+        private final List<List<IngestDocument>> slices;
+
+        RecordingBatchProcessor(List<List<IngestDocument>> slices) {
+            this.slices = slices;
+        }
+
+        @Override
+        public void execute(List<IngestDocument> ingestDocuments, List<BiConsumer<IngestDocument, Exception>> handlers) {
+            slices.add(new ArrayList<>(ingestDocuments));
+            for (int i = 0; i < ingestDocuments.size(); i++) {
+                handlers.get(i).accept(ingestDocuments.get(i), null);
+            }
+        }
+
+        @Override
+        public IngestDocument execute(IngestDocument ingestDocument) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getType() {
+            return "recording";
+        }
+
+        @Override
+        public String getTag() {
+            return null;
+        }
+    }
+}
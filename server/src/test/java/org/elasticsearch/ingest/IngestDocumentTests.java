@@ -1018,4 +1018,46 @@ public class IngestDocumentTests extends ESTestCase {
         }
     }
 
+    public void testTemplateModelIsViewOfDocument() {
+        Map<String, Object> model = ingestDocument.createTemplateModel();
+        assertThat(model.get("foo"), equalTo("bar"));
+        assertThat(model.get("_source"), sameInstance(ingestDocument.getSourceAndMetadata()));
+        // the ingest metadata shadows the '_ingest' field of the source, which stays reachable through '_source'
+        assertThat(model.get("_ingest"), sameInstance(ingestDocument.getIngestMetadata()));
+        assertThat(((Map<?, ?>) model.get("_source")).get("_ingest"), not(sameInstance(ingestDocument.getIngestMetadata())));
+        assertTrue(model.containsKey("_source"));
+        assertTrue(model.containsKey("_ingest"));
+        assertFalse(model.containsKey("new_field"));
+
+        ingestDocument.setFieldValue("new_field", "value");
+        assertTrue(model.containsKey("new_field"));
+        assertThat(model.get("new_field"), equalTo("value"));
+
+        Map<String, Object> expected = new HashMap<>(ingestDocument.getSourceAndMetadata());
+        expected.put("_source", ingestDocument.getSourceAndMetadata());
+        expected.put("_ingest", ingestDocument.getIngestMetadata());
+        assertThat(model.size(), equalTo(expected.size()));
+        assertThat(model, equalTo(expected));
+        expectThrows(UnsupportedOperationException.class, () -> model.put("foo", "baz"));
+        expectThrows(UnsupportedOperationException.class, () -> model.entrySet().clear());
+    }
+
+    public void testOfOwnedSource() {
+        Map<String, Object> source = new HashMap<>();
+        source.put("field", "value");
+        IngestDocument document = IngestDocument.ofOwnedSource("index", "id", "routing", 1L, null, source);
+        assertThat(document.getSourceAndMetadata(), sameInstance(source));
+        assertThat(source.get("field"), equalTo("value"));
+        assertThat(source.get(IngestDocument.MetaData.INDEX.getFieldName()), equalTo("index"));
+        assertThat(source.get(IngestDocument.MetaData.ID.getFieldName()), equalTo("id"));
+        assertThat(source.get(IngestDocument.MetaData.ROUTING.getFieldName()), equalTo("routing"));
+        assertThat(source.get(IngestDocument.MetaData.VERSION.getFieldName()), equalTo(1L));
+        assertFalse(source.containsKey(IngestDocument.MetaData.VERSION_TYPE.getFieldName()));
+
+        Map<String, Object> copiedSource = Collections.singletonMap("field", "value");
+        IngestDocument copied = new IngestDocument("index", "id", null, null, null, copiedSource);
+        assertThat(copied.getSourceAndMetadata(), not(sameInstance(copiedSource)));
+        assertThat(copiedSource.size(), equalTo(1));
+    }
+
 }
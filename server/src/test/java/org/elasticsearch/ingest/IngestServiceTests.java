@@ -43,6 +43,7 @@ import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
@@ -65,6 +66,7 @@ import org.mockito.ArgumentMatcher;
 import org.mockito.invocation.InvocationOnMock;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
@@ -1133,6 +1135,89 @@ public class IngestServiceTests extends ESTestCase {
     }
 
 
+    public void testBulkRequestExecutionWithBatchProcessors() throws Exception {
+        BulkRequest bulkRequest = new BulkRequest();
+        int numRequest = scaledRandomIntBetween(8, 64);
+        int numFailures = 0;
+        for (int i = 0; i < numRequest; i++) {
+            IndexRequest indexRequest = new IndexRequest("_index").id("_id").setPipeline("_id").setFinalPipeline("_none");
+            boolean fail = randomBoolean();
+            if (fail) {
+                numFailures++;
+            }
+            indexRequest.source(Requests.INDEX_CONTENT_TYPE, "slot", i, "fail", fail);
+            bulkRequest.add(indexRequest);
+        }
+
+        List<Tuple<String, Integer>> slices = new ArrayList<>();
+        Map<String, Processor.Factory> map = new HashMap<>(2);
+        map.put("batch", (factories, tag, config) -> new BatchProcessor() {
+            @Override
+            public void execute(List<IngestDocument> ingestDocuments, List<BiConsumer<IngestDocument, Exception>> handlers) {
+                slices.add(new Tuple<>(tag, ingestDocuments.size()));
+                for (int i = 0; i < ingestDocuments.size(); i++) {
+                    IngestDocument ingestDocument = ingestDocuments.get(i);
+                    if (ingestDocument.getFieldValue("fail", Boolean.class)) {
+                        handlers.get(i).accept(null, new IllegalArgumentException("failed slot " +
+                            ingestDocument.getFieldValue("slot", Integer.class)));
+                    } else {
+                        ingestDocument.setFieldValue(tag, ingestDocuments.size());
+                        handlers.get(i).accept(ingestDocument, null);
+                    }
+                }
+            }
+
+            @Override
+            public IngestDocument execute(IngestDocument ingestDocument) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public String getType() {
+                return "batch";
+            }
+
+            @Override
+            public String getTag() {
+                return tag;
+            }
+        });
+        IngestService ingestService = createWithProcessors(map);
+        PutPipelineRequest putRequest = new PutPipelineRequest("_id",
+            new BytesArray("{\"processors\": [{\"batch\": {\"tag\": \"first\"}}, {\"batch\": {\"tag\": \"second\"}}]}"),
+            XContentType.JSON);
+        ClusterState clusterState = ClusterState.builder(new ClusterName("_name")).build();
+        ClusterState previousClusterState = clusterState;
+        clusterState = IngestService.innerPut(putRequest, clusterState);
+        ingestService.applyClusterState(new ClusterChangedEvent("", clusterState, previousClusterState));
+
+        Map<Integer, Exception> failures = new HashMap<>();
+        @SuppressWarnings("unchecked")
+        final BiConsumer<Thread, Exception> completionHandler = mock(BiConsumer.class);
+        ingestService.executeBulkRequest(numRequest, bulkRequest.requests(), failures::put, completionHandler, indexReq -> {});
+
+        verify(completionHandler, times(1)).accept(Thread.currentThread(), null);
+        // every processor received all documents that reached it as a single slice
+        int numSucceeded = numRequest - numFailures;
+        if (numSucceeded > 0) {
+            assertThat(slices, equalTo(List.of(new Tuple<>("first", numRequest), new Tuple<>("second", numSucceeded))));
+        } else {
+            assertThat(slices, equalTo(List.of(new Tuple<>("first", numRequest))));
+        }
+        assertThat(failures.size(), equalTo(numFailures));
+        for (int i = 0; i < numRequest; i++) {
+            IndexRequest indexRequest = TransportBulkAction.getIndexWriteRequest(bulkRequest.requests().get(i));
+            Map<String, Object> source = indexRequest.sourceAsMap();
+            if ((Boolean) source.get("fail")) {
+                assertThat(failures.get(i).getCause().getMessage(), equalTo("failed slot " + i));
+            } else {
+                assertThat(failures.get(i), nullValue());
+                assertThat(source.get("first"), equalTo(numRequest));
+                assertThat(source.get("second"), equalTo(numSucceeded));
+            }
+        }
+    }
+
     public void testExecuteWithDrop() {
         Map<String, Processor.Factory> factories = new HashMap<>();
         factories.put("drop", new DropProcessor.Factory());
@@ -84,6 +84,7 @@ import org.elasticsearch.test.ESSingleNodeTestCase;
 import org.junit.Before;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
@@ -795,6 +796,61 @@ public class SearchServiceTests extends ESSingleNodeTestCase {
         assertEquals("should have 2 store refs (IndexService + InternalEngine)", 2, indexService.getShard(0).store().refCount());
     }
 
+    public void testReaderContext() throws IOException {
+        createIndex("index");
+        client().prepareIndex("index").setId("1").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
+        final SearchService service = getInstanceFromNode(SearchService.class);
+        final IndexShard indexShard = getInstanceFromNode(IndicesService.class).indexServiceSafe(resolveIndex("index")).getShard(0);
+        final long readerId = service.openReaderContext(indexShard.shardId(), TimeValue.timeValueMinutes(1));
+        assertEquals(1, service.getActiveReaderContexts());
+        client().prepareIndex("index").setId("2").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
+
+        ShardSearchRequest request = new ShardSearchRequest(OriginalIndices.NONE, new SearchRequest().allowPartialSearchResults(true),
+            indexShard.shardId(), 1, AliasFilter.EMPTY, 1f, -1, null, Strings.EMPTY_ARRAY);
+        try (DefaultSearchContext current = service.createSearchContext(request, TimeValue.timeValueMinutes(1))) {
+            assertEquals(2, current.searcher().getIndexReader().numDocs());
+        }
+        request.readerId(readerId);
+        // several searches can run concurrently against the same reader context
+        try (DefaultSearchContext first = service.createSearchContext(request, TimeValue.timeValueMinutes(1));
+             DefaultSearchContext second = service.createSearchContext(request, TimeValue.timeValueMinutes(1))) {
+            assertEquals(1, first.searcher().getIndexReader().numDocs());
+            assertEquals(1, second.searcher().getIndexReader().numDocs());
+        }
+        assertEquals(1, service.getActiveReaderContexts());
+        assertTrue(service.freeReaderContext(readerId));
+        assertFalse(service.freeReaderContext(readerId));
+        assertEquals(0, service.getActiveReaderContexts());
+        expectThrows(SearchContextMissingException.class,
+            () -> service.createSearchContext(request, TimeValue.timeValueMinutes(1)));
+    }
+
+    public void testMaxOpenPointInTimeContexts() {
+        createIndex("index");
+        final SearchService service = getInstanceFromNode(SearchService.class);
+        final IndexShard indexShard = getInstanceFromNode(IndicesService.class).indexServiceSafe(resolveIndex("index")).getShard(0);
+        client().admin().cluster().prepareUpdateSettings()
+            .setTransientSettings(Settings.builder().put(SearchService.MAX_OPEN_POINT_IN_TIME_CONTEXT.getKey(), 2)).get();
+        final List<Long> readerIds = new ArrayList<>();
+        try {
+            readerIds.add(service.openReaderContext(indexShard.shardId(), TimeValue.timeValueMinutes(1)));
+            readerIds.add(service.openReaderContext(indexShard.shardId(), TimeValue.timeValueMinutes(1)));
+            ElasticsearchException ex = expectThrows(ElasticsearchException.class,
+                () -> service.openReaderContext(indexShard.shardId(), TimeValue.timeValueMinutes(1)));
+            assertEquals("Trying to create too many point in time contexts. Must be less than or equal to: [2]. " +
+                "This limit can be set by changing the [search.max_open_point_in_time_context] setting.", ex.getMessage());
+            assertEquals(2, service.getActiveReaderContexts());
+
+            assertTrue(service.freeReaderContext(readerIds.remove(0)));
+            readerIds.add(service.openReaderContext(indexShard.shardId(), TimeValue.timeValueMinutes(1)));
+            assertEquals(2, service.getActiveReaderContexts());
+        } finally {
+            readerIds.forEach(service::freeReaderContext);
+            client().admin().cluster().prepareUpdateSettings()
+                .setTransientSettings(Settings.builder().putNull(SearchService.MAX_OPEN_POINT_IN_TIME_CONTEXT.getKey())).get();
+        }
+    }
+
     public void testMatchNoDocsEmptyResponse() throws InterruptedException {
         createIndex("index");
         Thread currentThread = Thread.currentThread();
@@ -55,6 +55,46 @@ public class AggregationCollectorTests extends ESSingleNodeTestCase {
         assertTrue(needsScores(index, topHitsAgg));
     }
 
+    public void testSupportsParallelCollection() throws Exception {
+        IndexService index = createIndex("idx");
+        client().prepareIndex("idx").setId("1").setSource("f", 5).execute().get();
+        client().admin().indices().prepareRefresh("idx").get();
+
+        String maxAgg = "{ \"my_max\": {\"max\": {\"field\": \"f\"}}}";
+        assertTrue(supportsParallelCollection(index, maxAgg));
+
+        String histogramAgg = "{ \"my_histogram\": {\"histogram\": {\"field\": \"f\", \"interval\": 2}, \"aggs\": " + maxAgg + "}}";
+        assertTrue(supportsParallelCollection(index, histogramAgg));
+
+        String rangeAgg = "{ \"my_range\": {\"range\": {\"field\": \"f\", \"ranges\": [{\"to\": 3}]}, \"aggs\": " + maxAgg + "}}";
+        assertTrue(supportsParallelCollection(index, rangeAgg));
+
+        // histograms under a multi bucket aggregation create aggregators while collecting
+        String subHistogramAgg = "{ \"my_range\": {\"range\": {\"field\": \"f\", \"ranges\": [{\"to\": 3}]}, \"aggs\": "
+            + histogramAgg + "}}";
+        assertFalse(supportsParallelCollection(index, subHistogramAgg));
+
+        // the top terms of a slice are not the top terms of the shard
+        String termsAgg = "{ \"my_terms\": {\"terms\": {\"field\": \"f\"}}}";
+        assertFalse(supportsParallelCollection(index, termsAgg));
+
+        String subTermsAgg = "{ \"my_max\": {\"max\": {\"field\": \"f\"}}, \"my_range\": {\"range\": {\"field\": \"f\", "
+            + "\"ranges\": [{\"to\": 3}]}, \"aggs\": " + termsAgg + "}}";
+        assertFalse(supportsParallelCollection(index, subTermsAgg));
+
+        String globalAgg = "{ \"my_global\": {\"global\": {}, \"aggs\": " + maxAgg + "}}";
+        assertFalse(supportsParallelCollection(index, globalAgg));
+    }
+
+    private boolean supportsParallelCollection(IndexService index, String agg) throws IOException {
+        try (XContentParser aggParser = createParser(JsonXContent.jsonXContent, agg)) {
+            aggParser.nextToken();
+            SearchContext context = createSearchContext(index);
+            return AggregatorFactories.parseAggregators(aggParser).build(context.getQueryShardContext(), null)
+                .supportsParallelCollection();
+        }
+    }
+
     private boolean needsScores(IndexService index, String agg) throws IOException {
         try (XContentParser aggParser = createParser(JsonXContent.jsonXContent, agg)) {
             aggParser.nextToken();
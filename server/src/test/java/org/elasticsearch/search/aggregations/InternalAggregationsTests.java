@@ -18,7 +18,11 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
@@ -41,6 +45,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 
 public class InternalAggregationsTests extends ESTestCase {
 
@@ -88,6 +93,86 @@ public class InternalAggregationsTests extends ESTestCase {
         assertEquals(2, reducedAggs.aggregations.size());
     }
 
+    public void testEstimatedSizeGrowsWithBuckets() {
+        InternalAggregations few = new InternalAggregations(Collections.singletonList(termsWithBuckets(1, 0)));
+        InternalAggregations many = new InternalAggregations(Collections.singletonList(termsWithBuckets(100, 0)));
+        InternalAggregations manyWithSubAggs = new InternalAggregations(Collections.singletonList(termsWithBuckets(100, 5)));
+        assertTrue(few.estimatedSizeInBytes() < many.estimatedSizeInBytes());
+        assertTrue(many.estimatedSizeInBytes() < manyWithSubAggs.estimatedSizeInBytes());
+    }
+
+    public void testTopLevelReduceAccountsEstimatedSize() {
+        List<InternalAggregations> aggs = new ArrayList<>();
+        long inputBytes = 0;
+        for (int i = 0; i < 3; i++) {
+            InternalAggregations shardAggs = new InternalAggregations(Collections.singletonList(termsWithBuckets(50, 2)));
+            inputBytes += shardAggs.estimatedSizeInBytes();
+            aggs.add(shardAggs);
+        }
+
+        LimitedBreaker breaker = new LimitedBreaker(Long.MAX_VALUE);
+        InternalAggregation.ReduceContext reduceContext =
+            new InternalAggregation.ReduceContext(null, null, bucketCount -> {}, breaker, randomBoolean());
+        InternalAggregations reduced = InternalAggregations.topLevelReduce(aggs, reduceContext);
+        assertEquals(inputBytes + reduced.estimatedSizeInBytes(), reduceContext.getMaxEstimatedBytes());
+        assertEquals(0, breaker.getUsed());
+
+        breaker = new LimitedBreaker(inputBytes);
+        InternalAggregation.ReduceContext limitedContext =
+            new InternalAggregation.ReduceContext(null, null, bucketCount -> {}, breaker, randomBoolean());
+        expectThrows(CircuitBreakingException.class, () -> InternalAggregations.topLevelReduce(aggs, limitedContext));
+        assertEquals(0, breaker.getUsed());
+    }
+
+    private static StringTerms termsWithBuckets(int numBuckets, int numSubAggs) {
+        List<StringTerms.Bucket> buckets = new ArrayList<>(numBuckets);
+        for (int i = 0; i < numBuckets; i++) {
+            List<InternalAggregation> subAggs = new ArrayList<>(numSubAggs);
+            for (int j = 0; j < numSubAggs; j++) {
+                subAggs.add(new StringTerms("sub" + j, BucketOrder.key(true), 10, 1, Collections.emptyList(), Collections.emptyMap(),
+                    DocValueFormat.RAW, 25, false, 10, Collections.emptyList(), 0));
+            }
+            buckets.add(new StringTerms.Bucket(new BytesRef(String.format(Locale.ROOT, "%05d", i)), 1,
+                new InternalAggregations(subAggs), false, 0, DocValueFormat.RAW));
+        }
+        return new StringTerms("name", BucketOrder.key(true), numBuckets, 1, Collections.emptyList(), Collections.emptyMap(),
+            DocValueFormat.RAW, numBuckets, false, 0, buckets, 0);
+    }
+
+    /**
+     * A breaker that trips once more than a number of bytes are in use.
+     */
+    private static class LimitedBreaker extends NoopCircuitBreaker {
+        private final long limit;
+        private long used;
+
+        LimitedBreaker(long limit) {
+            super(CircuitBreaker.REQUEST);
+            this.limit = limit;
+        }
+
+        @Override
+        public double addEstimateBytesAndMaybeBreak(long bytes, String label) {
+            if (used + bytes > limit) {
+                throw new CircuitBreakingException("[request] data for [" + label + "] would be too large", used + bytes, limit,
+                    getDurability());
+            }
+            used += bytes;
+            return used;
+        }
+
+        @Override
+        public long addWithoutBreaking(long bytes) {
+            used += bytes;
+            return used;
+        }
+
+        @Override
+        public long getUsed() {
+            return used;
+        }
+    }
+
     public static InternalAggregations createTestInstance() throws Exception {
         List<InternalAggregation> aggsList = new ArrayList<>();
         if (randomBoolean()) {
@@ -20,12 +20,21 @@ package org.elasticsearch.search.aggregations.bucket.filter;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.FilterWeight;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
 import org.elasticsearch.index.mapper.KeywordFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
@@ -33,8 +42,10 @@ import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.aggregations.AggregatorTestCase;
 import org.elasticsearch.search.aggregations.support.AggregationInspectionHelper;
+import org.elasticsearch.tasks.TaskCancelledException;
 import org.junit.Before;
 
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -206,4 +217,170 @@ public class FiltersAggregatorTests extends AggregatorTestCase {
             directory.close();
         }
     }
+
+    public void testFilterByFilterMatchesDocByDoc() throws Exception {
+        Directory directory = newDirectory();
+        RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory);
+        int numDocs = randomIntBetween(100, 200);
+        int maxTerm = randomIntBetween(5, 20);
+        int[] expectedBucketCount = new int[maxTerm];
+        int expectedTotal = 0;
+        for (int i = 0; i < numDocs; i++) {
+            if (frequently()) {
+                // make sure we have more than one segment to test the merge
+                indexWriter.commit();
+            }
+            int value = randomInt(maxTerm - 1);
+            boolean matchesQuery = randomBoolean();
+            boolean deleted = rarely();
+            if (matchesQuery && deleted == false) {
+                expectedBucketCount[value] += 1;
+                expectedTotal++;
+            }
+            Document document = new Document();
+            document.add(new Field("field", Integer.toString(value), fieldType));
+            document.add(new StringField("query", matchesQuery ? "yes" : "no", Field.Store.NO));
+            document.add(new StringField("id", Integer.toString(i), Field.Store.NO));
+            indexWriter.addDocument(document);
+            if (deleted) {
+                indexWriter.deleteDocuments(new Term("id", Integer.toString(i)));
+            }
+        }
+        indexWriter.close();
+
+        IndexReader indexReader = DirectoryReader.open(directory);
+        IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+        try {
+            int numFilters = randomIntBetween(1, 10);
+            QueryBuilder[] filters = new QueryBuilder[numFilters];
+            int[] filterTerms = new int[numFilters];
+            int expectedOtherCount = expectedTotal;
+            Set<Integer> filterSet = new HashSet<>();
+            for (int i = 0; i < filters.length; i++) {
+                int value = randomInt(maxTerm - 1);
+                filters[i] = QueryBuilders.termQuery("field", Integer.toString(value));
+                filterTerms[i] = value;
+                if (filterSet.add(value)) {
+                    expectedOtherCount -= expectedBucketCount[value];
+                }
+            }
+            // the top-level aggregation without sub-aggregations counts filter by filter while the sub-aggregation
+            // forces the documents to be checked against the filters one by one
+            FiltersAggregationBuilder filterByFilter = new FiltersAggregationBuilder("test", filters).otherBucket(true);
+            FiltersAggregationBuilder docByDoc = new FiltersAggregationBuilder("test", filters).otherBucket(true)
+                .subAggregation(new FilterAggregationBuilder("sub", QueryBuilders.matchAllQuery()));
+            // a query that cannot be cached makes the top-level aggregation fall back to collecting the documents
+            Query query = new TermQuery(new Term("query", "yes"));
+            for (Query topLevelQuery : List.of(query, new NotCacheableQuery(query))) {
+                for (FiltersAggregationBuilder builder : List.of(filterByFilter, docByDoc)) {
+                    InternalFilters response = searchAndReduce(indexSearcher, topLevelQuery, builder, fieldType);
+                    List<InternalFilters.InternalBucket> buckets = response.getBuckets();
+                    assertEquals(filters.length + 1, buckets.size());
+                    for (InternalFilters.InternalBucket bucket : buckets) {
+                        if ("_other_".equals(bucket.getKey())) {
+                            assertEquals(expectedOtherCount, bucket.getDocCount());
+                        } else {
+                            int index = Integer.parseInt(bucket.getKey());
+                            assertEquals(expectedBucketCount[filterTerms[index]], bucket.getDocCount());
+                        }
+                    }
+                }
+            }
+        } finally {
+            indexReader.close();
+            directory.close();
+        }
+    }
+
+    public void testFilterByFilterIsUsed() throws Exception {
+        Directory directory = newDirectory();
+        RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory);
+        int numDocs = randomIntBetween(10, 100);
+        for (int i = 0; i < numDocs; i++) {
+            if (rarely()) {
+                indexWriter.commit();
+            }
+            Document document = new Document();
+            document.add(new Field("field", Integer.toString(i % 3), fieldType));
+            document.add(new StringField("query", randomBoolean() ? "yes" : "no", Field.Store.NO));
+            indexWriter.addDocument(document);
+        }
+        indexWriter.close();
+
+        IndexReader indexReader = DirectoryReader.open(directory);
+        IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+        try {
+            FiltersAggregationBuilder builder = new FiltersAggregationBuilder("test",
+                QueryBuilders.termQuery("field", "0"), QueryBuilders.termQuery("field", "1")).otherBucket(true);
+            Query query = new TermQuery(new Term("query", "yes"));
+
+            // the segments are counted, so their documents are never collected
+            FiltersAggregator aggregator = createAggregator(query, builder, indexSearcher, createIndexSettings(), fieldType);
+            aggregator.preCollection();
+            for (LeafReaderContext ctx : indexSearcher.getIndexReader().leaves()) {
+                expectThrows(CollectionTerminatedException.class, () -> aggregator.getLeafCollector(ctx));
+            }
+
+            // counting stops once the search is cancelled
+            aggregator.context().searcher().setCheckCancelled(() -> {
+                throw new TaskCancelledException("cancelled");
+            });
+            for (LeafReaderContext ctx : indexSearcher.getIndexReader().leaves()) {
+                expectThrows(TaskCancelledException.class, () -> aggregator.getLeafCollector(ctx));
+            }
+
+            // the documents are collected if the query can't be served from the query cache
+            FiltersAggregator docByDoc = createAggregator(new NotCacheableQuery(query), builder, indexSearcher,
+                createIndexSettings(), fieldType);
+            docByDoc.preCollection();
+            for (LeafReaderContext ctx : indexSearcher.getIndexReader().leaves()) {
+                assertNotNull(docByDoc.getLeafCollector(ctx));
+            }
+        } finally {
+            indexReader.close();
+            directory.close();
+        }
+    }
+
+    /**
+     * Wraps a query so that its weight is never cacheable, like queries that run scripts.
+     */
+    private static class NotCacheableQuery extends Query {
+        private final Query in;
+
+        NotCacheableQuery(Query in) {
+            this.in = in;
+        }
+
+        @Override
+        public Query rewrite(IndexReader reader) throws IOException {
+            Query rewritten = in.rewrite(reader);
+            return rewritten == in ? this : new NotCacheableQuery(rewritten);
+        }
+
+        @Override
+        public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+            return new FilterWeight(in.createWeight(searcher, scoreMode, boost)) {
+                @Override
+                public boolean isCacheable(LeafReaderContext ctx) {
+                    return false;
+                }
+            };
+        }
+
+        @Override
+        public String toString(String field) {
+            return "not_cacheable(" + in.toString(field) + ")";
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return sameClassAs(obj) && in.equals(((NotCacheableQuery) obj).in);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * classHash() + in.hashCode();
+        }
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.range;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.bucket.filter.FilterAggregationBuilder;
+import org.elasticsearch.search.aggregations.support.ValuesSourceAggregationBuilder;
+
+import java.io.IOException;
+import java.util.List;
+
+public class RangeAggregatorTests extends AggregatorTestCase {
+
+    public void testLongRangesFilterByFilter() throws IOException {
+        MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        fieldType.setName("field");
+        fieldType.setHasDocValues(true);
+        fieldType.setIndexOptions(IndexOptions.DOCS);
+        double[][] ranges = randomRanges(1000);
+        RangeAggregationBuilder filterByFilter = new RangeAggregationBuilder("test").field("field");
+        RangeAggregationBuilder docByDoc = new RangeAggregationBuilder("test").field("field");
+        for (int i = 0; i < ranges.length; i++) {
+            filterByFilter.addRange("r" + i, ranges[i][0], ranges[i][1]);
+            docByDoc.addRange("r" + i, ranges[i][0], ranges[i][1]);
+        }
+        assertSameCounts(fieldType, 1000, ranges, filterByFilter, docByDoc);
+    }
+
+    public void testDateRangesFilterByFilter() throws IOException {
+        DateFieldMapper.DateFieldType fieldType = new DateFieldMapper.DateFieldType();
+        fieldType.setName("field");
+        fieldType.setHasDocValues(true);
+        fieldType.setIndexOptions(IndexOptions.DOCS);
+        double[][] ranges = randomRanges(1000);
+        DateRangeAggregationBuilder filterByFilter = new DateRangeAggregationBuilder("test").field("field");
+        DateRangeAggregationBuilder docByDoc = new DateRangeAggregationBuilder("test").field("field");
+        for (int i = 0; i < ranges.length; i++) {
+            filterByFilter.addRange("r" + i, ranges[i][0], ranges[i][1]);
+            docByDoc.addRange("r" + i, ranges[i][0], ranges[i][1]);
+        }
+        assertSameCounts(fieldType, 1000, ranges, filterByFilter, docByDoc);
+    }
+
+    private static double[][] randomRanges(int maxValue) {
+        double[][] ranges = new double[randomIntBetween(1, 20)][];
+        for (int i = 0; i < ranges.length; i++) {
+            double from = randomBoolean() ? Double.NEGATIVE_INFINITY : randomIntBetween(0, maxValue) + (randomBoolean() ? 0.5 : 0);
+            double to = randomBoolean() ? Double.POSITIVE_INFINITY : randomIntBetween(0, maxValue) + (randomBoolean() ? 0.5 : 0);
+            ranges[i] = new double[] { from, to };
+        }
+        return ranges;
+    }
+
+    /**
+     * Checks that the ranges count the same documents whether they are counted filter by filter or, because of a
+     * sub-aggregation, document by document.
+     */
+    private void assertSameCounts(MappedFieldType fieldType, int maxValue, double[][] ranges,
+                                  ValuesSourceAggregationBuilder<?, ?> filterByFilter,
+                                  ValuesSourceAggregationBuilder<?, ?> docByDoc) throws IOException {
+        docByDoc.subAggregation(new FilterAggregationBuilder("sub", QueryBuilders.matchAllQuery()));
+        int[] expectedCounts = new int[ranges.length];
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                int numDocs = randomIntBetween(50, 200);
+                for (int i = 0; i < numDocs; i++) {
+                    if (frequently()) {
+                        // make sure we have more than one segment to test the merge
+                        indexWriter.commit();
+                    }
+                    Document document = new Document();
+                    boolean[] matches = new boolean[ranges.length];
+                    int numValues = randomIntBetween(0, 2);
+                    for (int v = 0; v < numValues; v++) {
+                        long value = randomIntBetween(0, maxValue);
+                        document.add(new LongPoint("field", value));
+                        document.add(new SortedNumericDocValuesField("field", value));
+                        for (int r = 0; r < ranges.length; r++) {
+                            matches[r] |= value >= ranges[r][0] && value < ranges[r][1];
+                        }
+                    }
+                    for (int r = 0; r < ranges.length; r++) {
+                        if (matches[r]) {
+                            expectedCounts[r]++;
+                        }
+                    }
+                    indexWriter.addDocument(document);
+                }
+            }
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+                Query query = new MatchAllDocsQuery();
+                for (ValuesSourceAggregationBuilder<?, ?> builder : List.of(filterByFilter, docByDoc)) {
+                    InternalRange<?, ?> range = searchAndReduce(indexSearcher, query, builder, fieldType);
+                    assertEquals(ranges.length, range.getBuckets().size());
+                    for (InternalRange.Bucket bucket : range.getBuckets()) {
+                        int index = Integer.parseInt(bucket.getKey().substring(1));
+                        assertEquals(bucket.getKey(), expectedCounts[index], bucket.getDocCount());
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.significant;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FilterDirectoryReader;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Bits;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+public class BackgroundFrequenciesTests extends ESTestCase {
+
+    private static Document document(String value, long number, String color) {
+        Document document = new Document();
+        document.add(new StringField("field", value, Field.Store.NO));
+        document.add(new LongPoint("number", number));
+        document.add(new StringField("color", color, Field.Store.NO));
+        return document;
+    }
+
+    private static Query termQuery(String value) {
+        return new TermQuery(new Term("field", value));
+    }
+
+    public void testFrequencies() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter w = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            w.addDocument(document("a", 1, "red"));
+            w.addDocument(document("a", 1, "blue"));
+            w.commit();
+            w.addDocument(document("a", 2, "red"));
+            w.addDocument(document("b", 2, "red"));
+            w.commit();
+            BackgroundFrequencyCache cache = new BackgroundFrequencyCache(Settings.EMPTY);
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                assertEquals(2, reader.leaves().size());
+                Query red = new TermQuery(new Term("color", "red"));
+
+                BackgroundFrequencies frequencies = new BackgroundFrequencies(reader, "field", null, cache, randomBoolean());
+                assertEquals(3, frequencies.frequency("a", termQuery("a")));
+                assertEquals(1, frequencies.frequency("b", termQuery("b")));
+                assertEquals(0, frequencies.frequency("c", termQuery("c")));
+                assertEquals(6, cache.count());
+
+                frequencies = new BackgroundFrequencies(reader, "field", red, cache, randomBoolean());
+                assertEquals(2, frequencies.frequency("a", termQuery("a")));
+                assertEquals(1, frequencies.frequency("b", termQuery("b")));
+                assertEquals(10, cache.count());
+
+                frequencies = new BackgroundFrequencies(reader, "number", red, cache, randomBoolean());
+                assertEquals(1, frequencies.frequency("1", LongPoint.newExactQuery("number", 1)));
+                assertEquals(2, frequencies.frequency("2", LongPoint.newExactQuery("number", 2)));
+                assertEquals(14, cache.count());
+
+                // a new request reads the frequencies from the cache
+                frequencies = new BackgroundFrequencies(reader, "field", red, cache, false);
+                assertEquals(2, frequencies.frequency("a", termQuery("a")));
+                assertEquals(14, cache.count());
+            }
+            // closing the segments invalidates their entries
+            assertEquals(0, cache.count());
+            cache.close();
+        }
+    }
+
+    public void testDeletedDocuments() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter w = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            w.addDocument(document("a", 1, "red"));
+            w.addDocument(document("a", 2, "red"));
+            w.commit();
+            BackgroundFrequencyCache cache = new BackgroundFrequencyCache(Settings.EMPTY);
+            Query red = new TermQuery(new Term("color", "red"));
+            try (DirectoryReader reader = DirectoryReader.open(w)) {
+                assertEquals(2, new BackgroundFrequencies(reader, "field", red, cache, false).frequency("a", termQuery("a")));
+                w.deleteDocuments(LongPoint.newExactQuery("number", 2));
+                try (DirectoryReader newReader = DirectoryReader.openIfChanged(reader, w)) {
+                    assertNotNull(newReader);
+                    // the segment is shared but its live docs changed
+                    assertEquals(1, new BackgroundFrequencies(newReader, "field", red, cache, false).frequency("a", termQuery("a")));
+                    // without a filter the frequency includes deleted documents, like the size of the background
+                    assertEquals(2, new BackgroundFrequencies(newReader, "field", null, cache, false).frequency("a", termQuery("a")));
+                }
+            }
+            cache.close();
+        }
+    }
+
+    public void testReadersThatHideDocumentsAreNotCached() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter w = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            w.addDocument(document("a", 1, "red"));
+            w.addDocument(document("a", 2, "red"));
+            w.commit();
+            BackgroundFrequencyCache cache = new BackgroundFrequencyCache(Settings.EMPTY);
+            Query red = new TermQuery(new Term("color", "red"));
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                assertEquals(2, new BackgroundFrequencies(reader, "field", red, cache, false).frequency("a", termQuery("a")));
+                assertEquals(1, cache.count());
+                // like document level security, the wrapper shares the core of the segment but hides its documents
+                DirectoryReader hidingReader = new HideAllDocumentsDirectoryReader(reader);
+                assertEquals(0, new BackgroundFrequencies(hidingReader, "field", red, cache, false).frequency("a", termQuery("a")));
+                assertEquals(1, cache.count());
+            }
+            cache.close();
+        }
+    }
+
+    private static class HideAllDocumentsDirectoryReader extends FilterDirectoryReader {
+
+        HideAllDocumentsDirectoryReader(DirectoryReader in) throws IOException {
+            super(in, new SubReaderWrapper() {
+                @Override
+                public LeafReader wrap(LeafReader reader) {
+                    return new FilterLeafReader(reader) {
+                        @Override
+                        public Bits getLiveDocs() {
+                            return new Bits.MatchNoBits(maxDoc());
+                        }
+
+                        @Override
+                        public int numDocs() {
+                            return 0;
+                        }
+
+                        @Override
+                        public CacheHelper getCoreCacheHelper() {
+                            return in.getCoreCacheHelper();
+                        }
+
+                        @Override
+                        public CacheHelper getReaderCacheHelper() {
+                            return null;
+                        }
+                    };
+                }
+            });
+        }
+
+        @Override
+        protected DirectoryReader doWrapDirectoryReader(DirectoryReader in) throws IOException {
+            return new HideAllDocumentsDirectoryReader(in);
+        }
+
+        @Override
+        public CacheHelper getReaderCacheHelper() {
+            return null;
+        }
+    }
+}
@@ -114,11 +114,13 @@ public class TermsAggregatorTests extends AggregatorTestCase {
             if (randomizeAggregatorImpl) {
                 TermsAggregatorFactory.COLLECT_SEGMENT_ORDS = randomBoolean();
                 TermsAggregatorFactory.REMAP_GLOBAL_ORDS = randomBoolean();
+                TermsAggregatorFactory.SKIP_GLOBAL_ORDS = randomBoolean();
             }
             return super.createAggregator(aggregationBuilder, indexSearcher, fieldTypes);
         } finally {
             TermsAggregatorFactory.COLLECT_SEGMENT_ORDS = null;
             TermsAggregatorFactory.REMAP_GLOBAL_ORDS = null;
+            TermsAggregatorFactory.SKIP_GLOBAL_ORDS = null;
         }
     }
 
@@ -162,6 +164,63 @@ public class TermsAggregatorTests extends AggregatorTestCase {
         directory.close();
     }
 
+    public void testSegmentOrdinals() throws Exception {
+        randomizeAggregatorImpl = false;
+        try (Directory directory = newDirectory()) {
+            final Map<String, Integer> expectedCounts = new HashMap<>();
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                final int numSegments = randomIntBetween(2, 5);
+                for (int segment = 0; segment < numSegments; segment++) {
+                    final int numDocs = randomIntBetween(1, 20);
+                    for (int i = 0; i < numDocs; i++) {
+                        final Document document = new Document();
+                        final String first = "term" + randomInt(9);
+                        document.add(new SortedSetDocValuesField("string", new BytesRef(first)));
+                        expectedCounts.merge(first, 1, Integer::sum);
+                        if (randomBoolean()) {
+                            final String second = "term" + randomInt(9);
+                            document.add(new SortedSetDocValuesField("string", new BytesRef(second)));
+                            if (second.equals(first) == false) {
+                                expectedCounts.merge(second, 1, Integer::sum);
+                            }
+                        }
+                        indexWriter.addDocument(document);
+                    }
+                    indexWriter.commit();
+                }
+                final boolean excludeFirstTerm = randomBoolean();
+                if (excludeFirstTerm) {
+                    expectedCounts.remove("term0");
+                }
+                try (IndexReader indexReader = maybeWrapReaderEs(indexWriter.getReader())) {
+                    IndexSearcher indexSearcher = newIndexSearcher(indexReader);
+                    TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name", ValueType.STRING)
+                        .field("string")
+                        .size(20);
+                    if (excludeFirstTerm) {
+                        aggregationBuilder.includeExclude(new IncludeExclude(null, new String[] { "term0" }));
+                    }
+                    MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType();
+                    fieldType.setName("string");
+                    fieldType.setHasDocValues(true);
+
+                    TermsAggregator aggregator = createAggregator(aggregationBuilder, indexSearcher, fieldType);
+                    if (indexReader.leaves().size() > 1) {
+                        assertThat(aggregator, instanceOf(SegmentOrdinalsStringTermsAggregator.class));
+                    }
+                    aggregator.preCollection();
+                    indexSearcher.search(new MatchAllDocsQuery(), aggregator);
+                    aggregator.postCollection();
+                    Terms result = (Terms) aggregator.buildAggregation(0L);
+                    assertEquals(expectedCounts.size(), result.getBuckets().size());
+                    for (Terms.Bucket bucket : result.getBuckets()) {
+                        assertEquals(expectedCounts.get(bucket.getKeyAsString()).longValue(), bucket.getDocCount());
+                    }
+                }
+            }
+        }
+    }
+
     public void testSimple() throws Exception {
         try (Directory directory = newDirectory()) {
             try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
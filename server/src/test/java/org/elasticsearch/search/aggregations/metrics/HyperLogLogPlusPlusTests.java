@@ -21,13 +21,20 @@ package org.elasticsearch.search.aggregations.metrics;
 
 import com.carrotsearch.hppc.BitMixer;
 import com.carrotsearch.hppc.IntHashSet;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.search.aggregations.metrics.HyperLogLogPlusPlus;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
+
+import java.io.IOException;
 
 import static org.elasticsearch.search.aggregations.metrics.HyperLogLogPlusPlus.MAX_PRECISION;
 import static org.elasticsearch.search.aggregations.metrics.HyperLogLogPlusPlus.MIN_PRECISION;
 import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.lessThan;
 
 public class HyperLogLogPlusPlusTests extends ESTestCase {
     public void testEncodeDecode() {
@@ -118,6 +125,53 @@ public class HyperLogLogPlusPlusTests extends ESTestCase {
         assertEquals(1, counts.cardinality(0));
     }
 
+    public void testSparseBucketsStayCompact() {
+        final int p = randomIntBetween(10, MAX_PRECISION);
+        final int numBuckets = randomIntBetween(100, 1000);
+        try (HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1)) {
+            for (long bucket = 0; bucket < numBuckets; ++bucket) {
+                final int numValues = randomIntBetween(1, 10);
+                for (int i = 0; i < numValues; ++i) {
+                    counts.collect(bucket, BitMixer.mix64(randomInt()));
+                }
+                // a handful of hashes take a few bytes rather than a full set of registers
+                assertThat(counts.estimatedSizeInBytes(bucket), lessThan(HyperLogLogPlusPlus.memoryUsage(p)));
+            }
+            counts.upgradeToHll(0);
+            assertEquals(HyperLogLogPlusPlus.memoryUsage(p), counts.estimatedSizeInBytes(0));
+        }
+        // registers are packed on 6 bits
+        assertEquals(3L << (p - 2), HyperLogLogPlusPlus.memoryUsage(p));
+    }
+
+    public void testSerialization() throws IOException {
+        final int p = randomIntBetween(MIN_PRECISION, MAX_PRECISION);
+        final long bucket = randomInt(20);
+        final int numValues = randomIntBetween(0, randomBoolean() ? 100 : 100000);
+        final Version version = randomBoolean() ? Version.CURRENT
+            : VersionUtils.randomVersionBetween(random(), null, VersionUtils.getPreviousVersion(Version.V_8_0_0));
+        try (HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1)) {
+            for (int i = 0; i < numValues; ++i) {
+                counts.collect(bucket, BitMixer.mix64(randomInt()));
+            }
+            if (randomBoolean()) {
+                counts.upgradeToHll(bucket);
+            }
+            try (BytesStreamOutput out = new BytesStreamOutput()) {
+                out.setVersion(version);
+                counts.writeTo(bucket, out);
+                try (StreamInput in = out.bytes().streamInput()) {
+                    in.setVersion(version);
+                    try (HyperLogLogPlusPlus read = HyperLogLogPlusPlus.readFrom(in, BigArrays.NON_RECYCLING_INSTANCE)) {
+                        assertEquals(counts.cardinality(bucket), read.cardinality(0));
+                        assertEquals(counts.estimatedSizeInBytes(bucket), read.estimatedSizeInBytes(0));
+                        assertEquals(counts.hashCode(bucket), read.hashCode(0));
+                    }
+                }
+            }
+        }
+    }
+
     public void testPrecisionFromThreshold() {
         assertEquals(4, HyperLogLogPlusPlus.precisionFromThreshold(0));
         assertEquals(6, HyperLogLogPlusPlus.precisionFromThreshold(10));
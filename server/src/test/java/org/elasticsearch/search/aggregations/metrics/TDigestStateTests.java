@@ -19,9 +19,18 @@
 
 package org.elasticsearch.search.aggregations.metrics;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.lessThan;
 
 public class TDigestStateTests extends ESTestCase {
 
@@ -50,4 +59,95 @@ public class TDigestStateTests extends ESTestCase {
             prev = v;
         }
     }
+
+    public void testSerialization() throws IOException {
+        final TDigestState state = new TDigestState(randomFrom(1, 20, 100, 500));
+        final int numValues = randomIntBetween(0, 10000);
+        final boolean integers = randomBoolean();
+        for (int i = 0; i < numValues; ++i) {
+            state.add(integers ? randomIntBetween(-1000, 1000) : randomDoubleBetween(-1e6, 1e6, true));
+        }
+        final Version version = randomBoolean()
+            ? Version.CURRENT
+            : VersionUtils.randomVersionBetween(random(), null, VersionUtils.getPreviousVersion(Version.V_8_0_0));
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            TDigestState.write(state, out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                in.setVersion(version);
+                final TDigestState read = TDigestState.read(in);
+                assertEquals(state, read);
+                assertEquals(state.size(), read.size());
+            }
+        }
+    }
+
+    public void testSerializationOfExtremeValues() throws IOException {
+        final TDigestState state = new TDigestState(100);
+        state.add(Double.NEGATIVE_INFINITY);
+        state.add(-Double.MAX_VALUE);
+        state.add(-5);
+        state.add(-0d);
+        state.add(Double.MIN_VALUE);
+        state.add(5);
+        state.add(Double.MAX_VALUE);
+        state.add(Double.POSITIVE_INFINITY);
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            TDigestState.write(state, out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                assertEquals(state, TDigestState.read(in));
+            }
+        }
+    }
+
+    public void testCompactSerializationOfIntegers() throws IOException {
+        final TDigestState state = new TDigestState(100);
+        for (int i = 0; i < 10000; ++i) {
+            state.add(randomIntBetween(0, 100000));
+        }
+        final long legacySize;
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(VersionUtils.getPreviousVersion(Version.V_8_0_0));
+            TDigestState.write(state, out);
+            legacySize = out.size();
+        }
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            TDigestState.write(state, out);
+            assertThat(out.size(), lessThan((int) legacySize));
+        }
+    }
+
+    public void testMerge() {
+        final double compression = randomFrom(20, 100, 500);
+        final List<TDigestState> states = new ArrayList<>();
+        final TDigestState expected = new TDigestState(compression);
+        final int numStates = randomIntBetween(1, 50);
+        final double[] values = new double[numStates * 1000];
+        int numValues = 0;
+        for (int i = 0; i < numStates; ++i) {
+            final TDigestState state = new TDigestState(compression);
+            final int numStateValues = randomIntBetween(0, 1000);
+            for (int j = 0; j < numStateValues; ++j) {
+                final double value = randomDouble();
+                state.add(value);
+                values[numValues++] = value;
+            }
+            states.add(state);
+            expected.add(state);
+        }
+        final TDigestState merged = TDigestState.merge(compression, states);
+        assertEquals(compression, merged.compression(), 0d);
+        assertEquals(numValues, merged.size());
+        if (numValues == 0) {
+            assertEquals(0, merged.centroidCount());
+            return;
+        }
+        assertEquals(expected.quantile(0), merged.quantile(0), 0d);
+        assertEquals(expected.quantile(1), merged.quantile(1), 0d);
+        Arrays.sort(values, 0, numValues);
+        for (double q : new double[] { 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99 }) {
+            final double exact = values[(int) (q * (numValues - 1))];
+            assertEquals(exact, merged.quantile(q), 0.05);
+        }
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.pipeline;
+
+import org.elasticsearch.script.Script;
+import org.elasticsearch.script.ScriptType;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Function;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
+
+public class IncrementalMovingFunctionTests extends ESTestCase {
+
+    public void testForScript() {
+        assertThat(forScript("MovingFunctions.max(values)"), instanceOf(IncrementalMovingFunction.Max.class));
+        assertThat(forScript("return MovingFunctions.min( values );"), instanceOf(IncrementalMovingFunction.Min.class));
+        assertThat(forScript("MovingFunctions.sum(values)"), instanceOf(IncrementalMovingFunction.Sum.class));
+        assertThat(forScript("MovingFunctions.unweightedAvg(values)"), instanceOf(IncrementalMovingFunction.UnweightedAvg.class));
+        assertThat(forScript("MovingFunctions.stdDev(values, MovingFunctions.unweightedAvg(values))"),
+            instanceOf(IncrementalMovingFunction.StdDev.class));
+        assertThat(forScript("MovingFunctions.ewma(values, 0.3)"), instanceOf(IncrementalMovingFunction.Ewma.class));
+        assertThat(forScript("MovingFunctions.holt(values, 0.3, 0.1)"), instanceOf(IncrementalMovingFunction.Holt.class));
+
+        assertThat(forScript("MovingFunctions.linearWeightedAvg(values)"), nullValue());
+        assertThat(forScript("MovingFunctions.ewma(values, params.alpha)"), nullValue());
+        assertThat(forScript("MovingFunctions.max(values) * 2"), nullValue());
+        assertThat(forScript("return values.length > 0 ? values[0] : Double.NaN"), nullValue());
+        assertThat(IncrementalMovingFunction.forScript(
+            new Script(ScriptType.INLINE, "expression", "MovingFunctions.max(values)", Collections.emptyMap())), nullValue());
+        assertThat(IncrementalMovingFunction.forScript(
+            new Script(ScriptType.STORED, null, "MovingFunctions.max(values)", Collections.emptyMap())), nullValue());
+    }
+
+    public void testMax() {
+        assertMatchesMovingFunction("MovingFunctions.max(values)", MovingFunctions::max);
+    }
+
+    public void testMin() {
+        assertMatchesMovingFunction("MovingFunctions.min(values)", MovingFunctions::min);
+    }
+
+    public void testSum() {
+        assertMatchesMovingFunction("MovingFunctions.sum(values)", MovingFunctions::sum);
+    }
+
+    public void testUnweightedAvg() {
+        assertMatchesMovingFunction("MovingFunctions.unweightedAvg(values)", MovingFunctions::unweightedAvg);
+    }
+
+    public void testStdDev() {
+        assertMatchesMovingFunction("MovingFunctions.stdDev(values, MovingFunctions.unweightedAvg(values))",
+            values -> MovingFunctions.stdDev(values, MovingFunctions.unweightedAvg(values)));
+    }
+
+    public void testEwma() {
+        double alpha = randomFrom(0.0, 1.0, randomIntBetween(1, 99) / 100.0);
+        assertMatchesMovingFunction("MovingFunctions.ewma(values, " + alpha + ")", values -> MovingFunctions.ewma(values, alpha));
+    }
+
+    public void testHolt() {
+        double alpha = randomFrom(0.0, 1.0, randomIntBetween(1, 99) / 100.0);
+        double beta = randomFrom(0.0, 1.0, randomIntBetween(1, 99) / 100.0);
+        assertMatchesMovingFunction("MovingFunctions.holt(values, " + alpha + ", " + beta + ")",
+            values -> MovingFunctions.holt(values, alpha, beta));
+    }
+
+    /**
+     * Slides windows across random values the same way as {@link MovFnPipelineAggregator} and checks that the incremental
+     * function returns the same values as the built-in function on each window.
+     */
+    private void assertMatchesMovingFunction(String source, Function<double[], Double> function) {
+        for (int iteration = 0; iteration < 20; iteration++) {
+            IncrementalMovingFunction incremental = forScript(source);
+            double[] values = new double[randomIntBetween(0, 500)];
+            double offset = randomBoolean() ? 0 : randomDoubleBetween(-1e6, 1e6, true);
+            for (int i = 0; i < values.length; i++) {
+                values[i] = offset + (randomBoolean() ? randomIntBetween(-100, 100) : randomDoubleBetween(-100, 100, true));
+            }
+            int window = randomIntBetween(1, 60);
+            int shift = randomIntBetween(-window, window);
+            for (int index = 0; index < values.length; index++) {
+                int from = Math.min(Math.max(index - window + shift, 0), values.length);
+                int to = Math.min(Math.max(index + shift, 0), values.length);
+                double[] windowValues = Arrays.copyOfRange(values, from, to);
+                double expected = function.apply(windowValues);
+                double actual = incremental.apply(values, from, to);
+                if (Double.isNaN(expected)) {
+                    assertTrue("expected NaN for " + Arrays.toString(windowValues) + " but got " + actual, Double.isNaN(actual));
+                } else {
+                    assertEquals("window " + Arrays.toString(windowValues), expected, actual, 1e-6 * Math.max(1, Math.abs(offset)));
+                }
+            }
+        }
+    }
+
+    private static IncrementalMovingFunction forScript(String source) {
+        return IncrementalMovingFunction.forScript(new Script(ScriptType.INLINE, "painless", source, Collections.emptyMap()));
+    }
+}
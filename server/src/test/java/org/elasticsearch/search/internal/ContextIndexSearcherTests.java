@@ -22,6 +22,7 @@ package org.elasticsearch.search.internal;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.FilterDirectoryReader;
@@ -47,8 +48,11 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Scorable;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldCollector;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.Accountable;
@@ -65,7 +69,10 @@ import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.tasks.TaskCancelledException;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.IndexSettingsModule;
 
@@ -73,10 +80,14 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.elasticsearch.search.internal.ContextIndexSearcher.intersectScorerAndBitSet;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
 
 public class ContextIndexSearcherTests extends ESTestCase {
@@ -253,6 +264,95 @@ public class ContextIndexSearcherTests extends ESTestCase {
         IOUtils.close(reader, w, dir);
     }
 
+    public void testComputeSlices() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+        int numSegments = randomIntBetween(1, 20);
+        for (int i = 0; i < numSegments; i++) {
+            int numDocs = randomIntBetween(1, 50);
+            for (int j = 0; j < numDocs; j++) {
+                w.addDocument(new Document());
+            }
+            w.flush();
+        }
+        DirectoryReader reader = DirectoryReader.open(w);
+        List<LeafReaderContext> leaves = reader.leaves();
+        int maxSlices = randomIntBetween(1, 10);
+        List<List<LeafReaderContext>> slices = ContextIndexSearcher.computeSlices(leaves, maxSlices);
+        assertThat(slices.size(), equalTo(Math.min(maxSlices, leaves.size())));
+        int numLeaves = 0;
+        for (List<LeafReaderContext> slice : slices) {
+            assertFalse(slice.isEmpty());
+            for (int i = 1; i < slice.size(); i++) {
+                // leaves keep their original order within a slice
+                assertThat(slice.get(i).ord, greaterThan(slice.get(i - 1).ord));
+            }
+            numLeaves += slice.size();
+        }
+        assertThat(numLeaves, equalTo(leaves.size()));
+        IOUtils.close(reader, w, dir);
+    }
+
+    public void testConcurrentSearch() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+        int numDocs = 0;
+        int numSegments = randomIntBetween(2, 10);
+        for (int i = 0; i < numSegments; i++) {
+            int segmentDocs = randomIntBetween(1, 100);
+            for (int j = 0; j < segmentDocs; j++) {
+                Document doc = new Document();
+                doc.add(new StringField("foo", randomBoolean() ? "bar" : "baz", Field.Store.NO));
+                doc.add(new NumericDocValuesField("rank", numDocs++));
+                w.addDocument(doc);
+            }
+            w.flush();
+        }
+        DirectoryReader reader = DirectoryReader.open(w);
+        Query query = new TermQuery(new Term("foo", "bar"));
+        Sort sort = new Sort(new SortField("rank", SortField.Type.LONG, true));
+        ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, 4));
+        try {
+            ContextIndexSearcher sequential = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+                IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy());
+            ContextIndexSearcher concurrent = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+                IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy());
+            concurrent.setSliceExecutor(executor, randomIntBetween(2, 8));
+            assertTrue(concurrent.hasSliceExecutor());
+
+            QuerySearchResult expected = new QuerySearchResult();
+            Weight weight = sequential.createWeight(sequential.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+            sequential.search(reader.leaves(), weight, TopFieldCollector.createSharedManager(sort, 10, null, Integer.MAX_VALUE),
+                expected, new DocValueFormat[] { DocValueFormat.RAW }, null);
+
+            QuerySearchResult actual = new QuerySearchResult();
+            weight = concurrent.createWeight(concurrent.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+            concurrent.search(reader.leaves(), weight, TopFieldCollector.createSharedManager(sort, 10, null, Integer.MAX_VALUE),
+                actual, new DocValueFormat[] { DocValueFormat.RAW }, null);
+
+            TopDocs expectedTopDocs = expected.topDocs().topDocs;
+            TopDocs actualTopDocs = actual.topDocs().topDocs;
+            assertThat(actualTopDocs.totalHits, equalTo(expectedTopDocs.totalHits));
+            assertThat(actualTopDocs.scoreDocs.length, equalTo(expectedTopDocs.scoreDocs.length));
+            for (int i = 0; i < expectedTopDocs.scoreDocs.length; i++) {
+                assertThat(actualTopDocs.scoreDocs[i].doc, equalTo(expectedTopDocs.scoreDocs[i].doc));
+                assertThat(actualTopDocs.scoreDocs[i].shardIndex, equalTo(-1));
+            }
+
+            // a failing slice fails the whole search
+            concurrent.setCheckCancelled(() -> {
+                throw new TaskCancelledException("cancelled");
+            });
+            Weight cancelledWeight = concurrent.createWeight(concurrent.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+            expectThrows(TaskCancelledException.class, () -> concurrent.search(reader.leaves(), cancelledWeight,
+                TopFieldCollector.createSharedManager(sort, 10, null, Integer.MAX_VALUE), new QuerySearchResult(),
+                new DocValueFormat[] { DocValueFormat.RAW }, null));
+        } finally {
+            terminate(executor);
+            IOUtils.close(reader, w, dir);
+        }
+    }
+
     private SparseFixedBitSet query(LeafReaderContext leaf, String field, String value) throws IOException {
         SparseFixedBitSet sparseFixedBitSet = new SparseFixedBitSet(leaf.reader().maxDoc());
         TermsEnum tenum = leaf.reader().terms(field).iterator();
@@ -56,7 +56,7 @@ public class SearchProfileShardResultsTests  extends ESTestCase {
             AggregationProfileShardResult aggProfileShardResult = AggregationProfileShardResultTests.createTestItem(1);
             searchProfileResults.put(randomAlphaOfLengthBetween(5, 10), new ProfileShardResult(queryProfileResults, aggProfileShardResult));
         }
-        return new SearchProfileShardResults(searchProfileResults);
+        return new SearchProfileShardResults(searchProfileResults, randomNonNegativeLong());
     }
 
     public void testFromXContent() throws IOException {
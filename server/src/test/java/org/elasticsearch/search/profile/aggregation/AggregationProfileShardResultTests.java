@@ -46,7 +46,7 @@ public class AggregationProfileShardResultTests extends ESTestCase {
         for (int i = 0; i < size; i++) {
             aggProfileResults.add(ProfileResultTests.createTestItem(1));
         }
-        return new AggregationProfileShardResult(aggProfileResults);
+        return new AggregationProfileShardResult(aggProfileResults, randomNonNegativeLong());
     }
 
     public void testFromXContent() throws IOException {
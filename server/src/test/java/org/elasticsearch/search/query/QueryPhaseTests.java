@@ -90,6 +90,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.elasticsearch.search.query.QueryPhase.indexFieldHasDuplicateData;
 import static org.elasticsearch.search.query.TopDocsCollectorContext.hasInfMaxScore;
@@ -443,6 +445,58 @@ public class QueryPhaseTests extends IndexShardTestCase {
         dir.close();
     }
 
+    public void testConcurrentTerminateAfter() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+        int numDocs = 0;
+        final int numSegments = randomIntBetween(2, 10);
+        for (int i = 0; i < numSegments; i++) {
+            final int segmentDocs = randomIntBetween(10, 100);
+            for (int j = 0; j < segmentDocs; j++) {
+                Document doc = new Document();
+                doc.add(new StringField("foo", "bar", Store.NO));
+                w.addDocument(doc);
+                numDocs++;
+            }
+            w.flush();
+        }
+        w.close();
+        final IndexReader reader = DirectoryReader.open(dir);
+        ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, 4));
+        try {
+            ContextIndexSearcher searcher = newContextSearcher(reader);
+            searcher.setSliceExecutor(executor, randomIntBetween(2, 8));
+            TestSearchContext context = new TestSearchContext(null, indexShard, searcher);
+            context.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+            context.parsedQuery(new ParsedQuery(new TermQuery(new Term("foo", "bar"))));
+            final int size = randomIntBetween(1, 10);
+            context.setSize(size);
+
+            // the slices stop collecting once terminate_after documents have been collected in total
+            final int terminateAfter = randomIntBetween(1, numDocs - 1);
+            context.terminateAfter(terminateAfter);
+            assertTrue(QueryPhase.canSearchConcurrently(context));
+            QueryPhase.executeInternal(context);
+            assertTrue(context.queryResult().terminatedEarly());
+            assertThat(context.queryResult().topDocs().topDocs.totalHits.value, equalTo((long) terminateAfter));
+            assertThat(context.queryResult().topDocs().topDocs.scoreDocs.length, equalTo(Math.min(size, terminateAfter)));
+
+            context.terminateAfter(numDocs);
+            QueryPhase.executeInternal(context);
+            assertFalse(context.queryResult().terminatedEarly());
+            assertThat(context.queryResult().topDocs().topDocs.totalHits.value, equalTo((long) numDocs));
+            assertThat(context.queryResult().topDocs().topDocs.scoreDocs.length, equalTo(size));
+
+            // filter collectors are not supported by the concurrent search
+            context.minimumScore(0f);
+            assertFalse(QueryPhase.canSearchConcurrently(context));
+        } finally {
+            terminate(executor);
+            reader.close();
+            dir.close();
+        }
+    }
+
     public void testIndexSortingEarlyTermination() throws Exception {
         Directory dir = newDirectory();
         final Sort sort = new Sort(new SortField("rank", SortField.Type.INT));
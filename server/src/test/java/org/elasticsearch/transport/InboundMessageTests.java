@@ -49,7 +49,7 @@ public class InboundMessageTests extends ESTestCase {
         threadContext.putHeader("header", "header_value");
         Version version = randomFrom(Version.CURRENT, Version.CURRENT.minimumCompatibilityVersion());
         OutboundMessage.Request request = new OutboundMessage.Request(threadContext, message, version, action, requestId,
-            isHandshake, compress);
+            isHandshake, compress, randomFrom(Compression.Scheme.values()));
         BytesReference reference;
         try (BytesStreamOutput streamOutput = new BytesStreamOutput()) {
             reference = request.serialize(streamOutput);
@@ -192,7 +192,7 @@ public class InboundMessageTests extends ESTestCase {
         InboundMessage.Reader reader = new InboundMessage.Reader(Version.CURRENT, registry, threadContext);
         BytesReference sliced = reference.slice(6, reference.length() - 6);
         final IllegalStateException iste = expectThrows(IllegalStateException.class, () -> reader.deserialize(sliced));
-        assertThat(iste.getMessage(), Matchers.equalTo("stream marked as compressed, but is missing deflate header"));
+        assertThat(iste.getMessage(), Matchers.equalTo("stream marked as compressed, but is missing compression header"));
     }
 
     private void testVersionIncompatibility(Version version, Version currentVersion, boolean isHandshake) throws IOException {
@@ -16,6 +16,7 @@ import org.elasticsearch.search.aggregations.metrics.TDigestState;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -166,14 +167,11 @@ public class InternalBoxplot extends InternalNumericMetricsAggregation.MultiValu
 
     @Override
     public InternalBoxplot reduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
-        TDigestState merged = null;
+        final List<TDigestState> states = new ArrayList<>(aggregations.size());
         for (InternalAggregation aggregation : aggregations) {
-            final InternalBoxplot percentiles = (InternalBoxplot) aggregation;
-            if (merged == null) {
-                merged = new TDigestState(percentiles.state.compression());
-            }
-            merged.add(percentiles.state);
+            states.add(((InternalBoxplot) aggregation).state);
         }
+        final TDigestState merged = TDigestState.merge(states.get(0).compression(), states);
         return new InternalBoxplot(name, merged, format, pipelineAggregators(), metaData);
     }
 
@@ -0,0 +1,89 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.search;
+
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.IndexScopedSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.settings.SettingsFilter;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.plugins.ActionPlugin;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.rest.RestController;
+import org.elasticsearch.rest.RestHandler;
+import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.watcher.ResourceWatcherService;
+import org.elasticsearch.xpack.search.action.AsyncSearchRegistry;
+import org.elasticsearch.xpack.search.action.DeleteAsyncSearchAction;
+import org.elasticsearch.xpack.search.action.GetAsyncSearchAction;
+import org.elasticsearch.xpack.search.action.SubmitAsyncSearchAction;
+import org.elasticsearch.xpack.search.action.TransportDeleteAsyncSearchAction;
+import org.elasticsearch.xpack.search.action.TransportGetAsyncSearchAction;
+import org.elasticsearch.xpack.search.action.TransportSubmitAsyncSearchAction;
+import org.elasticsearch.xpack.search.rest.RestDeleteAsyncSearchAction;
+import org.elasticsearch.xpack.search.rest.RestGetAsyncSearchAction;
+import org.elasticsearch.xpack.search.rest.RestSubmitAsyncSearchAction;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Container class for async search functionality: searches that run in the background and whose partial results can be polled
+ * while they progress.
+ */
+public class AsyncSearch extends Plugin implements ActionPlugin {
+
+    private final Settings settings;
+
+    public AsyncSearch(final Settings settings) {
+        this.settings = settings;
+    }
+
+    @Override
+    public List<Setting<?>> getSettings() {
+        return List.of(AsyncSearchRegistry.CLEANUP_INTERVAL_SETTING, AsyncSearchRegistry.MAX_SEARCHES_SETTING);
+    }
+
+    @Override
+    public Collection<Object> createComponents(Client client, ClusterService clusterService, ThreadPool threadPool,
+                                               ResourceWatcherService resourceWatcherService, ScriptService scriptService,
+                                               NamedXContentRegistry xContentRegistry, Environment environment,
+                                               NodeEnvironment nodeEnvironment, NamedWriteableRegistry namedWriteableRegistry) {
+        return List.of(new AsyncSearchRegistry(settings, clusterService.getClusterSettings(), threadPool, client));
+    }
+
+    @Override
+    public List<ActionHandler<? extends ActionRequest, ? extends ActionResponse>> getActions() {
+        return List.of(
+            new ActionHandler<>(SubmitAsyncSearchAction.INSTANCE, TransportSubmitAsyncSearchAction.class),
+            new ActionHandler<>(GetAsyncSearchAction.INSTANCE, TransportGetAsyncSearchAction.class),
+            new ActionHandler<>(DeleteAsyncSearchAction.INSTANCE, TransportDeleteAsyncSearchAction.class));
+    }
+
+    @Override
+    public List<RestHandler> getRestHandlers(Settings settings, RestController restController, ClusterSettings clusterSettings,
+                                             IndexScopedSettings indexScopedSettings, SettingsFilter settingsFilter,
+                                             IndexNameExpressionResolver indexNameExpressionResolver,
+                                             Supplier<DiscoveryNodes> nodesInCluster) {
+        return List.of(
+            new RestSubmitAsyncSearchAction(),
+            new RestGetAsyncSearchAction(),
+            new RestDeleteAsyncSearchAction());
+    }
+}
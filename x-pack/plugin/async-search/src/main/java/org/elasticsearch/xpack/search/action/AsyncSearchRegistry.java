@@ -0,0 +1,155 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.search.action;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.admin.cluster.node.tasks.cancel.CancelTasksAction;
+import org.elasticsearch.action.admin.cluster.node.tasks.cancel.CancelTasksRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.OriginSettingClient;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.xpack.core.security.authc.Authentication;
+import org.elasticsearch.xpack.core.security.authc.AuthenticationField;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.elasticsearch.action.admin.cluster.node.tasks.get.GetTaskAction.TASKS_ORIGIN;
+
+/**
+ * Keeps track of the async searches that were submitted to this node, running or completed, and removes them once they expire.
+ * Expired searches that are still running are cancelled.
+ */
+public class AsyncSearchRegistry {
+
+    private static final Logger logger = LogManager.getLogger(AsyncSearchRegistry.class);
+
+    public static final Setting<TimeValue> CLEANUP_INTERVAL_SETTING = Setting.timeSetting("xpack.async_search.cleanup_interval",
+        TimeValue.timeValueMinutes(1), TimeValue.timeValueSeconds(1), Setting.Property.NodeScope);
+    public static final Setting<Integer> MAX_SEARCHES_SETTING = Setting.intSetting("xpack.async_search.max_searches", 1000, 0,
+        Setting.Property.Dynamic, Setting.Property.NodeScope);
+
+    private final Map<Long, AsyncSearchTask> searches = ConcurrentCollections.newConcurrentMap();
+    // the number of registered searches, a slot is reserved before a search is added so that concurrent puts respect the limit
+    private final AtomicInteger numSearches = new AtomicInteger();
+    private final ThreadPool threadPool;
+    private final Client client;
+    private volatile int maxSearches;
+
+    public AsyncSearchRegistry(Settings settings, ClusterSettings clusterSettings, ThreadPool threadPool, Client client) {
+        this.threadPool = threadPool;
+        this.maxSearches = MAX_SEARCHES_SETTING.get(settings);
+        clusterSettings.addSettingsUpdateConsumer(MAX_SEARCHES_SETTING, this::setMaxSearches);
+        // cancellations are issued on behalf of the node, the search may be removed after the user that submitted it went away
+        this.client = new OriginSettingClient(client, TASKS_ORIGIN);
+        threadPool.scheduleWithFixedDelay(this::removeExpired, CLEANUP_INTERVAL_SETTING.get(settings), ThreadPool.Names.GENERIC);
+    }
+
+    private void setMaxSearches(int maxSearches) {
+        this.maxSearches = maxSearches;
+    }
+
+    /**
+     * Registers a new search. Searches and their responses are kept in memory until they expire or get deleted so the number of
+     * searches that a node tracks is bounded by {@link #MAX_SEARCHES_SETTING}.
+     */
+    void put(AsyncSearchTask task) {
+        final int limit = maxSearches;
+        int current;
+        do {
+            current = numSearches.get();
+            if (current >= limit) {
+                throw new ElasticsearchStatusException("Trying to submit too many async searches. Must be less than or equal to: ["
+                    + limit + "]. This limit can be set by changing the [" + MAX_SEARCHES_SETTING.getKey() + "] setting.",
+                    RestStatus.TOO_MANY_REQUESTS);
+            }
+        } while (numSearches.compareAndSet(current, current + 1) == false);
+        if (searches.put(task.getId(), task) != null) {
+            // replaced a search with the same id, which holds a slot already
+            numSearches.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the search with the provided id, or {@code null} if it does not exist, expired or was submitted by another user than the
+     * one of the current request. Searches of other users are reported as missing so that their existence is not disclosed.
+     */
+    AsyncSearchTask get(long id) throws IOException {
+        AsyncSearchTask task = searches.get(id);
+        if (task == null) {
+            return null;
+        }
+        if (task.isExpired(threadPool.absoluteTimeInMillis())) {
+            remove(task, ActionListener.wrap(() -> {}));
+            return null;
+        }
+        return isSubmittedByCurrentUser(task) ? task : null;
+    }
+
+    private boolean isSubmittedByCurrentUser(AsyncSearchTask task) throws IOException {
+        String originAuthentication = task.getOriginHeaders().get(AuthenticationField.AUTHENTICATION_KEY);
+        if (originAuthentication == null) {
+            // the search was submitted without security
+            return true;
+        }
+        Authentication current = Authentication.readFromContext(threadPool.getThreadContext());
+        return current != null && isSameUser(Authentication.decode(originAuthentication), current);
+    }
+
+    /**
+     * Whether both authentications are for the same effective user, taking run-as into account.
+     */
+    static boolean isSameUser(Authentication origin, Authentication current) {
+        return Objects.equals(origin.getUser().principal(), current.getUser().principal())
+            && Objects.equals(origin.getSourceRealm().getType(), current.getSourceRealm().getType());
+    }
+
+    /**
+     * Removes the search from the registry, cancelling it if it is still running.
+     */
+    void remove(AsyncSearchTask task, ActionListener<Void> listener) {
+        final boolean removed = searches.remove(task.getId(), task);
+        if (removed) {
+            numSearches.decrementAndGet();
+        }
+        if (removed && task.isRunning()) {
+            CancelTasksRequest request = new CancelTasksRequest();
+            request.setTaskId(new TaskId(task.getSearchId()));
+            request.setReason("async search [" + task.getSearchId() + "] removed");
+            client.execute(CancelTasksAction.INSTANCE, request, ActionListener.map(listener, r -> null));
+        } else {
+            listener.onResponse(null);
+        }
+    }
+
+    int size() {
+        return searches.size();
+    }
+
+    private void removeExpired() {
+        final long nowMillis = threadPool.absoluteTimeInMillis();
+        for (AsyncSearchTask task : searches.values()) {
+            if (task.isExpired(nowMillis)) {
+                remove(task, ActionListener.wrap(r -> {}, e ->
+                    logger.warn(new ParameterizedMessage("failed to cancel expired async search [{}]", task.getSearchId()), e)));
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.search.action;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.StatusToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.rest.RestStatus;
+
+import java.io.IOException;
+
+/**
+ * The state of an async search: the id to poll it with, whether it is still running and the (partial) search response or the failure
+ * it produced so far.
+ */
+public class AsyncSearchResponse extends ActionResponse implements StatusToXContentObject {
+
+    private final String id;
+    private final boolean isRunning;
+    private final boolean isPartial;
+    private final long startTimeMillis;
+    private final long expirationTimeMillis;
+    @Nullable
+    private final SearchResponse searchResponse;
+    @Nullable
+    private final Exception failure;
+
+    public AsyncSearchResponse(String id, boolean isRunning, boolean isPartial, long startTimeMillis, long expirationTimeMillis,
+                               @Nullable SearchResponse searchResponse, @Nullable Exception failure) {
+        this.id = id;
+        this.isRunning = isRunning;
+        this.isPartial = isPartial;
+        this.startTimeMillis = startTimeMillis;
+        this.expirationTimeMillis = expirationTimeMillis;
+        this.searchResponse = searchResponse;
+        this.failure = failure;
+    }
+
+    public AsyncSearchResponse(StreamInput in) throws IOException {
+        super(in);
+        this.id = in.readString();
+        this.isRunning = in.readBoolean();
+        this.isPartial = in.readBoolean();
+        this.startTimeMillis = in.readLong();
+        this.expirationTimeMillis = in.readLong();
+        this.searchResponse = in.readOptionalWriteable(SearchResponse::new);
+        this.failure = in.readException();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeString(id);
+        out.writeBoolean(isRunning);
+        out.writeBoolean(isPartial);
+        out.writeLong(startTimeMillis);
+        out.writeLong(expirationTimeMillis);
+        out.writeOptionalWriteable(searchResponse);
+        out.writeException(failure);
+    }
+
+    /**
+     * The id to retrieve or delete the async search with.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Whether the search is still running.
+     */
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    /**
+     * Whether the search response is partial, i.e. it does not contain the results of all shards yet, or the search failed.
+     */
+    public boolean isPartial() {
+        return isPartial;
+    }
+
+    public long getStartTime() {
+        return startTimeMillis;
+    }
+
+    public long getExpirationTime() {
+        return expirationTimeMillis;
+    }
+
+    /**
+     * The (partial) search response or {@code null} if no shard has returned yet.
+     */
+    @Nullable
+    public SearchResponse getSearchResponse() {
+        return searchResponse;
+    }
+
+    /**
+     * The failure of the search or {@code null} if it did not fail.
+     */
+    @Nullable
+    public Exception getFailure() {
+        return failure;
+    }
+
+    @Override
+    public RestStatus status() {
+        if (searchResponse == null) {
+            return failure != null ? ExceptionsHelper.status(failure) : RestStatus.OK;
+        }
+        return searchResponse.status();
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject();
+        builder.field("id", id);
+        builder.field("is_partial", isPartial);
+        builder.field("is_running", isRunning);
+        builder.timeField("start_time_in_millis", "start_time", startTimeMillis);
+        builder.timeField("expiration_time_in_millis", "expiration_time", expirationTimeMillis);
+        if (searchResponse != null) {
+            builder.field("response");
+            searchResponse.toXContent(builder, params);
+        }
+        if (failure != null) {
+            builder.startObject("error");
+            ElasticsearchException.generateThrowableXContent(builder, params, failure);
+            builder.endObject();
+        }
+        builder.endObject();
+        return builder;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.search.action;
+
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchProgressActionListener;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchShard;
+import org.elasticsearch.action.search.SearchTask;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Task that tracks the progress of an async search. It remains reachable through {@link AsyncSearchRegistry} after the search
+ * completed, until it expires.
+ */
+public class AsyncSearchTask extends SearchTask {
+
+    private final String searchId;
+    private final Supplier<String> descriptionSupplier;
+    private final Map<String, String> originHeaders;
+    private final ThreadPool threadPool;
+    private final Listener progressListener = new Listener();
+    private final MutableSearchResponse searchResponse = new MutableSearchResponse();
+
+    private final List<Runnable> completionListeners = new ArrayList<>();
+    private volatile long expirationTimeMillis;
+
+    AsyncSearchTask(long id, String type, String action, Supplier<String> descriptionSupplier, TaskId parentTaskId,
+                    Map<String, String> headers, Map<String, String> originHeaders, String nodeId, TimeValue keepAlive,
+                    ThreadPool threadPool) {
+        super(id, type, action, null, parentTaskId, headers);
+        this.searchId = new TaskId(nodeId, id).toString();
+        this.descriptionSupplier = descriptionSupplier;
+        this.originHeaders = originHeaders;
+        this.threadPool = threadPool;
+        this.expirationTimeMillis = getStartTime() + keepAlive.getMillis();
+        setProgressListener(progressListener);
+    }
+
+    @Override
+    public String getDescription() {
+        return descriptionSupplier.get();
+    }
+
+    /**
+     * The id of the async search.
+     */
+    public String getSearchId() {
+        return searchId;
+    }
+
+    /**
+     * The security headers of the user that submitted the search.
+     */
+    Map<String, String> getOriginHeaders() {
+        return originHeaders;
+    }
+
+    /**
+     * The listener to pass to the search action, it records the progress and the outcome of the search.
+     */
+    SearchProgressActionListener getSearchProgressActionListener() {
+        return progressListener;
+    }
+
+    long getExpirationTime() {
+        return expirationTimeMillis;
+    }
+
+    /**
+     * Extends the expiration time of the search to {@code keepAlive} from now.
+     */
+    void extendExpirationTime(TimeValue keepAlive) {
+        expirationTimeMillis = threadPool.absoluteTimeInMillis() + keepAlive.getMillis();
+    }
+
+    boolean isExpired(long nowMillis) {
+        return expirationTimeMillis < nowMillis;
+    }
+
+    boolean isRunning() {
+        return searchResponse.isFinal() == false;
+    }
+
+    /**
+     * Notifies the listener with the response of the search once it completes, or with the partial response available after
+     * {@code waitForCompletion} if the search is still running by then.
+     */
+    void addCompletionListener(ActionListener<AsyncSearchResponse> listener, TimeValue waitForCompletion) {
+        synchronized (this) {
+            if (searchResponse.isFinal() == false && waitForCompletion.getMillis() > 0) {
+                final AtomicBoolean executed = new AtomicBoolean();
+                final Scheduler.ScheduledCancellable timeout = threadPool.schedule(() -> {
+                    if (executed.compareAndSet(false, true)) {
+                        listener.onResponse(getAsyncResponse());
+                    }
+                }, waitForCompletion, ThreadPool.Names.GENERIC);
+                completionListeners.add(() -> {
+                    if (executed.compareAndSet(false, true)) {
+                        timeout.cancel();
+                        listener.onResponse(getAsyncResponse());
+                    }
+                });
+                return;
+            }
+        }
+        listener.onResponse(getAsyncResponse());
+    }
+
+    /**
+     * Returns the current state of the search.
+     */
+    AsyncSearchResponse getAsyncResponse() {
+        return searchResponse.toAsyncSearchResponse(searchId, getStartTime(), expirationTimeMillis, threadPool.absoluteTimeInMillis());
+    }
+
+    private void executeCompletionListeners() {
+        final List<Runnable> listeners;
+        synchronized (this) {
+            listeners = new ArrayList<>(completionListeners);
+            completionListeners.clear();
+        }
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    private class Listener extends SearchProgressActionListener {
+
+        @Override
+        public void onListShards(List<SearchShard> shards, boolean fetchPhase) {
+            searchResponse.setTotalShards(shards.size());
+        }
+
+        @Override
+        public void onQueryResult(int shardIndex) {
+            searchResponse.addShardSuccess();
+        }
+
+        @Override
+        public void onQueryFailure(int shardIndex, Exception exc) {
+            searchResponse.addShardFailure(exc);
+        }
+
+        @Override
+        public void onPartialReduce(List<SearchShard> shards, TotalHits totalHits, InternalAggregations aggs, int version) {
+            searchResponse.updatePartialResponse(totalHits, aggs, version);
+        }
+
+        @Override
+        public void onReduce(List<SearchShard> shards, TotalHits totalHits, InternalAggregations aggs) {
+            searchResponse.updateFinalReduce(totalHits, aggs);
+        }
+
+        @Override
+        public void onPartialHits(Supplier<SearchHits> hits) {
+            searchResponse.updatePartialHits(hits);
+        }
+
+        @Override
+        public void onResponse(SearchResponse response) {
+            searchResponse.updateFinalResponse(response);
+            executeCompletionListeners();
+        }
+
+        @Override
+        public void onFailure(Exception exc) {
+            searchResponse.updateWithFailure(exc);
+            executeCompletionListeners();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.search.action;
+
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.action.ActionType;
+import org.elasticsearch.action.CompositeIndicesRequest;
+import org.elasticsearch.action.support.master.AcknowledgedResponse;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.util.Objects;
+
+public class DeleteAsyncSearchAction extends ActionType<AcknowledgedResponse> {
+
+    public static final DeleteAsyncSearchAction INSTANCE = new DeleteAsyncSearchAction();
+    public static final String NAME = "indices:data/read/async_search/delete";
+
+    private DeleteAsyncSearchAction() {
+        super(NAME, AcknowledgedResponse::new);
+    }
+
+    public static class Request extends ActionRequest implements CompositeIndicesRequest {
+
+        private final String id;
+
+        public Request(String id) {
+            this.id = Objects.requireNonNull(id);
+        }
+
+        public Request(StreamInput in) throws IOException {
+            super(in);
+            this.id = in.readString();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeString(id);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public ActionRequestValidationException validate() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.search.action;
+
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.action.ActionType;
+import org.elasticsearch.action.CompositeIndicesRequest;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import static org.elasticsearch.action.ValidateActions.addValidationError;
+
+public class GetAsyncSearchAction extends ActionType<AsyncSearchResponse> {
+
+    public static final GetAsyncSearchAction INSTANCE = new GetAsyncSearchAction();
+    public static final String NAME = "indices:data/read/async_search/get";
+
+    private GetAsyncSearchAction() {
+        super(NAME, AsyncSearchResponse::new);
+    }
+
+    public static class Request extends ActionRequest implements CompositeIndicesRequest {
+
+        private final String id;
+        private TimeValue waitForCompletion = TimeValue.MINUS_ONE;
+        @Nullable
+        private TimeValue keepAlive;
+
+        public Request(String id) {
+            this.id = Objects.requireNonNull(id);
+        }
+
+        public Request(StreamInput in) throws IOException {
+            super(in);
+            this.id = in.readString();
+            this.waitForCompletion = in.readTimeValue();
+            this.keepAlive = in.readOptionalTimeValue();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeString(id);
+            out.writeTimeValue(waitForCompletion);
+            out.writeOptionalTimeValue(keepAlive);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * How long to wait for the search to complete before returning its partial response, by default the current state of the
+         * search is returned immediately.
+         */
+        public Request setWaitForCompletion(TimeValue waitForCompletion) {
+            this.waitForCompletion = Objects.requireNonNull(waitForCompletion);
+            return this;
+        }
+
+        public TimeValue getWaitForCompletion() {
+            return waitForCompletion;
+        }
+
+        /**
+         * If set, extends the expiration time of the search to this keep alive from now.
+         */
+        public Request setKeepAlive(@Nullable TimeValue keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        @Nullable
+        public TimeValue getKeepAlive() {
+            return keepAlive;
+        }
+
+        @Override
+        public ActionRequestValidationException validate() {
+            ActionRequestValidationException validationException = null;
+            if (keepAlive != null && keepAlive.getMillis() < TimeValue.timeValueMinutes(1).getMillis()) {
+                validationException = addValidationError("[keep_alive] must be at least [1m], got [" + keepAlive + "]",
+                    validationException);
+            }
+            return validationException;
+        }
+    }
+}
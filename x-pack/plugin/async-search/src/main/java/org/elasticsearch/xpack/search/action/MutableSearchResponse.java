@@ -0,0 +1,116 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.search.action;
+
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Accumulates the progress of an async search and builds the {@link AsyncSearchResponse} that reflects it. Until the search completes
+ * the response contains the total hits and the aggregations of the latest partial reduce and, once the fetch phase started, the hits
+ * of the shards that returned their fetch result.
+ */
+class MutableSearchResponse {
+
+    private int totalShards = -1;
+    private int successfulShards;
+    private final List<ShardSearchFailure> shardFailures = new ArrayList<>();
+
+    private TotalHits totalHits;
+    private InternalAggregations aggregations;
+    private int reducePhase;
+    private boolean isFinalReduce;
+    private Supplier<SearchHits> partialHits;
+
+    private boolean isFinal;
+    private SearchResponse finalResponse;
+    private Exception failure;
+
+    synchronized void setTotalShards(int totalShards) {
+        this.totalShards = totalShards;
+    }
+
+    synchronized void addShardSuccess() {
+        if (isFinal == false) {
+            successfulShards++;
+        }
+    }
+
+    synchronized void addShardFailure(Exception exc) {
+        if (isFinal == false) {
+            shardFailures.add(new ShardSearchFailure(exc));
+        }
+    }
+
+    synchronized void updatePartialResponse(TotalHits totalHits, InternalAggregations aggregations, int reducePhase) {
+        if (isFinal == false && isFinalReduce == false && reducePhase >= this.reducePhase) {
+            this.totalHits = totalHits;
+            this.aggregations = aggregations;
+            this.reducePhase = reducePhase;
+        }
+    }
+
+    synchronized void updateFinalReduce(TotalHits totalHits, InternalAggregations aggregations) {
+        if (isFinal == false) {
+            this.totalHits = totalHits;
+            this.aggregations = aggregations;
+            this.reducePhase++;
+            this.isFinalReduce = true;
+        }
+    }
+
+    synchronized void updatePartialHits(Supplier<SearchHits> partialHits) {
+        if (isFinal == false) {
+            this.partialHits = partialHits;
+        }
+    }
+
+    synchronized void updateFinalResponse(SearchResponse response) {
+        assert isFinal == false : "search already completed";
+        isFinal = true;
+        finalResponse = response;
+        partialHits = null;
+    }
+
+    synchronized void updateWithFailure(Exception exc) {
+        assert isFinal == false : "search already completed";
+        isFinal = true;
+        failure = exc;
+    }
+
+    synchronized boolean isFinal() {
+        return isFinal;
+    }
+
+    synchronized AsyncSearchResponse toAsyncSearchResponse(String id, long startTimeMillis, long expirationTimeMillis, long nowMillis) {
+        if (finalResponse != null) {
+            return new AsyncSearchResponse(id, false, false, startTimeMillis, expirationTimeMillis, finalResponse, null);
+        }
+        return new AsyncSearchResponse(id, isFinal == false, true, startTimeMillis, expirationTimeMillis,
+            buildPartialResponse(nowMillis - startTimeMillis), failure);
+    }
+
+    private SearchResponse buildPartialResponse(long tookInMillis) {
+        if (totalShards == -1) {
+            // the shards to query are not known yet
+            return null;
+        }
+        SearchHits hits = partialHits != null ? partialHits.get() : new SearchHits(new SearchHit[0], totalHits, Float.NaN);
+        InternalSearchResponse internal = new InternalSearchResponse(hits, aggregations, null, null, false, null, reducePhase);
+        return new SearchResponse(internal, null, totalShards, successfulShards, 0, tookInMillis,
+            shardFailures.toArray(ShardSearchFailure.EMPTY_ARRAY), SearchResponse.Clusters.EMPTY);
+    }
+}
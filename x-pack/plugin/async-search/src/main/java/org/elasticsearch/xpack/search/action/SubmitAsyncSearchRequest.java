@@ -0,0 +1,94 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.search.action;
+
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.action.CompositeIndicesRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import static org.elasticsearch.action.ValidateActions.addValidationError;
+
+/**
+ * A request to submit a {@link SearchRequest} that runs in the background. The response is returned once the search completes or
+ * when {@link #getWaitForCompletion()} elapsed, whatever comes first.
+ */
+public class SubmitAsyncSearchRequest extends ActionRequest implements CompositeIndicesRequest {
+
+    public static final TimeValue DEFAULT_WAIT_FOR_COMPLETION = TimeValue.timeValueSeconds(1);
+    public static final TimeValue DEFAULT_KEEP_ALIVE = TimeValue.timeValueDays(5);
+
+    private final SearchRequest searchRequest;
+    private TimeValue waitForCompletion = DEFAULT_WAIT_FOR_COMPLETION;
+    private TimeValue keepAlive = DEFAULT_KEEP_ALIVE;
+
+    public SubmitAsyncSearchRequest(SearchRequest searchRequest) {
+        this.searchRequest = Objects.requireNonNull(searchRequest);
+    }
+
+    public SubmitAsyncSearchRequest(StreamInput in) throws IOException {
+        super(in);
+        this.searchRequest = new SearchRequest(in);
+        this.waitForCompletion = in.readTimeValue();
+        this.keepAlive = in.readTimeValue();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        searchRequest.writeTo(out);
+        out.writeTimeValue(waitForCompletion);
+        out.writeTimeValue(keepAlive);
+    }
+
+    public SearchRequest getSearchRequest() {
+        return searchRequest;
+    }
+
+    /**
+     * How long to wait for the search to complete before returning its partial response.
+     */
+    public SubmitAsyncSearchRequest setWaitForCompletion(TimeValue waitForCompletion) {
+        this.waitForCompletion = Objects.requireNonNull(waitForCompletion);
+        return this;
+    }
+
+    public TimeValue getWaitForCompletion() {
+        return waitForCompletion;
+    }
+
+    /**
+     * How long the search and its response are kept available after it was submitted.
+     */
+    public SubmitAsyncSearchRequest setKeepAlive(TimeValue keepAlive) {
+        this.keepAlive = Objects.requireNonNull(keepAlive);
+        return this;
+    }
+
+    public TimeValue getKeepAlive() {
+        return keepAlive;
+    }
+
+    @Override
+    public ActionRequestValidationException validate() {
+        ActionRequestValidationException validationException = searchRequest.validate();
+        if (searchRequest.scroll() != null) {
+            validationException = addValidationError("[scroll] is not supported by async search", validationException);
+        }
+        if (keepAlive.getMillis() < TimeValue.timeValueMinutes(1).getMillis()) {
+            validationException = addValidationError("[keep_alive] must be at least [1m], got [" + keepAlive + "]",
+                validationException);
+        }
+        return validationException;
+    }
+}
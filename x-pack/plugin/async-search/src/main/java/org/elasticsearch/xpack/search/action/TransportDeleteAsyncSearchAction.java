@@ -0,0 +1,69 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.search.action;
+
+import org.elasticsearch.ResourceNotFoundException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionListenerResponseHandler;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.action.support.master.AcknowledgedResponse;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.io.IOException;
+
+import static org.elasticsearch.xpack.search.action.TransportGetAsyncSearchAction.parseSearchId;
+
+public class TransportDeleteAsyncSearchAction extends HandledTransportAction<DeleteAsyncSearchAction.Request, AcknowledgedResponse> {
+
+    private final ClusterService clusterService;
+    private final TransportService transportService;
+    private final AsyncSearchRegistry registry;
+
+    @Inject
+    public TransportDeleteAsyncSearchAction(TransportService transportService, ActionFilters actionFilters,
+                                            ClusterService clusterService, AsyncSearchRegistry registry) {
+        super(DeleteAsyncSearchAction.NAME, transportService, actionFilters, DeleteAsyncSearchAction.Request::new);
+        this.clusterService = clusterService;
+        this.transportService = transportService;
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doExecute(Task task, DeleteAsyncSearchAction.Request request, ActionListener<AcknowledgedResponse> listener) {
+        final TaskId searchId = parseSearchId(request.getId());
+        if (clusterService.localNode().getId().equals(searchId.getNodeId())) {
+            final AsyncSearchTask searchTask;
+            try {
+                searchTask = registry.get(searchId.getId());
+            } catch (IOException e) {
+                listener.onFailure(e);
+                return;
+            }
+            if (searchTask == null) {
+                listener.onFailure(new ResourceNotFoundException("async search [{}] not found", request.getId()));
+                return;
+            }
+            registry.remove(searchTask, ActionListener.map(listener, r -> new AcknowledgedResponse(true)));
+        } else {
+            DiscoveryNode node = clusterService.state().nodes().get(searchId.getNodeId());
+            if (node == null) {
+                listener.onFailure(new ResourceNotFoundException("async search [{}] not found, node [{}] is not part of the cluster",
+                    request.getId(), searchId.getNodeId()));
+                return;
+            }
+            transportService.sendRequest(node, DeleteAsyncSearchAction.NAME, request,
+                new ActionListenerResponseHandler<>(listener, AcknowledgedResponse::new, ThreadPool.Names.SAME));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.search.action;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchAction;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.TransportSearchAction;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.elasticsearch.xpack.core.ClientHelper.SECURITY_HEADER_FILTERS;
+
+public class TransportSubmitAsyncSearchAction extends HandledTransportAction<SubmitAsyncSearchRequest, AsyncSearchResponse> {
+
+    private final ClusterService clusterService;
+    private final ThreadPool threadPool;
+    private final TransportSearchAction searchAction;
+    private final AsyncSearchRegistry registry;
+
+    @Inject
+    public TransportSubmitAsyncSearchAction(TransportService transportService, ActionFilters actionFilters, ClusterService clusterService,
+                                            ThreadPool threadPool, TransportSearchAction searchAction, AsyncSearchRegistry registry) {
+        super(SubmitAsyncSearchAction.NAME, transportService, actionFilters, SubmitAsyncSearchRequest::new);
+        this.clusterService = clusterService;
+        this.threadPool = threadPool;
+        this.searchAction = searchAction;
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doExecute(Task task, SubmitAsyncSearchRequest request, ActionListener<AsyncSearchResponse> listener) {
+        final String nodeId = clusterService.localNode().getId();
+        // only the user that submitted the search is allowed to retrieve or delete it
+        final Map<String, String> originHeaders = threadPool.getThreadContext().getHeaders().entrySet().stream()
+            .filter(e -> SECURITY_HEADER_FILTERS.contains(e.getKey()))
+            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        final SearchRequest searchRequest = new SearchRequest(request.getSearchRequest()) {
+            @Override
+            public Task createTask(long id, String type, String action, TaskId parentTaskId, Map<String, String> headers) {
+                // reuse the lazily computed description of regular search tasks
+                final Task descriptionTask = super.createTask(id, type, action, parentTaskId, headers);
+                // the search outlives the submit request so it must not be its child, otherwise it would be cancelled with it
+                return new AsyncSearchTask(id, type, action, descriptionTask::getDescription, TaskId.EMPTY_TASK_ID, headers, originHeaders,
+                    nodeId, request.getKeepAlive(), threadPool);
+            }
+        };
+        final AsyncSearchTask searchTask = (AsyncSearchTask) taskManager.register("transport", SearchAction.NAME, searchRequest);
+        try {
+            registry.put(searchTask);
+        } catch (Exception e) {
+            taskManager.unregister(searchTask);
+            listener.onFailure(e);
+            return;
+        }
+        searchAction.execute(searchTask, searchRequest,
+            ActionListener.runBefore(searchTask.getSearchProgressActionListener(), () -> taskManager.unregister(searchTask)));
+        searchTask.addCompletionListener(listener, request.getWaitForCompletion());
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.search.rest;
+
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.action.RestStatusToXContentListener;
+import org.elasticsearch.rest.action.search.RestSearchAction;
+import org.elasticsearch.xpack.search.action.GetAsyncSearchAction;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+
+public class RestGetAsyncSearchAction extends BaseRestHandler {
+
+    @Override
+    public List<Route> routes() {
+        return List.of(new Route(GET, "/_async_search/{id}"));
+    }
+
+    @Override
+    public String getName() {
+        return "async_search_get_action";
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(RestRequest request, NodeClient client) {
+        final GetAsyncSearchAction.Request getRequest = new GetAsyncSearchAction.Request(request.param("id"));
+        if (request.hasParam("wait_for_completion_timeout")) {
+            getRequest.setWaitForCompletion(request.paramAsTime("wait_for_completion_timeout", null));
+        }
+        if (request.hasParam("keep_alive")) {
+            getRequest.setKeepAlive(request.paramAsTime("keep_alive", null));
+        }
+        return channel -> client.execute(GetAsyncSearchAction.INSTANCE, getRequest, new RestStatusToXContentListener<>(channel));
+    }
+
+    @Override
+    protected Set<String> responseParams() {
+        return RestSearchAction.RESPONSE_PARAMS;
+    }
+}
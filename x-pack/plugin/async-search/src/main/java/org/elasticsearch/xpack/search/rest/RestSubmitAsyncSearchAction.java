@@ -0,0 +1,59 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.search.rest;
+
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.action.RestStatusToXContentListener;
+import org.elasticsearch.rest.action.search.RestSearchAction;
+import org.elasticsearch.xpack.search.action.SubmitAsyncSearchAction;
+import org.elasticsearch.xpack.search.action.SubmitAsyncSearchRequest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+import static org.elasticsearch.rest.RestRequest.Method.POST;
+
+public class RestSubmitAsyncSearchAction extends BaseRestHandler {
+
+    @Override
+    public List<Route> routes() {
+        return List.of(
+            new Route(POST, "/_async_search"),
+            new Route(POST, "/{index}/_async_search"));
+    }
+
+    @Override
+    public String getName() {
+        return "async_search_submit_action";
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(RestRequest request, NodeClient client) throws IOException {
+        final SearchRequest searchRequest = new SearchRequest();
+        final SubmitAsyncSearchRequest submitRequest = new SubmitAsyncSearchRequest(searchRequest);
+        if (request.hasParam("wait_for_completion_timeout")) {
+            submitRequest.setWaitForCompletion(request.paramAsTime("wait_for_completion_timeout", null));
+        }
+        if (request.hasParam("keep_alive")) {
+            submitRequest.setKeepAlive(request.paramAsTime("keep_alive", null));
+        }
+        IntConsumer setSize = size -> searchRequest.source().size(size);
+        request.withContentOrSourceParamParserOrNull(parser ->
+            RestSearchAction.parseSearchRequest(searchRequest, request, parser, setSize));
+        return channel -> client.execute(SubmitAsyncSearchAction.INSTANCE, submitRequest, new RestStatusToXContentListener<>(channel));
+    }
+
+    @Override
+    protected Set<String> responseParams() {
+        return RestSearchAction.RESPONSE_PARAMS;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.search.action;
+
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchAction;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.client.NoOpClient;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.xpack.core.security.authc.Authentication;
+import org.elasticsearch.xpack.core.security.authc.AuthenticationField;
+import org.elasticsearch.xpack.core.security.user.User;
+import org.junit.After;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncSearchRegistryTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+    private NoOpClient client;
+
+    @Before
+    public void setUpThreadPool() {
+        threadPool = new TestThreadPool(getTestName());
+        client = new NoOpClient(threadPool);
+    }
+
+    @After
+    public void shutdownThreadPool() {
+        client.close();
+        terminate(threadPool);
+    }
+
+    public void testGetWithoutSecurity() throws IOException {
+        AsyncSearchRegistry registry = createRegistry(Settings.EMPTY);
+        AsyncSearchTask task = createTask(1L, Collections.emptyMap());
+        registry.put(task);
+        assertSame(task, registry.get(1L));
+        assertNull(registry.get(2L));
+    }
+
+    public void testGetOnlyReturnsSearchesOfTheSameUser() throws IOException {
+        AsyncSearchRegistry registry = createRegistry(Settings.EMPTY);
+        Authentication owner = new Authentication(new User("owner"), new Authentication.RealmRef("realm", "file", "node"), null);
+        AsyncSearchTask task = createTask(1L, Map.of(AuthenticationField.AUTHENTICATION_KEY, owner.encode()));
+        registry.put(task);
+
+        try (ThreadContext.StoredContext ignore = threadPool.getThreadContext().stashContext()) {
+            owner.writeToContext(threadPool.getThreadContext());
+            assertSame(task, registry.get(1L));
+        }
+        try (ThreadContext.StoredContext ignore = threadPool.getThreadContext().stashContext()) {
+            Authentication other = new Authentication(new User("other"), new Authentication.RealmRef("realm", "file", "node"), null);
+            other.writeToContext(threadPool.getThreadContext());
+            assertNull(registry.get(1L));
+        }
+        try (ThreadContext.StoredContext ignore = threadPool.getThreadContext().stashContext()) {
+            assertNull(registry.get(1L));
+        }
+    }
+
+    public void testIsSameUser() {
+        Authentication.RealmRef fileRealm = new Authentication.RealmRef("file", "file", "node");
+        Authentication.RealmRef nativeRealm = new Authentication.RealmRef("native", "native", "node");
+        Authentication origin = new Authentication(new User("user"), fileRealm, null);
+        assertTrue(AsyncSearchRegistry.isSameUser(origin, new Authentication(new User("user"), fileRealm, null)));
+        assertFalse(AsyncSearchRegistry.isSameUser(origin, new Authentication(new User("other"), fileRealm, null)));
+        assertFalse(AsyncSearchRegistry.isSameUser(origin, new Authentication(new User("user"), nativeRealm, null)));
+
+        // run-as compares the effective user and the realm that looked it up
+        Authentication runAs = new Authentication(new User(new User("user"), new User("admin")), nativeRealm, fileRealm);
+        assertTrue(AsyncSearchRegistry.isSameUser(origin, runAs));
+        assertFalse(AsyncSearchRegistry.isSameUser(new Authentication(new User("admin"), nativeRealm, null), runAs));
+    }
+
+    public void testMaxSearches() throws IOException {
+        ClusterSettings clusterSettings = new ClusterSettings(Settings.EMPTY, Set.of(AsyncSearchRegistry.MAX_SEARCHES_SETTING));
+        AsyncSearchRegistry registry = new AsyncSearchRegistry(Settings.builder()
+            .put(AsyncSearchRegistry.MAX_SEARCHES_SETTING.getKey(), 2).build(), clusterSettings, threadPool, client);
+        registry.put(createTask(1L, Collections.emptyMap()));
+        registry.put(createTask(2L, Collections.emptyMap()));
+        ElasticsearchStatusException e = expectThrows(ElasticsearchStatusException.class,
+            () -> registry.put(createTask(3L, Collections.emptyMap())));
+        assertEquals(RestStatus.TOO_MANY_REQUESTS, e.status());
+        assertNull(registry.get(3L));
+
+        clusterSettings.applySettings(Settings.builder().put(AsyncSearchRegistry.MAX_SEARCHES_SETTING.getKey(), 3).build());
+        registry.put(createTask(3L, Collections.emptyMap()));
+        assertEquals(3, registry.size());
+    }
+
+    public void testMaxSearchesWithConcurrentPuts() throws Exception {
+        final int maxSearches = randomIntBetween(1, 10);
+        ClusterSettings clusterSettings = new ClusterSettings(Settings.EMPTY, Set.of(AsyncSearchRegistry.MAX_SEARCHES_SETTING));
+        AsyncSearchRegistry registry = new AsyncSearchRegistry(Settings.builder()
+            .put(AsyncSearchRegistry.MAX_SEARCHES_SETTING.getKey(), maxSearches).build(), clusterSettings, threadPool, client);
+        final Thread[] threads = new Thread[randomIntBetween(2, 8)];
+        final int putsPerThread = maxSearches;
+        final CyclicBarrier barrier = new CyclicBarrier(threads.length);
+        final AtomicInteger rejections = new AtomicInteger();
+        for (int i = 0; i < threads.length; i++) {
+            final int threadId = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    barrier.await();
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+                for (int j = 0; j < putsPerThread; j++) {
+                    try {
+                        registry.put(createTask(threadId * putsPerThread + j, Collections.emptyMap()));
+                    } catch (ElasticsearchStatusException e) {
+                        assertEquals(RestStatus.TOO_MANY_REQUESTS, e.status());
+                        rejections.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(maxSearches, registry.size());
+        assertEquals(threads.length * putsPerThread - maxSearches, rejections.get());
+
+        // removing a search frees its slot
+        AsyncSearchTask removed = null;
+        for (long id = 0; removed == null; id++) {
+            removed = registry.get(id);
+        }
+        registry.remove(removed, ActionListener.wrap(() -> {}));
+        registry.put(createTask(-1L, Collections.emptyMap()));
+        expectThrows(ElasticsearchStatusException.class, () -> registry.put(createTask(-2L, Collections.emptyMap())));
+    }
+
+    private AsyncSearchRegistry createRegistry(Settings settings) {
+        ClusterSettings clusterSettings = new ClusterSettings(settings, Set.of(AsyncSearchRegistry.MAX_SEARCHES_SETTING));
+        return new AsyncSearchRegistry(settings, clusterSettings, threadPool, client);
+    }
+
+    private AsyncSearchTask createTask(long id, Map<String, String> originHeaders) {
+        return new AsyncSearchTask(id, "transport", SearchAction.NAME, () -> "test", TaskId.EMPTY_TASK_ID, Collections.emptyMap(),
+            originHeaders, "node", TimeValue.timeValueMinutes(1), threadPool);
+    }
+}
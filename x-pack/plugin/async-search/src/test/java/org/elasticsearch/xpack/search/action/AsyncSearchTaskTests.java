@@ -0,0 +1,156 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.search.action;
+
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.search.SearchAction;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchShard;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
+import org.junit.Before;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.elasticsearch.action.ActionListener.wrap;
+
+public class AsyncSearchTaskTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+
+    @Before
+    public void setUpThreadPool() {
+        threadPool = new TestThreadPool(getTestName());
+    }
+
+    @After
+    public void shutdownThreadPool() {
+        terminate(threadPool);
+    }
+
+    public void testPartialResponses() {
+        AsyncSearchTask task = createTask();
+        AsyncSearchResponse response = task.getAsyncResponse();
+        assertEquals("node:1", response.getId());
+        assertTrue(response.isRunning());
+        assertTrue(response.isPartial());
+        assertNull(response.getSearchResponse());
+
+        task.getSearchProgressActionListener().onListShards(shards(3), false);
+        task.getSearchProgressActionListener().onQueryResult(0);
+        task.getSearchProgressActionListener().onQueryFailure(1, new IllegalStateException("boom"));
+        task.getSearchProgressActionListener().onPartialReduce(shards(1), new TotalHits(5, TotalHits.Relation.EQUAL_TO), null, 1);
+
+        response = task.getAsyncResponse();
+        assertTrue(response.isRunning());
+        assertTrue(response.isPartial());
+        SearchResponse searchResponse = response.getSearchResponse();
+        assertEquals(3, searchResponse.getTotalShards());
+        assertEquals(1, searchResponse.getSuccessfulShards());
+        assertEquals(1, searchResponse.getFailedShards());
+        assertEquals(5, searchResponse.getHits().getTotalHits().value);
+        assertEquals(1, searchResponse.getNumReducePhases());
+    }
+
+    public void testPartialHits() {
+        AsyncSearchTask task = createTask();
+        task.getSearchProgressActionListener().onListShards(shards(2), true);
+        task.getSearchProgressActionListener().onQueryResult(0);
+        task.getSearchProgressActionListener().onQueryResult(1);
+        TotalHits totalHits = new TotalHits(5, TotalHits.Relation.EQUAL_TO);
+        task.getSearchProgressActionListener().onReduce(shards(2), totalHits, null);
+        assertEquals(0, task.getAsyncResponse().getSearchResponse().getHits().getHits().length);
+
+        SearchHit hit = new SearchHit(1);
+        task.getSearchProgressActionListener().onFetchResult(0);
+        task.getSearchProgressActionListener().onPartialHits(() -> new SearchHits(new SearchHit[] { hit }, totalHits, 1f));
+        AsyncSearchResponse response = task.getAsyncResponse();
+        assertTrue(response.isRunning());
+        assertTrue(response.isPartial());
+        SearchHits hits = response.getSearchResponse().getHits();
+        assertEquals(5, hits.getTotalHits().value);
+        assertEquals(1, hits.getHits().length);
+        assertSame(hit, hits.getHits()[0]);
+    }
+
+    public void testCompletionListenerNotifiedOnCompletion() throws InterruptedException {
+        AsyncSearchTask task = createTask();
+        task.getSearchProgressActionListener().onListShards(shards(1), false);
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<AsyncSearchResponse> ref = new AtomicReference<>();
+        task.addCompletionListener(wrap(r -> {
+            ref.set(r);
+            latch.countDown();
+        }, e -> fail(e.getMessage())), TimeValue.timeValueHours(1));
+        assertEquals(1, latch.getCount());
+
+        SearchResponse searchResponse = new SearchResponse(InternalSearchResponse.empty(), null, 1, 1, 0, 1,
+            ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY);
+        task.getSearchProgressActionListener().onResponse(searchResponse);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertFalse(ref.get().isRunning());
+        assertFalse(ref.get().isPartial());
+        assertSame(searchResponse, ref.get().getSearchResponse());
+        assertFalse(task.isRunning());
+    }
+
+    public void testCompletionListenerNotifiedOnTimeout() throws InterruptedException {
+        AsyncSearchTask task = createTask();
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<AsyncSearchResponse> ref = new AtomicReference<>();
+        task.addCompletionListener(wrap(r -> {
+            ref.set(r);
+            latch.countDown();
+        }, e -> fail(e.getMessage())), TimeValue.timeValueMillis(randomIntBetween(1, 50)));
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertTrue(ref.get().isRunning());
+        assertTrue(ref.get().isPartial());
+    }
+
+    public void testFailure() {
+        AsyncSearchTask task = createTask();
+        task.getSearchProgressActionListener().onFailure(new IllegalArgumentException("boom"));
+        AsyncSearchResponse response = task.getAsyncResponse();
+        assertFalse(response.isRunning());
+        assertTrue(response.isPartial());
+        assertEquals("boom", response.getFailure().getMessage());
+    }
+
+    public void testExpiration() {
+        AsyncSearchTask task = createTask();
+        assertFalse(task.isExpired(threadPool.absoluteTimeInMillis()));
+        assertTrue(task.isExpired(task.getExpirationTime() + 1));
+        task.extendExpirationTime(TimeValue.timeValueHours(1));
+        assertFalse(task.isExpired(threadPool.absoluteTimeInMillis() + TimeValue.timeValueMinutes(30).millis()));
+    }
+
+    private AsyncSearchTask createTask() {
+        return new AsyncSearchTask(1L, "transport", SearchAction.NAME, () -> "test", TaskId.EMPTY_TASK_ID, Collections.emptyMap(),
+            Collections.emptyMap(), "node", TimeValue.timeValueMinutes(1), threadPool);
+    }
+
+    private static List<SearchShard> shards(int count) {
+        SearchShard[] shards = new SearchShard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new SearchShard(null, new ShardId("index", "_na_", i));
+        }
+        return List.of(shards);
+    }
+}
@@ -13,6 +13,7 @@ import org.elasticsearch.cluster.routing.Preference;
 import org.elasticsearch.index.query.ConstantScoreQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.ingest.AbstractProcessor;
+import org.elasticsearch.ingest.BatchProcessor;
 import org.elasticsearch.ingest.IngestDocument;
 import org.elasticsearch.script.TemplateScript;
 import org.elasticsearch.search.SearchHit;
@@ -21,11 +22,12 @@ import org.elasticsearch.xpack.core.enrich.EnrichPolicy;
 import org.elasticsearch.xpack.enrich.action.EnrichCoordinatorProxyAction;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiConsumer;
 
-public abstract class AbstractEnrichProcessor extends AbstractProcessor {
+public abstract class AbstractEnrichProcessor extends AbstractProcessor implements BatchProcessor {
 
     private final String policyName;
     private final BiConsumer<SearchRequest, BiConsumer<SearchResponse, Exception>> searchRunner;
@@ -75,65 +77,109 @@ public abstract class AbstractEnrichProcessor extends AbstractProcessor {
     public abstract QueryBuilder getQueryBuilder(Object fieldValue);
 
     @Override
-    public void execute(IngestDocument ingestDocument, BiConsumer<IngestDocument, Exception> handler) {
-        try {
-            // If a document does not have the enrich key, return the unchanged document
-            String field = ingestDocument.renderTemplate(this.field);
-            final Object value = ingestDocument.getFieldValue(field, Object.class, ignoreMissing);
-            if (value == null) {
-                handler.accept(ingestDocument, null);
-                return;
+    public void execute(List<IngestDocument> ingestDocuments, List<BiConsumer<IngestDocument, Exception>> handlers) {
+        // documents that look up the same value share a single search
+        final Map<Object, List<Integer>> slotsByValue = new LinkedHashMap<>();
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            final IngestDocument ingestDocument = ingestDocuments.get(i);
+            try {
+                // If a document does not have the enrich key, return the unchanged document
+                String field = ingestDocument.renderTemplate(this.field);
+                final Object value = ingestDocument.getFieldValue(field, Object.class, ignoreMissing);
+                if (value == null) {
+                    handlers.get(i).accept(ingestDocument, null);
+                    continue;
+                }
+                slotsByValue.computeIfAbsent(value, k -> new ArrayList<>()).add(i);
+            } catch (Exception e) {
+                handlers.get(i).accept(null, e);
             }
+        }
 
-            QueryBuilder queryBuilder = getQueryBuilder(value);
-            ConstantScoreQueryBuilder constantScore = new ConstantScoreQueryBuilder(queryBuilder);
-            SearchSourceBuilder searchBuilder = new SearchSourceBuilder();
-            searchBuilder.from(0);
-            searchBuilder.size(maxMatches);
-            searchBuilder.trackScores(false);
-            searchBuilder.fetchSource(true);
-            searchBuilder.query(constantScore);
-            SearchRequest req = new SearchRequest();
-            req.indices(EnrichPolicy.getBaseName(getPolicyName()));
-            req.preference(Preference.LOCAL.type());
-            req.source(searchBuilder);
+        for (Map.Entry<Object, List<Integer>> entry : slotsByValue.entrySet()) {
+            final List<Integer> slots = entry.getValue();
+            final SearchRequest req;
+            try {
+                req = buildSearchRequest(entry.getKey());
+            } catch (Exception e) {
+                slots.forEach(slot -> handlers.get(slot).accept(null, e));
+                continue;
+            }
 
             searchRunner.accept(req, (searchResponse, e) -> {
                 if (e != null) {
-                    handler.accept(null, e);
+                    slots.forEach(slot -> handlers.get(slot).accept(null, e));
                     return;
                 }
 
-                // If the index is empty, return the unchanged document
-                // If the enrich key does not exist in the index, throw an error
-                // If no documents match the key, return the unchanged document
-                SearchHit[] searchHits = searchResponse.getHits().getHits();
-                if (searchHits.length < 1) {
-                    handler.accept(ingestDocument, null);
-                    return;
+                // enrich all documents before handing any of them back, since the next processors may modify the enrich documents
+                final Exception[] failures = new Exception[slots.size()];
+                for (int i = 0; i < slots.size(); i++) {
+                    try {
+                        // all but the last document get their own copy of the enrich documents
+                        enrich(ingestDocuments.get(slots.get(i)), searchResponse, i < slots.size() - 1);
+                    } catch (Exception ex) {
+                        failures[i] = ex;
+                    }
                 }
-
-                String targetField = ingestDocument.renderTemplate(this.targetField);
-                if (overrideEnabled || ingestDocument.hasField(targetField) == false) {
-                    if (maxMatches == 1) {
-                        Map<String, Object> firstDocument = searchHits[0].getSourceAsMap();
-                        ingestDocument.setFieldValue(targetField, firstDocument);
+                for (int i = 0; i < slots.size(); i++) {
+                    final int slot = slots.get(i);
+                    if (failures[i] != null) {
+                        handlers.get(slot).accept(null, failures[i]);
                     } else {
-                        List<Map<String, Object>> enrichDocuments = new ArrayList<>(searchHits.length);
-                        for (SearchHit searchHit : searchHits) {
-                            Map<String, Object> enrichDocument = searchHit.getSourceAsMap();
-                            enrichDocuments.add(enrichDocument);
-                        }
-                        ingestDocument.setFieldValue(targetField, enrichDocuments);
+                        handlers.get(slot).accept(ingestDocuments.get(slot), null);
                     }
                 }
-                handler.accept(ingestDocument, null);
             });
-        } catch (Exception e) {
-            handler.accept(null, e);
         }
     }
 
+    private SearchRequest buildSearchRequest(Object value) {
+        QueryBuilder queryBuilder = getQueryBuilder(value);
+        ConstantScoreQueryBuilder constantScore = new ConstantScoreQueryBuilder(queryBuilder);
+        SearchSourceBuilder searchBuilder = new SearchSourceBuilder();
+        searchBuilder.from(0);
+        searchBuilder.size(maxMatches);
+        searchBuilder.trackScores(false);
+        searchBuilder.fetchSource(true);
+        searchBuilder.query(constantScore);
+        SearchRequest req = new SearchRequest();
+        req.indices(EnrichPolicy.getBaseName(getPolicyName()));
+        req.preference(Preference.LOCAL.type());
+        req.source(searchBuilder);
+        return req;
+    }
+
+    private void enrich(IngestDocument ingestDocument, SearchResponse searchResponse, boolean copy) {
+        // If the index is empty, return the unchanged document
+        // If the enrich key does not exist in the index, throw an error
+        // If no documents match the key, return the unchanged document
+        SearchHit[] searchHits = searchResponse.getHits().getHits();
+        if (searchHits.length < 1) {
+            return;
+        }
+
+        String targetField = ingestDocument.renderTemplate(this.targetField);
+        if (overrideEnabled || ingestDocument.hasField(targetField) == false) {
+            if (maxMatches == 1) {
+                Map<String, Object> firstDocument = getSourceAsMap(searchHits[0], copy);
+                ingestDocument.setFieldValue(targetField, firstDocument);
+            } else {
+                List<Map<String, Object>> enrichDocuments = new ArrayList<>(searchHits.length);
+                for (SearchHit searchHit : searchHits) {
+                    Map<String, Object> enrichDocument = getSourceAsMap(searchHit, copy);
+                    enrichDocuments.add(enrichDocument);
+                }
+                ingestDocument.setFieldValue(targetField, enrichDocuments);
+            }
+        }
+    }
+
+    private static Map<String, Object> getSourceAsMap(SearchHit searchHit, boolean copy) {
+        // the source map of a hit is parsed once and then cached
+        return copy ? IngestDocument.deepCopyMap(searchHit.getSourceAsMap()) : searchHit.getSourceAsMap();
+    }
+
     @Override
     public IngestDocument execute(IngestDocument ingestDocument) throws Exception {
         throw new UnsupportedOperationException("this method should not get executed");
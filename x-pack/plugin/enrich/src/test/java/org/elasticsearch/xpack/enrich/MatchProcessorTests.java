@@ -32,10 +32,14 @@ import org.elasticsearch.test.ESTestCase;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.BiConsumer;
 
 import static org.hamcrest.Matchers.emptyArray;
@@ -43,6 +47,7 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 public class MatchProcessorTests extends ESTestCase {
 
@@ -321,6 +326,57 @@ public class MatchProcessorTests extends ESTestCase {
         assertThat(entry.get("tld"), equalTo("co"));
     }
 
+    public void testBatch() {
+        List<SearchRequest> requests = new ArrayList<>();
+        MatchProcessor processor = new MatchProcessor("_tag", (request, handler) -> {
+            requests.add(request);
+            handler.accept(mockResponse(Map.of("elastic.co", Map.of("globalRank", 451, "tldRank", 23, "tld", "co"))), null);
+        }, "_name", str("domain"), str("entry"), true, false, "domain", 1);
+
+        int numDocs = randomIntBetween(1, 16);
+        List<IngestDocument> ingestDocuments = new ArrayList<>();
+        List<BiConsumer<IngestDocument, Exception>> handlers = new ArrayList<>();
+        IngestDocument[] results = new IngestDocument[numDocs];
+        Set<Object> values = new HashSet<>();
+        for (int i = 0; i < numDocs; i++) {
+            final int slot = i;
+            Map<String, Object> source = new HashMap<>();
+            if (randomBoolean()) {
+                String value = randomFrom("elastic.co", "elastic.com", "elastic.org");
+                values.add(value);
+                source.put("domain", value);
+            }
+            ingestDocuments.add(new IngestDocument("_index", "_id", "_routing", 1L, VersionType.INTERNAL, source));
+            handlers.add((result, e) -> {
+                assertThat(e, nullValue());
+                assertThat(results[slot], nullValue());
+                results[slot] = result;
+            });
+        }
+        processor.execute(ingestDocuments, handlers);
+
+        // documents that look up the same value share a single search
+        assertThat(requests.size(), equalTo(values.size()));
+        Set<Object> searchedValues = new HashSet<>();
+        for (SearchRequest request : requests) {
+            TermQueryBuilder termQueryBuilder = (TermQueryBuilder) ((ConstantScoreQueryBuilder) request.source().query()).innerQuery();
+            searchedValues.add(termQueryBuilder.value());
+        }
+        assertThat(searchedValues, equalTo(values));
+        Set<Map<?, ?>> entries = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < numDocs; i++) {
+            assertThat(results[i], sameInstance(ingestDocuments.get(i)));
+            if (results[i].hasField("domain")) {
+                Map<?, ?> entry = results[i].getFieldValue("entry", Map.class);
+                assertThat(entry, equalTo(Map.of("globalRank", 451, "tldRank", 23, "tld", "co")));
+                // every document gets its own copy of the enrich document
+                assertTrue(entries.add(entry));
+            } else {
+                assertFalse(results[i].hasField("entry"));
+            }
+        }
+    }
+
     private static final class MockSearchFunction implements BiConsumer<SearchRequest, BiConsumer<SearchResponse, Exception>> {
         private final SearchResponse mockResponse;
         private final SetOnce<SearchRequest> capturedRequest;
@@ -19,6 +19,7 @@ import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.ingest.AbstractProcessor;
+import org.elasticsearch.ingest.BatchProcessor;
 import org.elasticsearch.ingest.ConfigurationUtils;
 import org.elasticsearch.ingest.IngestDocument;
 import org.elasticsearch.ingest.IngestMetadata;
@@ -28,6 +29,7 @@ import org.elasticsearch.ingest.PipelineConfiguration;
 import org.elasticsearch.ingest.Processor;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.xpack.core.ml.action.InternalInferModelAction;
+import org.elasticsearch.xpack.core.ml.inference.results.InferenceResults;
 import org.elasticsearch.xpack.core.ml.inference.results.WarningInferenceResults;
 import org.elasticsearch.xpack.core.ml.inference.trainedmodel.ClassificationConfig;
 import org.elasticsearch.xpack.core.ml.inference.trainedmodel.InferenceConfig;
@@ -37,9 +39,11 @@ import org.elasticsearch.xpack.core.ml.utils.ExceptionsHelper;
 import org.elasticsearch.xpack.core.ml.utils.MapHelper;
 import org.elasticsearch.xpack.ml.notifications.InferenceAuditor;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -49,7 +53,7 @@ import java.util.function.Consumer;
 import static org.elasticsearch.xpack.core.ClientHelper.ML_ORIGIN;
 import static org.elasticsearch.xpack.core.ClientHelper.executeAsyncWithOrigin;
 
-public class InferenceProcessor extends AbstractProcessor {
+public class InferenceProcessor extends AbstractProcessor implements BatchProcessor {
 
     // How many total inference processors are allowed to be used in the cluster.
     public static final Setting<Integer> MAX_INFERENCE_PROCESSORS = Setting.intSetting("xpack.ml.max_inference_processors",
@@ -96,7 +100,47 @@ public class InferenceProcessor extends AbstractProcessor {
     }
 
     @Override
-    public void execute(IngestDocument ingestDocument, BiConsumer<IngestDocument, Exception> handler) {
+    public void execute(List<IngestDocument> ingestDocuments, List<BiConsumer<IngestDocument, Exception>> handlers) {
+        if (ingestDocuments.size() == 1) {
+            executeSingle(ingestDocuments.get(0), handlers.get(0));
+            return;
+        }
+        executeAsyncWithOrigin(client,
+            ML_ORIGIN,
+            InternalInferModelAction.INSTANCE,
+            this.buildRequest(ingestDocuments),
+            ActionListener.wrap(
+                r -> handleResponse(r, ingestDocuments, handlers),
+                e -> handleFailure(e, ingestDocuments, handlers)
+            ));
+    }
+
+    void handleFailure(Exception e, List<IngestDocument> ingestDocuments, List<BiConsumer<IngestDocument, Exception>> handlers) {
+        if (isCausedByDocument(e)) {
+            // inference fails as a whole if it fails for any of the documents, so infer the documents one by one in order to
+            // only fail the documents that caused the failure
+            for (int i = 0; i < ingestDocuments.size(); i++) {
+                executeSingle(ingestDocuments.get(i), handlers.get(i));
+            }
+        } else {
+            // the failure would be the same for every document, e.g. a rejection or a missing model, so retrying the documents
+            // one by one would only add load
+            for (int i = 0; i < ingestDocuments.size(); i++) {
+                handlers.get(i).accept(ingestDocuments.get(i), e);
+            }
+        }
+    }
+
+    /**
+     * Whether the failure may have been caused by the values of one of the inferred documents rather than by the state of the
+     * cluster or the model.
+     */
+    static boolean isCausedByDocument(Exception e) {
+        Throwable cause = org.elasticsearch.ExceptionsHelper.unwrapCause(e);
+        return cause instanceof ClassCastException || org.elasticsearch.ExceptionsHelper.status(cause) == RestStatus.BAD_REQUEST;
+    }
+
+    private void executeSingle(IngestDocument ingestDocument, BiConsumer<IngestDocument, Exception> handler) {
         executeAsyncWithOrigin(client,
             ML_ORIGIN,
             InternalInferModelAction.INSTANCE,
@@ -110,12 +154,7 @@ public class InferenceProcessor extends AbstractProcessor {
     void handleResponse(InternalInferModelAction.Response response,
                         IngestDocument ingestDocument,
                         BiConsumer<IngestDocument, Exception> handler) {
-        if (previouslyLicensed == false) {
-            previouslyLicensed = true;
-        }
-        if (response.isLicensed() == false) {
-            auditWarningAboutLicenseIfNecessary();
-        }
+        updateLicenseState(response);
         try {
             mutateDocument(response, ingestDocument);
             handler.accept(ingestDocument, null);
@@ -124,7 +163,53 @@ public class InferenceProcessor extends AbstractProcessor {
         }
     }
 
+    void handleResponse(InternalInferModelAction.Response response,
+                        List<IngestDocument> ingestDocuments,
+                        List<BiConsumer<IngestDocument, Exception>> handlers) {
+        updateLicenseState(response);
+        if (response.getInferenceResults().size() != ingestDocuments.size()) {
+            ElasticsearchStatusException ex = new ElasticsearchStatusException(
+                "Unexpected inference response with [{}] results for [{}] documents", RestStatus.INTERNAL_SERVER_ERROR,
+                response.getInferenceResults().size(), ingestDocuments.size());
+            for (int i = 0; i < ingestDocuments.size(); i++) {
+                handlers.get(i).accept(ingestDocuments.get(i), ex);
+            }
+            return;
+        }
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            IngestDocument ingestDocument = ingestDocuments.get(i);
+            Exception failure = null;
+            try {
+                mutateDocument(response.getInferenceResults().get(i), ingestDocument);
+            } catch(Exception ex) {
+                failure = ex;
+            }
+            handlers.get(i).accept(ingestDocument, failure);
+        }
+    }
+
+    private void updateLicenseState(InternalInferModelAction.Response response) {
+        if (previouslyLicensed == false) {
+            previouslyLicensed = true;
+        }
+        if (response.isLicensed() == false) {
+            auditWarningAboutLicenseIfNecessary();
+        }
+    }
+
     InternalInferModelAction.Request buildRequest(IngestDocument ingestDocument) {
+        return new InternalInferModelAction.Request(modelId, buildObjectToInfer(ingestDocument), inferenceConfig, previouslyLicensed);
+    }
+
+    InternalInferModelAction.Request buildRequest(List<IngestDocument> ingestDocuments) {
+        List<Map<String, Object>> objectsToInfer = new ArrayList<>(ingestDocuments.size());
+        for (IngestDocument ingestDocument : ingestDocuments) {
+            objectsToInfer.add(buildObjectToInfer(ingestDocument));
+        }
+        return new InternalInferModelAction.Request(modelId, objectsToInfer, inferenceConfig, previouslyLicensed);
+    }
+
+    private Map<String, Object> buildObjectToInfer(IngestDocument ingestDocument) {
         Map<String, Object> fields = new HashMap<>(ingestDocument.getSourceAndMetadata());
         if (fieldMapping != null) {
             fieldMapping.forEach((src, dest) -> {
@@ -134,7 +219,7 @@ public class InferenceProcessor extends AbstractProcessor {
                 }
             });
         }
-        return new InternalInferModelAction.Request(modelId, fields, inferenceConfig, previouslyLicensed);
+        return fields;
     }
 
     void auditWarningAboutLicenseIfNecessary() {
@@ -151,7 +236,11 @@ public class InferenceProcessor extends AbstractProcessor {
             throw new ElasticsearchStatusException("Unexpected empty inference response", RestStatus.INTERNAL_SERVER_ERROR);
         }
         assert response.getInferenceResults().size() == 1;
-        response.getInferenceResults().get(0).writeResult(ingestDocument, this.targetField);
+        mutateDocument(response.getInferenceResults().get(0), ingestDocument);
+    }
+
+    private void mutateDocument(InferenceResults inferenceResults, IngestDocument ingestDocument) {
+        inferenceResults.writeResult(ingestDocument, this.targetField);
         ingestDocument.setFieldValue(targetField + "." + MODEL_ID, modelId);
     }
 
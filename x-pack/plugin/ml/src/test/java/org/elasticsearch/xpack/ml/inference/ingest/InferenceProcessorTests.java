@@ -5,11 +5,23 @@
  */
 package org.elasticsearch.xpack.ml.inference.ingest;
 
+import org.elasticsearch.ElasticsearchSecurityException;
+import org.elasticsearch.ResourceNotFoundException;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.ingest.IngestDocument;
+import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.RemoteTransportException;
 import org.elasticsearch.xpack.core.ml.action.InternalInferModelAction;
 import org.elasticsearch.xpack.core.ml.inference.results.ClassificationInferenceResults;
+import org.elasticsearch.xpack.core.ml.inference.results.InferenceResults;
 import org.elasticsearch.xpack.core.ml.inference.results.RegressionInferenceResults;
 import org.elasticsearch.xpack.core.ml.inference.results.WarningInferenceResults;
 import org.elasticsearch.xpack.core.ml.inference.trainedmodel.ClassificationConfig;
@@ -22,17 +34,22 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class InferenceProcessorTests extends ESTestCase {
 
@@ -314,4 +331,122 @@ public class InferenceProcessorTests extends ESTestCase {
         assertThat(document.hasField("ml.warning"), is(true));
         assertThat(document.hasField("ml.my_processor"), is(false));
     }
+
+    public void testBatch() {
+        String targetField = "ml.my_processor";
+        InferenceProcessor inferenceProcessor = new InferenceProcessor(client,
+            auditor,
+            "my_processor",
+            targetField,
+            "regression_model",
+            RegressionConfig.EMPTY_PARAMS,
+            Collections.emptyMap());
+
+        int numDocs = randomIntBetween(2, 16);
+        List<IngestDocument> documents = new ArrayList<>(numDocs);
+        for (int i = 0; i < numDocs; i++) {
+            Map<String, Object> source = new HashMap<>();
+            source.put("value", i);
+            documents.add(new IngestDocument(source, new HashMap<>()));
+        }
+
+        InternalInferModelAction.Request request = inferenceProcessor.buildRequest(documents);
+        assertThat(request.getObjectsToInfer().size(), equalTo(numDocs));
+        for (int i = 0; i < numDocs; i++) {
+            assertThat(request.getObjectsToInfer().get(i).get("value"), equalTo(i));
+        }
+
+        List<InferenceResults> results = new ArrayList<>(numDocs);
+        for (int i = 0; i < numDocs; i++) {
+            results.add(new RegressionInferenceResults(i, RegressionConfig.EMPTY_PARAMS));
+        }
+        Exception[] failures = new Exception[numDocs];
+        List<BiConsumer<IngestDocument, Exception>> handlers = new ArrayList<>(numDocs);
+        for (int i = 0; i < numDocs; i++) {
+            final int slot = i;
+            handlers.add((doc, ex) -> {
+                assertThat(doc, is(documents.get(slot)));
+                failures[slot] = ex;
+            });
+        }
+        inferenceProcessor.handleResponse(new InternalInferModelAction.Response(results, true), documents, handlers);
+        for (int i = 0; i < numDocs; i++) {
+            assertThat(failures[i], is(nullValue()));
+            assertThat(documents.get(i).getFieldValue(targetField + ".predicted_value", Double.class), equalTo((double) i));
+            assertThat(documents.get(i).getFieldValue(targetField + ".model_id", String.class), equalTo("regression_model"));
+        }
+
+        // every document fails if the results do not line up with the documents
+        inferenceProcessor.handleResponse(new InternalInferModelAction.Response(results.subList(1, numDocs), true), documents, handlers);
+        for (int i = 0; i < numDocs; i++) {
+            assertThat(failures[i], is(not(nullValue())));
+        }
+    }
+
+    public void testBatchFailures() {
+        ThreadPool threadPool = mock(ThreadPool.class);
+        when(threadPool.getThreadContext()).thenReturn(new ThreadContext(Settings.EMPTY));
+        when(client.threadPool()).thenReturn(threadPool);
+        InferenceProcessor inferenceProcessor = new InferenceProcessor(client,
+            auditor,
+            "my_processor",
+            "ml.my_processor",
+            "regression_model",
+            RegressionConfig.EMPTY_PARAMS,
+            Collections.emptyMap());
+
+        int numDocs = randomIntBetween(2, 16);
+        List<IngestDocument> documents = new ArrayList<>(numDocs);
+        Exception[] failures = new Exception[numDocs];
+        List<BiConsumer<IngestDocument, Exception>> handlers = new ArrayList<>(numDocs);
+        for (int i = 0; i < numDocs; i++) {
+            documents.add(new IngestDocument(new HashMap<>(Map.of("value", i)), new HashMap<>()));
+            final int slot = i;
+            handlers.add((doc, ex) -> failures[slot] = ex);
+        }
+
+        // a rejection applies to the whole slice and is not retried per document
+        EsRejectedExecutionException rejection = new EsRejectedExecutionException("rejected");
+        AtomicInteger requests = new AtomicInteger();
+        doAnswer(invocationOnMock -> {
+            requests.incrementAndGet();
+            @SuppressWarnings("unchecked")
+            ActionListener<InternalInferModelAction.Response> listener = (ActionListener<InternalInferModelAction.Response>)
+                invocationOnMock.getArguments()[2];
+            listener.onFailure(new RemoteTransportException("remote", rejection));
+            return null;
+        }).when(client).execute(eq(InternalInferModelAction.INSTANCE), any(), any());
+        inferenceProcessor.execute(documents, handlers);
+        assertThat(requests.get(), equalTo(1));
+        for (int i = 0; i < numDocs; i++) {
+            assertThat(failures[i], is(not(nullValue())));
+            assertSame(rejection, org.elasticsearch.ExceptionsHelper.unwrapCause(failures[i]));
+        }
+
+        // a failure that may be caused by one of the documents is retried per document
+        requests.set(0);
+        doAnswer(invocationOnMock -> {
+            requests.incrementAndGet();
+            @SuppressWarnings("unchecked")
+            ActionListener<InternalInferModelAction.Response> listener = (ActionListener<InternalInferModelAction.Response>)
+                invocationOnMock.getArguments()[2];
+            listener.onFailure(new IllegalArgumentException("bad value"));
+            return null;
+        }).when(client).execute(eq(InternalInferModelAction.INSTANCE), any(), any());
+        inferenceProcessor.execute(documents, handlers);
+        assertThat(requests.get(), equalTo(1 + numDocs));
+        for (int i = 0; i < numDocs; i++) {
+            assertThat(failures[i], instanceOf(IllegalArgumentException.class));
+        }
+    }
+
+    public void testIsCausedByDocument() {
+        assertTrue(InferenceProcessor.isCausedByDocument(new IllegalArgumentException("bad value")));
+        assertTrue(InferenceProcessor.isCausedByDocument(new ClassCastException("bad type")));
+        assertFalse(InferenceProcessor.isCausedByDocument(new EsRejectedExecutionException("rejected")));
+        assertFalse(InferenceProcessor.isCausedByDocument(new ResourceNotFoundException("missing model")));
+        assertFalse(InferenceProcessor.isCausedByDocument(
+            new CircuitBreakingException("tripped", CircuitBreaker.Durability.TRANSIENT)));
+        assertFalse(InferenceProcessor.isCausedByDocument(new ElasticsearchSecurityException("unlicensed", RestStatus.FORBIDDEN)));
+    }
 }